@@ -0,0 +1,113 @@
+package com.ntt.airline.benchmark;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.training.airline.dto.BookingDto;
+import com.training.airline.dto.FlightAvailDto;
+import com.training.airline.dto.FlightDto;
+import com.training.airline.dto.PassengerDto;
+import com.training.airline.dto.UserDto;
+import com.training.airline.model.Booking;
+import com.training.airline.model.City;
+import com.training.airline.model.Flight;
+import com.training.airline.model.FlightAvail;
+import com.training.airline.model.Passenger;
+import com.training.airline.model.User;
+
+/**
+ * Object graphs shaped like the ones the services convert and validate on each
+ * request.
+ */
+final class BenchmarkData {
+
+	private static final City CHENNAI = city(1, "Chennai", "MAA");
+
+	private static final City DELHI = city(2, "Delhi", "DEL");
+
+	private BenchmarkData() {
+	}
+
+	static List<FlightAvail> flightAvails(int count, int flightsPerDay) {
+
+		List<Flight> flights = new ArrayList<>(flightsPerDay);
+		for (int i = 0; i < flightsPerDay; i++) {
+			flights.add(flight("AI" + (100 + i)));
+		}
+
+		List<FlightAvail> flightAvails = new ArrayList<>(count);
+		LocalDate firstDay = LocalDate.of(2022, 7, 1);
+		for (int i = 0; i < count; i++) {
+			FlightAvail flightAvail = new FlightAvail(Date.valueOf(firstDay.plusDays(i / flightsPerDay)), 120,
+					4500f + i % 7 * 250f);
+			flightAvail.setFlight(flights.get(i % flightsPerDay));
+			flightAvails.add(flightAvail);
+		}
+		return flightAvails;
+
+	}
+
+	static Booking booking(int passengers) {
+
+		User user = new User("Asha Raman", "5f1d7a", "4111111111111111", 'V', 12, 2027, 34);
+		user.setUserId(42);
+
+		FlightAvail flightAvail = new FlightAvail(Date.valueOf("2022-07-01"), 120, 4500f);
+		flightAvail.setFlight(flight("AI101"));
+
+		Booking booking = new Booking("B", passengers, 4500f * passengers);
+		booking.setReferenceId(1001);
+		booking.setUser(user);
+		booking.setFlight(flightAvail);
+
+		List<Passenger> passengerList = new ArrayList<>(passengers);
+		for (int i = 0; i < passengers; i++) {
+			Passenger passenger = new Passenger("Passenger " + i, 20 + i % 50, "B");
+			passenger.setTicketNumber(5000 + i);
+			passenger.setBooking(booking);
+			passengerList.add(passenger);
+		}
+		booking.setPassengers(passengerList);
+		return booking;
+
+	}
+
+	static BookingDto bookingDto(int passengers) {
+
+		UserDto user = new UserDto(42, "Asha Raman", "5f1d7a", "4111111111111111", 'V', 12, 2027, 34);
+
+		FlightAvailDto flightAvail = new FlightAvailDto(Date.valueOf("2022-07-01"), 120, 4500f);
+		flightAvail.setFlight(new FlightDto("AI101", Time.valueOf("06:00:00"), Time.valueOf("08:30:00")));
+
+		BookingDto bookingDto = new BookingDto(null, user, flightAvail, "B", passengers, 4500f * passengers);
+
+		List<PassengerDto> passengerList = new ArrayList<>(passengers);
+		for (int i = 0; i < passengers; i++) {
+			passengerList.add(new PassengerDto(null, "Passenger " + i, 20 + i % 50, "B"));
+		}
+		bookingDto.setPassengers(passengerList);
+		return bookingDto;
+
+	}
+
+	private static Flight flight(String flightId) {
+
+		Flight flight = new Flight(flightId, Time.valueOf("06:00:00"), Time.valueOf("08:30:00"));
+		flight.setOriginCity(CHENNAI);
+		flight.setDestinationCity(DELHI);
+		return flight;
+
+	}
+
+	private static City city(int cityId, String cityName, String airport) {
+
+		City city = new City(cityName, "India", airport);
+		city.setCityId(cityId);
+		return city;
+
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.ntt.airline.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.training.airline.dto.BookingDto;
+import com.training.airline.dto.FlightAvailDto;
+import com.training.airline.model.Booking;
+import com.training.airline.model.FlightAvail;
+import com.training.airline.utility.DtoConverter;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoConverterBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BookingState {
+
+		// a single traveller, the largest party accepted by the booking form, and a
+		// group booking
+		@Param({ "1", "9", "50" })
+		public int passengers;
+
+		public Booking booking;
+
+		@Setup
+		public void setUp() {
+			booking = BenchmarkData.booking(passengers);
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class FlightAvailState {
+
+		// a day of a busy route, and a month of it
+		@Param({ "60", "1800" })
+		public int flightAvails;
+
+		public List<FlightAvail> flightAvailList;
+
+		@Setup
+		public void setUp() {
+			flightAvailList = BenchmarkData.flightAvails(flightAvails, 60);
+		}
+
+	}
+
+	@Benchmark
+	public BookingDto bookingToBookingDto(BookingState state) {
+		return DtoConverter.bookingToBookingDto(state.booking);
+	}
+
+	@Benchmark
+	public List<FlightAvailDto> flightAvailListToFlightAvailListDto(FlightAvailState state) {
+		return DtoConverter.flightAvailListToFlightAvailListDto(state.flightAvailList);
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.ntt.airline.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import com.training.airline.config.MethodMetricsPostProcessor;
+import com.training.airline.service.AirlineMetrics;
+import com.training.airline.service.SeatInventoryService;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Overhead of timing a service method. The same method of the seat inventory
+ * is called directly, through the proxy of the method metrics post processor,
+ * and the timer it records to is called on its own. The timed call should stay
+ * within a microsecond of the direct one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MethodMetricsBenchmark {
+
+	private SeatInventoryService direct;
+
+	private SeatInventoryService timed;
+
+	private Timer timer;
+
+	@Setup
+	public void setUp() throws Exception {
+
+		AirlineMetrics airlineMetrics = new AirlineMetrics();
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("airlineMetrics", airlineMetrics);
+
+		MethodMetricsPostProcessor postProcessor = new MethodMetricsPostProcessor();
+		postProcessor.setBeanFactory(beanFactory);
+
+		direct = new SeatInventoryService();
+		timed = (SeatInventoryService) postProcessor.postProcessAfterInitialization(new SeatInventoryService(),
+				"seatInventoryService");
+		timer = airlineMetrics.timer("service", SeatInventoryService.class,
+				SeatInventoryService.class.getMethod("getReservedSeats"));
+
+	}
+
+	@Benchmark
+	public long direct() {
+		return direct.getReservedSeats();
+	}
+
+	@Benchmark
+	public long timed() {
+		return timed.getReservedSeats();
+	}
+
+	@Benchmark
+	public void timerRecord() {
+		timer.record(150, TimeUnit.NANOSECONDS);
+	}
+
+}
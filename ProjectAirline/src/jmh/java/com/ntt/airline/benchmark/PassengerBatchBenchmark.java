@@ -0,0 +1,190 @@
+package com.ntt.airline.benchmark;
+
+import java.lang.reflect.Field;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.util.ReflectionUtils;
+
+import com.training.airline.model.Booking;
+import com.training.airline.model.City;
+import com.training.airline.model.Flight;
+import com.training.airline.model.FlightAvail;
+import com.training.airline.model.Passenger;
+import com.training.airline.model.User;
+import com.training.airline.repository.PassengerBatchRepositoryImpl;
+
+/**
+ * The passengers of a booking saved against an in-memory h2 database: one
+ * insert for each passenger with its generated ticket number read back, the
+ * shape of the P_passenger_sav call the booking used to make for each
+ * passenger, and the jdbc batch of PassengerBatchRepositoryImpl. Each
+ * invocation runs in its own transaction, which is rolled back so that the
+ * table keeps its size. The database is in the same process, so the network
+ * round trip each statement costs against mysql is not part of the numbers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PassengerBatchBenchmark {
+
+	private static final String INSERT_PASSENGER = "INSERT INTO projectairline.alr_passengers"
+			+ " (reference_id, pass_name, age, status) VALUES (?, ?, ?, 'B')";
+
+	// a single traveller, the largest party accepted by the booking form, and a
+	// group booking
+	@Param({ "1", "9", "50" })
+	public int passengers;
+
+	private LocalContainerEntityManagerFactoryBean factoryBean;
+
+	private EntityManagerFactory entityManagerFactory;
+
+	private Integer referenceId;
+
+	private List<Passenger> passengerList;
+
+	private PassengerBatchRepositoryImpl passengerBatchRepository;
+
+	// the entity manager of the repository, set to the one of each invocation
+	private Field entityManagerField;
+
+	@Setup
+	public void setUp() {
+
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:passengerbatch;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;"
+						+ "INIT=CREATE SCHEMA IF NOT EXISTS projectairline",
+				"sa", "");
+
+		factoryBean = new LocalContainerEntityManagerFactoryBean();
+		factoryBean.setDataSource(dataSource);
+		factoryBean.setPackagesToScan("com.training.airline.model");
+		factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+		Map<String, Object> jpaProperties = new HashMap<>();
+		jpaProperties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		jpaProperties.put("hibernate.default_schema", "projectairline");
+		jpaProperties.put("hibernate.hbm2ddl.auto", "create");
+		jpaProperties.put("javax.persistence.sharedCache.mode", "NONE");
+		jpaProperties.put("hibernate.cache.use_second_level_cache", "false");
+		jpaProperties.put("hibernate.cache.use_query_cache", "false");
+		factoryBean.setJpaPropertyMap(jpaProperties);
+		factoryBean.afterPropertiesSet();
+		entityManagerFactory = factoryBean.getObject();
+
+		// the booking the passengers belong to
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		entityManager.getTransaction().begin();
+		City chennai = new City("Chennai", "India", "MAA");
+		City delhi = new City("Delhi", "India", "DEL");
+		entityManager.persist(chennai);
+		entityManager.persist(delhi);
+		Flight flight = new Flight("AI101", Time.valueOf("06:00:00"), Time.valueOf("08:30:00"));
+		flight.setOriginCity(chennai);
+		flight.setDestinationCity(delhi);
+		entityManager.persist(flight);
+		FlightAvail flightAvail = new FlightAvail(Date.valueOf("2022-07-01"), 120, 4500f);
+		flightAvail.setFlight(flight);
+		entityManager.persist(flightAvail);
+		User user = new User("Asha Raman", "5f1d7a", "4111111111111111", 'V', 12, 2027, 34);
+		entityManager.persist(user);
+		Booking booking = new Booking("B", passengers, 4500f * passengers);
+		booking.setUser(user);
+		booking.setFlight(flightAvail);
+		entityManager.persist(booking);
+		entityManager.getTransaction().commit();
+		entityManager.close();
+
+		referenceId = booking.getReferenceId();
+		passengerList = new ArrayList<>(passengers);
+		for (int i = 0; i < passengers; i++) {
+			passengerList.add(new Passenger("Passenger " + i, 20 + i % 50, "B"));
+		}
+
+		passengerBatchRepository = new PassengerBatchRepositoryImpl();
+		entityManagerField = ReflectionUtils.findField(PassengerBatchRepositoryImpl.class, "entityManager");
+		ReflectionUtils.makeAccessible(entityManagerField);
+
+	}
+
+	@TearDown
+	public void tearDown() {
+		factoryBean.destroy();
+	}
+
+	@Benchmark
+	public List<Integer> insertPerPassenger() {
+
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		entityManager.getTransaction().begin();
+		try {
+			return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+				List<Integer> ticketNumbers = new ArrayList<>(passengerList.size());
+				for (Passenger passenger : passengerList) {
+					try (PreparedStatement statement = connection.prepareStatement(INSERT_PASSENGER,
+							Statement.RETURN_GENERATED_KEYS)) {
+						statement.setInt(1, referenceId);
+						statement.setString(2, passenger.getPassengerName());
+						statement.setInt(3, passenger.getAge());
+						statement.executeUpdate();
+						try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+							generatedKeys.next();
+							ticketNumbers.add(generatedKeys.getInt(1));
+						}
+					}
+				}
+				return ticketNumbers;
+			});
+		} finally {
+			entityManager.getTransaction().rollback();
+			entityManager.close();
+		}
+
+	}
+
+	@Benchmark
+	public List<Integer> batch() throws Exception {
+
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		entityManager.getTransaction().begin();
+		try {
+			ReflectionUtils.setField(entityManagerField, passengerBatchRepository, entityManager);
+			return passengerBatchRepository.savePassengersRepository(referenceId, passengerList);
+		} finally {
+			entityManager.getTransaction().rollback();
+			entityManager.close();
+		}
+
+	}
+
+}
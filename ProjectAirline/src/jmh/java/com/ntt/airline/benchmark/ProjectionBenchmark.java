@@ -0,0 +1,212 @@
+package com.ntt.airline.benchmark;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import com.training.airline.dto.FlightAvailDto;
+import com.training.airline.dto.FlightDto;
+import com.training.airline.dto.FlightSeatsDto;
+import com.training.airline.model.City;
+import com.training.airline.model.Flight;
+import com.training.airline.model.FlightAvail;
+import com.training.airline.utility.DtoConverter;
+
+/**
+ * The flight search read path against an in-memory h2 database, without the
+ * second level cache, so that each invocation reads its rows: the flight
+ * availabilities loaded as entities with their flights and cities and then
+ * converted, the scalar rows the searches used to read, and the flight seats
+ * dtos they read now. The flight dtos of the rows come from a map, as they come
+ * from the route index in the services. Run with -prof gc to compare the
+ * allocation of each path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+	private static final String ENTITIES = "SELECT fa FROM alr_flightavail fa JOIN FETCH fa.flight f WHERE (f.originCity.cityId = :originCityId) AND (f.destinationCity.cityId = :destinationCityId) AND (fa.flightDate BETWEEN :startDate AND :endDate) ORDER BY fa.flightDate, f.departureTime";
+
+	private static final String ROWS = "SELECT f.flightId, fa.flightDate, fa.seats, fa.cost FROM alr_flightavail fa JOIN fa.flight f WHERE (f.originCity.cityId = :originCityId) AND (f.destinationCity.cityId = :destinationCityId) AND (fa.flightDate BETWEEN :startDate AND :endDate) ORDER BY fa.flightDate, f.departureTime";
+
+	private static final String PROJECTION = "SELECT new com.training.airline.dto.FlightSeatsDto(f.flightId, fa.flightDate, fa.seats, fa.cost) FROM alr_flightavail fa JOIN fa.flight f WHERE (f.originCity.cityId = :originCityId) AND (f.destinationCity.cityId = :destinationCityId) AND (fa.flightDate BETWEEN :startDate AND :endDate) ORDER BY fa.flightDate, f.departureTime";
+
+	private static final LocalDate FIRST_DAY = LocalDate.of(2022, 7, 1);
+
+	// a day of a route, and a month of it
+	@Param({ "1", "30" })
+	public int days;
+
+	private LocalContainerEntityManagerFactoryBean factoryBean;
+
+	private EntityManagerFactory entityManagerFactory;
+
+	private Map<String, FlightDto> flightDtos;
+
+	private Integer originCityId;
+
+	private Integer destinationCityId;
+
+	private Date startDate;
+
+	private Date endDate;
+
+	@Setup
+	public void setUp() {
+
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:projection;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+
+		factoryBean = new LocalContainerEntityManagerFactoryBean();
+		factoryBean.setDataSource(dataSource);
+		factoryBean.setPackagesToScan("com.training.airline.model");
+		factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+		Map<String, Object> jpaProperties = new HashMap<>();
+		jpaProperties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		jpaProperties.put("hibernate.hbm2ddl.auto", "create");
+		jpaProperties.put("javax.persistence.sharedCache.mode", "NONE");
+		jpaProperties.put("hibernate.cache.use_second_level_cache", "false");
+		jpaProperties.put("hibernate.cache.use_query_cache", "false");
+		factoryBean.setJpaPropertyMap(jpaProperties);
+		factoryBean.afterPropertiesSet();
+		entityManagerFactory = factoryBean.getObject();
+
+		flightDtos = new HashMap<>();
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		entityManager.getTransaction().begin();
+
+		// four cities, with twenty flights a day on each route between them, for a
+		// month
+		List<City> cities = new ArrayList<>();
+		for (String[] city : new String[][] { { "Chennai", "MAA" }, { "Delhi", "DEL" }, { "Mumbai", "BOM" },
+				{ "Kolkata", "CCU" } }) {
+			City entity = new City(city[0], "India", city[1]);
+			entityManager.persist(entity);
+			cities.add(entity);
+		}
+		for (City origin : cities) {
+			for (City destination : cities) {
+				if (origin == destination) {
+					continue;
+				}
+				for (int i = 0; i < 20; i++) {
+					LocalTime departure = LocalTime.of(5, 0).plusMinutes(45L * i);
+					Flight flight = new Flight(origin.getAirport() + destination.getAirport() + i,
+							Time.valueOf(departure), Time.valueOf(departure.plusMinutes(150)));
+					flight.setOriginCity(origin);
+					flight.setDestinationCity(destination);
+					entityManager.persist(flight);
+					flightDtos.put(flight.getFlightId(), DtoConverter.flightToFlightDto(flight));
+					for (int day = 0; day < 30; day++) {
+						FlightAvail flightAvail = new FlightAvail(Date.valueOf(FIRST_DAY.plusDays(day)), 120,
+								4500f + i % 7 * 250f);
+						flightAvail.setFlight(flight);
+						entityManager.persist(flightAvail);
+					}
+				}
+			}
+		}
+
+		entityManager.getTransaction().commit();
+		entityManager.close();
+
+		originCityId = cities.get(0).getCityId();
+		destinationCityId = cities.get(1).getCityId();
+		startDate = Date.valueOf(FIRST_DAY);
+		endDate = Date.valueOf(FIRST_DAY.plusDays(days - 1L));
+
+	}
+
+	@TearDown
+	public void tearDown() {
+		factoryBean.destroy();
+	}
+
+	@Benchmark
+	public List<FlightAvailDto> entities() {
+
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			List<FlightAvail> flightAvails = entityManager.createQuery(ENTITIES, FlightAvail.class)
+					.setParameter("originCityId", originCityId).setParameter("destinationCityId", destinationCityId)
+					.setParameter("startDate", startDate).setParameter("endDate", endDate).getResultList();
+			return DtoConverter.flightAvailListToFlightAvailListDto(flightAvails);
+		} finally {
+			entityManager.close();
+		}
+
+	}
+
+	@Benchmark
+	public List<FlightAvailDto> rows() {
+
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			List<Object[]> rows = entityManager.createQuery(ROWS, Object[].class)
+					.setParameter("originCityId", originCityId).setParameter("destinationCityId", destinationCityId)
+					.setParameter("startDate", startDate).setParameter("endDate", endDate).getResultList();
+			List<FlightAvailDto> flightAvailDtos = new ArrayList<>(rows.size());
+			for (Object[] row : rows) {
+				FlightAvailDto flightAvailDto = new FlightAvailDto((Date) row[1], (Integer) row[2], (Float) row[3]);
+				flightAvailDto.setFlight(flightDtos.get(row[0]));
+				flightAvailDtos.add(flightAvailDto);
+			}
+			return flightAvailDtos;
+		} finally {
+			entityManager.close();
+		}
+
+	}
+
+	@Benchmark
+	public List<FlightAvailDto> projection() {
+
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			List<FlightSeatsDto> seats = entityManager.createQuery(PROJECTION, FlightSeatsDto.class)
+					.setParameter("originCityId", originCityId).setParameter("destinationCityId", destinationCityId)
+					.setParameter("startDate", startDate).setParameter("endDate", endDate).getResultList();
+			List<FlightAvailDto> flightAvailDtos = new ArrayList<>(seats.size());
+			for (FlightSeatsDto flightSeats : seats) {
+				FlightAvailDto flightAvailDto = new FlightAvailDto(flightSeats.getFlightDate(),
+						flightSeats.getSeats(), flightSeats.getCost());
+				flightAvailDto.setFlight(flightDtos.get(flightSeats.getFlightId()));
+				flightAvailDtos.add(flightAvailDto);
+			}
+			return flightAvailDtos;
+		} finally {
+			entityManager.close();
+		}
+
+	}
+
+}
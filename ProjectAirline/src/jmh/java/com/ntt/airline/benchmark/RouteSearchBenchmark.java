@@ -0,0 +1,194 @@
+package com.ntt.airline.benchmark;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import com.training.airline.dto.FlightAvailDto;
+import com.training.airline.model.City;
+import com.training.airline.model.Flight;
+import com.training.airline.model.FlightAvail;
+import com.training.airline.utility.DtoConverter;
+
+/**
+ * The search of the flights available between two cities on a date against an
+ * in-memory h2 database, without the second level cache: the cities looked up
+ * by name, the flights of the route loaded and then one availability query for
+ * each flight, as getFlightsBetweenCityOnDate used to run it, and the flights of
+ * the route with their cities in one query followed by the availabilities of
+ * the route in a second one. The statements each path runs are printed once on
+ * setup. The database is in the same process, so the network round trip each
+ * statement costs against mysql is not part of the numbers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteSearchBenchmark {
+
+	private static final String CITY_BY_NAME = "SELECT c FROM alr_cities c WHERE c.cityName = :cityName";
+
+	private static final String FLIGHTS_BY_ROUTE = "SELECT * FROM projectairline.alr_flights WHERE (origin_city_id = :origin) AND (dest_city_id = :destination)";
+
+	private static final String FLIGHT_AVAILABLE = "SELECT * FROM projectairline.alr_flightavail WHERE (flight_id = :flightId) AND (flight_date = :travelOn)";
+
+	private static final String FLIGHTS_ON_ROUTE = "SELECT f FROM alr_flights f JOIN FETCH f.originCity oc JOIN FETCH f.destinationCity dc WHERE (oc.cityName = :originCity) AND (dc.cityName = :destinationCity) ORDER BY f.departureTime";
+
+	private static final String FLIGHTS_AVAILABLE_ON_ROUTE = "SELECT fa FROM alr_flightavail fa JOIN fa.flight f JOIN f.originCity oc JOIN f.destinationCity dc WHERE (oc.cityName = :originCity) AND (dc.cityName = :destinationCity) AND (fa.flightDate = :travelOn) ORDER BY f.departureTime";
+
+	private static final Date TRAVEL_ON = Date.valueOf("2022-07-01");
+
+	// a route with a few flights a day, and a busy one
+	@Param({ "10", "60" })
+	public int flights;
+
+	private LocalContainerEntityManagerFactoryBean factoryBean;
+
+	private EntityManagerFactory entityManagerFactory;
+
+	@Setup
+	public void setUp() {
+
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:routesearch;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;"
+						+ "INIT=CREATE SCHEMA IF NOT EXISTS projectairline",
+				"sa", "");
+
+		factoryBean = new LocalContainerEntityManagerFactoryBean();
+		factoryBean.setDataSource(dataSource);
+		factoryBean.setPackagesToScan("com.training.airline.model");
+		factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+		Map<String, Object> jpaProperties = new HashMap<>();
+		jpaProperties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		jpaProperties.put("hibernate.default_schema", "projectairline");
+		jpaProperties.put("hibernate.hbm2ddl.auto", "create");
+		jpaProperties.put("javax.persistence.sharedCache.mode", "NONE");
+		jpaProperties.put("hibernate.cache.use_second_level_cache", "false");
+		jpaProperties.put("hibernate.cache.use_query_cache", "false");
+		jpaProperties.put("hibernate.generate_statistics", "true");
+		factoryBean.setJpaPropertyMap(jpaProperties);
+		factoryBean.afterPropertiesSet();
+		entityManagerFactory = factoryBean.getObject();
+
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		entityManager.getTransaction().begin();
+
+		// the flights of the route searched, each flying on the date, and as many on the
+		// way back, which the search must leave out
+		City chennai = new City("Chennai", "India", "MAA");
+		City delhi = new City("Delhi", "India", "DEL");
+		entityManager.persist(chennai);
+		entityManager.persist(delhi);
+		for (City[] route : new City[][] { { chennai, delhi }, { delhi, chennai } }) {
+			for (int i = 0; i < flights; i++) {
+				LocalTime departure = LocalTime.of(0, 0).plusMinutes(1440L * i / flights);
+				Flight flight = new Flight(route[0].getAirport() + route[1].getAirport() + i, Time.valueOf(departure),
+						Time.valueOf(departure.plusMinutes(150)));
+				flight.setOriginCity(route[0]);
+				flight.setDestinationCity(route[1]);
+				entityManager.persist(flight);
+				FlightAvail flightAvail = new FlightAvail(TRAVEL_ON, 120, 4500f + i % 7 * 250f);
+				flightAvail.setFlight(flight);
+				entityManager.persist(flightAvail);
+			}
+		}
+
+		entityManager.getTransaction().commit();
+		entityManager.close();
+
+		// the statements each path runs for one search
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		for (Function<RouteSearchBenchmark, List<FlightAvailDto>> path : List
+				.<Function<RouteSearchBenchmark, List<FlightAvailDto>>>of(RouteSearchBenchmark::queryPerFlight,
+						RouteSearchBenchmark::twoQueries)) {
+			statistics.clear();
+			int found = path.apply(this).size();
+			System.out.println(found + " flights found with " + statistics.getPrepareStatementCount() + " statements");
+		}
+
+	}
+
+	@TearDown
+	public void tearDown() {
+		factoryBean.destroy();
+	}
+
+	@Benchmark
+	public List<FlightAvailDto> queryPerFlight() {
+
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			City origin = entityManager.createQuery(CITY_BY_NAME, City.class).setParameter("cityName", "Chennai")
+					.getSingleResult();
+			City destination = entityManager.createQuery(CITY_BY_NAME, City.class).setParameter("cityName", "Delhi")
+					.getSingleResult();
+			@SuppressWarnings("unchecked")
+			List<Flight> flightList = entityManager.createNativeQuery(FLIGHTS_BY_ROUTE, Flight.class)
+					.setParameter("origin", origin.getCityId()).setParameter("destination", destination.getCityId())
+					.getResultList();
+			List<FlightAvailDto> flightAvailDtos = new ArrayList<>(flightList.size());
+			for (Flight flight : flightList) {
+				@SuppressWarnings("unchecked")
+				List<FlightAvail> flightAvails = entityManager.createNativeQuery(FLIGHT_AVAILABLE, FlightAvail.class)
+						.setParameter("flightId", flight.getFlightId()).setParameter("travelOn", TRAVEL_ON)
+						.getResultList();
+				if (!flightAvails.isEmpty()) {
+					flightAvailDtos.add(DtoConverter.flightAvailToFlightAvailDto(flightAvails.get(0)));
+				}
+			}
+			return flightAvailDtos;
+		} finally {
+			entityManager.close();
+		}
+
+	}
+
+	@Benchmark
+	public List<FlightAvailDto> twoQueries() {
+
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			// the flights are loaded first, so that the availabilities resolve their flight
+			// from the persistence context
+			entityManager.createQuery(FLIGHTS_ON_ROUTE, Flight.class).setParameter("originCity", "Chennai")
+					.setParameter("destinationCity", "Delhi").getResultList();
+			List<FlightAvail> flightAvails = entityManager.createQuery(FLIGHTS_AVAILABLE_ON_ROUTE, FlightAvail.class)
+					.setParameter("originCity", "Chennai").setParameter("destinationCity", "Delhi")
+					.setParameter("travelOn", TRAVEL_ON).getResultList();
+			return DtoConverter.flightAvailListToFlightAvailListDto(flightAvails);
+		} finally {
+			entityManager.close();
+		}
+
+	}
+
+}
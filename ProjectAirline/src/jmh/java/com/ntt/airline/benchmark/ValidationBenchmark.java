@@ -0,0 +1,43 @@
+package com.ntt.airline.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.training.airline.dto.BookingDto;
+import com.training.airline.utility.Validation;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+	@Param({ "9", "50", "500" })
+	public int passengers;
+
+	private BookingDto bookingDto;
+
+	@Setup
+	public void setUp() {
+		bookingDto = BenchmarkData.bookingDto(passengers);
+	}
+
+	@Benchmark
+	public boolean bookingValidation() {
+		return Validation.bookingValidation(bookingDto);
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.ntt.airline.loadtest;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.descriptor.web.FilterDef;
+import org.apache.tomcat.util.descriptor.web.FilterMap;
+import org.springframework.web.context.support.XmlWebApplicationContext;
+import org.springframework.web.filter.DelegatingFilterProxy;
+import org.springframework.web.servlet.DispatcherServlet;
+
+/**
+ * The webapp on an embedded tomcat. The dispatcher servlet and the filters are
+ * set up as in web.xml, and the servlet reads the same spring-mvc-servlet.xml,
+ * so the whole application is booted. The settings of airline.properties are
+ * overridden with system properties, which take precedence over the property
+ * source.
+ */
+final class AirlineServer {
+
+	private static final String CONTEXT_PATH = "/ProjectAirline";
+
+	// the pools of the application outlive a stop of the context, tomcat would
+	// report each of their threads as a leak
+	private static final Logger LEAK_WARNINGS = Logger.getLogger("org.apache.catalina.loader.WebappClassLoaderBase");
+
+	static {
+		LEAK_WARNINGS.setLevel(Level.SEVERE);
+	}
+
+	private final Tomcat tomcat = new Tomcat();
+
+	private final Map<String, String> settings;
+
+	private final int maxThreads;
+
+	AirlineServer(Map<String, String> settings, int maxThreads) {
+		this.settings = settings;
+		this.maxThreads = maxThreads;
+	}
+
+	String start() throws Exception {
+
+		settings.forEach(System::setProperty);
+
+		File baseDir = Files.createTempDirectory("airline-loadtest").toFile();
+		baseDir.deleteOnExit();
+		tomcat.setBaseDir(baseDir.getAbsolutePath());
+		tomcat.setSilent(true);
+
+		// a free port is chosen, and the request threads are sized like a production
+		// connector
+		Connector connector = new Connector();
+		connector.setPort(0);
+		connector.setProperty("maxThreads", String.valueOf(maxThreads));
+		connector.setProperty("acceptCount", "1000");
+		tomcat.setConnector(connector);
+
+		XmlWebApplicationContext applicationContext = new XmlWebApplicationContext();
+		applicationContext.setConfigLocation("file:src/main/webapp/WEB-INF/spring-mvc-servlet.xml");
+
+		Context context = tomcat.addContext(CONTEXT_PATH, baseDir.getAbsolutePath());
+		Wrapper servlet = Tomcat.addServlet(context, "spring-mvc", new DispatcherServlet(applicationContext));
+		servlet.setLoadOnStartup(1);
+		servlet.setAsyncSupported(true);
+		context.addServletMappingDecoded("/", "spring-mvc");
+
+		// the filters of web.xml
+		FilterDef queryCountFilter = new FilterDef();
+		queryCountFilter.setFilterName("queryCountFilter");
+		queryCountFilter.setFilter(new DelegatingFilterProxy("queryCountFilter", applicationContext));
+		queryCountFilter.setAsyncSupported("true");
+		context.addFilterDef(queryCountFilter);
+		FilterMap queryCountFilterMap = new FilterMap();
+		queryCountFilterMap.setFilterName("queryCountFilter");
+		queryCountFilterMap.addURLPatternDecoded("/*");
+		context.addFilterMap(queryCountFilterMap);
+
+		tomcat.start();
+		return "http://localhost:" + connector.getLocalPort() + CONTEXT_PATH;
+
+	}
+
+	void stop() throws LifecycleException {
+
+		tomcat.stop();
+		tomcat.destroy();
+		settings.keySet().forEach(System::clearProperty);
+
+	}
+
+}
@@ -0,0 +1,250 @@
+package com.ntt.airline.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * End to end load test of the webapp. It boots the webapp on an embedded
+ * tomcat against an in-memory h2 database seeded with a season of synthetic
+ * flights, drives a mix of searches, bookings and cancellations, and reports
+ * the throughput and latency of each operation. It then checks that no flight
+ * was oversold, and that the seats, the passengers and the bookings agree with
+ * each other and with what the clients were told.
+ * 
+ * Run with mvn -Ploadtest compile exec:exec -Dloadtest.args="...", the options
+ * are
+ * 
+ * <pre>
+ * -clients 32        number of clients sending requests
+ * -warmup 10         seconds of warm up, not measured
+ * -seconds 30        seconds measured
+ * -mix 70:20:10      percentages of searches, bookings and cancellations, a
+ *                    tenth of the searches read the first page of a booking
+ *                    history
+ * -hot 20            number of hot flights, which get half of the bookings
+ * -cities 20         number of cities, at most 24
+ * -routes 5          number of routes from each city
+ * -flights 4         number of flights on each route
+ * -days 120          number of days of the season
+ * -seats 150         seats on each flight
+ * -users 500         number of users
+ * -tomcatThreads 200 request threads of tomcat
+ * -threads platform  platform, virtual or both, the threads of the searches of
+ *                    the webapp, both runs the load test once with each, in
+ *                    a process of its own
+ * </pre>
+ * 
+ * The process exits with 1 if a check fails.
+ */
+public final class LoadTest {
+
+	private LoadTest() {
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			options.put(args[i].replaceFirst("^-+", ""), args[i + 1]);
+		}
+
+		String threads = options.getOrDefault("threads", "platform");
+		boolean passed = switch (threads) {
+		case "both" -> fork(options, "platform") & fork(options, "virtual");
+		case "virtual" -> run(options, true);
+		default -> run(options, false);
+		};
+		System.exit(passed ? 0 : 1);
+
+	}
+
+	// the classes of the webapp are loaded once by the class loader of the
+	// application, so a second spring context in the same process would clash
+	// with the proxy classes of the first, each run gets its own process
+	private static boolean fork(Map<String, String> options, String threads) throws Exception {
+
+		String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+		List<String> command = new ArrayList<>(List.of(java, "-Duser.timezone=" + TimeZone.getDefault().getID()));
+		String logbackConfiguration = System.getProperty("logback.configurationFile");
+		if (logbackConfiguration != null) {
+			command.add("-Dlogback.configurationFile=" + logbackConfiguration);
+		}
+		command.addAll(List.of("-classpath", System.getProperty("java.class.path"), LoadTest.class.getName()));
+		options.forEach((name, value) -> {
+			if (!name.equals("threads")) {
+				command.addAll(List.of("-" + name, value));
+			}
+		});
+		command.addAll(List.of("-threads", threads));
+
+		return new ProcessBuilder(command).inheritIO().start().waitFor() == 0;
+
+	}
+
+	private static boolean run(Map<String, String> options, boolean virtualThreads) throws Exception {
+
+		int clients = option(options, "clients", 32);
+		Duration warmup = Duration.ofSeconds(option(options, "warmup", 10));
+		Duration measured = Duration.ofSeconds(option(options, "seconds", 30));
+		String[] mixOption = options.getOrDefault("mix", "70:20:10").split(":");
+		int[] mix = { Integer.parseInt(mixOption[0]), Integer.parseInt(mixOption[1]), Integer.parseInt(mixOption[2]) };
+
+		LoadTestDatabase.Season season = new LoadTestDatabase.Season(option(options, "cities", 20),
+				option(options, "routes", 5), option(options, "flights", 4), option(options, "days", 120),
+				option(options, "seats", 150), option(options, "users", 500));
+
+		String mode = virtualThreads ? "virtual" : "platform";
+		try (LoadTestDatabase database = new LoadTestDatabase("loadtest_" + mode, season)) {
+
+			long seeding = System.nanoTime();
+			database.seed(new Random(42));
+			System.out.printf("Seeded %d cities, %d routes, %d flights and %d flight availabilities in %d ms%n",
+					season.cities, season.routes.size(), season.flightIds.size(),
+					database.count("SELECT COUNT(*) FROM alr_flightavail"), (System.nanoTime() - seeding) / 1_000_000);
+
+			// the settings of airline.properties which differ for the load test
+			Map<String, String> settings = new LinkedHashMap<>();
+			settings.put("airline.datasource.url", LoadTestDriver.url(database.getUrl()));
+			settings.put("airline.datasource.username", "sa");
+			settings.put("airline.datasource.password", "");
+			settings.put("airline.datasource.driver", LoadTestDriver.class.getName());
+			settings.put("airline.jpa.dialect", "org.hibernate.dialect.H2Dialect");
+			settings.put("airline.jpa.show.sql", "false");
+			settings.put("airline.virtual.threads.enabled", String.valueOf(virtualThreads));
+			settings.put("airline.search.executor.virtual.threads", String.valueOf(virtualThreads));
+
+			AirlineServer server = new AirlineServer(settings, option(options, "tomcatThreads", 200));
+			Workload workload;
+			Map<Workload.Operation, OperationStats> stats;
+			JsonNode searchExecutorStatistics;
+			JsonNode queryStatistics;
+			String metrics;
+			long historiesMisread = 0;
+			try {
+
+				String baseUrl = server.start();
+				workload = new Workload(baseUrl, season, mix, option(options, "hot", 20));
+				System.out.printf("Running %d clients on %s threads for %d s after %d s of warm up%n", clients, mode,
+						measured.toSeconds(), warmup.toSeconds());
+				stats = workload.run(clients, warmup, measured);
+				searchExecutorStatistics = workload.get("searchExecutorStatistics").path("searchExecutorStatistics");
+				queryStatistics = workload.get("queryStatistics").path("queryStatistics");
+				metrics = workload.getText("metrics");
+
+				// the booked bookings of some of the users, read page by page, are the ones in
+				// the database, newest first
+				for (int user = 1; user <= Math.min(season.users, 20); user++) {
+					List<Integer> history = workload.getBookingHistory(user, "B");
+					if (!history.equals(database.getBookedReferenceIds(user))) {
+						historiesMisread++;
+					}
+				}
+
+			} finally {
+				server.stop();
+			}
+
+			report(mode, stats, measured, searchExecutorStatistics);
+			reportQueries(queryStatistics);
+
+			// the seats counted by the metrics are the seats taken from the flights
+			Map<String, Long> problems = database.check(workload.getBookingsConfirmed(),
+					workload.getBookingsCancelled());
+			long seatsCounted = metric(metrics, "airline_seats_booked_total")
+					- metric(metrics, "airline_seats_released_total");
+			problems.put("seats taken but not counted by the metrics, or counted but not taken",
+					Math.abs(seatsCounted - database.getSeatsTaken()));
+			problems.put("booking histories whose pages disagree with the bookings of the user", historiesMisread);
+			return check(problems);
+
+		}
+
+	}
+
+	private static void report(String mode, Map<Workload.Operation, OperationStats> stats, Duration measured,
+			JsonNode searchExecutorStatistics) {
+
+		System.out.println();
+		System.out.printf("Searches on %s threads (the executor ran them on %s threads)%n", mode,
+				searchExecutorStatistics.path("virtualThreads").asLong() == 1 ? "virtual" : "platform");
+		System.out.printf("%-28s %9s %9s %9s %9s %10s %9s %9s %9s%n", "operation", "requests", "ok", "rejected",
+				"failed", "per sec", "p50 ms", "p99 ms", "max ms");
+
+		OperationStats total = new OperationStats();
+		List<Workload.Operation> operations = new ArrayList<>(stats.keySet());
+		for (Workload.Operation operation : operations) {
+			OperationStats operationStats = stats.get(operation);
+			line(operation.path, operationStats, measured);
+			total.merge(operationStats);
+		}
+		line("total", total, measured);
+
+		// the first failure of each operation tells why the requests failed
+		for (Workload.Operation operation : operations) {
+			String firstFailure = stats.get(operation).firstFailure;
+			if (firstFailure != null) {
+				System.out.printf("first failure of %s: %s%n", operation.path,
+						firstFailure.length() > 300 ? firstFailure.substring(0, 300) + "..." : firstFailure);
+			}
+		}
+
+	}
+
+	// the counts include the warm up
+	private static void reportQueries(JsonNode queryStatistics) {
+
+		System.out.println();
+		System.out.printf("%-44s %9s %11s %9s %11s %9s%n", "sql statements per request", "requests", "average",
+				"max", "over budget", "repeated");
+		queryStatistics.path("endpoints").fields().forEachRemaining(endpoint -> {
+			JsonNode statistics = endpoint.getValue();
+			System.out.printf("%-44s %9d %11.1f %9d %11d %9d%n", endpoint.getKey(), statistics.path("requests").asLong(),
+					statistics.path("averageStatements").asDouble(), statistics.path("maxStatements").asLong(),
+					statistics.path("overBudget").asLong(), statistics.path("repeatedStatements").asLong());
+		});
+
+	}
+
+	private static void line(String name, OperationStats stats, Duration measured) {
+
+		System.out.printf("%-28s %9d %9d %9d %9d %10.1f %9.1f %9.1f %9.1f%n", name, stats.count(), stats.ok,
+				stats.rejected, stats.failed, stats.count() / (double) measured.toSeconds(),
+				stats.percentileMillis(0.50), stats.percentileMillis(0.99), stats.percentileMillis(1.0));
+
+	}
+
+	private static boolean check(Map<String, Long> problems) {
+
+		System.out.println();
+		boolean passed = true;
+		for (Map.Entry<String, Long> problem : problems.entrySet()) {
+			System.out.printf("%-72s %6d  %s%n", problem.getKey(), problem.getValue(),
+					problem.getValue() == 0 ? "ok" : "FAILED");
+			passed &= problem.getValue() == 0;
+		}
+		System.out.println();
+		return passed;
+
+	}
+
+	// the value of a metric without tags in the text format of prometheus
+	private static long metric(String metrics, String name) {
+		return metrics.lines().filter(line -> line.startsWith(name + " ")).findFirst()
+				.map(line -> (long) Double.parseDouble(line.substring(name.length() + 1))).orElse(-1L);
+	}
+
+	private static int option(Map<String, String> options, String name, int defaultValue) {
+		String value = options.get(name);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+}
@@ -0,0 +1,242 @@
+package com.ntt.airline.loadtest;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.training.airline.utility.Password;
+
+/**
+ * The in-memory h2 database of the load test, in mysql mode, with the tables of
+ * the projectairline database, the stand-ins of its stored procedures, and a
+ * season of synthetic flights. The database lives until the load test closes
+ * it, so that it can be checked after the webapp has stopped.
+ */
+final class LoadTestDatabase implements AutoCloseable {
+
+	static final String PASSWORD = "Passw0rd!";
+
+	private static final String[][] CITIES = { { "Chennai", "MAA" }, { "Delhi", "DEL" }, { "Mumbai", "BOM" },
+			{ "Kolkata", "CCU" }, { "Bengaluru", "BLR" }, { "Hyderabad", "HYD" }, { "Ahmedabad", "AMD" },
+			{ "Pune", "PNQ" }, { "Kochi", "COK" }, { "Goa", "GOI" }, { "Jaipur", "JAI" }, { "Lucknow", "LKO" },
+			{ "Guwahati", "GAU" }, { "Bhubaneswar", "BBI" }, { "Thiruvananthapuram", "TRV" }, { "Patna", "PAT" },
+			{ "Indore", "IDR" }, { "Nagpur", "NAG" }, { "Coimbatore", "CJB" }, { "Srinagar", "SXR" },
+			{ "Varanasi", "VNS" }, { "Amritsar", "ATQ" }, { "Madurai", "IXM" }, { "Ranchi", "IXR" } };
+
+	private final String url;
+
+	private final Connection connection;
+
+	private final Season season;
+
+	LoadTestDatabase(String name, Season season) throws SQLException {
+
+		this.url = "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+		this.season = season;
+
+		// this connection keeps the database open until the checks are done
+		connection = DriverManager.getConnection(url, "sa", "");
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE SCHEMA projectairline");
+			statement.execute("SET SCHEMA projectairline");
+			statement.execute("RUNSCRIPT FROM 'src/loadtest/resources/schema.sql'");
+		}
+		StoredProcedures.create(connection);
+
+	}
+
+	String getUrl() {
+		return url + ";SCHEMA=projectairline";
+	}
+
+	void seed(Random random) throws SQLException {
+
+		connection.setAutoCommit(false);
+
+		try (PreparedStatement statement = connection
+				.prepareStatement("INSERT INTO alr_cities (city_name, country, airport) VALUES (?, 'India', ?)")) {
+			for (int city = 0; city < season.cities; city++) {
+				statement.setString(1, CITIES[city][0]);
+				statement.setString(2, CITIES[city][1]);
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		}
+
+		// each city has flights to the next few cities, spread over the day
+		try (PreparedStatement flights = connection.prepareStatement(
+				"INSERT INTO alr_flights (flight_id, origin_city_id, dest_city_id, dep_time, arr_time) VALUES (?, ?, ?, ?, ?)");
+				PreparedStatement flightAvails = connection.prepareStatement(
+						"INSERT INTO alr_flightavail (flight_id, flight_date, seats, cost) VALUES (?, ?, ?, ?)")) {
+
+			for (int origin = 0; origin < season.cities; origin++) {
+				for (int hop = 1; hop <= season.routesPerCity; hop++) {
+
+					int destination = (origin + hop) % season.cities;
+					season.routes.add(new String[] { CITIES[origin][0], CITIES[destination][0] });
+
+					for (int flight = 0; flight < season.flightsPerRoute; flight++) {
+
+						String flightId = "AL" + (1000 + season.flightIds.size());
+						LocalTime departure = LocalTime.of(5, 30).plusMinutes(flight * 840L / season.flightsPerRoute);
+						flights.setString(1, flightId);
+						flights.setInt(2, origin + 1);
+						flights.setInt(3, destination + 1);
+						flights.setTime(4, Time.valueOf(departure));
+						flights.setTime(5, Time.valueOf(departure.plusMinutes(75 + 15 * hop)));
+						flights.addBatch();
+						season.flightIds.add(flightId);
+						season.flightRoutes.add(season.routes.size() - 1);
+
+						for (int day = 0; day < season.days; day++) {
+							flightAvails.setString(1, flightId);
+							flightAvails.setDate(2, Date.valueOf(season.firstDay.plusDays(day)));
+							flightAvails.setInt(3, season.seats);
+							flightAvails.setFloat(4, 2500 + 250 * random.nextInt(20));
+							flightAvails.addBatch();
+						}
+
+					}
+
+				}
+			}
+
+			flights.executeBatch();
+			flightAvails.executeBatch();
+
+		}
+
+		try (PreparedStatement statement = connection.prepareStatement(
+				"INSERT INTO alr_user (name, password, creditcardno, creditcardtype, creditcardmonth, creditcardyear, age) VALUES (?, ?, '4111111111111111', 'V', 12, 2030, ?)")) {
+			String password = Password.get_SHA_1_SecurePassword(PASSWORD);
+			for (int user = 1; user <= season.users; user++) {
+				statement.setString(1, "Traveller " + user);
+				statement.setString(2, password);
+				statement.setInt(3, 18 + random.nextInt(60));
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		} catch (java.security.NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		connection.commit();
+		connection.setAutoCommit(true);
+
+	}
+
+	/**
+	 * Checks that the seats left on each flight agree with the passengers booked
+	 * on it, and that the bookings agree with what the clients were told.
+	 */
+	long getSeatsTaken() throws SQLException {
+		return count("SELECT COUNT(*) * " + season.seats + " - SUM(seats) FROM alr_flightavail");
+	}
+
+	List<Integer> getBookedReferenceIds(int userId) throws SQLException {
+
+		List<Integer> referenceIds = new ArrayList<>();
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT reference_id FROM alr_bookings WHERE user_id = "
+						+ userId + " AND status = 'B' ORDER BY reference_id DESC")) {
+			while (resultSet.next()) {
+				referenceIds.add(resultSet.getInt(1));
+			}
+		}
+		return referenceIds;
+
+	}
+
+	Map<String, Long> check(long bookingsConfirmed, long bookingsCancelled) throws SQLException {
+
+		// new LinkedHashMap is created here, so that the checks keep their order
+		Map<String, Long> problems = new LinkedHashMap<>();
+
+		problems.put("flights with negative seats", count("SELECT COUNT(*) FROM alr_flightavail WHERE seats < 0"));
+		problems.put("flights whose seats disagree with their passengers", count(
+				"SELECT COUNT(*) FROM alr_flightavail fa LEFT JOIN (SELECT b.flight_id, b.traveldate, COUNT(*) booked FROM alr_bookings b JOIN alr_passengers p ON p.reference_id = b.reference_id WHERE p.status = 'B' GROUP BY b.flight_id, b.traveldate) s ON s.flight_id = fa.flight_id AND s.traveldate = fa.flight_date WHERE fa.seats <> "
+						+ season.seats + " - COALESCE(s.booked, 0)"));
+		problems.put("flights booked beyond their seats", count(
+				"SELECT COUNT(*) FROM (SELECT b.flight_id, b.traveldate FROM alr_bookings b JOIN alr_passengers p ON p.reference_id = b.reference_id WHERE p.status = 'B' GROUP BY b.flight_id, b.traveldate HAVING COUNT(*) > "
+						+ season.seats + ")"));
+		problems.put("bookings whose passengers disagree with their seats", count(
+				"SELECT COUNT(*) FROM alr_bookings b WHERE b.status = 'B' AND b.bookseats <> (SELECT COUNT(*) FROM alr_passengers p WHERE p.reference_id = b.reference_id AND p.status = 'B')"));
+		problems.put("cancelled bookings with booked passengers", count(
+				"SELECT COUNT(*) FROM alr_bookings b WHERE b.status = 'C' AND EXISTS (SELECT 1 FROM alr_passengers p WHERE p.reference_id = b.reference_id AND p.status = 'B')"));
+		problems.put("bookings saved but not confirmed, or confirmed but not saved",
+				Math.abs(count("SELECT COUNT(*) FROM alr_bookings") - bookingsConfirmed));
+		problems.put("bookings cancelled but not confirmed, or confirmed but not cancelled",
+				Math.abs(count("SELECT COUNT(*) FROM alr_bookings WHERE status = 'C'") - bookingsCancelled));
+		return problems;
+
+	}
+
+	long count(String sql) throws SQLException {
+
+		try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+			resultSet.next();
+			return resultSet.getLong(1);
+		}
+
+	}
+
+	@Override
+	public void close() throws SQLException {
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("SHUTDOWN");
+		}
+		connection.close();
+
+	}
+
+	/**
+	 * The shape of the synthetic season, and the routes and flights created for
+	 * it.
+	 */
+	static final class Season {
+
+		final int cities;
+
+		final int routesPerCity;
+
+		final int flightsPerRoute;
+
+		final int days;
+
+		final int seats;
+
+		final int users;
+
+		final LocalDate firstDay = LocalDate.now().plusDays(1);
+
+		final List<String[]> routes = new ArrayList<>();
+
+		final List<String> flightIds = new ArrayList<>();
+
+		final List<Integer> flightRoutes = new ArrayList<>();
+
+		Season(int cities, int routesPerCity, int flightsPerRoute, int days, int seats, int users) {
+			this.cities = Math.min(cities, CITIES.length);
+			this.routesPerCity = Math.min(routesPerCity, this.cities - 1);
+			this.flightsPerRoute = flightsPerRoute;
+			this.days = days;
+			this.seats = seats;
+			this.users = users;
+		}
+
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.ntt.airline.loadtest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Jdbc driver of the load test, for urls of the form jdbc:loadtest:h2:...,
+ * which hands the connections of h2 to the application.
+ *
+ * h2 gives back the out parameters of a call as a result set, so a call of
+ * the stand-ins of the stored procedures reports a result set, which spring
+ * data would read in place of the out parameter. The callable statements of
+ * this driver report that a call has no result set, as mysql does for a
+ * procedure with out parameters, and the out parameter is then read from the
+ * call.
+ */
+public final class LoadTestDriver implements Driver {
+
+	static final String PREFIX = "jdbc:loadtest:";
+
+	private final Driver h2 = new org.h2.Driver();
+
+	static String url(String h2Url) {
+		return PREFIX + h2Url.substring("jdbc:".length());
+	}
+
+	@Override
+	public Connection connect(String url, Properties info) throws SQLException {
+
+		if (!acceptsURL(url)) {
+			return null;
+		}
+		Connection connection = h2.connect("jdbc:" + url.substring(PREFIX.length()), info);
+		return proxy(Connection.class, connection, (method, args) -> {
+			Object value = method.invoke(connection, args);
+			return method.getName().equals("prepareCall") ? callableStatement((CallableStatement) value) : value;
+		});
+
+	}
+
+	@Override
+	public boolean acceptsURL(String url) {
+		return url != null && url.startsWith(PREFIX);
+	}
+
+	@Override
+	public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+		return h2.getPropertyInfo(url, info);
+	}
+
+	@Override
+	public int getMajorVersion() {
+		return h2.getMajorVersion();
+	}
+
+	@Override
+	public int getMinorVersion() {
+		return h2.getMinorVersion();
+	}
+
+	@Override
+	public boolean jdbcCompliant() {
+		return false;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	// the call is executed, but no result set is reported
+	private static CallableStatement callableStatement(CallableStatement statement) {
+		return proxy(CallableStatement.class, statement, (method, args) -> {
+			Object value = method.invoke(statement, args);
+			return method.getName().equals("execute") && method.getParameterCount() == 0 ? Boolean.FALSE : value;
+		});
+	}
+
+	private static <T> T proxy(Class<T> type, T target, Invocation invocation) {
+
+		InvocationHandler handler = (proxy, method, args) -> {
+			try {
+				return invocation.invoke(method, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		};
+		return type.cast(Proxy.newProxyInstance(LoadTestDriver.class.getClassLoader(), new Class<?>[] { type },
+				handler));
+
+	}
+
+	@FunctionalInterface
+	private interface Invocation {
+		Object invoke(Method method, Object[] args) throws Exception;
+	}
+
+}
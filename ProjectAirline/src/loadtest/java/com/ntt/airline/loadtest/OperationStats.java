@@ -0,0 +1,66 @@
+package com.ntt.airline.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * The outcomes and latencies of one operation, recorded by one client thread,
+ * and merged once the load test is over. A request is ok, rejected for a reason
+ * of the business, like a sold out flight, or failed.
+ */
+final class OperationStats {
+
+	long ok;
+
+	long rejected;
+
+	long failed;
+
+	String firstFailure;
+
+	private long[] latencies = new long[1024];
+
+	private int size;
+
+	void record(long latencyNanos) {
+
+		if (size == latencies.length) {
+			latencies = Arrays.copyOf(latencies, size * 2);
+		}
+		latencies[size++] = latencyNanos;
+
+	}
+
+	void merge(OperationStats other) {
+
+		ok += other.ok;
+		rejected += other.rejected;
+		failed += other.failed;
+		if (firstFailure == null) {
+			firstFailure = other.firstFailure;
+		}
+		for (int i = 0; i < other.size; i++) {
+			record(other.latencies[i]);
+		}
+
+	}
+
+	long count() {
+		return ok + rejected + failed;
+	}
+
+	/**
+	 * Returns the latency in milliseconds below which the given fraction of the
+	 * requests completed.
+	 */
+	double percentileMillis(double fraction) {
+
+		if (size == 0) {
+			return 0;
+		}
+		Arrays.sort(latencies, 0, size);
+		int index = (int) Math.ceil(fraction * size) - 1;
+		return latencies[Math.max(index, 0)] / 1_000_000.0;
+
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.ntt.airline.loadtest;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+import org.h2.tools.SimpleResultSet;
+
+/**
+ * Stand-ins for the stored procedures of the projectairline database, created
+ * in h2 with CREATE ALIAS. They insert the row the same way as the procedures,
+ * and give back the generated id as the out parameter, or "Insertion failed".
+ * 
+ * h2 has no out parameters, a callable statement reads them from the columns
+ * of the result set of the call, so each stand-in returns one row with a
+ * column for each parameter, the last one holding the out parameter. The
+ * LoadTestDriver hides this result set from the application.
+ */
+public final class StoredProcedures {
+
+	private static final String INSERTION_FAILED = "Insertion failed";
+
+	private StoredProcedures() {
+	}
+
+	static void create(Connection connection) throws SQLException {
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE ALIAS P_booking_sav FOR \"" + StoredProcedures.class.getName() + ".bookingSave\"");
+			statement.execute(
+					"CREATE ALIAS P_passenger_sav FOR \"" + StoredProcedures.class.getName() + ".passengerSave\"");
+			statement.execute("CREATE ALIAS P_user_sav FOR \"" + StoredProcedures.class.getName() + ".userSave\"");
+		}
+
+	}
+
+	public static ResultSet bookingSave(Connection connection, Integer userId, String flightId, Date date,
+			Integer seats, Float cost, String result) throws SQLException {
+
+		SimpleResultSet resultSet = outParameters(6);
+		if (isColumnList(connection)) {
+			return resultSet;
+		}
+
+		String referenceId = insert(connection,
+				"INSERT INTO alr_bookings (user_id, flight_id, traveldate, status, bookseats, totalcost) VALUES (?, ?, ?, 'B', ?, ?)",
+				userId, flightId, date, seats, cost);
+		return outParameter(resultSet, referenceId);
+
+	}
+
+	public static ResultSet passengerSave(Connection connection, Integer referenceId, String name, Integer age,
+			String result) throws SQLException {
+
+		SimpleResultSet resultSet = outParameters(4);
+		if (isColumnList(connection)) {
+			return resultSet;
+		}
+
+		String ticketNumber = insert(connection,
+				"INSERT INTO alr_passengers (reference_id, pass_name, age, status) VALUES (?, ?, ?, 'B')", referenceId,
+				name, age);
+		return outParameter(resultSet, ticketNumber);
+
+	}
+
+	public static ResultSet userSave(Connection connection, String userName, String password, String creditCardNo,
+			String creditCardType, Integer creditCardMonth, Integer creditCardYear, Integer age, String result)
+			throws SQLException {
+
+		SimpleResultSet resultSet = outParameters(8);
+		if (isColumnList(connection)) {
+			return resultSet;
+		}
+
+		String userId = insert(connection,
+				"INSERT INTO alr_user (name, password, creditcardno, creditcardtype, creditcardmonth, creditcardyear, age) VALUES (?, ?, ?, ?, ?, ?, ?)",
+				userName, password, creditCardNo, creditCardType, creditCardMonth, creditCardYear, age);
+		return outParameter(resultSet, userId);
+
+	}
+
+	// h2 calls the function once with a special connection to learn its columns
+	private static boolean isColumnList(Connection connection) throws SQLException {
+		return connection.getMetaData().getURL().equals("jdbc:columnlist:connection");
+	}
+
+	// the in parameters are left empty, only the out parameter is read
+	private static SimpleResultSet outParameters(int count) {
+
+		SimpleResultSet resultSet = new SimpleResultSet();
+		for (int column = 1; column <= count; column++) {
+			resultSet.addColumn("P" + column, Types.VARCHAR, 0, 0);
+		}
+		return resultSet;
+
+	}
+
+	private static SimpleResultSet outParameter(SimpleResultSet resultSet, String value) {
+
+		Object[] row = new Object[resultSet.getColumnCount()];
+		row[row.length - 1] = value;
+		resultSet.addRow(row);
+		return resultSet;
+
+	}
+
+	private static String insert(Connection connection, String sql, Object... values) throws SQLException {
+
+		try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+			for (int i = 0; i < values.length; i++) {
+				statement.setObject(i + 1, values[i]);
+			}
+			statement.executeUpdate();
+
+			try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+				return generatedKeys.next() ? String.valueOf(generatedKeys.getInt(1)) : INSERTION_FAILED;
+			}
+
+		}
+
+	}
+
+}
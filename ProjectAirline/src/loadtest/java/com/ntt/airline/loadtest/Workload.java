@@ -0,0 +1,319 @@
+package com.ntt.airline.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A mix of searches, bookings and cancellations sent by a number of clients,
+ * each waiting for its response before sending the next request. A tenth of the
+ * searches read the first page of the booking history of a user instead of the
+ * flights. Half of the
+ * bookings go to a few hot flights, which sell out during the run, so that the
+ * seats of the same flight are fought over the way they are before a holiday.
+ */
+final class Workload {
+
+	enum Operation {
+
+		SEARCH_DAY("flightsBetweenCityOnDate"), SEARCH_RANGE("flightsBetweenCityDateRange"),
+		HISTORY("getBookingHistory"), BOOK("saveBooking"), CANCEL("cancelBooking");
+
+		final String path;
+
+		Operation(String path) {
+			this.path = path;
+		}
+
+	}
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final String baseUrl;
+
+	private final LoadTestDatabase.Season season;
+
+	private final int[] mix;
+
+	private final List<int[]> hotFlights = new ArrayList<>();
+
+	private final HttpClient httpClient;
+
+	private final ConcurrentLinkedQueue<int[]> confirmedBookings = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong bookingsConfirmed = new AtomicLong();
+
+	private final AtomicLong bookingsCancelled = new AtomicLong();
+
+	/**
+	 * @param mix percentages of searches, bookings and cancellations
+	 */
+	Workload(String baseUrl, LoadTestDatabase.Season season, int[] mix, int hotFlightCount) {
+
+		this.baseUrl = baseUrl;
+		this.season = season;
+		this.mix = mix;
+		this.httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(10)).build();
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < hotFlightCount; i++) {
+			hotFlights.add(new int[] { random.nextInt(season.flightIds.size()), random.nextInt(Math.min(7, season.days)) });
+		}
+
+	}
+
+	/**
+	 * Runs the clients for the warm up and then for the measured time, and
+	 * returns the merged statistics of the measured time.
+	 */
+	Map<Operation, OperationStats> run(int clients, Duration warmup, Duration measured) throws InterruptedException {
+
+		long start = System.nanoTime();
+		long measureFrom = start + warmup.toNanos();
+		long end = measureFrom + measured.toNanos();
+
+		List<Map<Operation, OperationStats>> results = new ArrayList<>(clients);
+		List<Thread> threads = new ArrayList<>(clients);
+		for (int client = 0; client < clients; client++) {
+			Map<Operation, OperationStats> stats = newStats();
+			results.add(stats);
+			Thread thread = new Thread(() -> runClient(stats, measureFrom, end), "loadtest-client-" + client);
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Map<Operation, OperationStats> merged = newStats();
+		for (Map<Operation, OperationStats> stats : results) {
+			stats.forEach((operation, operationStats) -> merged.get(operation).merge(operationStats));
+		}
+		return merged;
+
+	}
+
+	long getBookingsConfirmed() {
+		return bookingsConfirmed.get();
+	}
+
+	long getBookingsCancelled() {
+		return bookingsCancelled.get();
+	}
+
+	JsonNode get(String path) throws IOException, InterruptedException {
+		return MAPPER.readTree(getText(path));
+	}
+
+	String getText(String path) throws IOException, InterruptedException {
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/airline/" + path)).GET().build();
+		return httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+
+	}
+
+	/**
+	 * Reads the whole booking history of the user with the given status, page by
+	 * page, and returns the reference ids in the order they were returned.
+	 */
+	List<Integer> getBookingHistory(int userId, String status) throws IOException, InterruptedException {
+
+		List<Integer> referenceIds = new ArrayList<>();
+		String cursor = null;
+		do {
+			Map<String, Object> body = new LinkedHashMap<>();
+			body.put("userId", userId);
+			body.put("status", status);
+			body.put("pageSize", 7);
+			body.put("cursor", cursor);
+			HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/airline/getBookingHistory"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body))).build();
+			JsonNode page = MAPPER.readTree(httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body());
+			page.path("bookings").forEach(booking -> referenceIds.add(booking.path("referenceId").asInt()));
+			cursor = page.path("nextCursor").isTextual() ? page.path("nextCursor").asText() : null;
+		} while (cursor != null);
+		return referenceIds;
+
+	}
+
+	private void runClient(Map<Operation, OperationStats> stats, long measureFrom, long end) {
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long now;
+		while ((now = System.nanoTime()) < end) {
+
+			int draw = random.nextInt(100);
+			Operation operation;
+			int[] booking = null;
+			if (draw < mix[0]) {
+				int search = random.nextInt(10);
+				operation = search == 0 ? Operation.HISTORY
+						: search < 3 ? Operation.SEARCH_RANGE : Operation.SEARCH_DAY;
+			} else if (draw < mix[0] + mix[1]) {
+				operation = Operation.BOOK;
+			} else {
+				booking = confirmedBookings.poll();
+				operation = booking == null ? Operation.SEARCH_DAY : Operation.CANCEL;
+			}
+
+			Outcome outcome = send(operation, booking, random);
+			if (now >= measureFrom) {
+				OperationStats operationStats = stats.get(operation);
+				operationStats.record(outcome.latencyNanos);
+				switch (outcome.result) {
+				case OK -> operationStats.ok++;
+				case REJECTED -> operationStats.rejected++;
+				default -> {
+					operationStats.failed++;
+					if (operationStats.firstFailure == null) {
+						operationStats.firstFailure = outcome.detail;
+					}
+				}
+				}
+			}
+
+		}
+
+	}
+
+	private Outcome send(Operation operation, int[] booking, ThreadLocalRandom random) {
+
+		Map<String, Object> body = switch (operation) {
+		case SEARCH_DAY -> searchDay(random);
+		case SEARCH_RANGE -> searchRange(random);
+		case HISTORY -> Map.of("userId", 1 + random.nextInt(season.users), "pageSize", 10);
+		case BOOK -> booking(random);
+		case CANCEL -> Map.of("referenceId", booking[0], "bookedSeats", booking[1]);
+		};
+
+		long started = System.nanoTime();
+		try {
+
+			HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/airline/" + operation.path))
+					.timeout(Duration.ofSeconds(60)).header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body))).build();
+			HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+			long latency = System.nanoTime() - started;
+
+			if (response.statusCode() == 200) {
+				if (operation == Operation.BOOK) {
+					JsonNode saved = MAPPER.readTree(response.body()).path("savedBooking");
+					bookingsConfirmed.incrementAndGet();
+					confirmedBookings.add(
+							new int[] { saved.path("referenceId").asInt(), saved.path("bookedSeats").asInt() });
+				} else if (operation == Operation.CANCEL) {
+					bookingsCancelled.incrementAndGet();
+				}
+				return new Outcome(Result.OK, latency, null);
+			}
+
+			// a sold out flight is the answer expected for some of the bookings
+			boolean soldOut = response.statusCode() == 404 && response.body().contains("exceeds the number of seats");
+			return new Outcome(soldOut ? Result.REJECTED : Result.FAILED, latency,
+					response.statusCode() + " " + response.body());
+
+		} catch (IOException e) {
+			return new Outcome(Result.FAILED, System.nanoTime() - started, e.toString());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new Outcome(Result.FAILED, System.nanoTime() - started, e.toString());
+		}
+
+	}
+
+	private Map<String, Object> searchDay(ThreadLocalRandom random) {
+
+		String[] route = season.routes.get(random.nextInt(season.routes.size()));
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("originCity", route[0]);
+		body.put("destinationCity", route[1]);
+		body.put("travelOn", day(random.nextInt(season.days)));
+		return body;
+
+	}
+
+	private Map<String, Object> searchRange(ThreadLocalRandom random) {
+
+		String[] route = season.routes.get(random.nextInt(season.routes.size()));
+		int first = random.nextInt(Math.max(season.days - 7, 1));
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("originCity", route[0]);
+		body.put("destinationCity", route[1]);
+		body.put("startDate", day(first));
+		body.put("endDate", day(Math.min(first + 6, season.days - 1)));
+		return body;
+
+	}
+
+	private Map<String, Object> booking(ThreadLocalRandom random) {
+
+		int flight;
+		int day;
+		if (!hotFlights.isEmpty() && random.nextBoolean()) {
+			int[] hotFlight = hotFlights.get(random.nextInt(hotFlights.size()));
+			flight = hotFlight[0];
+			day = hotFlight[1];
+		} else {
+			flight = random.nextInt(season.flightIds.size());
+			day = random.nextInt(season.days);
+		}
+
+		int seats = 1 + random.nextInt(4);
+		List<Map<String, Object>> passengers = new ArrayList<>(seats);
+		for (int passenger = 1; passenger <= seats; passenger++) {
+			passengers.add(Map.of("passengerName", "Passenger " + passenger, "age", 18 + random.nextInt(60),
+					"status", "B"));
+		}
+
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("user", Map.of("userId", 1 + random.nextInt(season.users)));
+		body.put("flightAvail",
+				Map.of("flight", Map.of("flightId", season.flightIds.get(flight)), "flightDate", day(day)));
+		body.put("status", "B");
+		body.put("bookedSeats", seats);
+		body.put("totalCost", 0f);
+		body.put("passengers", passengers);
+		return body;
+
+	}
+
+	private String day(int day) {
+		LocalDate date = season.firstDay.plusDays(day);
+		return date.toString();
+	}
+
+	private static Map<Operation, OperationStats> newStats() {
+
+		Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+		for (Operation operation : Operation.values()) {
+			stats.put(operation, new OperationStats());
+		}
+		return stats;
+
+	}
+
+	private enum Result {
+		OK, REJECTED, FAILED
+	}
+
+	private record Outcome(Result result, long latencyNanos, String detail) {
+	}
+
+}
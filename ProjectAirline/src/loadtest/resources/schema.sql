@@ -0,0 +1,73 @@
+-- Tables of the projectairline database, as mapped by the entities, for the
+-- in-memory h2 database of the load test. The stored procedures are created by
+-- the load test, they call com.ntt.airline.loadtest.StoredProcedures.
+
+CREATE TABLE alr_cities (
+	city_id INT AUTO_INCREMENT PRIMARY KEY,
+	city_name VARCHAR(45) NOT NULL,
+	country VARCHAR(45) NOT NULL,
+	airport VARCHAR(10) NOT NULL
+);
+
+CREATE TABLE alr_flights (
+	flight_id VARCHAR(10) PRIMARY KEY,
+	origin_city_id INT NOT NULL REFERENCES alr_cities (city_id),
+	dest_city_id INT NOT NULL REFERENCES alr_cities (city_id),
+	dep_time TIME NOT NULL,
+	arr_time TIME NOT NULL
+);
+
+CREATE TABLE alr_flightavail (
+	flight_id VARCHAR(10) NOT NULL REFERENCES alr_flights (flight_id),
+	flight_date DATE NOT NULL,
+	seats INT NOT NULL,
+	cost DECIMAL(8, 2) NOT NULL,
+	PRIMARY KEY (flight_id, flight_date)
+);
+
+CREATE TABLE alr_user (
+	user_id INT AUTO_INCREMENT PRIMARY KEY,
+	name VARCHAR(45) NOT NULL,
+	password VARCHAR(100) NOT NULL,
+	creditcardno VARCHAR(20) NOT NULL,
+	creditcardtype CHAR(1) NOT NULL,
+	creditcardmonth INT NOT NULL,
+	creditcardyear INT NOT NULL,
+	age INT NOT NULL
+);
+
+CREATE TABLE alr_bookings (
+	reference_id INT AUTO_INCREMENT PRIMARY KEY,
+	user_id INT NOT NULL REFERENCES alr_user (user_id),
+	flight_id VARCHAR(10) NOT NULL,
+	traveldate DATE NOT NULL,
+	status VARCHAR(2) NOT NULL,
+	bookseats INT NOT NULL,
+	totalcost DECIMAL(10, 2) NOT NULL,
+	FOREIGN KEY (flight_id, traveldate) REFERENCES alr_flightavail (flight_id, flight_date)
+);
+
+CREATE INDEX alr_bookings_user ON alr_bookings (user_id);
+
+CREATE TABLE alr_passengers (
+	ticketnumber INT AUTO_INCREMENT PRIMARY KEY,
+	reference_id INT NOT NULL REFERENCES alr_bookings (reference_id),
+	pass_name VARCHAR(45) NOT NULL,
+	age INT NOT NULL,
+	status VARCHAR(2) NOT NULL
+);
+
+CREATE TABLE alr_idempotency_keys (
+	idem_key VARCHAR(200) PRIMARY KEY,
+	reference_id INT NOT NULL,
+	created_on TIMESTAMP NOT NULL
+);
+
+CREATE TABLE alr_seat_holds (
+	hold_id VARCHAR(36) PRIMARY KEY,
+	user_id INT NOT NULL,
+	flight_id VARCHAR(10) NOT NULL,
+	flight_date DATE NOT NULL,
+	seats INT NOT NULL,
+	expires_at TIMESTAMP NOT NULL
+);
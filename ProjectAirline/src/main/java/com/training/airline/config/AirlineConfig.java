@@ -0,0 +1,36 @@
+package com.training.airline.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * This is a class where the application settings are loaded from the
+ * airline.properties file, so that they can be injected using @Value. It also
+ * enables the scheduled tasks of the application.
+ * 
+ * @author Praveen J
+ */
+@Configuration
+@PropertySource("classpath:airline.properties")
+@EnableScheduling
+public class AirlineConfig {
+
+	/**
+	 * This method is annotated with @Bean, so that the placeholders in @Value are
+	 * resolved against the airline.properties file. It is static so that it is
+	 * registered before the other beans are created.
+	 * 
+	 * @return PropertySourcesPlaceholderConfigurer
+	 */
+	@Bean
+	public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+
+		// returning new PropertySourcesPlaceholderConfigurer
+		return new PropertySourcesPlaceholderConfigurer();
+
+	}
+
+}
@@ -1,14 +1,24 @@
 package com.training.airline.config;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.orm.jpa.JpaTransactionManager;
-import org.springframework.orm.jpa.LocalEntityManagerFactoryBean;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import com.training.airline.service.ConnectionPoolMetrics;
+import com.training.airline.service.QueryCounter;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
 /**
  * This is a class where all the configuration beans are written, which supports
  * the execution of the repository related functionalities.
@@ -20,22 +30,194 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableTransactionManagement
 public class JpaConfig {
 
+	/**
+	 * This field holds the jdbc url of the database.
+	 */
+	@Value("${airline.datasource.url}")
+	private String url;
+
+	/**
+	 * This field holds the user name used to connect to the database.
+	 */
+	@Value("${airline.datasource.username}")
+	private String username;
+
+	/**
+	 * This field holds the password used to connect to the database.
+	 */
+	@Value("${airline.datasource.password}")
+	private String password;
+
+	/**
+	 * This field holds the class name of the jdbc driver.
+	 */
+	@Value("${airline.datasource.driver:com.mysql.cj.jdbc.Driver}")
+	private String driverClassName;
+
+	/**
+	 * This field holds the largest number of connections in the pool.
+	 */
+	@Value("${airline.datasource.pool.max.size:20}")
+	private int maximumPoolSize;
+
+	/**
+	 * This field holds the number of idle connections the pool tries to keep.
+	 */
+	@Value("${airline.datasource.pool.min.idle:20}")
+	private int minimumIdle;
+
+	/**
+	 * This field holds the time in milliseconds a request waits for a connection
+	 * before it fails.
+	 */
+	@Value("${airline.datasource.pool.connection.timeout.ms:30000}")
+	private long connectionTimeout;
+
+	/**
+	 * This field holds the time in milliseconds after which an idle connection
+	 * above the minimum is closed.
+	 */
+	@Value("${airline.datasource.pool.idle.timeout.ms:600000}")
+	private long idleTimeout;
+
+	/**
+	 * This field holds the time in milliseconds after which a connection is
+	 * retired, it must be shorter than the wait_timeout of MySQL.
+	 */
+	@Value("${airline.datasource.pool.max.lifetime.ms:1800000}")
+	private long maxLifetime;
+
+	/**
+	 * This field tells whether the driver caches the prepared statements of each
+	 * connection.
+	 */
+	@Value("${airline.datasource.cache.prep.stmts:true}")
+	private boolean cachePrepStmts;
+
+	/**
+	 * This field holds the number of prepared statements cached per connection.
+	 */
+	@Value("${airline.datasource.prep.stmt.cache.size:250}")
+	private int prepStmtCacheSize;
+
+	/**
+	 * This field holds the length of the longest sql statement that is cached.
+	 */
+	@Value("${airline.datasource.prep.stmt.cache.sql.limit:2048}")
+	private int prepStmtCacheSqlLimit;
+
+	/**
+	 * This field tells whether the statements are prepared on the server.
+	 */
+	@Value("${airline.datasource.use.server.prep.stmts:true}")
+	private boolean useServerPrepStmts;
+
+	/**
+	 * This field tells whether the driver rewrites batched inserts into multi row
+	 * inserts.
+	 */
+	@Value("${airline.datasource.rewrite.batched.statements:true}")
+	private boolean rewriteBatchedStatements;
+
+	/**
+	 * This field holds the class name of the hibernate dialect of the database.
+	 */
+	@Value("${airline.jpa.dialect:org.hibernate.dialect.MySQL8Dialect}")
+	private String dialect;
+
+	/**
+	 * This field tells whether hibernate prints the sql statements it runs.
+	 */
+	@Value("${airline.jpa.show.sql:true}")
+	private boolean showSql;
+
+	/**
+	 * This method is annotated with @Bean, so that whenever a connection to the
+	 * database is required within the application, it is taken from this pool
+	 * instead of opening a new one. The pool reports its metrics to the given
+	 * connection pool metrics.
+	 * 
+	 * @param connectionPoolMetrics
+	 * @return HikariDataSource
+	 */
+	@Bean(destroyMethod = "close")
+	public HikariDataSource dataSource(ConnectionPoolMetrics connectionPoolMetrics) {
+
+		// creating an instance of HikariConfig
+		HikariConfig config = new HikariConfig();
+
+		// setting the connection details
+		config.setPoolName("ProjectAirlinePool");
+		config.setJdbcUrl(url);
+		config.setUsername(username);
+		config.setPassword(password);
+		config.setDriverClassName(driverClassName);
+
+		// setting the size of the pool and the timeouts of the connections
+		config.setMaximumPoolSize(maximumPoolSize);
+		config.setMinimumIdle(minimumIdle);
+		config.setConnectionTimeout(connectionTimeout);
+		config.setIdleTimeout(idleTimeout);
+		config.setMaxLifetime(maxLifetime);
+
+		// setting the statement caching and batching of mysql connector/j
+		config.addDataSourceProperty("cachePrepStmts", cachePrepStmts);
+		config.addDataSourceProperty("prepStmtCacheSize", prepStmtCacheSize);
+		config.addDataSourceProperty("prepStmtCacheSqlLimit", prepStmtCacheSqlLimit);
+		config.addDataSourceProperty("useServerPrepStmts", useServerPrepStmts);
+		config.addDataSourceProperty("rewriteBatchedStatements", rewriteBatchedStatements);
+
+		// avoiding the round trips which only read the state of the session again
+		config.addDataSourceProperty("useLocalSessionState", true);
+		config.addDataSourceProperty("cacheResultSetMetadata", true);
+		config.addDataSourceProperty("cacheServerConfiguration", true);
+		config.addDataSourceProperty("elideSetAutoCommits", true);
+		config.addDataSourceProperty("maintainTimeStats", false);
+
+		// setting the metrics tracker of the pool
+		config.setMetricsTrackerFactory(connectionPoolMetrics);
+
+		// returning the pooled data source
+		return new HikariDataSource(config);
+
+	}
+
 	/**
 	 * This method is annotated with @Bean, so that whenever an instance of
 	 * entityManager is required within the application, then this bean will be
-	 * injected.
+	 * injected. The persistence unit takes its connections from the pooled data
+	 * source, and hands its statements to the given query counter.
 	 * 
-	 * @return LocalEntityManagerFactoryBean
+	 * @param dataSource
+	 * @param queryCounter
+	 * @return LocalContainerEntityManagerFactoryBean
 	 */
 	@Bean
-	public LocalEntityManagerFactoryBean entityManagerFactory() {
+	public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource,
+			QueryCounter queryCounter) {
 
-		// creating an instance of LocalEntityManagerFactoryBean
-		LocalEntityManagerFactoryBean entityManagerFactory = new LocalEntityManagerFactoryBean();
+		// creating an instance of LocalContainerEntityManagerFactoryBean
+		LocalContainerEntityManagerFactoryBean entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
 
 		// setting the persistance unit name for the entity manager factory bean
 		entityManagerFactory.setPersistenceUnitName("ProjectAirlineUnit");
 
+		// setting the pooled data source for the entity manager factory bean
+		entityManagerFactory.setDataSource(dataSource);
+
+		// setting the dialect of the database and the printing of the sql statements
+		Map<String, Object> jpaProperties = new HashMap<>();
+		jpaProperties.put("hibernate.dialect", dialect);
+		jpaProperties.put("hibernate.show_sql", showSql);
+		jpaProperties.put("hibernate.format_sql", showSql);
+
+		// counting the statements, the time spent executing them and the entities
+		// loaded for each request
+		jpaProperties.put("hibernate.session_factory.statement_inspector", queryCounter);
+		jpaProperties.put("hibernate.session_factory.interceptor", new QueryCounter.EntityLoadCounter());
+		jpaProperties.put("hibernate.session.events.auto", QueryCounter.ExecutionTimer.class.getName());
+		entityManagerFactory.setJpaPropertyMap(jpaProperties);
+
 		// returning the entity manager factory bean
 		return entityManagerFactory;
 
@@ -0,0 +1,236 @@
+package com.training.airline.config;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Service;
+
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.service.AirlineMetrics;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * This is a bean post processor which times the public methods of the
+ * controllers and the services, the classes of the application named
+ * ...Controller and ...Service. The beans are proxied, or the advice is added
+ * to their existing proxy, and each call is recorded in the timer of its method
+ * in the airline metrics. A controller method which returns a
+ * CompletableFuture is timed until the future completes. An
+ * AirlineServiceException is counted once, when it leaves the outermost service
+ * method of the call.
+ * 
+ * The helpers of the services, the caches and executors, are not timed on their
+ * own, their time is part of the service method which calls them.
+ * 
+ * @author Praveen J
+ */
+@Component
+public class MethodMetricsPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+	/**
+	 * default serialVersionUID is used here.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This field holds the number of service methods the current thread is in, so
+	 * that an exception is counted only by the outermost one.
+	 */
+	private static final ThreadLocal<int[]> SERVICE_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+	/**
+	 * This field holds the bean factory, the airline metrics are looked up from it
+	 * on the first call, as the post processor is created before the other beans.
+	 */
+	private transient BeanFactory beanFactory;
+
+	/**
+	 * This field holds the airline metrics, once they are looked up.
+	 */
+	private transient volatile AirlineMetrics airlineMetrics;
+
+	/**
+	 * This field holds the timer and the layer of each method, so that they are
+	 * looked up once.
+	 */
+	private final transient Map<Method, TimedMethod> timedMethods = new ConcurrentHashMap<>();
+
+	/**
+	 * This constructor creates the advisor which times the methods.
+	 */
+	public MethodMetricsPostProcessor() {
+
+		// the methods are timed before any other advice, such as the transactions, is
+		// run, so that the time of the whole call is recorded
+		setBeforeExistingAdvisors(true);
+		setProxyTargetClass(true);
+		this.advisor = new DefaultPointcutAdvisor(new TimedMethodPointcut(), (MethodInterceptor) this::invoke);
+
+	}
+
+	/**
+	 * This method is used to keep the bean factory the airline metrics are looked
+	 * up from.
+	 * 
+	 * @param beanFactory
+	 */
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		super.setBeanFactory(beanFactory);
+		this.beanFactory = beanFactory;
+	}
+
+	/**
+	 * This method is used to time a call of a controller or service method.
+	 * 
+	 * @param invocation
+	 * @return result of the method
+	 * @throws Throwable
+	 */
+	private Object invoke(MethodInvocation invocation) throws Throwable {
+
+		TimedMethod timedMethod = timedMethods.get(invocation.getMethod());
+		if (timedMethod == null) {
+			timedMethod = timedMethods.computeIfAbsent(invocation.getMethod(),
+					method -> new TimedMethod(invocation.getThis().getClass(), method));
+		}
+		Timer timer = timedMethod.timer;
+		boolean service = timedMethod.service;
+
+		int[] depth = SERVICE_DEPTH.get();
+		if (service) {
+			depth[0]++;
+		}
+		long started = System.nanoTime();
+		boolean completed = true;
+
+		try {
+
+			Object result = invocation.proceed();
+
+			// a search completes on the search executor, it is timed until then
+			if (result instanceof CompletableFuture<?> future && !future.isDone()) {
+				completed = false;
+				future.whenComplete(
+						(value, exception) -> timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+			}
+			return result;
+
+		} catch (AirlineServiceException e) {
+
+			// the exception is counted by the outermost service method only
+			if (service && depth[0] == 1) {
+				getAirlineMetrics().error(e.getMessage());
+			}
+			throw e;
+
+		} finally {
+
+			if (completed) {
+				timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+			}
+			if (service) {
+				depth[0]--;
+			}
+
+		}
+
+	}
+
+	/**
+	 * This method is used to get the airline metrics, they are looked up on the
+	 * first call.
+	 * 
+	 * @return airline metrics
+	 */
+	private AirlineMetrics getAirlineMetrics() {
+
+		AirlineMetrics metrics = airlineMetrics;
+		if (metrics == null) {
+			metrics = beanFactory.getBean(AirlineMetrics.class);
+			airlineMetrics = metrics;
+		}
+		return metrics;
+
+	}
+
+	/**
+	 * This class holds the timer of a method, and whether it is a service method.
+	 */
+	private class TimedMethod {
+
+		/**
+		 * This field holds the timer of the method in the airline metrics.
+		 */
+		private final Timer timer;
+
+		/**
+		 * This field tells whether the method is a service method, or else a
+		 * controller method.
+		 */
+		private final boolean service;
+
+		/**
+		 * This is a parameterized constructor used to look up the timer of the given
+		 * method of the given class.
+		 * 
+		 * @param type   ---> class of the bean, a controller or a service
+		 * @param method ---> method which is timed
+		 */
+		TimedMethod(Class<?> type, Method method) {
+			service = type.isAnnotationPresent(Service.class);
+			timer = getAirlineMetrics().timer(service ? "service" : "controller", type, method);
+		}
+
+	}
+
+	/**
+	 * This class matches the public methods of the controllers and the services of
+	 * the application.
+	 */
+	private static class TimedMethodPointcut extends StaticMethodMatcherPointcut {
+
+		/**
+		 * This method is used to match the classes of the application which are
+		 * controllers named ...Controller, or services named ...Service.
+		 * 
+		 * @return class filter of the controllers and the services
+		 */
+		@Override
+		public ClassFilter getClassFilter() {
+			return type -> type.getName().startsWith("com.training.airline.")
+					&& (type.isAnnotationPresent(Controller.class) && type.getSimpleName().endsWith("Controller")
+							|| type.isAnnotationPresent(Service.class) && type.getSimpleName().endsWith("Service"));
+		}
+
+		/**
+		 * This method is used to match the public instance methods of the class, but
+		 * not the ones declared by Object.
+		 * 
+		 * @param method
+		 * @param targetClass
+		 * @return true if the method is timed
+		 */
+		@Override
+		public boolean matches(Method method, Class<?> targetClass) {
+			return Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers())
+					&& method.getDeclaringClass() != Object.class;
+		}
+
+	}
+
+}
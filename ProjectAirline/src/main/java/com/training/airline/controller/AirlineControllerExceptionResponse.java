@@ -1,5 +1,8 @@
 package com.training.airline.controller;
 
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -36,4 +39,27 @@ public class AirlineControllerExceptionResponse {
 
 	}
 
+	/**
+	 * For any search which is rejected because too many searches are waiting, or
+	 * which does not complete in time, and for any booking which is rejected
+	 * because too many bookings are being saved with idempotency keys, this method
+	 * will be invoked to give a response of 503 service unavailable along with the
+	 * message that is returned in this method, so that the client can try again
+	 * later.
+	 * 
+	 * @param exception The RejectedExecutionException or TimeoutException object
+	 *                  is passed here.
+	 * @return String message of the exception
+	 */
+	@ResponseBody
+	@ExceptionHandler({ RejectedExecutionException.class, TimeoutException.class })
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	String searchUnavailableHandler(Exception exception) {
+
+		// a timed out search has no message of its own
+		return exception instanceof TimeoutException ? "The search took too long, please try again later..."
+				: exception.getMessage();
+
+	}
+
 }
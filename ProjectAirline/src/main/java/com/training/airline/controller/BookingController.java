@@ -1,6 +1,7 @@
 package com.training.airline.controller;
 
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,14 +11,20 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import com.training.airline.dto.BookingDto;
+import com.training.airline.dto.BookingHistoryDto;
+import com.training.airline.dto.BookingHistoryPageDto;
+import com.training.airline.dto.SeatHoldDto;
 import com.training.airline.dto.ValidateUser;
 import com.training.airline.exception.AirlineControllerException;
 import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.service.BookingIdempotencyStore;
 import com.training.airline.service.BookingService;
+import com.training.airline.service.SeatHoldService;
 
 /**
  * This is a controller class for Booking. It has all the handler methods
@@ -39,6 +46,20 @@ public class BookingController {
 	@Autowired
 	private BookingService bookingService;
 
+	/**
+	 * This field seatHoldService of type SeatHoldService is being autowired here in
+	 * order to invoke methods from the SeatHoldService class.
+	 */
+	@Autowired
+	private SeatHoldService seatHoldService;
+
+	/**
+	 * This field bookingIdempotencyStore of type BookingIdempotencyStore is being
+	 * autowired here in order to save a booking only once for an idempotency key.
+	 */
+	@Autowired
+	private BookingIdempotencyStore bookingIdempotencyStore;
+
 	/**
 	 * Logger is instantiated with respect to BookingController to log errors
 	 * occurring in this class.
@@ -82,23 +103,70 @@ public class BookingController {
 
 	}
 
+	/**
+	 * This method is used to get a page of the bookings made by the given user,
+	 * newest first, and return the bookings and the cursor of the next page back
+	 * to the request as a view. The cursor is null on the last page.
+	 * 
+	 * @param bookingHistoryDto Is obtained from the request body and is passed
+	 *                          here
+	 * @param model             Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 * @throws AirlineControllerException
+	 */
+	@RequestMapping(value = "/getBookingHistory", method = RequestMethod.POST)
+	public String getBookingHistoryController(@RequestBody BookingHistoryDto bookingHistoryDto, Model model)
+			throws AirlineControllerException {
+
+		try {
+
+			// The page of the booking history is obtained.
+			BookingHistoryPageDto bookingHistoryPage = bookingService.getBookingHistoryService(bookingHistoryDto);
+
+			// The bookings of the page and the cursor of the next page are added to the
+			// model.
+			model.addAttribute("bookings", bookingHistoryPage.getBookings());
+			model.addAttribute("nextCursor", bookingHistoryPage.getNextCursor());
+
+		} catch (AirlineServiceException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception occurred:: " + e.getMessage());
+
+			// After catching AirlineServiceException, an AirlineControllerException is
+			// thrown here manually.
+			throw new AirlineControllerException("An exception occurred:: " + e.getMessage());
+
+		}
+
+		// returning the view
+		return "jsonTemplate";
+
+	}
+
 	/**
 	 * This method is used to save the booking made by the user, and return the
-	 * booking with updated reference id, back to the request as a view.
+	 * booking with updated reference id, back to the request as a view. If the
+	 * request has an Idempotency-Key header, the booking is saved only once for
+	 * the key, and a retry with the same key gets the booking saved the first
+	 * time.
 	 * 
-	 * @param bookingDto Is obtained from the request body and is passed here
-	 * @param model      Is passed here to add the attributes.
+	 * @param bookingDto     Is obtained from the request body and is passed here
+	 * @param idempotencyKey Is obtained from the request header and is passed here
+	 * @param model          Is passed here to add the attributes.
 	 * @return String with value jsonTemplate to render the view
 	 * @throws AirlineControllerException
 	 */
 	@RequestMapping(value = "/saveBooking", method = RequestMethod.POST)
-	public String saveBookingController(@RequestBody BookingDto bookingDto, Model model)
+	public String saveBookingController(@RequestBody BookingDto bookingDto,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey, Model model)
 			throws AirlineControllerException {
 
 		try {
 
 			// Updated booking dto object is obtained here.
-			BookingDto savedBookingDto = bookingService.saveBooking(bookingDto);
+			BookingDto savedBookingDto = idempotencyKey == null ? bookingService.saveBooking(bookingDto)
+					: bookingIdempotencyStore.saveBookingOnce(idempotencyKey, bookingDto);
 
 			// Obtained booking dto is added to the model.
 			model.addAttribute("savedBooking", savedBookingDto);
@@ -193,4 +261,121 @@ public class BookingController {
 
 	}
 
+	/**
+	 * This method is used to hold the seats of a flight on a given date for the
+	 * user until the booking is saved, and return the hold with its hold id and
+	 * expiry back to the request as a view.
+	 * 
+	 * @param seatHoldDto Is obtained from the request body and is passed here
+	 * @param model       Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 * @throws AirlineControllerException
+	 */
+	@RequestMapping(value = "/holdSeats", method = RequestMethod.POST)
+	public String holdSeatsController(@RequestBody SeatHoldDto seatHoldDto, Model model)
+			throws AirlineControllerException {
+
+		try {
+
+			// Seat hold dto object is obtained here.
+			SeatHoldDto seatHold = seatHoldService.placeHoldService(seatHoldDto);
+
+			// Obtained seat hold dto object is added to the model.
+			model.addAttribute("seatHold", seatHold);
+
+		} catch (AirlineServiceException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception occurred:: " + e.getMessage());
+
+			// After catching AirlineServiceException, an AirlineControllerException is
+			// thrown here manually.
+			throw new AirlineControllerException("An exception occurred:: " + e.getMessage());
+
+		}
+
+		// returning the view
+		return "jsonTemplate";
+
+	}
+
+	/**
+	 * This method is used to release the seats held for the user before the hold
+	 * expires, and return the released hold back to the request as a view.
+	 * 
+	 * @param seatHoldDto Is obtained from the request body and is passed here
+	 * @param model       Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 * @throws AirlineControllerException
+	 */
+	@RequestMapping(value = "/releaseHold", method = RequestMethod.POST)
+	public String releaseHoldController(@RequestBody SeatHoldDto seatHoldDto, Model model)
+			throws AirlineControllerException {
+
+		try {
+
+			// Released seat hold dto object is obtained here.
+			SeatHoldDto releasedHold = seatHoldService.releaseHoldService(seatHoldDto);
+
+			// Obtained seat hold dto object is added to the model.
+			model.addAttribute("releasedHold", releasedHold);
+
+		} catch (AirlineServiceException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception occurred:: " + e.getMessage());
+
+			// After catching AirlineServiceException, an AirlineControllerException is
+			// thrown here manually.
+			throw new AirlineControllerException("An exception occurred:: " + e.getMessage());
+
+		}
+
+		// returning the view
+		return "jsonTemplate";
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the seat holds, and return them
+	 * back to the request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/seatHoldStatistics", method = RequestMethod.GET)
+	public String seatHoldStatisticsController(Model model) {
+
+		// Statistics of the seat holds are obtained here.
+		Map<String, Long> seatHoldStatistics = seatHoldService.getSeatHoldStatisticsService();
+
+		// Obtained statistics are added to the model.
+		model.addAttribute("seatHoldStatistics", seatHoldStatistics);
+
+		// returning the view
+		return "jsonTemplate";
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the idempotent bookings, and
+	 * return them back to the request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/idempotencyStatistics", method = RequestMethod.GET)
+	public String idempotencyStatisticsController(Model model) {
+
+		// Statistics of the idempotent bookings are obtained here.
+		Map<String, Long> idempotencyStatistics = bookingIdempotencyStore.getStatistics();
+
+		// Obtained statistics are added to the model.
+		model.addAttribute("idempotencyStatistics", idempotencyStatistics);
+
+		// returning the view
+		return "jsonTemplate";
+
+	}
+
 }
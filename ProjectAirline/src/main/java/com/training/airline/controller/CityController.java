@@ -1,6 +1,7 @@
 package com.training.airline.controller;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +17,7 @@ import com.training.airline.dto.CityDto;
 import com.training.airline.exception.AirlineControllerException;
 import com.training.airline.exception.AirlineServiceException;
 import com.training.airline.service.CityService;
+import com.training.airline.service.SearchExecutor;
 
 /**
  * This is a controller class for City. It has all the handler methods related
@@ -37,6 +39,13 @@ public class CityController {
 	@Autowired
 	private CityService cityService;
 
+	/**
+	 * This field searchExecutor of type SearchExecutor is being autowired here in
+	 * order to run the searches away from the request threads.
+	 */
+	@Autowired
+	private SearchExecutor searchExecutor;
+
 	/**
 	 * Logger is instantiated with respect to CityController to log errors occurring
 	 * in this class.
@@ -48,30 +57,75 @@ public class CityController {
 	 * request as a view.
 	 * 
 	 * @param model Is passed here to add the attributes.
-	 * @return String with value jsonTemplate to render the view
-	 * @throws AirlineControllerException
+	 * @return future String with value jsonTemplate to render the view
 	 */
 	@RequestMapping(value = "/allCities", method = RequestMethod.GET)
-	public String getAllCitiesController(Model model) throws AirlineControllerException {
+	public CompletableFuture<String> getAllCitiesController(Model model) {
+
+		// the search is run on the search executor, so that the request thread is not
+		// blocked while the database is queried
+		return searchExecutor.submit(() -> {
+
+			try {
+
+				// List of city dtos are obtained
+				List<CityDto> cityDtoList = cityService.getAllCitiesService();
+
+				// Obtained city dto list is added to the model
+				model.addAttribute("cityList", cityDtoList);
+
+			} catch (AirlineServiceException e) {
+
+				// Any exception that would occur is logged here.
+				logger.error("An exception occurred:: " + e.getMessage());
+
+				// After catching AirlineServiceException, an AirlineControllerException is
+				// thrown here manually.
+				throw new AirlineControllerException("An exception occurred:: " + e.getMessage());
+
+			}
+
+			// returning the view
+			return "jsonTemplate";
+
+		});
 
-		try {
+	}
 
-			// List of city dtos are obtained
-			List<CityDto> cityDtoList = cityService.getAllCitiesService();
+	/**
+	 * This method is used to get the statistics of the city cache, and return it
+	 * back to the request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/cityCacheStatistics", method = RequestMethod.GET)
+	public String getCityCacheStatisticsController(Model model) {
 
-			// Obtained city dto list is added to the model
-			model.addAttribute("cityList", cityDtoList);
+		// Statistics of the city cache are added to the model
+		model.addAttribute("cityCacheStatistics", cityService.getCityCacheStatisticsService());
 
-		} catch (AirlineServiceException e) {
+		// returning the view
+		return "jsonTemplate";
 
-			// Any exception that would occur is logged here.
-			logger.error("An exception occurred:: " + e.getMessage());
+	}
+
+	/**
+	 * This method is used to remove all the cities from the city cache, after the
+	 * cities are changed in the database, and return the statistics of the city
+	 * cache back to the request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/invalidateCityCache", method = RequestMethod.POST)
+	public String invalidateCityCacheController(Model model) {
 
-			// After catching AirlineServiceException, an AirlineControllerException is
-			// thrown here manually.
-			throw new AirlineControllerException("An exception occurred:: " + e.getMessage());
+		// removing all the cities from the city cache
+		cityService.invalidateCityCacheService();
 
-		}
+		// Statistics of the city cache are added to the model
+		model.addAttribute("cityCacheStatistics", cityService.getCityCacheStatisticsService());
 
 		// returning the view
 		return "jsonTemplate";
@@ -1,6 +1,8 @@
 package com.training.airline.controller;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,12 +15,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 
+import com.training.airline.dto.FareCalendarDto;
 import com.training.airline.dto.FlightAvailDto;
 import com.training.airline.dto.FlightsAvailableDateRangeDto;
 import com.training.airline.dto.FlightsAvailableOnDateDto;
+import com.training.airline.dto.ItineraryDto;
+import com.training.airline.dto.ItinerarySearchDto;
 import com.training.airline.exception.AirlineControllerException;
 import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.service.FlightAvailCoalescer;
 import com.training.airline.service.FlightAvailService;
+import com.training.airline.service.ItineraryService;
+import com.training.airline.service.RangeSearchExecutor;
+import com.training.airline.service.SearchExecutor;
 
 /**
  * This is a controller class for FlightAvail. It has all the handler methods
@@ -40,6 +49,35 @@ public class FlightAvailController {
 	@Autowired
 	private FlightAvailService flightAvailService;
 
+	/**
+	 * This field flightAvailCoalescer of type FlightAvailCoalescer is being
+	 * autowired here in order to share identical concurrent searches.
+	 */
+	@Autowired
+	private FlightAvailCoalescer flightAvailCoalescer;
+
+	/**
+	 * This field itineraryService of type ItineraryService is being autowired here
+	 * in order to invoke methods from the ItineraryService class.
+	 */
+	@Autowired
+	private ItineraryService itineraryService;
+
+	/**
+	 * This field searchExecutor of type SearchExecutor is being autowired here in
+	 * order to run the searches away from the request threads.
+	 */
+	@Autowired
+	private SearchExecutor searchExecutor;
+
+	/**
+	 * This field rangeSearchExecutor of type RangeSearchExecutor is being
+	 * autowired here in order to get the statistics of the split date range
+	 * searches.
+	 */
+	@Autowired
+	private RangeSearchExecutor rangeSearchExecutor;
+
 	/**
 	 * Logger is instantiated with respect to FlightAvailController to log errors
 	 * occurring in this class.
@@ -53,34 +91,39 @@ public class FlightAvailController {
 	 * @param flightsAvailableOnDateDto Is obtained from the request body and is
 	 *                                  passed here
 	 * @param model                     Is passed here to add the attributes.
-	 * @return String with value jsonTemplate to render the view
-	 * @throws AirlineControllerException
+	 * @return future String with value jsonTemplate to render the view
 	 */
 	@RequestMapping(value = "/flightOnDate", method = RequestMethod.POST)
-	public String getFlightOnDateController(@RequestBody FlightsAvailableOnDateDto flightsAvailableOnDateDto,
-			Model model) throws AirlineControllerException {
+	public CompletableFuture<String> getFlightOnDateController(
+			@RequestBody FlightsAvailableOnDateDto flightsAvailableOnDateDto, Model model) {
 
-		try {
+		// the search is run on the search executor, so that the request thread is not
+		// blocked while the database is queried
+		return searchExecutor.submit(() -> {
 
-			// List of flight avail dtos are obtained here
-			FlightAvailDto flightAvailDto = flightAvailService.getFlightOnDateService(flightsAvailableOnDateDto);
+			try {
 
-			// Obtained list of flight avail dtos are added to the model
-			model.addAttribute("flightAvailable", flightAvailDto);
+				// List of flight avail dtos are obtained here
+				FlightAvailDto flightAvailDto = flightAvailCoalescer.getFlightOnDateService(flightsAvailableOnDateDto);
 
-		} catch (AirlineServiceException e) {
+				// Obtained list of flight avail dtos are added to the model
+				model.addAttribute("flightAvailable", flightAvailDto);
 
-			// Any exception that would occur is logged here.
-			logger.error("An exception occurred:: " + e.getMessage());
+			} catch (AirlineServiceException e) {
 
-			// After catching AirlineServiceException, an AirlineControllerException is
-			// thrown here manually.
-			throw new AirlineControllerException("An exception occurred..." + e.getMessage());
+				// Any exception that would occur is logged here.
+				logger.error("An exception occurred:: " + e.getMessage());
 
-		}
+				// After catching AirlineServiceException, an AirlineControllerException is
+				// thrown here manually.
+				throw new AirlineControllerException("An exception occurred..." + e.getMessage());
 
-		// returning the view
-		return "jsonTemplate";
+			}
+
+			// returning the view
+			return "jsonTemplate";
+
+		});
 
 	}
 
@@ -92,35 +135,40 @@ public class FlightAvailController {
 	 * @param flightsAvailableOnDateDto Is obtained from the request body and is
 	 *                                  passed here
 	 * @param model                     Is passed here to add the attributes.
-	 * @return String with value jsonTemplate to render the view
-	 * @throws AirlineControllerException
+	 * @return future String with value jsonTemplate to render the view
 	 */
 	@RequestMapping(value = "/flightsBetweenCityOnDate", method = RequestMethod.POST)
-	public String getFlightsBetweenCityOnDate(@RequestBody FlightsAvailableOnDateDto flightsAvailableOnDateDto,
-			Model model) throws AirlineControllerException {
+	public CompletableFuture<String> getFlightsBetweenCityOnDate(
+			@RequestBody FlightsAvailableOnDateDto flightsAvailableOnDateDto, Model model) {
 
-		try {
+		// the search is run on the search executor, so that the request thread is not
+		// blocked while the database is queried
+		return searchExecutor.submit(() -> {
 
-			// List of flights available dtos are obtained.
-			List<FlightAvailDto> flightsBetweenCityOnDate = flightAvailService
-					.getFlightsBetweenCityOnDate(flightsAvailableOnDateDto);
+			try {
 
-			// Obtained list of flights available dtos are added to the model.
-			model.addAttribute("flightAvailableOnDate", flightsBetweenCityOnDate);
+				// List of flights available dtos are obtained.
+				List<FlightAvailDto> flightsBetweenCityOnDate = flightAvailCoalescer
+						.getFlightsBetweenCityOnDate(flightsAvailableOnDateDto);
 
-		} catch (AirlineServiceException e) {
+				// Obtained list of flights available dtos are added to the model.
+				model.addAttribute("flightAvailableOnDate", flightsBetweenCityOnDate);
 
-			// Any exception that would occur is logged here.
-			logger.error("An exception occurred:: " + e.getMessage());
+			} catch (AirlineServiceException e) {
 
-			// After catching AirlineServiceException, an AirlineControllerException is
-			// thrown here manually.
-			throw new AirlineControllerException("An exception occurred..." + e.getMessage());
+				// Any exception that would occur is logged here.
+				logger.error("An exception occurred:: " + e.getMessage());
 
-		}
+				// After catching AirlineServiceException, an AirlineControllerException is
+				// thrown here manually.
+				throw new AirlineControllerException("An exception occurred..." + e.getMessage());
 
-		// returning the view
-		return "jsonTemplate";
+			}
+
+			// returning the view
+			return "jsonTemplate";
+
+		});
 
 	}
 
@@ -132,33 +180,205 @@ public class FlightAvailController {
 	 * @param flightsAvailableDateRangeDto Is obtained from the request body and is
 	 *                                     passed here
 	 * @param model                        Is passed here to add the attributes.
-	 * @return String with value jsonTemplate to render the view
-	 * @throws AirlineControllerException
+	 * @return future String with value jsonTemplate to render the view
 	 */
 	@RequestMapping(value = "/flightsBetweenCityDateRange", method = RequestMethod.POST)
-	public String getFlightsBetweenDateRangeForCitiesController(
-			@RequestBody FlightsAvailableDateRangeDto flightsAvailableDateRangeDto, Model model)
-			throws AirlineControllerException {
+	public CompletableFuture<String> getFlightsBetweenDateRangeForCitiesController(
+			@RequestBody FlightsAvailableDateRangeDto flightsAvailableDateRangeDto, Model model) {
+
+		// the search is run on the search executor, so that the request thread is not
+		// blocked while the database is queried
+		return searchExecutor.submit(() -> {
+
+			try {
+
+				// List of flight available dtos are obtained here.
+				List<FlightAvailDto> flightsBetweenDateRange = flightAvailService
+						.getFlightsBetweenDateRangeForCitiesService(flightsAvailableDateRangeDto);
+
+				// Obtained list of flight available dtos are added to the model.
+				model.addAttribute("flightAvailableDateRange", flightsBetweenDateRange);
+
+			} catch (AirlineServiceException e) {
+
+				// Any exception that would occur is logged here.
+				logger.error("An exception occurred:: " + e.getMessage());
+
+				// After catching AirlineServiceException, an AirlineControllerException is
+				// thrown here manually.
+				throw new AirlineControllerException("An exception occurred..." + e.getMessage());
+
+			}
+
+			// returning the view
+			return "jsonTemplate";
+
+		});
+
+	}
+
+	/**
+	 * This method is used to get the list of itineraries, direct or with stops,
+	 * for the given origin city and destination city leaving on a particular date,
+	 * and return it back to the request as a view.
+	 * 
+	 * @param itinerarySearchDto Is obtained from the request body and is passed
+	 *                           here
+	 * @param model              Is passed here to add the attributes.
+	 * @return future String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/itinerariesBetweenCityOnDate", method = RequestMethod.POST)
+	public CompletableFuture<String> getItinerariesBetweenCityOnDateController(
+			@RequestBody ItinerarySearchDto itinerarySearchDto, Model model) {
+
+		// the search is run on the search executor, so that the request thread is not
+		// blocked while the database is queried
+		return searchExecutor.submit(() -> {
+
+			try {
+
+				// List of itinerary dtos are obtained here.
+				List<ItineraryDto> itineraries = itineraryService.getItinerariesService(itinerarySearchDto);
+
+				// Obtained list of itinerary dtos are added to the model.
+				model.addAttribute("itinerariesOnDate", itineraries);
+
+			} catch (AirlineServiceException e) {
+
+				// Any exception that would occur is logged here.
+				logger.error("An exception occurred:: " + e.getMessage());
+
+				// After catching AirlineServiceException, an AirlineControllerException is
+				// thrown here manually.
+				throw new AirlineControllerException("An exception occurred..." + e.getMessage());
+
+			}
+
+			// returning the view
+			return "jsonTemplate";
+
+		});
 
-		try {
+	}
+
+	/**
+	 * This method is used to get the lowest cost and the total seats of each day of
+	 * a month for the given origin city and destination city, for the fare
+	 * calendar, and return it back to the request as a view.
+	 * 
+	 * @param fareCalendarDto Is obtained from the request body and is passed here
+	 * @param model           Is passed here to add the attributes.
+	 * @return future String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/fareCalendar", method = RequestMethod.POST)
+	public CompletableFuture<String> getFareCalendarController(
+			@RequestBody FareCalendarDto fareCalendarDto, Model model) {
+
+		// the search is run on the search executor, so that the request thread is not
+		// blocked while the database is queried
+		return searchExecutor.submit(() -> {
+
+			try {
 
-			// List of flight available dtos are obtained here.
-			List<FlightAvailDto> flightsBetweenDateRange = flightAvailService
-					.getFlightsBetweenDateRangeForCitiesService(flightsAvailableDateRangeDto);
+				// Fare calendar dto is obtained here.
+				FareCalendarDto fareCalendar = flightAvailService.getFareCalendarService(fareCalendarDto);
 
-			// Obtained list of flight available dtos are added to the model.
-			model.addAttribute("flightAvailableDateRange", flightsBetweenDateRange);
+				// Obtained fare calendar dto is added to the model.
+				model.addAttribute("fareCalendar", fareCalendar);
 
-		} catch (AirlineServiceException e) {
+			} catch (AirlineServiceException e) {
+
+				// Any exception that would occur is logged here.
+				logger.error("An exception occurred:: " + e.getMessage());
+
+				// After catching AirlineServiceException, an AirlineControllerException is
+				// thrown here manually.
+				throw new AirlineControllerException("An exception occurred..." + e.getMessage());
+
+			}
+
+			// returning the view
+			return "jsonTemplate";
+
+		});
+
+	}
 
-			// Any exception that would occur is logged here.
-			logger.error("An exception occurred:: " + e.getMessage());
+	/**
+	 * This method is used to get the statistics of the fare calendar, and return
+	 * them back to the request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/fareCalendarStatistics", method = RequestMethod.GET)
+	public String getFareCalendarStatisticsController(Model model) {
+
+		// Statistics of the fare calendar are added to the model
+		model.addAttribute("fareCalendarStatistics", flightAvailService.getFareCalendarStatisticsService());
+
+		// returning the view
+		return "jsonTemplate";
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the coalesced searches, and
+	 * return them back to the request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/searchCoalescingStatistics", method = RequestMethod.GET)
+	public String searchCoalescingStatisticsController(Model model) {
+
+		// Statistics of the coalesced searches are obtained here.
+		Map<String, Long> searchCoalescingStatistics = flightAvailCoalescer.getStatistics();
+
+		// Obtained statistics are added to the model.
+		model.addAttribute("searchCoalescingStatistics", searchCoalescingStatistics);
+
+		// returning the view
+		return "jsonTemplate";
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the search executor, and return
+	 * them back to the request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/searchExecutorStatistics", method = RequestMethod.GET)
+	public String searchExecutorStatisticsController(Model model) {
+
+		// Statistics of the search executor are obtained here.
+		Map<String, Long> searchExecutorStatistics = searchExecutor.getStatistics();
+
+		// Obtained statistics are added to the model.
+		model.addAttribute("searchExecutorStatistics", searchExecutorStatistics);
+
+		// returning the view
+		return "jsonTemplate";
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the split date range searches,
+	 * and return them back to the request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/rangeSearchStatistics", method = RequestMethod.GET)
+	public String rangeSearchStatisticsController(Model model) {
 
-			// After catching AirlineServiceException, an AirlineControllerException is
-			// thrown here manually.
-			throw new AirlineControllerException("An exception occurred..." + e.getMessage());
+		// Statistics of the split date range searches are obtained here.
+		Map<String, Long> rangeSearchStatistics = rangeSearchExecutor.getStatistics();
 
-		}
+		// Obtained statistics are added to the model.
+		model.addAttribute("rangeSearchStatistics", rangeSearchStatistics);
 
 		// returning the view
 		return "jsonTemplate";
@@ -1,6 +1,7 @@
 package com.training.airline.controller;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +19,7 @@ import com.training.airline.dto.FlightsByRouteDto;
 import com.training.airline.exception.AirlineControllerException;
 import com.training.airline.exception.AirlineServiceException;
 import com.training.airline.service.FlightService;
+import com.training.airline.service.SearchExecutor;
 
 /**
  * This is a controller class for Flight. It has all the handler methods related
@@ -39,6 +41,13 @@ public class FlightController {
 	@Autowired
 	private FlightService flightService;
 
+	/**
+	 * This field searchExecutor of type SearchExecutor is being autowired here in
+	 * order to run the searches away from the request threads.
+	 */
+	@Autowired
+	private SearchExecutor searchExecutor;
+
 	/**
 	 * Logger is instantiated with respect to FlightController to log errors
 	 * occurring in this class.
@@ -51,20 +60,58 @@ public class FlightController {
 	 * 
 	 * @param flightsByRouteDto Is obtained from the request body and is passed here
 	 * @param model             Is passed here to add the attributes.
+	 * @return future String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/flightsByRoute", method = RequestMethod.POST)
+	public CompletableFuture<String> getFlightsByRouteController(
+			@RequestBody FlightsByRouteDto flightsByRouteDto, Model model) {
+
+		// the search is run on the search executor, so that the request thread is not
+		// blocked while the database is queried
+		return searchExecutor.submit(() -> {
+
+			try {
+
+				// List of flight dtos are obtained
+				List<FlightDto> flightsByRoute = flightService.getFlightsByRouteService(flightsByRouteDto);
+
+				// Obtained list of flight dtos are added to the model
+				model.addAttribute("flightsByRoute", flightsByRoute);
+
+			} catch (AirlineServiceException e) {
+
+				// Any exception that would occur is logged here.
+				logger.error("An exception occurred:: " + e.getMessage());
+
+				// After catching AirlineServiceException, an AirlineControllerException is
+				// thrown here manually.
+				throw new AirlineControllerException("An exception occurred:: " + e.getMessage());
+
+			}
+
+			// returning the view
+			return "jsonTemplate";
+
+		});
+
+	}
+
+	/**
+	 * This method is used to rebuild the route index after the flights are changed
+	 * in the database, and return the number of flights and routes back to the
+	 * request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
 	 * @return String with value jsonTemplate to render the view
 	 * @throws AirlineControllerException
 	 */
-	@RequestMapping(value = "/flightsByRoute", method = RequestMethod.POST)
-	public String getFlightsByRouteController(@RequestBody FlightsByRouteDto flightsByRouteDto, Model model)
-			throws AirlineControllerException {
+	@RequestMapping(value = "/refreshRouteIndex", method = RequestMethod.POST)
+	public String refreshRouteIndexController(Model model) throws AirlineControllerException {
 
 		try {
 
-			// List of flight dtos are obtained
-			List<FlightDto> flightsByRoute = flightService.getFlightsByRouteService(flightsByRouteDto);
-
-			// Obtained list of flight dtos are added to the model
-			model.addAttribute("flightsByRoute", flightsByRoute);
+			// Statistics of the rebuilt route index are added to the model
+			model.addAttribute("routeIndex", flightService.refreshRouteIndexService());
 
 		} catch (AirlineServiceException e) {
 
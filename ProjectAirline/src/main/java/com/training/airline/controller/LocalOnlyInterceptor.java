@@ -0,0 +1,90 @@
+package com.training.airline.controller;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.training.airline.exception.AirlineControllerException;
+
+/**
+ * This is an interceptor which serves the admin endpoints, the metrics, the
+ * statistics and the endpoints which invalidate or refresh the caches, only to
+ * clients on the same host, such as a prometheus agent or an operator logged in
+ * to it. The endpoints it guards are mapped in spring-mvc-servlet.xml. A
+ * request from another host gets the same response as a resource which is not
+ * found.
+ *
+ * @author Praveen J
+ */
+@Component
+public class LocalOnlyInterceptor implements HandlerInterceptor {
+
+	/**
+	 * This field tells whether the admin endpoints are served only to clients on
+	 * the same host.
+	 */
+	@Value("${airline.admin.local.only:true}")
+	private boolean adminLocalOnly = true;
+
+	/**
+	 * Logger is instantiated with respect to LocalOnlyInterceptor to log errors
+	 * occurring in this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(LocalOnlyInterceptor.class);
+
+	/**
+	 * This method is used to reject the request to an admin endpoint if it does
+	 * not come from this host.
+	 *
+	 * @param request
+	 * @param response
+	 * @param handler
+	 * @return true if the request is passed on
+	 * @throws AirlineControllerException
+	 */
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+			throws AirlineControllerException {
+
+		// if the admin endpoints are served only to local clients, if block gets
+		// executed
+		if (adminLocalOnly && !isLocal(request.getRemoteAddr())) {
+
+			// Any exception that would occur is logged here.
+			logger.error(request.getRequestURI() + " was requested from " + request.getRemoteAddr() + "...");
+
+			// Manually throwing new AirlineControllerException since the client is not
+			// local
+			throw new AirlineControllerException("This endpoint is only served to local clients...");
+
+		}
+
+		// passing the request on
+		return true;
+
+	}
+
+	/**
+	 * This method is used to check whether the given address is an address of this
+	 * host.
+	 *
+	 * @param address
+	 * @return true if the address is a loopback address
+	 */
+	private static boolean isLocal(String address) {
+		try {
+			return InetAddress.getByName(address).isLoopbackAddress();
+		} catch (UnknownHostException e) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.training.airline.controller;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.training.airline.service.QueryCounter;
+import com.training.airline.service.QueryCounter.RequestQueries;
+
+/**
+ * This is a filter which opens a record of the sql statements for each http
+ * request, so that the query counter can count the statements run for it. It
+ * is declared in web.xml through a DelegatingFilterProxy. The searches complete
+ * on the search executor after the filter has returned, so the record of an
+ * asynchronous request is closed only when the request is completed.
+ * 
+ * @author Praveen J
+ */
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+
+	/**
+	 * This field queryCounter of type QueryCounter is being autowired here in order
+	 * to open and close the records of the requests.
+	 */
+	@Autowired
+	private QueryCounter queryCounter;
+
+	/**
+	 * This method is used to count the statements run while the request is
+	 * handled, and to hand the counts to the query counter when it is completed.
+	 * 
+	 * @param request
+	 * @param response
+	 * @param filterChain
+	 * @throws ServletException
+	 * @throws IOException
+	 */
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		// if the statements are not counted, the request is only passed on
+		RequestQueries queries = queryCounter.start();
+		if (queries == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		RequestQueries previous = QueryCounter.attach(queries);
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+
+			QueryCounter.restore(previous);
+
+			// if the request went asynchronous, it is completed on another thread later
+			if (request.isAsyncStarted()) {
+				request.getAsyncContext().addListener(new AsyncListener() {
+
+					@Override
+					public void onComplete(AsyncEvent event) {
+						queryCounter.finish(endpoint(request), queries);
+					}
+
+					@Override
+					public void onTimeout(AsyncEvent event) {
+					}
+
+					@Override
+					public void onError(AsyncEvent event) {
+					}
+
+					@Override
+					public void onStartAsync(AsyncEvent event) {
+					}
+
+				});
+			} else {
+				queryCounter.finish(endpoint(request), queries);
+			}
+
+		}
+
+	}
+
+	/**
+	 * This method is used to get the name of the endpoint of the request, from the
+	 * pattern of the handler it was mapped to, so that the requests of an endpoint
+	 * are counted together.
+	 * 
+	 * @param request
+	 * @return method and path of the endpoint
+	 */
+	private static String endpoint(HttpServletRequest request) {
+
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		return request.getMethod() + " " + (pattern == null ? "unmapped" : pattern);
+
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.training.airline.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.training.airline.service.AirlineMetrics;
+import com.training.airline.service.PersistenceStatisticsService;
+
+import io.prometheus.client.exporter.common.TextFormat;
+
+/**
+ * This is a controller class for the statistics of the application. All the
+ * requests that are related to measuring the application under load are handled
+ * by this controller. They are only served to clients on the same host, by the
+ * LocalOnlyInterceptor.
+ * 
+ * @author Praveen J
+ */
+@Controller
+@CrossOrigin(origins = "http://localhost:3000")
+@RequestMapping(value = "/airline")
+public class StatisticsController {
+
+	/**
+	 * This field persistenceStatisticsService of type PersistenceStatisticsService
+	 * is being autowired here in order to invoke methods from the
+	 * PersistenceStatisticsService class.
+	 */
+	@Autowired
+	private PersistenceStatisticsService persistenceStatisticsService;
+
+	/**
+	 * This field airlineMetrics of type AirlineMetrics is being autowired here in
+	 * order to get the metrics of the application for prometheus.
+	 */
+	@Autowired
+	private AirlineMetrics airlineMetrics;
+
+	/**
+	 * Logger is instantiated with respect to StatisticsController to log errors
+	 * occurring in this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(StatisticsController.class);
+
+	/**
+	 * This method is used to get the statistics of the second level cache and the
+	 * query cache, and return it back to the request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/persistenceStatistics", method = RequestMethod.GET)
+	public String getPersistenceStatisticsController(Model model) {
+
+		// Statistics of the persistence layer are added to the model
+		model.addAttribute("persistenceStatistics", persistenceStatisticsService.getPersistenceStatisticsService());
+
+		// returning the view
+		return "jsonTemplate";
+
+	}
+
+	/**
+	 * This method is used to get the metrics of the connection pool, and return it
+	 * back to the request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/connectionPoolStatistics", method = RequestMethod.GET)
+	public String getConnectionPoolStatisticsController(Model model) {
+
+		// Metrics of the connection pool are added to the model
+		model.addAttribute("connectionPoolStatistics",
+				persistenceStatisticsService.getConnectionPoolStatisticsService());
+
+		// returning the view
+		return "jsonTemplate";
+
+	}
+
+	/**
+	 * This method is used to get the number of sql statements run by the requests
+	 * of each endpoint, and return it back to the request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/queryStatistics", method = RequestMethod.GET)
+	public String getQueryStatisticsController(Model model) {
+
+		// Statistics of the statements of each endpoint are added to the model
+		model.addAttribute("queryStatistics", persistenceStatisticsService.getQueryStatisticsService());
+
+		// returning the view
+		return "jsonTemplate";
+
+	}
+
+	/**
+	 * This method is used to get the metrics of the application in the text format
+	 * of prometheus, so that they can be scraped.
+	 * 
+	 * @return metrics in the text format of prometheus
+	 */
+	@RequestMapping(value = "/metrics", method = RequestMethod.GET, produces = TextFormat.CONTENT_TYPE_004)
+	@ResponseBody
+	public String getMetricsController() {
+
+		// returning the metrics
+		return airlineMetrics.scrape();
+
+	}
+
+	/**
+	 * This method is used to reset the statistics of the persistence layer and of
+	 * the connection pool before a new measurement, and return the statistics back
+	 * to the request as a view.
+	 * 
+	 * @param model Is passed here to add the attributes.
+	 * @return String with value jsonTemplate to render the view
+	 */
+	@RequestMapping(value = "/resetPersistenceStatistics", method = RequestMethod.POST)
+	public String resetPersistenceStatisticsController(Model model) {
+
+		// resetting the statistics of the persistence layer
+		persistenceStatisticsService.resetPersistenceStatisticsService();
+
+		// Statistics of the persistence layer are added to the model
+		model.addAttribute("persistenceStatistics", persistenceStatisticsService.getPersistenceStatisticsService());
+
+		// returning the view
+		return "jsonTemplate";
+
+	}
+
+}
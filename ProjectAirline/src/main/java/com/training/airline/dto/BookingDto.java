@@ -57,6 +57,13 @@ public class BookingDto implements Serializable {
 	 */
 	private List<PassengerDto> passengers;
 
+	/**
+	 * This field holdId represents the id of the seat hold which is converted into
+	 * this booking. It is optional, and if it is not given, the seats are reserved
+	 * when the booking is saved.
+	 */
+	private String holdId;
+
 	/**
 	 * This is a zero argument constructor. Used to instantiate booking dto object.
 	 */
@@ -232,4 +239,22 @@ public class BookingDto implements Serializable {
 		this.passengers = passengers;
 	}
 
+	/**
+	 * This is a method used to get the seat hold id from a booking dto object
+	 * 
+	 * @return the seat hold id converted into the booking.
+	 */
+	public String getHoldId() {
+		return holdId;
+	}
+
+	/**
+	 * This is a method used to set the seat hold id for a booking dto object
+	 * 
+	 * @param holdId The seat hold id is passed here.
+	 */
+	public void setHoldId(String holdId) {
+		this.holdId = holdId;
+	}
+
 }
@@ -0,0 +1,194 @@
+package com.training.airline.dto;
+
+import java.io.Serializable;
+import java.sql.Date;
+
+/**
+ * This is a Dto class to hold the request for a page of the booking history of
+ * a user. It has private fields to represent the user, the optional filters and
+ * the cursor of the page. It has getters and setters to access and modify the
+ * private fields.
+ * 
+ * @author Praveen J
+ */
+public class BookingHistoryDto implements Serializable {
+
+	/**
+	 * default serialVersionUID is used here.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This field userId of type Integer represents the user whose bookings are
+	 * returned.
+	 */
+	private Integer userId;
+
+	/**
+	 * This field status of type String represents the status of the bookings to be
+	 * returned. It is optional, and the bookings of every status are returned when
+	 * it is not given.
+	 */
+	private String status;
+
+	/**
+	 * This field startDate of type Date represents the first travel date of the
+	 * bookings to be returned. It is optional.
+	 */
+	private Date startDate;
+
+	/**
+	 * This field endDate of type Date represents the last travel date of the
+	 * bookings to be returned. It is optional.
+	 */
+	private Date endDate;
+
+	/**
+	 * This field cursor of type String represents the position after which the page
+	 * starts, as returned with the previous page. It is not given for the first
+	 * page.
+	 */
+	private String cursor;
+
+	/**
+	 * This field pageSize of type Integer represents the number of bookings in the
+	 * page. It is optional.
+	 */
+	private Integer pageSize;
+
+	/**
+	 * This is a zero argument constructor. Used to instantiate booking history dto
+	 * object.
+	 */
+	public BookingHistoryDto() {
+
+	}
+
+	/**
+	 * This is a parameterized constructor. Takes in the following parameters to
+	 * instantiate the booking history dto object and then initialize the values
+	 * with the arguments passed.
+	 * 
+	 * @param userId   ---> id of the user
+	 * @param cursor   ---> cursor returned with the previous page
+	 * @param pageSize ---> number of bookings in the page
+	 */
+	public BookingHistoryDto(Integer userId, String cursor, Integer pageSize) {
+		this.userId = userId;
+		this.cursor = cursor;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * This is a method used to get the user id from a booking history dto object
+	 * 
+	 * @return the user id given for the booking history.
+	 */
+	public Integer getUserId() {
+		return userId;
+	}
+
+	/**
+	 * This is a method used to set the user id for a booking history dto object
+	 * 
+	 * @param userId The id of the user is passed here.
+	 */
+	public void setUserId(Integer userId) {
+		this.userId = userId;
+	}
+
+	/**
+	 * This is a method used to get the status from a booking history dto object
+	 * 
+	 * @return the status of the bookings to be returned.
+	 */
+	public String getStatus() {
+		return status;
+	}
+
+	/**
+	 * This is a method used to set the status for a booking history dto object
+	 * 
+	 * @param status The status of the bookings is passed here.
+	 */
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	/**
+	 * This is a method used to get the first travel date from a booking history
+	 * dto object
+	 * 
+	 * @return the first travel date of the bookings to be returned.
+	 */
+	public Date getStartDate() {
+		return startDate;
+	}
+
+	/**
+	 * This is a method used to set the first travel date for a booking history dto
+	 * object
+	 * 
+	 * @param startDate The first travel date is passed here.
+	 */
+	public void setStartDate(Date startDate) {
+		this.startDate = startDate;
+	}
+
+	/**
+	 * This is a method used to get the last travel date from a booking history dto
+	 * object
+	 * 
+	 * @return the last travel date of the bookings to be returned.
+	 */
+	public Date getEndDate() {
+		return endDate;
+	}
+
+	/**
+	 * This is a method used to set the last travel date for a booking history dto
+	 * object
+	 * 
+	 * @param endDate The last travel date is passed here.
+	 */
+	public void setEndDate(Date endDate) {
+		this.endDate = endDate;
+	}
+
+	/**
+	 * This is a method used to get the cursor from a booking history dto object
+	 * 
+	 * @return the cursor returned with the previous page.
+	 */
+	public String getCursor() {
+		return cursor;
+	}
+
+	/**
+	 * This is a method used to set the cursor for a booking history dto object
+	 * 
+	 * @param cursor The cursor returned with the previous page is passed here.
+	 */
+	public void setCursor(String cursor) {
+		this.cursor = cursor;
+	}
+
+	/**
+	 * This is a method used to get the page size from a booking history dto object
+	 * 
+	 * @return the number of bookings in the page.
+	 */
+	public Integer getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * This is a method used to set the page size for a booking history dto object
+	 * 
+	 * @param pageSize The number of bookings in the page is passed here.
+	 */
+	public void setPageSize(Integer pageSize) {
+		this.pageSize = pageSize;
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.training.airline.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * This is a Dto class to hold a page of the booking history of a user. It has
+ * private fields to represent the bookings of the page, newest first, and the
+ * cursor of the next page. It has getters to access the private fields.
+ * 
+ * @author Praveen J
+ */
+public class BookingHistoryPageDto implements Serializable {
+
+	/**
+	 * default serialVersionUID is used here.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This field bookings represents the bookings of the page.
+	 */
+	private final List<BookingDto> bookings;
+
+	/**
+	 * This field nextCursor of type String represents the cursor of the next page.
+	 * It is null for the last page.
+	 */
+	private final String nextCursor;
+
+	/**
+	 * This is a parameterized constructor. Takes in the following parameters to
+	 * instantiate the booking history page dto object.
+	 * 
+	 * @param bookings   ---> bookings of the page
+	 * @param nextCursor ---> cursor of the next page, null for the last page
+	 */
+	public BookingHistoryPageDto(List<BookingDto> bookings, String nextCursor) {
+		this.bookings = bookings;
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * This is a method used to get the bookings from a booking history page dto
+	 * object
+	 * 
+	 * @return the bookings of the page.
+	 */
+	public List<BookingDto> getBookings() {
+		return bookings;
+	}
+
+	/**
+	 * This is a method used to get the cursor of the next page from a booking
+	 * history page dto object
+	 * 
+	 * @return the cursor of the next page, null for the last page.
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.training.airline.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * This is a Dto class to hold the fare calendar of a route. It has private
+ * fields to represent the cities and the month asked for, and the fare of each
+ * day of the month. It has getters and setters to access and modify the private
+ * fields.
+ * 
+ * @author Praveen J
+ */
+public class FareCalendarDto implements Serializable {
+
+	/**
+	 * default serialVersionUID is used here.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This field originCity of type String represents the origin city name.
+	 */
+	private String originCity;
+
+	/**
+	 * This field destinationCity of type String represents the destination city
+	 * name.
+	 */
+	private String destinationCity;
+
+	/**
+	 * This field month of type String represents the month of the calendar, in
+	 * the format yyyy-MM.
+	 */
+	private String month;
+
+	/**
+	 * This field represents the fare of each day of the month.
+	 */
+	private List<FareDayDto> days;
+
+	/**
+	 * This is a zero argument constructor. Used to instantiate fare calendar dto
+	 * object.
+	 */
+	public FareCalendarDto() {
+
+	}
+
+	/**
+	 * This is a parameterized constructor. Takes in the following parameters to
+	 * instantiate the fare calendar dto object and then initialize the values with
+	 * the arguments passed.
+	 * 
+	 * @param originCity      ---> origin city name
+	 * @param destinationCity ---> destination city name
+	 * @param month           ---> month in the format yyyy-MM
+	 */
+	public FareCalendarDto(String originCity, String destinationCity, String month) {
+		this.originCity = originCity;
+		this.destinationCity = destinationCity;
+		this.month = month;
+	}
+
+	/**
+	 * This is a method used to get the origin city name of the calendar
+	 * 
+	 * @return the origin city name
+	 */
+	public String getOriginCity() {
+		return originCity;
+	}
+
+	/**
+	 * This is a method used to set the origin city name of the calendar
+	 * 
+	 * @param originCity The origin city name is passed here.
+	 */
+	public void setOriginCity(String originCity) {
+		this.originCity = originCity;
+	}
+
+	/**
+	 * This is a method used to get the destination city name of the calendar
+	 * 
+	 * @return the destination city name
+	 */
+	public String getDestinationCity() {
+		return destinationCity;
+	}
+
+	/**
+	 * This is a method used to set the destination city name of the calendar
+	 * 
+	 * @param destinationCity The destination city name is passed here.
+	 */
+	public void setDestinationCity(String destinationCity) {
+		this.destinationCity = destinationCity;
+	}
+
+	/**
+	 * This is a method used to get the month of the calendar
+	 * 
+	 * @return the month in the format yyyy-MM
+	 */
+	public String getMonth() {
+		return month;
+	}
+
+	/**
+	 * This is a method used to set the month of the calendar
+	 * 
+	 * @param month The month in the format yyyy-MM is passed here.
+	 */
+	public void setMonth(String month) {
+		this.month = month;
+	}
+
+	/**
+	 * This is a method used to get the fare of each day of the month
+	 * 
+	 * @return the list of fare day dtos
+	 */
+	public List<FareDayDto> getDays() {
+		return days;
+	}
+
+	/**
+	 * This is a method used to set the fare of each day of the month
+	 * 
+	 * @param days The list of fare day dtos is passed here.
+	 */
+	public void setDays(List<FareDayDto> days) {
+		this.days = days;
+	}
+
+}
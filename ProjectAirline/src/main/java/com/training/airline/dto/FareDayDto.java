@@ -0,0 +1,147 @@
+package com.training.airline.dto;
+
+import java.io.Serializable;
+import java.sql.Date;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * This is a Dto class to hold the fare of one day of the fare calendar. It has
+ * private fields to represent the lowest cost and the seats of the day. It has
+ * getters and setters to access and modify the private fields.
+ * 
+ * @author Praveen J
+ */
+public class FareDayDto implements Serializable {
+
+	/**
+	 * default serialVersionUID is used here.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This field represents the date.
+	 * 
+	 * @JsonFormat is used here to specify the pattern and time zone for date while
+	 *             converting to JSON.
+	 */
+	@JsonFormat(pattern = "yyyy-MM-dd", timezone = "Asia/Kolkata")
+	private Date date;
+
+	/**
+	 * This field represents the lowest cost of a seat on the day, among the flights
+	 * which have seats left. It is null if there are no seats left.
+	 */
+	private Float lowestCost;
+
+	/**
+	 * This field represents the total seats left on all the flights of the day.
+	 */
+	private Integer seats;
+
+	/**
+	 * This field represents the number of flights which have seats left on the
+	 * day.
+	 */
+	private Integer flights;
+
+	/**
+	 * This is a zero argument constructor. Used to instantiate fare day dto
+	 * object.
+	 */
+	public FareDayDto() {
+
+	}
+
+	/**
+	 * This is a parameterized constructor. Takes in the following parameters to
+	 * instantiate the fare day dto object and then initialize the values with the
+	 * arguments passed.
+	 * 
+	 * @param date       ---> the date
+	 * @param lowestCost ---> lowest cost of a seat
+	 * @param seats      ---> total seats left
+	 * @param flights    ---> number of flights with seats left
+	 */
+	public FareDayDto(Date date, Float lowestCost, Integer seats, Integer flights) {
+		this.date = date;
+		this.lowestCost = lowestCost;
+		this.seats = seats;
+		this.flights = flights;
+	}
+
+	/**
+	 * This is a method used to get the date of the fare
+	 * 
+	 * @return the date
+	 */
+	public Date getDate() {
+		return date;
+	}
+
+	/**
+	 * This is a method used to set the date of the fare
+	 * 
+	 * @param date The date is passed here.
+	 */
+	public void setDate(Date date) {
+		this.date = date;
+	}
+
+	/**
+	 * This is a method used to get the lowest cost of a seat on the day
+	 * 
+	 * @return the lowest cost, or null if there are no seats left
+	 */
+	public Float getLowestCost() {
+		return lowestCost;
+	}
+
+	/**
+	 * This is a method used to set the lowest cost of a seat on the day
+	 * 
+	 * @param lowestCost The lowest cost is passed here.
+	 */
+	public void setLowestCost(Float lowestCost) {
+		this.lowestCost = lowestCost;
+	}
+
+	/**
+	 * This is a method used to get the total seats left on the day
+	 * 
+	 * @return the total seats left
+	 */
+	public Integer getSeats() {
+		return seats;
+	}
+
+	/**
+	 * This is a method used to set the total seats left on the day
+	 * 
+	 * @param seats The total seats left is passed here.
+	 */
+	public void setSeats(Integer seats) {
+		this.seats = seats;
+	}
+
+	/**
+	 * This is a method used to get the number of flights with seats left on the
+	 * day
+	 * 
+	 * @return the number of flights
+	 */
+	public Integer getFlights() {
+		return flights;
+	}
+
+	/**
+	 * This is a method used to set the number of flights with seats left on the
+	 * day
+	 * 
+	 * @param flights The number of flights is passed here.
+	 */
+	public void setFlights(Integer flights) {
+		this.flights = flights;
+	}
+
+}
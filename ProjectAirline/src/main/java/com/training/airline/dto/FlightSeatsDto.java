@@ -0,0 +1,99 @@
+package com.training.airline.dto;
+
+import java.io.Serializable;
+import java.sql.Date;
+
+/**
+ * This is a Dto class to hold the seats and cost of a flight on a date, as read
+ * by the search queries. It is instantiated by the queries themselves, through a
+ * constructor expression, so that only these columns are read and no entity is
+ * loaded into the persistence context. The flight of the row is taken from the
+ * route index. It has getters to access the private fields.
+ * 
+ * @author Praveen J
+ */
+public class FlightSeatsDto implements Serializable {
+
+	/**
+	 * default serialVersionUID is used here.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This field flightId of type String represents the flight id.
+	 */
+	private final String flightId;
+
+	/**
+	 * This field flightDate of type Date represents the date of the flight.
+	 */
+	private final Date flightDate;
+
+	/**
+	 * This field seats of type Integer represents the number of seats available on
+	 * the flight.
+	 */
+	private final Integer seats;
+
+	/**
+	 * This field cost of type Float represents the cost of a seat on the flight.
+	 */
+	private final Float cost;
+
+	/**
+	 * This is a parameterized constructor. Takes in the following parameters to
+	 * instantiate the flight seats dto object. It is called by the queries, which
+	 * type the date column as a java.util.Date, though its values are sql dates.
+	 * 
+	 * @param flightId   ---> the flight id
+	 * @param flightDate ---> date of the flight
+	 * @param seats      ---> number of seats available
+	 * @param cost       ---> cost of a seat
+	 */
+	public FlightSeatsDto(String flightId, java.util.Date flightDate, Integer seats, Float cost) {
+		this.flightId = flightId;
+		this.flightDate = flightDate instanceof Date date ? date : new Date(flightDate.getTime());
+		this.seats = seats;
+		this.cost = cost;
+	}
+
+	/**
+	 * This is a method used to get the flight id from a flight seats dto object
+	 * 
+	 * @return the flight id.
+	 */
+	public String getFlightId() {
+		return flightId;
+	}
+
+	/**
+	 * This is a method used to get the date of the flight from a flight seats dto
+	 * object
+	 * 
+	 * @return the date of the flight.
+	 */
+	public Date getFlightDate() {
+		return flightDate;
+	}
+
+	/**
+	 * This is a method used to get the number of seats available from a flight
+	 * seats dto object
+	 * 
+	 * @return the number of seats available.
+	 */
+	public Integer getSeats() {
+		return seats;
+	}
+
+	/**
+	 * This is a method used to get the cost of a seat from a flight seats dto
+	 * object
+	 * 
+	 * @return the cost of a seat.
+	 */
+	public Float getCost() {
+		return cost;
+	}
+
+}
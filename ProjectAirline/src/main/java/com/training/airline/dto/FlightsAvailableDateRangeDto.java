@@ -45,6 +45,19 @@ public class FlightsAvailableDateRangeDto implements Serializable {
 	 */
 	private Date endDate;
 
+	/**
+	 * This field pageNumber of type Integer represents the page of the search
+	 * result to be returned, starting from zero. It is optional.
+	 */
+	private Integer pageNumber;
+
+	/**
+	 * This field pageSize of type Integer represents the number of available
+	 * flights in each page of the search result. It is optional, and the whole
+	 * result is returned when it is not given.
+	 */
+	private Integer pageSize;
+
 	/**
 	 * This is a zero argument constructor. Used to instantiate flight available dto
 	 * on a given date range object.
@@ -171,4 +184,40 @@ public class FlightsAvailableDateRangeDto implements Serializable {
 		this.endDate = endDate;
 	}
 
+	/**
+	 * This is a method used to get the page number of the flight search
+	 * 
+	 * @return the page number of the flight search
+	 */
+	public Integer getPageNumber() {
+		return pageNumber;
+	}
+
+	/**
+	 * This is method used to set the page number of the flight search
+	 * 
+	 * @param pageNumber The page number is passed here.
+	 */
+	public void setPageNumber(Integer pageNumber) {
+		this.pageNumber = pageNumber;
+	}
+
+	/**
+	 * This is a method used to get the page size of the flight search
+	 * 
+	 * @return the page size of the flight search
+	 */
+	public Integer getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * This is method used to set the page size of the flight search
+	 * 
+	 * @param pageSize The page size is passed here.
+	 */
+	public void setPageSize(Integer pageSize) {
+		this.pageSize = pageSize;
+	}
+
 }
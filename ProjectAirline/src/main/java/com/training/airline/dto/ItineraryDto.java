@@ -0,0 +1,139 @@
+package com.training.airline.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * This is a Dto class to hold an itinerary between two cities. It has private
+ * fields to represent the flights of the itinerary, in the order they are
+ * flown, along with the total travel time and cost. It has getters and setters
+ * to access and modify the private fields.
+ * 
+ * @author Praveen J
+ */
+public class ItineraryDto implements Serializable {
+
+	/**
+	 * default serialVersionUID is used here.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This field represents the flights available on each leg of the itinerary,
+	 * in the order they are flown.
+	 */
+	private List<FlightAvailDto> flights;
+
+	/**
+	 * This field represents the number of stops between the cities.
+	 */
+	private Integer stops;
+
+	/**
+	 * This field represents the time in minutes from the departure of the first
+	 * flight to the arrival of the last flight, including the connections.
+	 */
+	private Long travelMinutes;
+
+	/**
+	 * This field represents the total cost of one seat on all the flights.
+	 */
+	private Float totalCost;
+
+	/**
+	 * This is a zero argument constructor. Used to instantiate itinerary dto
+	 * object.
+	 */
+	public ItineraryDto() {
+
+	}
+
+	/**
+	 * This is a parameterized constructor. Takes in the following parameters to
+	 * instantiate the itinerary dto object and then initialize the values with the
+	 * arguments passed.
+	 * 
+	 * @param flights       ---> flights available on each leg
+	 * @param travelMinutes ---> total travel time in minutes
+	 * @param totalCost     ---> total cost of one seat
+	 */
+	public ItineraryDto(List<FlightAvailDto> flights, Long travelMinutes, Float totalCost) {
+		this.flights = flights;
+		this.stops = flights.size() - 1;
+		this.travelMinutes = travelMinutes;
+		this.totalCost = totalCost;
+	}
+
+	/**
+	 * This is a method used to get the flights of the itinerary
+	 * 
+	 * @return the flights available on each leg
+	 */
+	public List<FlightAvailDto> getFlights() {
+		return flights;
+	}
+
+	/**
+	 * This is a method used to set the flights of the itinerary
+	 * 
+	 * @param flights The flights available on each leg are passed here.
+	 */
+	public void setFlights(List<FlightAvailDto> flights) {
+		this.flights = flights;
+	}
+
+	/**
+	 * This is a method used to get the number of stops of the itinerary
+	 * 
+	 * @return the number of stops
+	 */
+	public Integer getStops() {
+		return stops;
+	}
+
+	/**
+	 * This is a method used to set the number of stops of the itinerary
+	 * 
+	 * @param stops The number of stops is passed here.
+	 */
+	public void setStops(Integer stops) {
+		this.stops = stops;
+	}
+
+	/**
+	 * This is a method used to get the total travel time of the itinerary
+	 * 
+	 * @return the total travel time in minutes
+	 */
+	public Long getTravelMinutes() {
+		return travelMinutes;
+	}
+
+	/**
+	 * This is a method used to set the total travel time of the itinerary
+	 * 
+	 * @param travelMinutes The total travel time in minutes is passed here.
+	 */
+	public void setTravelMinutes(Long travelMinutes) {
+		this.travelMinutes = travelMinutes;
+	}
+
+	/**
+	 * This is a method used to get the total cost of one seat on the itinerary
+	 * 
+	 * @return the total cost of one seat
+	 */
+	public Float getTotalCost() {
+		return totalCost;
+	}
+
+	/**
+	 * This is a method used to set the total cost of one seat on the itinerary
+	 * 
+	 * @param totalCost The total cost of one seat is passed here.
+	 */
+	public void setTotalCost(Float totalCost) {
+		this.totalCost = totalCost;
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.training.airline.dto;
+
+import java.io.Serializable;
+import java.sql.Date;
+
+/**
+ * This is a Dto class to hold the connecting flight search information. It has
+ * private fields to represent the cities, the date and the limits of the
+ * search. It has getters and setters to access and modify the private fields.
+ * 
+ * @author Praveen J
+ */
+public class ItinerarySearchDto implements Serializable {
+
+	/**
+	 * default serialVersionUID is used here.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This field originCity of type String represents the origin city name.
+	 */
+	private String originCity;
+
+	/**
+	 * This field destinationCity of type String represents the destination city
+	 * name.
+	 */
+	private String destinationCity;
+
+	/**
+	 * This field travelOn of type Date represents the date of the first flight.
+	 */
+	private Date travelOn;
+
+	/**
+	 * This field seats represents the number of seats needed on every flight. One
+	 * seat is searched for if it is not given.
+	 */
+	private Integer seats;
+
+	/**
+	 * This field maxStops represents the largest number of stops between the
+	 * cities. The configured limit is used if it is not given.
+	 */
+	private Integer maxStops;
+
+	/**
+	 * This is a zero argument constructor. Used to instantiate itinerary search
+	 * dto object.
+	 */
+	public ItinerarySearchDto() {
+
+	}
+
+	/**
+	 * This is a parameterized constructor. Takes in the following parameters to
+	 * instantiate the itinerary search dto object and then initialize the values
+	 * with the arguments passed.
+	 * 
+	 * @param originCity      ---> origin city name
+	 * @param destinationCity ---> destination city name
+	 * @param travelOn        ---> date of the first flight
+	 */
+	public ItinerarySearchDto(String originCity, String destinationCity, Date travelOn) {
+		this.originCity = originCity;
+		this.destinationCity = destinationCity;
+		this.travelOn = travelOn;
+	}
+
+	/**
+	 * This is a method used to get the origin city name of the search
+	 * 
+	 * @return the origin city name
+	 */
+	public String getOriginCity() {
+		return originCity;
+	}
+
+	/**
+	 * This is a method used to set the origin city name of the search
+	 * 
+	 * @param originCity The origin city name is passed here.
+	 */
+	public void setOriginCity(String originCity) {
+		this.originCity = originCity;
+	}
+
+	/**
+	 * This is a method used to get the destination city name of the search
+	 * 
+	 * @return the destination city name
+	 */
+	public String getDestinationCity() {
+		return destinationCity;
+	}
+
+	/**
+	 * This is a method used to set the destination city name of the search
+	 * 
+	 * @param destinationCity The destination city name is passed here.
+	 */
+	public void setDestinationCity(String destinationCity) {
+		this.destinationCity = destinationCity;
+	}
+
+	/**
+	 * This is a method used to get the date of the first flight
+	 * 
+	 * @return the date of the first flight
+	 */
+	public Date getTravelOn() {
+		return travelOn;
+	}
+
+	/**
+	 * This is a method used to set the date of the first flight
+	 * 
+	 * @param travelOn The date of the first flight is passed here.
+	 */
+	public void setTravelOn(Date travelOn) {
+		this.travelOn = travelOn;
+	}
+
+	/**
+	 * This is a method used to get the number of seats needed on every flight
+	 * 
+	 * @return the number of seats
+	 */
+	public Integer getSeats() {
+		return seats;
+	}
+
+	/**
+	 * This is a method used to set the number of seats needed on every flight
+	 * 
+	 * @param seats The number of seats is passed here.
+	 */
+	public void setSeats(Integer seats) {
+		this.seats = seats;
+	}
+
+	/**
+	 * This is a method used to get the largest number of stops between the cities
+	 * 
+	 * @return the largest number of stops
+	 */
+	public Integer getMaxStops() {
+		return maxStops;
+	}
+
+	/**
+	 * This is a method used to set the largest number of stops between the cities
+	 * 
+	 * @param maxStops The largest number of stops is passed here.
+	 */
+	public void setMaxStops(Integer maxStops) {
+		this.maxStops = maxStops;
+	}
+
+}
@@ -0,0 +1,201 @@
+package com.training.airline.dto;
+
+import java.io.Serializable;
+import java.sql.Date;
+import java.sql.Timestamp;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * This is a Dto class to hold seat hold information. It has private fields to
+ * represent the user, the flight, the date and the number of seats held, along
+ * with the hold id and the time at which the hold expires. It has getters and
+ * setters to access and modify the private fields.
+ * 
+ * @author Praveen J
+ */
+public class SeatHoldDto implements Serializable {
+
+	/**
+	 * default serialVersionUID is used here.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This field holdId of type String represents the id given to each hold. It
+	 * is passed with the booking to convert the hold into the booking.
+	 */
+	private String holdId;
+
+	/**
+	 * This field userId of type Integer represents the user who placed the hold.
+	 * Only this user can release the hold or convert it into a booking.
+	 */
+	private Integer userId;
+
+	/**
+	 * This field flightId of type String represents the flight id of the seats
+	 * held.
+	 */
+	private String flightId;
+
+	/**
+	 * This field travelOn of type Date represents the date of the flight.
+	 * 
+	 * @JsonFormat is used here to specify the pattern and time zone for date while
+	 *             converting to JSON.
+	 */
+	@JsonFormat(pattern = "yyyy-MM-dd", timezone = "Asia/Kolkata")
+	private Date travelOn;
+
+	/**
+	 * This field seats represents the number of seats held.
+	 */
+	private Integer seats;
+
+	/**
+	 * This field expiresAt represents the time at which the seats are released if
+	 * the hold is not converted into a booking.
+	 * 
+	 * @JsonFormat is used here to specify the pattern and time zone for the time
+	 *             while converting to JSON.
+	 */
+	@JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "Asia/Kolkata")
+	private Timestamp expiresAt;
+
+	/**
+	 * This is a zero argument constructor. Used to instantiate seat hold dto
+	 * object.
+	 */
+	public SeatHoldDto() {
+
+	}
+
+	/**
+	 * This is a parameterized constructor. Takes in the following parameters to
+	 * instantiate the seat hold dto object and then initialize the values with the
+	 * arguments passed.
+	 * 
+	 * @param userId   ---> user who places the hold
+	 * @param flightId ---> the flight id
+	 * @param travelOn ---> date of the flight
+	 * @param seats    ---> number of seats
+	 */
+	public SeatHoldDto(Integer userId, String flightId, Date travelOn, Integer seats) {
+		this.userId = userId;
+		this.flightId = flightId;
+		this.travelOn = travelOn;
+		this.seats = seats;
+	}
+
+	/**
+	 * This is a method used to get the hold id of the seat hold
+	 * 
+	 * @return the hold id
+	 */
+	public String getHoldId() {
+		return holdId;
+	}
+
+	/**
+	 * This is a method used to set the hold id of the seat hold
+	 * 
+	 * @param holdId The hold id is passed here.
+	 */
+	public void setHoldId(String holdId) {
+		this.holdId = holdId;
+	}
+
+	/**
+	 * This is a method used to get the user id of the user who placed the seat
+	 * hold
+	 * 
+	 * @return the user id
+	 */
+	public Integer getUserId() {
+		return userId;
+	}
+
+	/**
+	 * This is a method used to set the user id of the user who placed the seat
+	 * hold
+	 * 
+	 * @param userId The user id is passed here.
+	 */
+	public void setUserId(Integer userId) {
+		this.userId = userId;
+	}
+
+	/**
+	 * This is a method used to get the flight id of the seat hold
+	 * 
+	 * @return the flight id
+	 */
+	public String getFlightId() {
+		return flightId;
+	}
+
+	/**
+	 * This is a method used to set the flight id of the seat hold
+	 * 
+	 * @param flightId The flight id is passed here.
+	 */
+	public void setFlightId(String flightId) {
+		this.flightId = flightId;
+	}
+
+	/**
+	 * This is a method used to get the date of the flight of the seat hold
+	 * 
+	 * @return the date of the flight
+	 */
+	public Date getTravelOn() {
+		return travelOn;
+	}
+
+	/**
+	 * This is a method used to set the date of the flight of the seat hold
+	 * 
+	 * @param travelOn The date of the flight is passed here.
+	 */
+	public void setTravelOn(Date travelOn) {
+		this.travelOn = travelOn;
+	}
+
+	/**
+	 * This is a method used to get the number of seats held
+	 * 
+	 * @return the number of seats
+	 */
+	public Integer getSeats() {
+		return seats;
+	}
+
+	/**
+	 * This is a method used to set the number of seats held
+	 * 
+	 * @param seats The number of seats is passed here.
+	 */
+	public void setSeats(Integer seats) {
+		this.seats = seats;
+	}
+
+	/**
+	 * This is a method used to get the time at which the seat hold expires
+	 * 
+	 * @return the time at which the hold expires
+	 */
+	public Timestamp getExpiresAt() {
+		return expiresAt;
+	}
+
+	/**
+	 * This is a method used to set the time at which the seat hold expires
+	 * 
+	 * @param expiresAt The time at which the hold expires is passed here.
+	 */
+	public void setExpiresAt(Timestamp expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+
+}
@@ -18,6 +18,9 @@ import javax.persistence.NamedStoredProcedureQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.StoredProcedureParameter;
 import javax.persistence.ParameterMode;
+
+import org.hibernate.annotations.BatchSize;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
@@ -111,8 +114,13 @@ public class Booking implements Serializable {
 	 * 
 	 * @JsonIgnore is used to avoid the circular dependency that would occur between
 	 *             User and Booking.
+	 * 
+	 *             The passengers of up to 100 bookings of the persistence context
+	 *             are loaded in one query, so that the booking history of a user
+	 *             does not select the passengers of each booking on its own.
 	 */
 	@OneToMany(mappedBy = "booking")
+	@BatchSize(size = 100)
 	@JsonIgnore
 	private List<Passenger> passengers;
 
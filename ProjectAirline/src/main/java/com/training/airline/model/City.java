@@ -3,22 +3,28 @@ package com.training.airline.model;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Objects;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * This is a model class to hold city information. It resembles the table in the
  * database under the name "alr_cities". It has private fields to represent the
  * properties of each City entity. It has getters and setters to access and
- * modify the private fields.
+ * modify the private fields. Cities are rarely changed, so they are held in the
+ * second level cache as read only entities.
  * 
  * @author Praveen J
  */
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 @Entity(name = "alr_cities")
 public class City implements Serializable {
 
@@ -5,22 +5,28 @@ import java.sql.Time;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * This is a model class to hold flight information. It resembles the table in
  * the database under the name "alr_flights". It has private fields to represent
  * the properties of each Flight entity. It has getters and setters to access
- * and modify the private fields.
+ * and modify the private fields. Flights are rarely changed, so they are held
+ * in the second level cache as read only entities.
  * 
  * @author Praveen J
  */
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 @Entity(name = "alr_flights")
 public class Flight implements Serializable {
 
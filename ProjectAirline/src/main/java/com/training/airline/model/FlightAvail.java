@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.sql.Date;
 import java.util.List;
 import java.util.Objects;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -12,6 +13,8 @@ import javax.persistence.IdClass;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
@@ -19,10 +22,14 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  * table in the database under the name "alr_flightavail". Since this class has
  * a composite primary key, it uses FlightAvailId class to generate ID. It has
  * private fields to represent the properties of each Flight entity. It has
- * getters and setters to access and modify the private fields.
+ * getters and setters to access and modify the private fields. The seats
+ * available are held in the second level cache as read write entities, and the
+ * cached entries are invalidated whenever the seats are updated.
  * 
  * @author Praveen J
  */
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @IdClass(FlightAvailId.class)
 @Entity(name = "alr_flightavail")
 public class FlightAvail implements Serializable {
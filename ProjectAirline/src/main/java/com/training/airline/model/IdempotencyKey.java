@@ -0,0 +1,159 @@
+package com.training.airline.model;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/**
+ * This is a model class to hold the idempotency key of a saved booking. It
+ * resembles the table in the database under the name "alr_idempotency_keys",
+ * having the columns idem_key (varchar(100), primary key), reference_id (int)
+ * and created_on (timestamp). A key is only ever inserted, so that a booking
+ * saved twice with the same key fails on the primary key instead of
+ * overwriting the first booking.
+ * 
+ * @author Praveen J
+ */
+@Entity(name = "alr_idempotency_keys")
+public class IdempotencyKey implements Serializable, Persistable<String> {
+
+	/**
+	 * default serialVersionUID is used here.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This field key of type String represents the idempotency key sent by the
+	 * client, prefixed with the user id. It is a primary key, and hence it is
+	 * annotated with @Id. It is mapped to a column named "idem_key" in the
+	 * database.
+	 */
+	@Id
+	@Column(name = "idem_key")
+	private String key;
+
+	/**
+	 * This field referenceId of type Integer represents the reference id of the
+	 * booking saved with this key. It is mapped to a column named "reference_id" in
+	 * the database.
+	 */
+	@Column(name = "reference_id")
+	private Integer referenceId;
+
+	/**
+	 * This field createdOn of type Timestamp represents the time at which the
+	 * booking was saved. It is mapped to a column named "created_on" in the
+	 * database.
+	 */
+	@Column(name = "created_on")
+	private Timestamp createdOn;
+
+	/**
+	 * This is a zero argument constructor. Used to instantiate idempotency key
+	 * object.
+	 */
+	public IdempotencyKey() {
+
+	}
+
+	/**
+	 * This is a parameterized constructor. Takes in the following parameters to
+	 * instantiate the idempotency key object and then initialize the values with
+	 * the arguments passed.
+	 * 
+	 * @param key         ---> the idempotency key
+	 * @param referenceId ---> reference id of the booking
+	 * @param createdOn   ---> time at which the booking was saved
+	 */
+	public IdempotencyKey(String key, Integer referenceId, Timestamp createdOn) {
+		this.key = key;
+		this.referenceId = referenceId;
+		this.createdOn = createdOn;
+	}
+
+	/**
+	 * This is a method used to get the idempotency key
+	 * 
+	 * @return the idempotency key
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * This is a method used to set the idempotency key
+	 * 
+	 * @param key The idempotency key is passed here.
+	 */
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	/**
+	 * This is a method used to get the reference id of the booking saved with the
+	 * key
+	 * 
+	 * @return the reference id of the booking
+	 */
+	public Integer getReferenceId() {
+		return referenceId;
+	}
+
+	/**
+	 * This is a method used to set the reference id of the booking saved with the
+	 * key
+	 * 
+	 * @param referenceId The reference id of the booking is passed here.
+	 */
+	public void setReferenceId(Integer referenceId) {
+		this.referenceId = referenceId;
+	}
+
+	/**
+	 * This is a method used to get the time at which the booking was saved
+	 * 
+	 * @return the time at which the booking was saved
+	 */
+	public Timestamp getCreatedOn() {
+		return createdOn;
+	}
+
+	/**
+	 * This is a method used to set the time at which the booking was saved
+	 * 
+	 * @param createdOn The time at which the booking was saved is passed here.
+	 */
+	public void setCreatedOn(Timestamp createdOn) {
+		this.createdOn = createdOn;
+	}
+
+	/**
+	 * This is a method used to get the id of the entity, which is the idempotency
+	 * key
+	 * 
+	 * @return the idempotency key
+	 */
+	@Override
+	public String getId() {
+		return key;
+	}
+
+	/**
+	 * This method tells that the key is always inserted, and never merged into an
+	 * existing row.
+	 * 
+	 * @return true
+	 */
+	@Transient
+	@Override
+	public boolean isNew() {
+		return true;
+	}
+
+}
@@ -0,0 +1,237 @@
+package com.training.airline.model;
+
+import java.io.Serializable;
+import java.sql.Date;
+import java.sql.Timestamp;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/**
+ * This is a model class to hold an active seat hold. It resembles the table in
+ * the database under the name "alr_seat_holds", having the columns hold_id
+ * (varchar(36), primary key), user_id (int), flight_id (varchar(10)),
+ * flight_date (date), seats (int) and expires_at (timestamp). A hold is saved
+ * along with the seats it takes, and deleted along with the seats it gives
+ * back, so that the holds left behind by a crash can be given back when the
+ * application starts again.
+ * 
+ * @author Praveen J
+ */
+@Entity(name = "alr_seat_holds")
+public class SeatHold implements Serializable, Persistable<String> {
+
+	/**
+	 * default serialVersionUID is used here.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This field holdId of type String represents the id given to the hold. It is
+	 * a primary key, and hence it is annotated with @Id. It is mapped to a column
+	 * named "hold_id" in the database.
+	 */
+	@Id
+	@Column(name = "hold_id")
+	private String holdId;
+
+	/**
+	 * This field userId of type Integer represents the user who placed the hold.
+	 * It is mapped to a column named "user_id" in the database.
+	 */
+	@Column(name = "user_id")
+	private Integer userId;
+
+	/**
+	 * This field flightId of type String represents the flight id of the seats
+	 * held. It is mapped to a column named "flight_id" in the database.
+	 */
+	@Column(name = "flight_id")
+	private String flightId;
+
+	/**
+	 * This field flightDate of type Date represents the date of the flight. It is
+	 * mapped to a column named "flight_date" in the database.
+	 */
+	@Column(name = "flight_date")
+	private Date flightDate;
+
+	/**
+	 * This field seats represents the number of seats held. It is mapped to a
+	 * column named "seats" in the database.
+	 */
+	@Column(name = "seats")
+	private Integer seats;
+
+	/**
+	 * This field expiresAt of type Timestamp represents the time at which the
+	 * seats are given back. It is mapped to a column named "expires_at" in the
+	 * database.
+	 */
+	@Column(name = "expires_at")
+	private Timestamp expiresAt;
+
+	/**
+	 * This is a zero argument constructor. Used to instantiate seat hold object.
+	 */
+	public SeatHold() {
+
+	}
+
+	/**
+	 * This is a parameterized constructor. Takes in the following parameters to
+	 * instantiate the seat hold object and then initialize the values with the
+	 * arguments passed.
+	 * 
+	 * @param holdId     ---> the hold id
+	 * @param userId     ---> user who placed the hold
+	 * @param flightId   ---> the flight id
+	 * @param flightDate ---> date of the flight
+	 * @param seats      ---> number of seats
+	 * @param expiresAt  ---> time at which the hold expires
+	 */
+	public SeatHold(String holdId, Integer userId, String flightId, Date flightDate, Integer seats,
+			Timestamp expiresAt) {
+		this.holdId = holdId;
+		this.userId = userId;
+		this.flightId = flightId;
+		this.flightDate = flightDate;
+		this.seats = seats;
+		this.expiresAt = expiresAt;
+	}
+
+	/**
+	 * This is a method used to get the hold id
+	 * 
+	 * @return the hold id
+	 */
+	public String getHoldId() {
+		return holdId;
+	}
+
+	/**
+	 * This is a method used to set the hold id
+	 * 
+	 * @param holdId The hold id is passed here.
+	 */
+	public void setHoldId(String holdId) {
+		this.holdId = holdId;
+	}
+
+	/**
+	 * This is a method used to get the user id of the user who placed the hold
+	 * 
+	 * @return the user id
+	 */
+	public Integer getUserId() {
+		return userId;
+	}
+
+	/**
+	 * This is a method used to set the user id of the user who placed the hold
+	 * 
+	 * @param userId The user id is passed here.
+	 */
+	public void setUserId(Integer userId) {
+		this.userId = userId;
+	}
+
+	/**
+	 * This is a method used to get the flight id of the seats held
+	 * 
+	 * @return the flight id
+	 */
+	public String getFlightId() {
+		return flightId;
+	}
+
+	/**
+	 * This is a method used to set the flight id of the seats held
+	 * 
+	 * @param flightId The flight id is passed here.
+	 */
+	public void setFlightId(String flightId) {
+		this.flightId = flightId;
+	}
+
+	/**
+	 * This is a method used to get the date of the flight
+	 * 
+	 * @return the date of the flight
+	 */
+	public Date getFlightDate() {
+		return flightDate;
+	}
+
+	/**
+	 * This is a method used to set the date of the flight
+	 * 
+	 * @param flightDate The date of the flight is passed here.
+	 */
+	public void setFlightDate(Date flightDate) {
+		this.flightDate = flightDate;
+	}
+
+	/**
+	 * This is a method used to get the number of seats held
+	 * 
+	 * @return the number of seats
+	 */
+	public Integer getSeats() {
+		return seats;
+	}
+
+	/**
+	 * This is a method used to set the number of seats held
+	 * 
+	 * @param seats The number of seats is passed here.
+	 */
+	public void setSeats(Integer seats) {
+		this.seats = seats;
+	}
+
+	/**
+	 * This is a method used to get the time at which the hold expires
+	 * 
+	 * @return the time at which the hold expires
+	 */
+	public Timestamp getExpiresAt() {
+		return expiresAt;
+	}
+
+	/**
+	 * This is a method used to set the time at which the hold expires
+	 * 
+	 * @param expiresAt The time at which the hold expires is passed here.
+	 */
+	public void setExpiresAt(Timestamp expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+
+	/**
+	 * This is a method used to get the id of the entity, which is the hold id
+	 * 
+	 * @return the hold id
+	 */
+	@Override
+	public String getId() {
+		return holdId;
+	}
+
+	/**
+	 * This method tells that the hold is always inserted, and never merged into an
+	 * existing row.
+	 * 
+	 * @return true
+	 */
+	@Transient
+	@Override
+	public boolean isNew() {
+		return true;
+	}
+
+}
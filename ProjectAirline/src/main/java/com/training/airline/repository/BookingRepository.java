@@ -4,8 +4,12 @@ import java.sql.Date;
 import java.sql.SQLException;
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.query.Procedure;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
@@ -26,15 +30,40 @@ public interface BookingRepository extends CrudRepository<Booking, Integer> {
 	/**
 	 * This method is used to get all the bookings made by the user, from the
 	 * database and returns back list of bookings to the service class. This method
-	 * uses a native query which is specified in the jpa named properties file.
+	 * uses a jpql query which is specified in the jpa named properties file. The
+	 * user, the flight and its cities are fetched in the same query, and the
+	 * passengers are batch fetched, so that the number of queries does not grow
+	 * with the number of bookings.
 	 * 
 	 * @param userId
 	 * @return
 	 * @throws SQLException
 	 */
-	@Query(nativeQuery = true)
 	public List<Booking> getBookingForUserRepository(@Param("userId") Integer userId) throws SQLException;
 
+	/**
+	 * This method is used to get a page of the bookings made by the user, newest
+	 * first, from the database and returns back list of bookings to the service
+	 * class. Only the bookings older than the given reference id are returned, so
+	 * that each page is read from where the previous one ended, whatever the
+	 * length of the history. This method uses a jpql query which is specified in
+	 * the jpa named properties file.
+	 * 
+	 * @param userId
+	 * @param beforeReferenceId reference id of the last booking of the previous
+	 *                          page
+	 * @param status            status of the bookings, as a like pattern
+	 * @param startDate         first travel date
+	 * @param endDate           last travel date
+	 * @param pageable          number of bookings of the page
+	 * @return list of bookings
+	 * @throws SQLException
+	 */
+	public List<Booking> getBookingHistoryRepository(@Param("userId") Integer userId,
+			@Param("beforeReferenceId") Integer beforeReferenceId, @Param("status") String status,
+			@Param("startDate") Date startDate, @Param("endDate") Date endDate, Pageable pageable)
+			throws SQLException;
+
 	/**
 	 * This method is used to save the booking made by the user into the database
 	 * using all the given details and return back the booking reference id to the
@@ -57,13 +86,15 @@ public interface BookingRepository extends CrudRepository<Booking, Integer> {
 	 * This method is used to cancel the entire booking made by the user in the
 	 * database and returns back number of rows updated to the service class. This
 	 * method uses a native query which is specified in the jpa named properties
-	 * file. Since updation is being performed here, this method is annotated
-	 * with @Modifying
+	 * file. Since updation is being performed here, this method is annotated with
+	 * @Modifying. Only the cached entries of alr_bookings are invalidated by this
+	 * update.
 	 * 
 	 * @param referenceId
 	 * @return number of rows updated
 	 * @throws SQLException
 	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "alr_bookings"))
 	@Modifying
 	@Query(nativeQuery = true)
 	Integer cancelBookingRepository(@Param("referenceId") Integer referenceId) throws SQLException;
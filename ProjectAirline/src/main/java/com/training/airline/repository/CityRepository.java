@@ -3,9 +3,14 @@ package com.training.airline.repository;
 import java.sql.SQLException;
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.training.airline.dto.CityDto;
 import com.training.airline.model.City;
 
 /**
@@ -20,20 +25,61 @@ public interface CityRepository extends CrudRepository<City, Integer> {
 
 	/**
 	 * This method is specified within the CrudRepository, it finds all the cities
-	 * from the database and returns back the list of cities.
+	 * from the database and returns back the list of cities. The result is held in
+	 * the query cache until the table is changed.
 	 * 
 	 * @return list of cities
 	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
 	List<City> findAll();
 
 	/**
 	 * This method is used to fetch the city object using the city name, it works on
-	 * derived query, and it returns back the city found.
+	 * derived query, and it returns back the city found. The result is held in the
+	 * query cache until the table is changed.
 	 * 
 	 * @param cityName
 	 * @return city object
 	 * @throws SQLException
 	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
 	City findByCityName(String cityName) throws SQLException;
 
+	/**
+	 * This method is used to get all the cities from the database as city dtos.
+	 * The dtos are built by the query from the columns of the city, without loading
+	 * the city entities. This method uses a query which is specified in the jpa
+	 * named properties file. The result is held in the query cache until the table
+	 * is changed.
+	 * 
+	 * @return list of city dtos
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	List<CityDto> getAllCityDtosRepository();
+
+	/**
+	 * This method is used to get the city of the given name from the database as a
+	 * city dto, without loading the city entity. This method uses a query which is
+	 * specified in the jpa named properties file. The result is held in the query
+	 * cache until the table is changed.
+	 * 
+	 * @param cityName
+	 * @return city dto, or null if there is no city with the given name
+	 * @throws SQLException
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	CityDto getCityDtoByNameRepository(@Param("cityName") String cityName) throws SQLException;
+
+	/**
+	 * This method is used to get the city of the given id from the database as a
+	 * city dto, without loading the city entity. This method uses a query which is
+	 * specified in the jpa named properties file. The result is held in the query
+	 * cache until the table is changed.
+	 * 
+	 * @param cityId
+	 * @return city dto, or null if there is no city with the given id
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	CityDto getCityDtoByIdRepository(@Param("cityId") Integer cityId);
+
 }
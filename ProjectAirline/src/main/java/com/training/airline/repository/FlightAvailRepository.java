@@ -2,14 +2,20 @@ package com.training.airline.repository;
 
 import java.sql.Date;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.training.airline.dto.FlightSeatsDto;
 import com.training.airline.model.FlightAvail;
 
 /**
@@ -27,23 +33,126 @@ public interface FlightAvailRepository extends CrudRepository<FlightAvail, Strin
 	 * This method is used to find the flight available object for the given flight
 	 * id on a given date from the database, and returns back the available flight
 	 * object to the service class. This method uses a native query which is
-	 * specified in the jpa named properties file.
+	 * specified in the jpa named properties file. The result is held in the query
+	 * cache until the table is changed.
 	 * 
 	 * @param flightId
 	 * @param travelOn
 	 * @return flight available object
 	 * @throws SQLException
 	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
 	@Query(nativeQuery = true)
 	public FlightAvail getFlightsAvailableRepository(@Param("flightId") String flightId,
 			@Param("travelOn") Date travelOn) throws SQLException;
 
+	/**
+	 * This method is used to find the flight id, flight date, seats and cost of the
+	 * given flight on a given date from the database, and returns them back to the
+	 * service class as a flight seats dto. The dto is built by the query, no entity
+	 * is loaded, and the flight is taken from the route index. This method uses a
+	 * query which is specified in the jpa named properties file. The result is held
+	 * in the query cache until the table is changed.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @return flight seats dto, or null if the flight does not fly on the date
+	 * @throws SQLException
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	public FlightSeatsDto getFlightSeatsRepository(@Param("flightId") String flightId,
+			@Param("travelOn") Date travelOn) throws SQLException;
+
+	/**
+	 * This method is used to find the flight id, flight date, seats and cost of the
+	 * given flight on a given date from the database, and returns them back to the
+	 * service class as a flight seats dto. It is used to load the seat
+	 * availability ledger, so the result is never taken from or put into the query
+	 * cache, and the seats are always the ones stored in the table. This method
+	 * uses a query which is specified in the jpa named properties file.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @return flight seats dto, or null if the flight does not fly on the date
+	 * @throws SQLException
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE"))
+	public FlightSeatsDto loadFlightSeatsRepository(@Param("flightId") String flightId,
+			@Param("travelOn") Date travelOn) throws SQLException;
+
+	/**
+	 * This method is used to find the flight id, flight date, seats and cost of the
+	 * available flights between the given origin city id and destination city id on
+	 * a given date from the database, ordered by the departure time, and returns
+	 * them back to the service class as flight seats dtos. The dtos are built by
+	 * the query from these columns only, no entity is loaded, and the flights are
+	 * taken from the route index. This method uses a query which is specified in
+	 * the jpa named properties file. The result is held in the query cache until
+	 * the table is changed.
+	 * 
+	 * @param originCityId
+	 * @param destinationCityId
+	 * @param travelOn
+	 * @return list of flight seats dtos
+	 * @throws SQLException
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	public List<FlightSeatsDto> getSeatsAvailableOnRouteRepository(@Param("originCityId") Integer originCityId,
+			@Param("destinationCityId") Integer destinationCityId, @Param("travelOn") Date travelOn)
+			throws SQLException;
+
+	/**
+	 * This method is used to find the flight id, flight date, seats and cost of the
+	 * available flights between the given origin city id and destination city id,
+	 * between the given start date and end date range from the database, ordered by
+	 * the flight date and the departure time, and returns them back to the service
+	 * class as flight seats dtos. Only the page asked for is returned, or all of
+	 * them if the pageable is unpaged. No entity is loaded, the flights are taken
+	 * from the route index. This method uses a query which is specified in the jpa
+	 * named properties file. The result is held in the query cache until the table
+	 * is changed.
+	 * 
+	 * @param originCityId
+	 * @param destinationCityId
+	 * @param startDate
+	 * @param endDate
+	 * @param pageable
+	 * @return list of flight seats dtos
+	 * @throws SQLException
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	public List<FlightSeatsDto> getSeatsAvailableOnRouteDateRangeRepository(
+			@Param("originCityId") Integer originCityId, @Param("destinationCityId") Integer destinationCityId,
+			@Param("startDate") Date startDate, @Param("endDate") Date endDate, Pageable pageable)
+			throws SQLException;
+
+	/**
+	 * This method is used to find the flight id, flight date, seats and cost of the
+	 * given flights between the given start date and end date range from the
+	 * database, and returns them back to the service class as flight seats dtos,
+	 * without loading any entity. It is used to
+	 * check the seats of every leg of the connecting flights in one query. This
+	 * method uses a query which is specified in the jpa named properties file. The
+	 * result is held in the query cache until the table is changed.
+	 * 
+	 * @param flightIds
+	 * @param startDate
+	 * @param endDate
+	 * @return list of flight seats dtos
+	 * @throws SQLException
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	public List<FlightSeatsDto> getSeatsAvailableForFlightsRepository(
+			@Param("flightIds") Collection<String> flightIds, @Param("startDate") Date startDate,
+			@Param("endDate") Date endDate) throws SQLException;
+
 	/**
 	 * This method is used to find the list of available flight objects for the
 	 * given flight id, between the given start date and end date range from the
 	 * database, and returns back the list of available flight objects to the
 	 * service class. This method uses a native query which is specified in the jpa
-	 * named properties file.
+	 * named properties file. The result is held in the query cache until the table
+	 * is changed.
 	 * 
 	 * @param flightId
 	 * @param startDate
@@ -51,6 +160,7 @@ public interface FlightAvailRepository extends CrudRepository<FlightAvail, Strin
 	 * @return list of available flight objects
 	 * @throws SQLException
 	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
 	@Query(nativeQuery = true)
 	public List<FlightAvail> getFlightsAvailableOnDateRangeRepository(@Param("flightId") String flightId,
 			@Param("startDate") Date startDate, @Param("endDate") Date endDate) throws SQLException;
@@ -59,7 +169,8 @@ public interface FlightAvailRepository extends CrudRepository<FlightAvail, Strin
 	 * This method is used to update the number of seats available for a given
 	 * flight id on a given date in the database, and returns back the number of
 	 * rows updated to the service class. This method uses a native query which is
-	 * specified in the jpa named properties file.
+	 * specified in the jpa named properties file. Only the cached entries of
+	 * alr_flightavail are invalidated by this update.
 	 * 
 	 * @param updateSeats
 	 * @param flightId
@@ -67,9 +178,86 @@ public interface FlightAvailRepository extends CrudRepository<FlightAvail, Strin
 	 * @return number of rows updated
 	 * @throws SQLException
 	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "alr_flightavail"))
 	@Modifying
 	@Query(nativeQuery = true)
 	public int updateFlightAvailSeatsRepository(@Param("updatedSeats") Integer updateSeats,
 			@Param("flightId") String flightId, @Param("travelOn") Date travelOn) throws SQLException;
 
+	/**
+	 * This method is used to reserve the given number of seats for a given flight
+	 * id on a given date in the database, and returns back the number of rows
+	 * updated to the service class. The seats are decremented by a single
+	 * conditional update, so the row is updated only if enough seats are still
+	 * available, and zero rows are returned otherwise. This method uses a native
+	 * query which is specified in the jpa named properties file. Only the cached
+	 * entries of alr_flightavail are invalidated by this update.
+	 * 
+	 * @param bookedSeats
+	 * @param flightId
+	 * @param travelOn
+	 * @return number of rows updated
+	 * @throws SQLException
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "alr_flightavail"))
+	@Modifying
+	@Query(nativeQuery = true)
+	public int reserveFlightAvailSeatsRepository(@Param("bookedSeats") Integer bookedSeats,
+			@Param("flightId") String flightId, @Param("travelOn") Date travelOn) throws SQLException;
+
+	/**
+	 * This method is used to release the given number of seats for a given flight
+	 * id on a given date in the database, and returns back the number of rows
+	 * updated to the service class. The seats are incremented by a single update
+	 * without reading the current seats first. This method uses a native query
+	 * which is specified in the jpa named properties file. Only the cached entries
+	 * of alr_flightavail are invalidated by this update.
+	 * 
+	 * @param releasedSeats
+	 * @param flightId
+	 * @param travelOn
+	 * @return number of rows updated
+	 * @throws SQLException
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "alr_flightavail"))
+	@Modifying
+	@Query(nativeQuery = true)
+	public int releaseFlightAvailSeatsRepository(@Param("releasedSeats") Integer releasedSeats,
+			@Param("flightId") String flightId, @Param("travelOn") Date travelOn) throws SQLException;
+
+	/**
+	 * This method is used to apply a change of seats for a given flight id on a
+	 * given date in the database, and returns back the number of rows updated to
+	 * the service class. The change can be positive or negative, it is used to
+	 * write back the coalesced seat changes of the seat availability ledger. This
+	 * method uses a native query which is specified in the jpa named properties
+	 * file. Only the cached entries of alr_flightavail are invalidated by this
+	 * update.
+	 * 
+	 * @param seatsDelta
+	 * @param flightId
+	 * @param travelOn
+	 * @return number of rows updated
+	 * @throws SQLException
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "alr_flightavail"))
+	@Modifying
+	@Query(nativeQuery = true)
+	public int adjustFlightAvailSeatsRepository(@Param("seatsDelta") Integer seatsDelta,
+			@Param("flightId") String flightId, @Param("travelOn") Date travelOn) throws SQLException;
+
+	/**
+	 * This method is used to find the list of available flight objects from the
+	 * given date onwards from the database, and returns back the list of available
+	 * flight objects to the service class. This method uses a native query which
+	 * is specified in the jpa named properties file.
+	 * 
+	 * @param fromDate
+	 * @return list of available flight objects
+	 * @throws SQLException
+	 */
+	@Query(nativeQuery = true)
+	public List<FlightAvail> getFlightsAvailableFromDateRepository(@Param("fromDate") Date fromDate)
+			throws SQLException;
+
 }
@@ -3,7 +3,10 @@ package com.training.airline.repository;
 import java.sql.SQLException;
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -24,15 +27,45 @@ public interface FlightRepository extends CrudRepository<Flight, String> {
 	 * This method is used to find all the flights between the given origin city id
 	 * and destination city id from the database, and returns back the list of
 	 * flights to the service class. This method uses a native query which is
-	 * specified in the jpa named properties file.
+	 * specified in the jpa named properties file. The result is held in the query
+	 * cache until the table is changed.
 	 * 
 	 * @param origin
 	 * @param destination
 	 * @return list of flights
 	 * @throws SQLException
 	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
 	@Query(nativeQuery = true)
 	public List<Flight> getFlightsByRouteRepository(@Param("origin") Integer origin,
 			@Param("destination") Integer destination) throws SQLException;
 
+	/**
+	 * This method is used to count the flights between the given origin city id and
+	 * destination city id in the database, and returns back the count to the
+	 * service class. This method uses a query which is specified in the jpa named
+	 * properties file. The result is not cached, so that a flight added since the
+	 * route index was built is seen.
+	 * 
+	 * @param origin
+	 * @param destination
+	 * @return number of flights
+	 * @throws SQLException
+	 */
+	public long countFlightsByRouteRepository(@Param("origin") Integer origin,
+			@Param("destination") Integer destination) throws SQLException;
+
+	/**
+	 * This method is used to find all the flights from the database, along with
+	 * both the cities of each flight within the same query, ordered by the
+	 * departure time, and returns back the list of flights to the service class.
+	 * This method uses a query which is specified in the jpa named properties file.
+	 * The result is held in the query cache until the table is changed.
+	 * 
+	 * @return list of flights
+	 * @throws SQLException
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	public List<Flight> getAllFlightsRepository() throws SQLException;
+
 }
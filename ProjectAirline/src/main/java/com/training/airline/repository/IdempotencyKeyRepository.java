@@ -0,0 +1,36 @@
+package com.training.airline.repository;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.training.airline.model.IdempotencyKey;
+
+/**
+ * This is a repository interface for IdempotencyKey. It has all the repository
+ * methods related to IdempotencyKey Entity. The keys of the saved bookings are
+ * inserted and looked up through this repository interface.
+ * 
+ * @author Praveen J
+ */
+@Repository
+public interface IdempotencyKeyRepository extends CrudRepository<IdempotencyKey, String> {
+
+	/**
+	 * This method is used to delete all the keys saved before the given time, and
+	 * returns back the number of keys deleted to the service class. This method
+	 * uses a query which is specified in the jpa named properties file. Since
+	 * deletion is being performed here, this method is annotated with @Modifying.
+	 * 
+	 * @param createdBefore
+	 * @return number of rows deleted
+	 * @throws SQLException
+	 */
+	@Modifying
+	Integer deleteExpiredKeysRepository(@Param("createdBefore") Timestamp createdBefore) throws SQLException;
+
+}
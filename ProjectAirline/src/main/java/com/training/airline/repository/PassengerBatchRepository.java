@@ -0,0 +1,32 @@
+package com.training.airline.repository;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import com.training.airline.model.Passenger;
+
+/**
+ * This is a repository fragment for Passenger. It has the repository methods
+ * which cannot be derived by spring data, and which are implemented by
+ * PassengerBatchRepositoryImpl. PassengerRepository extends this interface, so
+ * that these methods are called like any other passenger repository method.
+ * 
+ * @author Praveen J
+ */
+public interface PassengerBatchRepository {
+
+	/**
+	 * This method is used to save all the given passengers of a booking into the
+	 * database in one jdbc batch, instead of one stored procedure call for each
+	 * passenger. The passengers are saved with the booked status, and the ticket
+	 * numbers generated by the database are set to the given passengers and
+	 * returned back to the service class, in the same order as the passengers.
+	 * 
+	 * @param referenceId
+	 * @param passengers
+	 * @return list of generated ticket numbers
+	 * @throws SQLException
+	 */
+	List<Integer> savePassengersRepository(Integer referenceId, List<Passenger> passengers) throws SQLException;
+
+}
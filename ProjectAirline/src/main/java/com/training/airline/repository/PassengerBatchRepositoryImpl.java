@@ -0,0 +1,120 @@
+package com.training.airline.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.engine.spi.SessionEventListenerManager;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import com.training.airline.model.Passenger;
+
+/**
+ * This is the implementation of the PassengerBatchRepository fragment. It works
+ * on the jdbc connection of the current transaction, so that the passengers are
+ * saved within the same transaction as the booking. The batch is handed to the
+ * statement inspector and the event listeners of the session, as a batch run by
+ * hibernate is, so that the query counter counts it as one statement and times
+ * its execution.
+ * 
+ * @author Praveen J
+ */
+public class PassengerBatchRepositoryImpl implements PassengerBatchRepository {
+
+	/**
+	 * This is the insert statement used for each passenger of the batch. The
+	 * passengers are saved with the booked status.
+	 */
+	private static final String INSERT_PASSENGER = "INSERT INTO projectairline.alr_passengers"
+			+ " (reference_id, pass_name, age, status) VALUES (?, ?, ?, 'B')";
+
+	/**
+	 * This field entityManager is injected here in order to get the jdbc
+	 * connection of the current transaction.
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * This method is used to save all the given passengers of a booking into the
+	 * database in one jdbc batch, and returns back the generated ticket numbers.
+	 * 
+	 * @param referenceId
+	 * @param passengers
+	 * @return list of generated ticket numbers
+	 * @throws SQLException
+	 */
+	@Override
+	public List<Integer> savePassengersRepository(Integer referenceId, List<Passenger> passengers)
+			throws SQLException {
+
+		// if there are no passengers, there is nothing to save
+		if (passengers.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		// the statement is handed to the statement inspector of the session, which
+		// counts it for the current request
+		SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+		String inspectedSql = session.getJdbcSessionContext().getStatementInspector().inspect(INSERT_PASSENGER);
+		String sql = inspectedSql == null ? INSERT_PASSENGER : inspectedSql;
+		SessionEventListenerManager eventListenerManager = session.getEventListenerManager();
+
+		// the batch is run on the connection of the current transaction
+		return session.doReturningWork(connection -> {
+
+			// new ArrayList for the generated ticket numbers is created here
+			List<Integer> ticketNumbers = new ArrayList<>(passengers.size());
+
+			try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+				// iterating over the list of passengers
+				for (Iterator<Passenger> iterator = passengers.iterator(); iterator.hasNext();) {
+
+					// each passenger from the list
+					Passenger passenger = iterator.next();
+
+					// adding the passenger to the batch
+					statement.setInt(1, referenceId);
+					statement.setString(2, passenger.getPassengerName());
+					statement.setInt(3, passenger.getAge());
+					statement.addBatch();
+
+				}
+
+				// saving all the passengers in one round trip, timed by the event listeners
+				eventListenerManager.jdbcExecuteBatchStart();
+				try {
+					statement.executeBatch();
+				} finally {
+					eventListenerManager.jdbcExecuteBatchEnd();
+				}
+
+				// reading the generated ticket numbers, in the order of the passengers
+				try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+					for (Iterator<Passenger> iterator = passengers.iterator(); iterator.hasNext()
+							&& generatedKeys.next();) {
+						Passenger passenger = iterator.next();
+						passenger.setTicketNumber(generatedKeys.getInt(1));
+						passenger.setStatus("B");
+						ticketNumbers.add(passenger.getTicketNumber());
+					}
+				}
+
+			}
+
+			// returning the generated ticket numbers
+			return ticketNumbers;
+
+		});
+
+	}
+
+}
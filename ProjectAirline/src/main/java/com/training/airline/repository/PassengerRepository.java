@@ -3,8 +3,11 @@ package com.training.airline.repository;
 import java.sql.SQLException;
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.query.Procedure;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
@@ -20,7 +23,7 @@ import com.training.airline.model.Passenger;
  * @author Praveen J
  */
 @Repository
-public interface PassengerRepository extends CrudRepository<Passenger, Integer> {
+public interface PassengerRepository extends CrudRepository<Passenger, Integer>, PassengerBatchRepository {
 
 	/**
 	 * This method is used to get all the passengers with the given reference id,
@@ -53,16 +56,19 @@ public interface PassengerRepository extends CrudRepository<Passenger, Integer>
 			@Param("age") Integer age) throws SQLException;
 
 	/**
-	 * This method is used to cancel all the passengers having the given reference
-	 * id in the database and returns back number of rows updated to the service
-	 * class. This method uses a native query which is specified in the jpa named
-	 * properties file. Since updation is being performed here, this method is
-	 * annotated with @Modifying
+	 * This method is used to cancel all the booked passengers having the given
+	 * reference id in the database in one statement, and returns back number of
+	 * passengers cancelled to the service class. Passengers which are already
+	 * cancelled are not counted. This method uses a native query which is
+	 * specified in the jpa named properties file. Since updation is being
+	 * performed here, this method is annotated with @Modifying. Only the cached
+	 * entries of alr_passengers are invalidated by this update.
 	 * 
 	 * @param referenceId
 	 * @return number of rows updated
 	 * @throws SQLException
 	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "alr_passengers"))
 	@Modifying
 	@Query(nativeQuery = true)
 	Integer cancelPassengerById(@Param("referenceId") Integer referenceId) throws SQLException;
@@ -72,13 +78,15 @@ public interface PassengerRepository extends CrudRepository<Passenger, Integer>
 	 * the database and returns back number of rows updated to the service class.
 	 * This method uses a native query which is specified in the jpa named
 	 * properties file. Since updation is being performed here, this method is
-	 * annotated with @Modifying
+	 * annotated with @Modifying. Only the cached entries of alr_passengers are
+	 * invalidated by this update.
 	 * 
 	 * @param ticketNumber
 	 * @param referenceId
 	 * @return number of rows updated
 	 * @throws SQLException
 	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "alr_passengers"))
 	@Modifying
 	@Query(nativeQuery = true)
 	Integer cancelPassengerByTicketRepository(@Param("ticketNumber") Integer ticketNumber,
@@ -0,0 +1,36 @@
+package com.training.airline.repository;
+
+import java.sql.SQLException;
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.training.airline.model.SeatHold;
+
+/**
+ * This is a repository interface for SeatHold. It has all the repository
+ * methods related to SeatHold Entity. The active seat holds are saved, deleted
+ * and read back on startup through this repository interface.
+ * 
+ * @author Praveen J
+ */
+@Repository
+public interface SeatHoldRepository extends CrudRepository<SeatHold, String> {
+
+	/**
+	 * This method is used to delete the holds of the given hold ids, and returns
+	 * back the number of holds deleted to the service class. This method uses a
+	 * query which is specified in the jpa named properties file. Since deletion is
+	 * being performed here, this method is annotated with @Modifying.
+	 * 
+	 * @param holdIds
+	 * @return number of rows deleted
+	 * @throws SQLException
+	 */
+	@Modifying
+	Integer deleteSeatHoldsRepository(@Param("holdIds") Collection<String> holdIds) throws SQLException;
+
+}
@@ -0,0 +1,172 @@
+package com.training.airline.service;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.training.airline.utility.TransactionCallbacks;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * This is a service class which holds the metrics of the application in a
+ * prometheus registry, so that they can be scraped from the metrics endpoint.
+ * It holds a latency histogram with the 50th, 95th and 99th percentiles for
+ * each controller method and each service method, a counter of the
+ * AirlineServiceExceptions by the category of their message, and counters of
+ * the seats of the bookings confirmed and cancelled. The seats held for a
+ * booking which is not yet made are not counted.
+ * 
+ * The timers are kept by the callers once they are looked up, so that timing a
+ * call costs only the recording of its duration.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class AirlineMetrics {
+
+	/**
+	 * This field holds the percentiles published for each timer.
+	 */
+	private static final double[] PERCENTILES = { 0.5, 0.95, 0.99 };
+
+	/**
+	 * This field holds the registry of the metrics.
+	 */
+	private final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+	/**
+	 * This field holds the counter of the errors of each category.
+	 */
+	private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+
+	/**
+	 * This field holds the counter of the seats booked.
+	 */
+	private final Counter seatsBooked = Counter.builder("airline.seats.booked")
+			.description("Seats of the bookings confirmed, counted when the transaction commits").register(registry);
+
+	/**
+	 * This field holds the counter of the seats released.
+	 */
+	private final Counter seatsReleased = Counter.builder("airline.seats.released")
+			.description("Seats of the bookings and passengers cancelled, counted when the transaction commits")
+			.register(registry);
+
+	/**
+	 * This field holds the time window over which the percentiles are computed.
+	 */
+	@Value("${airline.metrics.percentile.window.seconds:60}")
+	private long percentileWindowSeconds = 60;
+
+	/**
+	 * This method is used to get the timer of the given controller or service
+	 * method. The timer is registered on the first call, the callers keep it so
+	 * that it is not looked up for each call.
+	 * 
+	 * @param layer  controller or service
+	 * @param type   class the method is called on
+	 * @param method
+	 * @return timer of the method
+	 */
+	public Timer timer(String layer, Class<?> type, Method method) {
+		return Timer.builder("airline." + layer + ".calls").description("Latency of the " + layer + " methods")
+				.tag("class", type.getSimpleName()).tag("method", method.getName()).publishPercentiles(PERCENTILES)
+				.distributionStatisticExpiry(Duration.ofSeconds(percentileWindowSeconds)).register(registry);
+	}
+
+	/**
+	 * This method is used to count an AirlineServiceException by the category of
+	 * its message.
+	 * 
+	 * @param message
+	 */
+	public void error(String message) {
+		String category = category(message);
+		errors.computeIfAbsent(category,
+				key -> Counter.builder("airline.service.errors")
+						.description("AirlineServiceExceptions thrown by the services").tag("category", key)
+						.register(registry))
+				.increment();
+	}
+
+	/**
+	 * This method is used to count the given number of seats of a booking
+	 * confirmed, once the current transaction commits.
+	 * 
+	 * @param seats
+	 */
+	public void seatsBooked(int seats) {
+		TransactionCallbacks.afterCommit(() -> seatsBooked.increment(seats));
+	}
+
+	/**
+	 * This method is used to count the given number of seats of a booking or
+	 * passengers cancelled, once the current transaction commits.
+	 * 
+	 * @param seats
+	 */
+	public void seatsReleased(int seats) {
+		TransactionCallbacks.afterCommit(() -> seatsReleased.increment(seats));
+	}
+
+	/**
+	 * This method is used to get the metrics in the text format of prometheus.
+	 * 
+	 * @return metrics
+	 */
+	public String scrape() {
+		return registry.scrape();
+	}
+
+	/**
+	 * This method is used to get the registry of the metrics.
+	 * 
+	 * @return registry
+	 */
+	public PrometheusMeterRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * This method is used to find the category of the message of an
+	 * AirlineServiceException. The messages of the exceptions wrapped by another
+	 * are appended to its message, so the most specific category found anywhere
+	 * in the message is taken.
+	 * 
+	 * @param message
+	 * @return category of the message
+	 */
+	public static String category(String message) {
+
+		if (message == null) {
+			return "other";
+		}
+
+		String text = message.toLowerCase(Locale.ROOT);
+		if (text.contains("exceeds the number of seats")) {
+			return "seats_unavailable";
+		} else if (text.contains("missing") || text.contains("should") || text.contains("format")
+				|| text.contains("invalid") || text.contains("credentials")) {
+			return "validation";
+		} else if (text.contains("not found") || text.contains("no flights") || text.contains("not available")
+				|| text.contains("expired")) {
+			return "not_found";
+		} else if (text.contains("already") || text.contains("idempotency")) {
+			return "conflict";
+		} else if (text.contains("failed")) {
+			return "write_failed";
+		}
+		return "other";
+
+	}
+
+}
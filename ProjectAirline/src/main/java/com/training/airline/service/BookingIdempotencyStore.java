@@ -0,0 +1,580 @@
+package com.training.airline.service;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.training.airline.dto.BookingDto;
+import com.training.airline.dto.PassengerDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.model.IdempotencyKey;
+import com.training.airline.repository.IdempotencyKeyRepository;
+
+/**
+ * This is a service class which makes saving a booking idempotent. A booking
+ * saved with an idempotency key is saved only once, and a retry with the same
+ * key gets the booking saved the first time, without reserving the seats or
+ * calling the booking procedure again. A retry which comes while the first
+ * request is still saving waits for it and shares its result. The keys are
+ * held in memory for the configured time, and at most the configured number of
+ * keys are held, evicting the first saved bookings first. A key which has
+ * expired is never replayed, even before it is evicted. When the store is
+ * full of bookings still being saved, a new key is rejected with 503 until
+ * some of them are saved. When the table is enabled, the keys are also saved
+ * in alr_idempotency_keys along with the bookings, so that a retry is
+ * recognised after a restart or by another instance of the application. A
+ * booking which fails is not remembered, so that it can be retried.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class BookingIdempotencyStore {
+
+	/**
+	 * This field bookingService of type BookingService is being autowired here in
+	 * order to save the booking and to get the booking saved with a key.
+	 */
+	@Autowired
+	private BookingService bookingService;
+
+	/**
+	 * This field idempotencyKeyRepository of type IdempotencyKeyRepository is being
+	 * autowired here in order to look up the keys saved in the database.
+	 */
+	@Autowired
+	private IdempotencyKeyRepository idempotencyKeyRepository;
+
+	/**
+	 * This field transactionManager is being autowired here in order to delete
+	 * the expired keys from the database within a transaction.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * This field holds the time in milliseconds for which a retry with the same key
+	 * gets the booking saved the first time.
+	 */
+	@Value("${airline.idempotency.ttl.ms:86400000}")
+	private long ttlMillis = 86400000;
+
+	/**
+	 * This field holds the largest number of keys held in memory.
+	 */
+	@Value("${airline.idempotency.max.size:10000}")
+	private int maxSize = 10000;
+
+	/**
+	 * This field holds the time in milliseconds for which a retry waits for the
+	 * first request which is still saving the booking.
+	 */
+	@Value("${airline.idempotency.wait.ms:30000}")
+	private long waitMillis = 30000;
+
+	/**
+	 * This field tells whether the keys are also saved in the database.
+	 */
+	@Value("${airline.idempotency.table.enabled:false}")
+	private boolean tableEnabled = false;
+
+	/**
+	 * This field holds the keys, both of the bookings saved and of the bookings
+	 * being saved.
+	 */
+	private final Map<String, Entry> entries = new HashMap<>();
+
+	/**
+	 * This field holds the keys of the bookings saved, in the order in which they
+	 * were saved, which is the order in which they expire, since each key is kept
+	 * for the same time after its booking is saved.
+	 */
+	private final Map<String, Entry> saved = new LinkedHashMap<>();
+
+	/**
+	 * This field holds the lock which guards the entries, so that only the first
+	 * booking with a key adds its entry, and the saved entries are evicted in the
+	 * order in which they expire.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * This field holds the number of bookings saved.
+	 */
+	private final AtomicLong executed = new AtomicLong();
+
+	/**
+	 * This field holds the number of retries which got a booking saved earlier.
+	 */
+	private final AtomicLong replayed = new AtomicLong();
+
+	/**
+	 * This field holds the number of retries which waited for a booking being
+	 * saved.
+	 */
+	private final AtomicLong coalesced = new AtomicLong();
+
+	/**
+	 * This field holds the number of retries which got a booking saved earlier
+	 * from the database.
+	 */
+	private final AtomicLong replayedFromTable = new AtomicLong();
+
+	/**
+	 * This field holds the number of keys evicted because the store was full.
+	 */
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Logger is instantiated with respect to BookingIdempotencyStore to log errors
+	 * occurring in this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(BookingIdempotencyStore.class);
+
+	/**
+	 * This method is used to save the booking made by the user only once for the
+	 * given idempotency key, and return the booking saved with the key back to the
+	 * controller.
+	 * 
+	 * @param idempotencyKey
+	 * @param bookingDto
+	 * @return booking dto saved with the key
+	 * @throws AirlineServiceException
+	 * @throws RejectedExecutionException if the store is full of bookings being
+	 *                                    saved
+	 */
+	public BookingDto saveBookingOnce(String idempotencyKey, BookingDto bookingDto) throws AirlineServiceException {
+
+		// if the key is empty, if block gets executed
+		if (idempotencyKey.isBlank()) {
+
+			// Any exception that would occur is logged here.
+			logger.error("Idempotency key is missing...");
+
+			// Manually throwing new AirlineServiceException since the key is missing
+			throw new AirlineServiceException("Idempotency key is missing...");
+
+		}
+
+		// if the key is too long, if block gets executed
+		if (idempotencyKey.length() > 64) {
+
+			// Any exception that would occur is logged here.
+			logger.error("Idempotency key should not be longer than 64 characters...");
+
+			// Manually throwing new AirlineServiceException since the key is too long
+			throw new AirlineServiceException("Idempotency key should not be longer than 64 characters...");
+
+		}
+
+		// if the user is missing, if block gets executed
+		if (bookingDto.getUser() == null || bookingDto.getUser().getUserId() == null) {
+
+			// Any exception that would occur is logged here.
+			logger.error("User id is missing...");
+
+			// Manually throwing new AirlineServiceException since the user id is missing
+			throw new AirlineServiceException("User id is missing...");
+
+		}
+
+		// the keys of each user are kept apart
+		String key = bookingDto.getUser().getUserId() + "/" + idempotencyKey;
+
+		// the key must be used again with the same booking
+		String fingerprint = fingerprint(bookingDto);
+
+		// initializing the variables
+		Entry entry;
+		boolean first = false;
+
+		// getting the entry of the key, or adding it if the key is used for the first
+		// time
+		lock.lock();
+		try {
+			long now = System.currentTimeMillis();
+			evict(now);
+			entry = entries.get(key);
+
+			// an expired key is treated as absent, and its entry is replaced
+			if (entry != null && entry.expiresAt <= now) {
+				entries.remove(key);
+				saved.remove(key, entry);
+				entry = null;
+			}
+
+			if (entry == null) {
+
+				// if no key could be evicted, the store is full of bookings being saved, and
+				// if block gets executed
+				if (entries.size() >= maxSize) {
+
+					// Any exception that would occur is logged here.
+					logger.error("Too many bookings are being saved with idempotency keys...");
+
+					// Manually throwing new RejectedExecutionException, so that the client gets
+					// 503 and tries again later
+					throw new RejectedExecutionException(
+							"Too many bookings are being saved, please try again later...");
+
+				}
+
+				entry = new Entry(fingerprint);
+				entries.put(key, entry);
+				first = true;
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		// if the key was used before, the booking saved with it is returned
+		if (!first) {
+			return await(entry, fingerprint);
+		}
+
+		try {
+
+			// saving the booking
+			BookingDto savedBookingDto = save(key, bookingDto);
+
+			// the booking is kept for the retries, from the time it is saved
+			lock.lock();
+			try {
+				entry.expiresAt = System.currentTimeMillis() + ttlMillis;
+				saved.put(key, entry);
+			} finally {
+				lock.unlock();
+			}
+			entry.result.complete(savedBookingDto);
+
+			return savedBookingDto;
+
+		} catch (RuntimeException e) {
+
+			// the failed booking is forgotten, so that it can be retried
+			lock.lock();
+			try {
+				entries.remove(key, entry);
+			} finally {
+				lock.unlock();
+			}
+			entry.result.completeExceptionally(e);
+
+			throw e;
+
+		}
+
+	}
+
+	/**
+	 * This method is used to delete the keys which have expired from the database.
+	 * It is run at the configured interval, when the table is enabled.
+	 * 
+	 * @return number of keys deleted
+	 */
+	@Scheduled(fixedDelayString = "${airline.idempotency.purge.interval.ms:3600000}")
+	public int purgeExpiredKeys() {
+
+		// if the table is not enabled, there is nothing to delete
+		if (!tableEnabled) {
+			return 0;
+		}
+
+		// getting the time before which the keys have expired
+		Timestamp createdBefore = new Timestamp(System.currentTimeMillis() - ttlMillis);
+
+		// deleting the expired keys in one statement
+		Integer deleted = new TransactionTemplate(transactionManager).execute(status -> {
+			try {
+				return idempotencyKeyRepository.deleteExpiredKeysRepository(createdBefore);
+			} catch (SQLException e) {
+
+				// Any exception that would occur is logged here.
+				logger.error("An exception has occurred while deleting the expired idempotency keys... "
+						+ e.getMessage());
+
+				return 0;
+
+			}
+		});
+
+		return deleted == null ? 0 : deleted;
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the idempotency store.
+	 * 
+	 * @return map of statistic name and value
+	 */
+	public Map<String, Long> getStatistics() {
+
+		// initializing the variable
+		long size;
+		lock.lock();
+		try {
+			size = entries.size();
+		} finally {
+			lock.unlock();
+		}
+
+		// new LinkedHashMap is created here, so that the statistics keep their order
+		Map<String, Long> statistics = new LinkedHashMap<>();
+		statistics.put("size", size);
+		statistics.put("executed", executed.get());
+		statistics.put("replayed", replayed.get());
+		statistics.put("coalesced", coalesced.get());
+		statistics.put("replayedFromTable", replayedFromTable.get());
+		statistics.put("evictions", evictions.get());
+		return statistics;
+
+	}
+
+	/**
+	 * This method is used to save the booking. When the table is enabled, the
+	 * booking is first looked up in the database, and the key is saved along with
+	 * the booking. If another instance saved the key first, the booking it saved
+	 * is returned.
+	 * 
+	 * @param key
+	 * @param bookingDto
+	 * @return booking dto saved with the key
+	 * @throws AirlineServiceException
+	 */
+	private BookingDto save(String key, BookingDto bookingDto) throws AirlineServiceException {
+
+		// if the table is not enabled, the booking is saved
+		if (!tableEnabled) {
+			executed.incrementAndGet();
+			return bookingService.saveBooking(bookingDto);
+		}
+
+		// if the key is in the database, the booking saved with it is returned
+		BookingDto savedBookingDto = findSaved(key);
+		if (savedBookingDto != null) {
+			return savedBookingDto;
+		}
+
+		try {
+
+			// saving the booking along with the key
+			executed.incrementAndGet();
+			return bookingService.saveBooking(bookingDto, key);
+
+		} catch (RuntimeException e) {
+
+			// if the key was saved by another instance in the meantime, the booking
+			// transaction was rolled back, and the booking saved with the key is returned
+			savedBookingDto = findSaved(key);
+			if (savedBookingDto != null) {
+				return savedBookingDto;
+			}
+
+			throw e;
+
+		}
+
+	}
+
+	/**
+	 * This method is used to get the booking saved in the database with the given
+	 * key, if the key has not expired.
+	 * 
+	 * @param key
+	 * @return booking dto, or null if the key is not saved
+	 * @throws AirlineServiceException
+	 */
+	private BookingDto findSaved(String key) throws AirlineServiceException {
+
+		// getting the key from the database
+		Optional<IdempotencyKey> idempotencyKey = idempotencyKeyRepository.findById(key);
+
+		// if the key is not saved or has expired, there is no booking
+		if (idempotencyKey.isEmpty()
+				|| idempotencyKey.get().getCreatedOn().getTime() + ttlMillis <= System.currentTimeMillis()) {
+			return null;
+		}
+
+		// getting the booking saved with the key
+		BookingDto bookingDto = new BookingDto();
+		bookingDto.setReferenceId(idempotencyKey.get().getReferenceId());
+		replayedFromTable.incrementAndGet();
+		return bookingService.getBookingByReferenceIdService(bookingDto);
+
+	}
+
+	/**
+	 * This method is used to get the booking saved with the given entry, waiting
+	 * for it if it is still being saved.
+	 * 
+	 * @param entry
+	 * @param fingerprint
+	 * @return booking dto saved with the key
+	 * @throws AirlineServiceException
+	 */
+	private BookingDto await(Entry entry, String fingerprint) throws AirlineServiceException {
+
+		// if the key was used with another booking, if block gets executed
+		if (!entry.fingerprint.equals(fingerprint)) {
+
+			// Any exception that would occur is logged here.
+			logger.error("The idempotency key was already used for another booking...");
+
+			// Manually throwing new AirlineServiceException since the key was used
+			// with another booking
+			throw new AirlineServiceException("The idempotency key was already used for another booking...");
+
+		}
+
+		// counting the retry
+		if (entry.result.isDone()) {
+			replayed.incrementAndGet();
+		} else {
+			coalesced.incrementAndGet();
+		}
+
+		try {
+
+			// waiting for the booking to be saved
+			return entry.result.get(waitMillis, TimeUnit.MILLISECONDS);
+
+		} catch (TimeoutException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("The booking with this idempotency key is still being saved...");
+
+			// Manually throwing new AirlineServiceException since the booking is still
+			// being saved
+			throw new AirlineServiceException("The booking with this idempotency key is still being saved...");
+
+		} catch (ExecutionException e) {
+
+			// the booking failed, and the retry fails with the same message
+			throw new AirlineServiceException(e.getCause().getMessage());
+
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new AirlineServiceException("The booking with this idempotency key is still being saved...");
+
+		}
+
+	}
+
+	/**
+	 * This method is used to remove the expired keys, and the first saved keys
+	 * while the store is full. Only the keys whose bookings are saved are scanned,
+	 * in the order in which they expire, so the scan stops at the first key which
+	 * has not expired once the store has room. The keys whose bookings are still
+	 * being saved are never removed. It is called while holding the lock of the
+	 * entries.
+	 * 
+	 * @param now
+	 */
+	private void evict(long now) {
+
+		// iterating over the saved keys from the first to expire
+		for (Iterator<Map.Entry<String, Entry>> iterator = saved.entrySet().iterator(); iterator.hasNext();) {
+
+			// each saved entry from the store
+			Map.Entry<String, Entry> savedEntry = iterator.next();
+
+			// removing the entry if it has expired, and removing it if the store is full
+			if (savedEntry.getValue().expiresAt <= now) {
+				iterator.remove();
+				entries.remove(savedEntry.getKey(), savedEntry.getValue());
+			} else if (entries.size() >= maxSize) {
+				iterator.remove();
+				entries.remove(savedEntry.getKey(), savedEntry.getValue());
+				evictions.incrementAndGet();
+			} else {
+				break;
+			}
+
+		}
+
+	}
+
+	/**
+	 * This method is used to get the fingerprint of a booking, made of the user,
+	 * the flight, the date, the number of seats and the name and age of each
+	 * passenger, in order.
+	 * 
+	 * @param bookingDto
+	 * @return fingerprint of the booking
+	 */
+	private static String fingerprint(BookingDto bookingDto) {
+
+		// new StringBuilder for the fingerprint is created here
+		StringBuilder fingerprint = new StringBuilder().append(bookingDto.getUser().getUserId()).append('/')
+				.append(bookingDto.getFlightAvail() == null || bookingDto.getFlightAvail().getFlight() == null ? null
+						: bookingDto.getFlightAvail().getFlight().getFlightId() + "/"
+								+ bookingDto.getFlightAvail().getFlightDate())
+				.append('/').append(bookingDto.getBookedSeats());
+
+		// adding the passengers, with the length of each name, so that the names
+		// cannot run into each other
+		if (bookingDto.getPassengers() != null) {
+			for (PassengerDto passengerDto : bookingDto.getPassengers()) {
+				String name = passengerDto == null ? null : passengerDto.getPassengerName();
+				fingerprint.append('/').append(name == null ? -1 : name.length()).append(':').append(name)
+						.append(':').append(passengerDto == null ? null : passengerDto.getAge());
+			}
+		}
+
+		return fingerprint.toString();
+
+	}
+
+	/**
+	 * This class holds the booking saved with a key, or being saved with it.
+	 */
+	private static final class Entry {
+
+		/**
+		 * This field represents the fingerprint of the booking.
+		 */
+		private final String fingerprint;
+
+		/**
+		 * This field represents the booking saved with the key, once it is saved.
+		 */
+		private final CompletableFuture<BookingDto> result = new CompletableFuture<>();
+
+		/**
+		 * This field represents the time in milliseconds at which the key expires.
+		 * The key does not expire while its booking is being saved.
+		 */
+		private volatile long expiresAt = Long.MAX_VALUE;
+
+		/**
+		 * This is a parameterized constructor used to instantiate the entry.
+		 * 
+		 * @param fingerprint ---> fingerprint of the booking
+		 */
+		private Entry(String fingerprint) {
+			this.fingerprint = fingerprint;
+		}
+
+	}
+
+}
@@ -1,7 +1,11 @@
 package com.training.airline.service;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
@@ -9,19 +13,25 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.training.airline.dto.BookingDto;
+import com.training.airline.dto.BookingHistoryDto;
+import com.training.airline.dto.BookingHistoryPageDto;
 import com.training.airline.dto.PassengerDto;
 import com.training.airline.dto.ValidateUser;
 import com.training.airline.exception.AirlineServiceException;
 import com.training.airline.exception.ValidationFailureException;
 import com.training.airline.model.Booking;
 import com.training.airline.model.FlightAvail;
+import com.training.airline.model.IdempotencyKey;
 import com.training.airline.model.Passenger;
 import com.training.airline.repository.BookingRepository;
 import com.training.airline.repository.FlightAvailRepository;
+import com.training.airline.repository.IdempotencyKeyRepository;
 import com.training.airline.repository.PassengerRepository;
 import com.training.airline.utility.DtoConverter;
 import com.training.airline.utility.Validation;
@@ -59,6 +69,70 @@ public class BookingService {
 	@Autowired
 	private FlightAvailRepository flightAvailRepository;
 
+	/**
+	 * This field seatInventoryService of type SeatInventoryService is being
+	 * autowired here in order to reserve and release the seats of the available
+	 * flights.
+	 */
+	@Autowired
+	private SeatInventoryService seatInventoryService;
+
+	/**
+	 * This field seatAvailabilityLedger of type SeatAvailabilityLedger is being
+	 * autowired here in order to get the cost of a seat without reading
+	 * alr_flightavail when the ledger is used.
+	 */
+	@Autowired
+	private SeatAvailabilityLedger seatAvailabilityLedger;
+
+	/**
+	 * This field seatHoldService of type SeatHoldService is being autowired here in
+	 * order to convert the seats held into the booking.
+	 */
+	@Autowired
+	private SeatHoldService seatHoldService;
+
+	/**
+	 * This field idempotencyKeyRepository of type IdempotencyKeyRepository is being
+	 * autowired here in order to save the idempotency key of a booking along with
+	 * the booking.
+	 */
+	@Autowired
+	private IdempotencyKeyRepository idempotencyKeyRepository;
+
+	/**
+	 * This field airlineMetrics of type AirlineMetrics is being autowired here in
+	 * order to count the seats of the bookings confirmed and cancelled once the
+	 * transaction commits.
+	 */
+	@Autowired
+	private AirlineMetrics airlineMetrics;
+
+	/**
+	 * This field holds the travel date taken as the first one when the booking
+	 * history is not filtered from a date.
+	 */
+	private static final Date FIRST_TRAVEL_DATE = Date.valueOf("1000-01-01");
+
+	/**
+	 * This field holds the travel date taken as the last one when the booking
+	 * history is not filtered to a date.
+	 */
+	private static final Date LAST_TRAVEL_DATE = Date.valueOf("9999-12-31");
+
+	/**
+	 * This field holds the number of bookings in a page of the booking history,
+	 * when the page size is not given.
+	 */
+	@Value("${airline.booking.history.page.size:20}")
+	private int historyPageSize = 20;
+
+	/**
+	 * This field holds the largest page size accepted by the booking history.
+	 */
+	@Value("${airline.booking.history.max.page.size:100}")
+	private int historyMaxPageSize = 100;
+
 	/**
 	 * Logger is instantiated with respect to BookingService to log errors occurring
 	 * in this class.
@@ -150,6 +224,117 @@ public class BookingService {
 
 	}
 
+	/**
+	 * This method is used to get a page of the bookings made by the given user,
+	 * newest first, and return the bookings and the cursor of the next page back
+	 * to the controller. The bookings are paged by their reference id, each page
+	 * is read from the reference id the previous one ended at, so a page costs the
+	 * same whatever the length of the history. The bookings can be filtered by
+	 * their status and by a range of travel dates.
+	 * 
+	 * @param bookingHistoryDto, it holds the user id, the filters and the cursor
+	 * @return page of booking dtos
+	 * @throws AirlineServiceException
+	 */
+	public BookingHistoryPageDto getBookingHistoryService(BookingHistoryDto bookingHistoryDto)
+			throws AirlineServiceException {
+
+		// getting the user id
+		Integer userId = bookingHistoryDto.getUserId();
+
+		// if the validation of user id fails, if block gets executed
+		if (!(Validation.integerValidation(userId))) {
+
+			// Any exception that would occur is logged here.
+			logger.error("User id is missing...");
+
+			// Manually throwing new AirlineServiceException since user id is missing
+			throw new AirlineServiceException("User id is missing...");
+
+		}
+
+		// getting the page size, the default one if it is not given
+		int pageSize = bookingHistoryDto.getPageSize() == null ? historyPageSize : bookingHistoryDto.getPageSize();
+
+		// if the page size is not within the limit, if block gets executed
+		if (pageSize <= 0 || pageSize > historyMaxPageSize) {
+
+			// Any exception that would occur is logged here.
+			logger.error("Page size should be between 1 and " + historyMaxPageSize + "...");
+
+			// Manually throwing new AirlineServiceException since the page size is invalid
+			throw new AirlineServiceException("Page size should be between 1 and " + historyMaxPageSize + "...");
+
+		}
+
+		// getting the status filter, any status matches if it is not given
+		String status = bookingHistoryDto.getStatus();
+
+		// if the status is not one or two letters, if block gets executed
+		if (status != null && !status.matches("[A-Za-z]{1,2}")) {
+
+			// Any exception that would occur is logged here.
+			logger.error("Status should be one or two letters...");
+
+			// Manually throwing new AirlineServiceException since the status is invalid
+			throw new AirlineServiceException("Status should be one or two letters...");
+
+		}
+
+		// getting the travel dates, the whole history if they are not given
+		Date startDate = bookingHistoryDto.getStartDate() == null ? FIRST_TRAVEL_DATE
+				: bookingHistoryDto.getStartDate();
+		Date endDate = bookingHistoryDto.getEndDate() == null ? LAST_TRAVEL_DATE : bookingHistoryDto.getEndDate();
+
+		// if the end date is before the start date, if block gets executed
+		if (endDate.before(startDate)) {
+
+			// Any exception that would occur is logged here.
+			logger.error("End date should not be before the start date...");
+
+			// Manually throwing new AirlineServiceException since the dates are invalid
+			throw new AirlineServiceException("End date should not be before the start date...");
+
+		}
+
+		// getting the reference id the page starts after, the newest booking first
+		Integer beforeReferenceId = bookingHistoryDto.getCursor() == null ? Integer.MAX_VALUE
+				: decodeCursor(bookingHistoryDto.getCursor());
+
+		try {
+
+			// getting one booking more than the page, to know if there is a next page
+			List<Booking> bookingList = bookingRepository.getBookingHistoryRepository(userId, beforeReferenceId,
+					status == null ? "%" : status, startDate, endDate, PageRequest.of(0, pageSize + 1));
+
+			// converting the bookings of the page into booking dtos
+			List<BookingDto> bookingDtoList = new ArrayList<>(Math.min(bookingList.size(), pageSize));
+			for (int index = 0; index < bookingList.size() && index < pageSize; index++) {
+				bookingDtoList.add(DtoConverter.bookingToBookingDto(bookingList.get(index)));
+			}
+
+			// the next page starts after the last booking of this one, if there is one
+			String nextCursor = bookingList.size() > pageSize
+					? encodeCursor(bookingList.get(pageSize - 1).getReferenceId())
+					: null;
+
+			// returning the page of booking dtos to the controller
+			return new BookingHistoryPageDto(bookingDtoList, nextCursor);
+
+		} catch (SQLException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception has occurred while getting the booking history... " + e.getMessage());
+
+			// After catching SQLException, an AirlineServiceException is
+			// thrown here manually.
+			throw new AirlineServiceException(
+					"An exception has occurred while getting the booking history... " + e.getMessage());
+
+		}
+
+	}
+
 	/**
 	 * This method is used to save the booking made by the user, and return the
 	 * updated booking with reference id back to the controller.
@@ -178,6 +363,35 @@ public class BookingService {
 		return bookingDtoUpdated;
 	}
 
+	/**
+	 * This method is used to save the booking made by the user along with the
+	 * given idempotency key, in the same transaction, and return the updated
+	 * booking with reference id back to the idempotency store. If the key was
+	 * already saved with another booking, the transaction fails on commit, and the
+	 * booking is not saved.
+	 * 
+	 * @param bookingDto
+	 * @param idempotencyKey
+	 * @return updated booking dto
+	 * @throws AirlineServiceException
+	 */
+	public BookingDto saveBooking(BookingDto bookingDto, String idempotencyKey) throws AirlineServiceException {
+
+		// calling create booking method to create the booking for the passed booking
+		// details
+		BookingDto bookingDtoUpdated = createBooking(bookingDto);
+
+		// saving the idempotency key with the reference id of the booking
+		if (bookingDtoUpdated != null) {
+			idempotencyKeyRepository.save(new IdempotencyKey(idempotencyKey, bookingDtoUpdated.getReferenceId(),
+					new Timestamp(System.currentTimeMillis())));
+		}
+
+		// returning the updated booking dto to the idempotency store
+		return bookingDtoUpdated;
+
+	}
+
 	/**
 	 * This method is used to create the booking made by the user, and return the
 	 * updated booking with reference id back to save booking method.
@@ -196,26 +410,45 @@ public class BookingService {
 			// validating the booking details
 			Validation.bookingValidation(bookingDto);
 
-			// getting the flight available for the given flight id on a given date
-			FlightAvail flightAvail = flightAvailRepository.getFlightsAvailableRepository(
-					bookingDto.getFlightAvail().getFlight().getFlightId(), bookingDto.getFlightAvail().getFlightDate());
+			// getting the cost of a seat of the flight available for the given flight id on
+			// a given date, from the seat ledger when it is used, since it holds the seats
+			// and the cost of the flight, or else from the database
+			Float cost;
+			if (seatAvailabilityLedger.isEnabled()) {
+				cost = seatAvailabilityLedger.getCost(bookingDto.getFlightAvail().getFlight().getFlightId(),
+						bookingDto.getFlightAvail().getFlightDate());
+			} else {
+				FlightAvail flightAvail = flightAvailRepository.getFlightsAvailableRepository(
+						bookingDto.getFlightAvail().getFlight().getFlightId(),
+						bookingDto.getFlightAvail().getFlightDate());
+				cost = flightAvail == null ? null : flightAvail.getCost();
+			}
 
-			// if the number of seats for booking is more than the seats available, then if
-			// block gets executed
-			if (flightAvail.getSeats() < bookingDto.getBookedSeats()) {
+			// if the flight is not available on the given date, then if block gets executed
+			if (cost == null) {
 
 				// Any exception that would occur is logged here.
-				logger.error("The number of seats booked exceeds the number of seats that are available...");
+				logger.error("There are no flights available for this date...");
 
-				// Manually throwing new AirlineServiceException since number of seats booked
-				// exceeds the limit
-				throw new AirlineServiceException(
-						"The number of seats booked exceeds the number of seats that are available...");
+				// Manually throwing new AirlineServiceException since there are no flights
+				// available
+				throw new AirlineServiceException("There are no flights available for this date...");
 
 			}
 
+			// if the seats were held for the booking, the hold is converted into the
+			// booking, or else the seats are reserved for the booking, the seats are
+			// decremented only if enough seats are still available, so concurrent bookings
+			// cannot oversell the flight
+			if (bookingDto.getHoldId() == null || !seatHoldService.convertHold(bookingDto.getHoldId(),
+					bookingDto.getUser().getUserId(), bookingDto.getFlightAvail().getFlight().getFlightId(),
+					bookingDto.getFlightAvail().getFlightDate(), bookingDto.getBookedSeats())) {
+				seatInventoryService.reserveSeats(bookingDto.getFlightAvail().getFlight().getFlightId(),
+						bookingDto.getFlightAvail().getFlightDate(), bookingDto.getBookedSeats());
+			}
+
 			// calculating the total cost for the number of seats booked
-			Float totalCostBooking = flightAvail.getCost() * bookingDto.getBookedSeats();
+			Float totalCostBooking = cost * bookingDto.getBookedSeats();
 
 			// saving the booking to the database and getting the reference id of the saved
 			// booking
@@ -237,52 +470,41 @@ public class BookingService {
 				// getting the list of passengers to be booked
 				List<PassengerDto> passengers = bookingDto.getPassengers();
 
+				// new ArrayList for the passengers to be saved is created here
+				List<Passenger> passengersToSave = new ArrayList<>(passengers.size());
+
 				// iterating over the list of passenger dtos
 				for (Iterator<PassengerDto> iterator = passengers.iterator(); iterator.hasNext();) {
 
 					// each passenger dto from the list
 					PassengerDto passengerDto = iterator.next();
 
-					// saving each passenger to the database
-					String passengerSave = passengerRepository.callPassengerSave(Integer.parseInt(referenceId),
-							passengerDto.getPassengerName(), passengerDto.getAge());
-
-					// if saving the passenger fails, then if block gets executed
-					if (passengerSave.equalsIgnoreCase("Insertion failed")) {
-
-						// Any exception that would occur is logged here.
-						logger.error("Passenger Insertion Failed...");
-
-						// Manually throwing new AirlineServiceException since saving the passenger
-						// failed
-						throw new AirlineServiceException("Passenger Insertion Failed...");
-
-					}
+					// passenger object is created from the passenger dto
+					passengersToSave.add(new Passenger(passengerDto.getPassengerName(), passengerDto.getAge(), "B"));
 
 				}
 
-				// getting the remaining number of available seats for the given flight for the
-				// given date after booking is successful.
-				Integer remainingSeats = flightAvail.getSeats() - bookingDto.getBookedSeats();
+				// saving all the passengers to the database in one batch
+				List<Integer> ticketNumbers = passengerRepository
+						.savePassengersRepository(Integer.parseInt(referenceId), passengersToSave);
 
-				// updating the remaining seats available for the given flight for the given
-				// date
-				int rowsUpdated = flightAvailRepository.updateFlightAvailSeatsRepository(remainingSeats,
-						bookingDto.getFlightAvail().getFlight().getFlightId(),
-						bookingDto.getFlightAvail().getFlightDate());
-
-				// if updation of available seats fails, if block gets executed
-				if (rowsUpdated == 0) {
+				// if a ticket number was not generated for every passenger, then if block gets
+				// executed
+				if (ticketNumbers.size() != passengersToSave.size()) {
 
 					// Any exception that would occur is logged here.
-					logger.error("Updating the seats in available seats failed.");
+					logger.error("Passenger Insertion Failed...");
 
-					// Manually throwing new AirlineServiceException since the updation of remaining
-					// seats failed
-					throw new AirlineServiceException("Updating the seats in available seats failed.");
+					// Manually throwing new AirlineServiceException since saving the passengers
+					// failed
+					throw new AirlineServiceException("Passenger Insertion Failed...");
 
 				}
 
+				// the booking is confirmed, so its seats are counted once the booking
+				// transaction commits, whether they were reserved now or held before
+				airlineMetrics.seatsBooked(bookingDto.getBookedSeats());
+
 			}
 
 			// getting the updated booking object from the database using the obtained
@@ -433,99 +655,32 @@ public class BookingService {
 
 			}
 
-			// getting all the passengers having the given booking reference id
-			List<Passenger> passengersToCancel = passengerRepository
-					.getBookingPassengersRepository(bookingDto.getReferenceId());
-
-			// initializing the variable
-			Integer cancelledPassengers = 0;
-
-			// iterating over the list of passengers
-			for (Iterator<Passenger> iterator = passengersToCancel.iterator(); iterator.hasNext();) {
-
-				// each passenger from the list
-				Passenger passenger = iterator.next();
-
-				// getting the status of each passenger
-				String passengerStatus = passenger.getStatus();
-
-				// if the status of the passenger is booked, if block gets executed
-				if (passengerStatus.equalsIgnoreCase("B")) {
-
-					// cancelling the passenger's ticket
-					Integer rowsUpdated = passengerRepository.cancelPassengerByTicketRepository(
-							passenger.getTicketNumber(), bookingDto.getReferenceId());
-
-					// if the cancellation of passenger's ticket fails, if block gets executed
-					if (rowsUpdated == 0) {
-
-						// Any exception that would occur is logged here.
-						logger.error("Passenger cancel failed");
-
-						// Manually throwing new AirlineServiceException since cancellation of the
-						// passenger failed
-						throw new AirlineServiceException("Passenger cancel failed");
-
-					}
-
-					// incrementing the count of number of passengers' ticket cancelled
-					cancelledPassengers++;
-
-				}
-
-			}
-
-			// getting the updated booking object using the reference id
-			Optional<Booking> optional = bookingRepository.findById(bookingDto.getReferenceId());
-
-			// if the booking object is not available, if block gets executed
-			if (optional.isEmpty()) {
-
-				// Any exception that would occur is logged here.
-				logger.error("Booking not found");
-
-				// Manually throwing new AirlineServiceException since booking was not found
-				throw new AirlineServiceException("Booking not found");
-
-			}
-
-			// getting the updated booking object
-			Booking updatedBooking = optional.get();
-
-			// get the flight available object
-			FlightAvail flightsAvailable = flightAvailRepository.getFlightsAvailableRepository(
-					updatedBooking.getFlightAvail().getFlight().getFlightId(),
-					updatedBooking.getFlightAvail().getFlightDate());
+			// cancelling all the booked passengers having the given booking reference id in
+			// one statement, and getting the number of passengers cancelled
+			Integer cancelledPassengers = passengerRepository.cancelPassengerById(bookingReferenceId);
 
 			// if the number of passengers cancelled is greater than zero, if block gets
 			// executed
 			if (cancelledPassengers > 0) {
 
-				// finding the remaining seats after the cancellation of the passengers
-				Integer remainingSeats = flightsAvailable.getSeats() + cancelledPassengers;
+				// releasing the seats of the cancelled passengers for the booked flight, the
+				// flight and date are taken from the booking already loaded
+				seatInventoryService.releaseSeats(bookingToCancel.getFlightAvail().getFlight().getFlightId(),
+						bookingToCancel.getFlightAvail().getFlightDate(), cancelledPassengers);
+				airlineMetrics.seatsReleased(cancelledPassengers);
 
-				// updating the available seats
-				int updatedRowsForFlightAvail = flightAvailRepository.updateFlightAvailSeatsRepository(remainingSeats,
-						updatedBooking.getFlightAvail().getFlight().getFlightId(),
-						updatedBooking.getFlightAvail().getFlightDate());
-
-				// if the updation of the available seats fails, if block gets executed
-				if (updatedRowsForFlightAvail == 0) {
-
-					// Any exception that would occur is logged here.
-					logger.error("Updating the seats in available seats failed.");
-
-					// Manually throwing new AirlineServiceException since updation of seats
-					// available failed.
-					throw new AirlineServiceException("Updating the seats in available seats failed.");
+			}
 
-				}
+			// converting the booking object into updated booking dto object.
+			updatedBookingDto = DtoConverter.bookingToBookingDto(bookingToCancel);
 
+			// the booking and all its passengers were cancelled on the database, so the
+			// status is set on the dtos instead of reading them again
+			updatedBookingDto.setStatus("C");
+			for (Iterator<PassengerDto> iterator = updatedBookingDto.getPassengers().iterator(); iterator.hasNext();) {
+				iterator.next().setStatus("C");
 			}
 
-			// converting the updated booking object into updated booking dto object.
-			updatedBookingDto = DtoConverter.bookingToBookingDto(updatedBooking);
-
 		} catch (SQLException e) {
 
 			// Any exception that would occur is logged here.
@@ -601,4 +756,50 @@ public class BookingService {
 
 	}
 
+	/**
+	 * This method is used to encode the reference id a page of the booking history
+	 * ends at into the cursor of the next page. The cursor is opaque to the
+	 * clients, they only send it back as it is.
+	 * 
+	 * @param referenceId
+	 * @return cursor
+	 */
+	private static String encodeCursor(Integer referenceId) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(referenceId.toString().getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * This method is used to decode the cursor of a page of the booking history
+	 * into the reference id the page starts after.
+	 * 
+	 * @param cursor
+	 * @return reference id
+	 * @throws AirlineServiceException
+	 */
+	private Integer decodeCursor(String cursor) throws AirlineServiceException {
+
+		try {
+
+			// the reference id of the cursor has to be a positive number
+			int referenceId = Integer
+					.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+			if (referenceId > 0) {
+				return referenceId;
+			}
+
+		} catch (IllegalArgumentException e) {
+
+			// a cursor which is not base64, or not a number, is handled below
+
+		}
+
+		// Any exception that would occur is logged here.
+		logger.error("The cursor is invalid...");
+
+		// Manually throwing new AirlineServiceException since the cursor is invalid
+		throw new AirlineServiceException("The cursor is invalid...");
+
+	}
+
 }
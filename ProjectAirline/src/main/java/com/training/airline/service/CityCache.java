@@ -0,0 +1,460 @@
+package com.training.airline.service;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.training.airline.dto.CityDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.repository.CityRepository;
+
+/**
+ * This is a service class which keeps the cities in memory, so that resolving a
+ * city by its name or id on the search path does not go to the database. The
+ * cities are indexed by name and by id, both indexes sharing one entry for each
+ * city, and each entry expires after the configured time to live. A lookup
+ * takes no lock, it only reads the concurrent maps and stamps the time of the
+ * access on the entry. Only adding, evicting and removing cities take the
+ * lock. At most the configured number of cities are held, and when the cache
+ * is full, the city least recently used through either index is evicted from
+ * both of them in the same step. The cached city dtos are shared
+ * between requests and must not be changed by the callers. The cities are read
+ * from the database straight into city dtos, the city entities are not loaded.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class CityCache {
+
+	/**
+	 * This field cityRepository of type CityRepository is being autowired here in
+	 * order to load the cities which are not in the cache.
+	 */
+	@Autowired
+	private CityRepository cityRepository;
+
+	/**
+	 * This field holds the time in milliseconds after which a cached city is loaded
+	 * again from the database.
+	 */
+	@Value("${airline.city.cache.ttl.ms:600000}")
+	private long ttlMillis = 600000;
+
+	/**
+	 * This field holds the largest number of cities held in the cache.
+	 */
+	@Value("${airline.city.cache.max.size:1000}")
+	private int maxSize = 1000;
+
+	/**
+	 * This field holds the cities indexed by their name in lower case.
+	 */
+	private final Map<String, Entry<CityDto>> citiesByName = new ConcurrentHashMap<>();
+
+	/**
+	 * This field holds the cities indexed by their id.
+	 */
+	private final Map<Integer, Entry<CityDto>> citiesById = new ConcurrentHashMap<>();
+
+	/**
+	 * This field holds the lock which guards the changes of both the indexes, so
+	 * that a city is always added to, evicted from and removed from both of them
+	 * together. The lookups do not take it.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * This field holds the list of all the cities, as returned by the all cities
+	 * request.
+	 */
+	private volatile Entry<List<CityDto>> allCities;
+
+	/**
+	 * This field holds the number of lookups answered from the cache, it is a
+	 * LongAdder so that the concurrent lookups do not contend on one counter.
+	 */
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * This field holds the number of lookups which had to go to the database.
+	 */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * This field holds the number of cities evicted because the cache was full.
+	 */
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Logger is instantiated with respect to CityCache to log errors occurring in
+	 * this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(CityCache.class);
+
+	/**
+	 * This method is used to get the city for the given city name, from the cache
+	 * if it is there, or else from the database.
+	 * 
+	 * @param cityName
+	 * @return city dto, or null if there is no city with the given name
+	 * @throws AirlineServiceException
+	 */
+	public CityDto getCityByName(String cityName) throws AirlineServiceException {
+
+		// getting the key of the name index
+		String key = cityName.trim().toLowerCase(Locale.ROOT);
+
+		// getting the cached city
+		CityDto cityDto = lookup(citiesByName, key);
+
+		// if the city is in the cache, it is returned
+		if (cityDto != null) {
+			return cityDto;
+		}
+
+		try {
+
+			// loading the city from the database, as a city dto
+			CityDto city = cityRepository.getCityDtoByNameRepository(cityName.trim());
+
+			// unknown cities are not cached, so that a city added later is found
+			return city == null ? null : put(city);
+
+		} catch (SQLException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception has occurred while getting the city... " + e.getMessage());
+
+			// After catching SQLException, an AirlineServiceException is
+			// thrown here manually.
+			throw new AirlineServiceException(
+					"An exception has occurred while getting the city... " + e.getMessage());
+
+		}
+
+	}
+
+	/**
+	 * This method is used to get the city for the given city id, from the cache if
+	 * it is there, or else from the database.
+	 * 
+	 * @param cityId
+	 * @return city dto, or null if there is no city with the given id
+	 */
+	public CityDto getCityById(Integer cityId) {
+
+		// getting the cached city
+		CityDto cityDto = lookup(citiesById, cityId);
+
+		// if the city is in the cache, it is returned
+		if (cityDto != null) {
+			return cityDto;
+		}
+
+		// loading the city from the database, as a city dto
+		CityDto city = cityRepository.getCityDtoByIdRepository(cityId);
+		return city == null ? null : put(city);
+
+	}
+
+	/**
+	 * This method is used to get the list of all the cities, from the cache if it
+	 * has not expired, or else from the database. Loading the list also fills the
+	 * name and id indexes.
+	 * 
+	 * @return unmodifiable list of city dtos
+	 */
+	public List<CityDto> getAllCities() {
+
+		// getting the cached list of cities
+		Entry<List<CityDto>> entry = allCities;
+
+		// if the list has not expired, it is returned
+		if (entry != null && !entry.isExpired()) {
+			hits.increment();
+			return entry.value;
+		}
+
+		// incrementing the count of misses
+		misses.increment();
+
+		// loading all the cities from the database, as city dtos
+		List<CityDto> cities = cityRepository.getAllCityDtosRepository();
+
+		// new list for the city dtos is created here
+		List<CityDto> cityDtoList = new ArrayList<>(cities.size());
+
+		// iterating over the list of cities
+		for (Iterator<CityDto> iterator = cities.iterator(); iterator.hasNext();) {
+
+			// adding each city dto to both the indexes
+			cityDtoList.add(put(iterator.next()));
+
+		}
+
+		// caching the list of cities
+		List<CityDto> unmodifiableList = Collections.unmodifiableList(cityDtoList);
+		allCities = new Entry<>(unmodifiableList, System.currentTimeMillis() + ttlMillis);
+
+		// returning the list of city dtos
+		return unmodifiableList;
+
+	}
+
+	/**
+	 * This method is used to remove the given city from the cache, so that it is
+	 * loaded again from the database the next time it is used. It must be called
+	 * whenever a city is changed.
+	 * 
+	 * @param cityId
+	 */
+	public void invalidate(Integer cityId) {
+
+		lock.lock();
+		try {
+
+			// removing the city from both the indexes
+			remove(citiesById.get(cityId));
+
+		} finally {
+			lock.unlock();
+		}
+
+		// the list of all the cities holds the city too
+		allCities = null;
+
+	}
+
+	/**
+	 * This method is used to remove all the cities from the cache, so that they are
+	 * loaded again from the database the next time they are used.
+	 */
+	public void invalidateAll() {
+
+		lock.lock();
+		try {
+			citiesByName.clear();
+			citiesById.clear();
+		} finally {
+			lock.unlock();
+		}
+
+		allCities = null;
+
+		// logging the invalidation
+		logger.info("City cache invalidated");
+
+	}
+
+	/**
+	 * This method is used to get the number of lookups answered from the cache.
+	 * 
+	 * @return hits count
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * This method is used to get the number of lookups which had to go to the
+	 * database.
+	 * 
+	 * @return misses count
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * This method is used to get the number of cities evicted because the cache was
+	 * full.
+	 * 
+	 * @return evictions count
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * This method is used to get the number of cities held in the cache.
+	 * 
+	 * @return size of the cache
+	 */
+	public int getSize() {
+		return citiesById.size();
+	}
+
+	/**
+	 * This method is used to look up the given key in the given index without
+	 * taking the lock, counting the hit or the miss. The access is stamped on the
+	 * entry, which is shared by both the indexes. An expired entry is counted as a
+	 * miss, and is replaced when the city is loaded again.
+	 * 
+	 * @param <K>   type of the key
+	 * @param index
+	 * @param key
+	 * @return city dto, or null if it is not cached
+	 */
+	private <K> CityDto lookup(Map<K, Entry<CityDto>> index, K key) {
+
+		// getting the entry for the key
+		Entry<CityDto> entry = index.get(key);
+
+		// if the entry is cached and not expired, it is a hit
+		if (entry != null && !entry.isExpired()) {
+			entry.lastAccess = System.nanoTime();
+			hits.increment();
+			return entry.value;
+		}
+
+		// incrementing the count of misses
+		misses.increment();
+
+		return null;
+
+	}
+
+	/**
+	 * This method is used to add the given city to both the indexes, evicting the
+	 * least recently used cities if the cache is full.
+	 * 
+	 * @param cityDto
+	 * @return the cached city dto
+	 */
+	private CityDto put(CityDto cityDto) {
+
+		// the entry is shared by both the indexes
+		Entry<CityDto> entry = new Entry<>(cityDto, System.currentTimeMillis() + ttlMillis);
+
+		lock.lock();
+		try {
+
+			// adding the entry to both the indexes, and removing the other key of an
+			// entry it replaces, in case the name or the id of the city changed
+			remove(citiesById.put(cityDto.getCityId(), entry));
+			remove(citiesByName.put(nameKey(cityDto), entry));
+			citiesById.put(cityDto.getCityId(), entry);
+			citiesByName.put(nameKey(cityDto), entry);
+
+			// evicting the least recently used cities while the cache is full
+			while (citiesById.size() > maxSize) {
+				evictLeastRecentlyUsed();
+			}
+
+		} finally {
+			lock.unlock();
+		}
+
+		return cityDto;
+
+	}
+
+	/**
+	 * This method is used to evict the least recently used city from both the
+	 * indexes in the same step. The cities are ordered by the last access stamped
+	 * on their entries, through either index. It is called while holding the
+	 * lock.
+	 */
+	private void evictLeastRecentlyUsed() {
+
+		// initializing the variable
+		Entry<CityDto> leastRecentlyUsed = null;
+
+		// finding the entry used the longest time ago
+		for (Iterator<Entry<CityDto>> iterator = citiesById.values().iterator(); iterator.hasNext();) {
+			Entry<CityDto> entry = iterator.next();
+			if (leastRecentlyUsed == null || entry.lastAccess - leastRecentlyUsed.lastAccess < 0) {
+				leastRecentlyUsed = entry;
+			}
+		}
+
+		// removing the city from both the indexes
+		remove(leastRecentlyUsed);
+		evictions.incrementAndGet();
+
+	}
+
+	/**
+	 * This method is used to remove the given entry from both the indexes, only
+	 * where the indexes still map its keys to it. It is called while holding the
+	 * lock.
+	 * 
+	 * @param entry
+	 */
+	private void remove(Entry<CityDto> entry) {
+		if (entry != null) {
+			citiesById.remove(entry.value.getCityId(), entry);
+			citiesByName.remove(nameKey(entry.value), entry);
+		}
+	}
+
+	/**
+	 * This method is used to get the key of the name index for the given city.
+	 * 
+	 * @param cityDto
+	 * @return city name in lower case
+	 */
+	private static String nameKey(CityDto cityDto) {
+		return cityDto.getCityName().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * This class holds a cached value along with the time at which it expires.
+	 * 
+	 * @param <V> type of the value
+	 */
+	private static final class Entry<V> {
+
+		/**
+		 * This field represents the cached value.
+		 */
+		private final V value;
+
+		/**
+		 * This field represents the time in milliseconds at which the value expires.
+		 */
+		private final long expiresAt;
+
+		/**
+		 * This field represents the time in nanoseconds at which the value was last
+		 * used, through either index.
+		 */
+		private volatile long lastAccess = System.nanoTime();
+
+		/**
+		 * This is a parameterized constructor used to instantiate the entry.
+		 * 
+		 * @param value     ---> the cached value
+		 * @param expiresAt ---> the expiry time in milliseconds
+		 */
+		private Entry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		/**
+		 * This method is used to tell whether the value has expired.
+		 * 
+		 * @return boolean
+		 */
+		private boolean isExpired() {
+			return System.currentTimeMillis() >= expiresAt;
+		}
+
+	}
+
+}
@@ -1,8 +1,8 @@
 package com.training.airline.service;
 
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,9 +12,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.training.airline.dto.CityDto;
 import com.training.airline.exception.AirlineServiceException;
-import com.training.airline.model.City;
-import com.training.airline.repository.CityRepository;
-import com.training.airline.utility.DtoConverter;
 
 /**
  * This is a service class for City. It has all the service methods related to
@@ -28,11 +25,11 @@ import com.training.airline.utility.DtoConverter;
 public class CityService {
 
 	/**
-	 * This field cityRepository of type CityRepository is being autowired here in
-	 * order to invoke methods from the CityRepository interface.
+	 * This field cityCache of type CityCache is being autowired here in order to
+	 * get the cities without going to the database on every request.
 	 */
 	@Autowired
-	private CityRepository cityRepository;
+	private CityCache cityCache;
 
 	/**
 	 * Logger is instantiated with respect to CityService to log errors occurring in
@@ -54,25 +51,9 @@ public class CityService {
 
 		try {
 
-			// Calling repository method to find all cities
-			List<City> cities = cityRepository.findAll();
-
-			// creating array list object
-			cityDtoList = new ArrayList<>();
-
-			// iterating over the list of cities
-			for (Iterator<City> iterator = cities.iterator(); iterator.hasNext();) {
-
-				// city object from the list
-				City city = iterator.next();
-
-				// converting the city object into city dto object
-				CityDto cityDto = DtoConverter.cityToCityDto(city);
-
-				// adding the city dto object to the list of city dto
-				cityDtoList.add(cityDto);
-
-			}
+			// getting all the cities from the city cache, which goes to the database only
+			// when the cached list has expired
+			cityDtoList = cityCache.getAllCities();
 
 		} catch (Exception e) {
 
@@ -91,4 +72,37 @@ public class CityService {
 
 	}
 
+	/**
+	 * This method is used to get the statistics of the city cache, and return it
+	 * back to the controller.
+	 * 
+	 * @return map of statistic name and value
+	 */
+	public Map<String, Long> getCityCacheStatisticsService() {
+
+		// new LinkedHashMap is created here, so that the statistics keep their order
+		Map<String, Long> statistics = new LinkedHashMap<>();
+
+		// adding the statistics of the city cache
+		statistics.put("size", (long) cityCache.getSize());
+		statistics.put("hits", cityCache.getHits());
+		statistics.put("misses", cityCache.getMisses());
+		statistics.put("evictions", cityCache.getEvictions());
+
+		// returning the statistics
+		return statistics;
+
+	}
+
+	/**
+	 * This method is used to remove all the cities from the city cache, so that
+	 * the changes made to alr_cities are seen by the next requests.
+	 */
+	public void invalidateCityCacheService() {
+
+		// removing all the cities from the city cache
+		cityCache.invalidateAll();
+
+	}
+
 }
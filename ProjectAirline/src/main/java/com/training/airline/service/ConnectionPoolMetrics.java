@@ -0,0 +1,176 @@
+package com.training.airline.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Service;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * This is a service class which records the metrics of the connection pool. It
+ * is given to the pool when the data source is built, and the pool reports to
+ * it how long each request waited for a connection, how long each connection
+ * was held, and how many requests timed out waiting, so that the requests
+ * serialized on connection acquisition can be measured.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+	/**
+	 * This field holds the number of connections handed out by the pool.
+	 */
+	private final LongAdder acquisitions = new LongAdder();
+
+	/**
+	 * This field holds the total time in nanoseconds spent waiting for a
+	 * connection.
+	 */
+	private final LongAdder totalWaitNanos = new LongAdder();
+
+	/**
+	 * This field holds the longest time in nanoseconds spent waiting for a
+	 * connection.
+	 */
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	/**
+	 * This field holds the total time in milliseconds the connections were held
+	 * before they were given back to the pool.
+	 */
+	private final LongAdder totalUsageMillis = new LongAdder();
+
+	/**
+	 * This field holds the number of requests which timed out waiting for a
+	 * connection.
+	 */
+	private final LongAdder timeouts = new LongAdder();
+
+	/**
+	 * This field holds the live statistics of the pool, it is set when the pool is
+	 * started.
+	 */
+	private volatile PoolStats poolStats;
+
+	/**
+	 * This method is called by the pool when it is started, and returns the
+	 * tracker to which the pool reports its metrics.
+	 * 
+	 * @param poolName
+	 * @param poolStats
+	 * @return metrics tracker
+	 */
+	@Override
+	public IMetricsTracker create(String poolName, PoolStats poolStats) {
+
+		// keeping the live statistics of the pool
+		this.poolStats = poolStats;
+
+		// returning the tracker which records into this class
+		return new Tracker();
+
+	}
+
+	/**
+	 * This method is used to get the metrics of the connection pool.
+	 * 
+	 * @return map of metrics
+	 */
+	public Map<String, Object> getMetrics() {
+
+		// new LinkedHashMap is created here, so that the metrics keep their order
+		Map<String, Object> metrics = new LinkedHashMap<>();
+
+		// adding the live statistics of the pool, if it was started
+		PoolStats stats = poolStats;
+		if (stats != null) {
+			metrics.put("activeConnections", stats.getActiveConnections());
+			metrics.put("idleConnections", stats.getIdleConnections());
+			metrics.put("totalConnections", stats.getTotalConnections());
+			metrics.put("maxConnections", stats.getMaxConnections());
+			metrics.put("threadsAwaitingConnection", stats.getPendingThreads());
+		}
+
+		// adding the wait time and usage of the connections
+		long count = acquisitions.sum();
+		metrics.put("acquisitions", count);
+		metrics.put("averageWaitMillis", count == 0 ? 0 : toMillis(totalWaitNanos.sum()) / count);
+		metrics.put("maxWaitMillis", toMillis(maxWaitNanos.get()));
+		metrics.put("averageUsageMillis", count == 0 ? 0 : (double) totalUsageMillis.sum() / count);
+		metrics.put("timeouts", timeouts.sum());
+
+		// returning the metrics
+		return metrics;
+
+	}
+
+	/**
+	 * This method is used to reset the recorded wait times, usages and timeouts.
+	 */
+	public void reset() {
+		acquisitions.reset();
+		totalWaitNanos.reset();
+		maxWaitNanos.set(0);
+		totalUsageMillis.reset();
+		timeouts.reset();
+	}
+
+	/**
+	 * This method is used to convert the given nanoseconds into milliseconds,
+	 * keeping the fraction.
+	 * 
+	 * @param nanos
+	 * @return milliseconds
+	 */
+	private static double toMillis(long nanos) {
+		return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * This class receives the metrics reported by the pool.
+	 */
+	private final class Tracker implements IMetricsTracker {
+
+		/**
+		 * This method is called by the pool each time a connection is handed out,
+		 * with the time the request waited for it.
+		 * 
+		 * @param elapsedAcquiredNanos
+		 */
+		@Override
+		public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+			acquisitions.increment();
+			totalWaitNanos.add(elapsedAcquiredNanos);
+			maxWaitNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+		}
+
+		/**
+		 * This method is called by the pool each time a connection is given back,
+		 * with the time it was held.
+		 * 
+		 * @param elapsedBorrowedMillis
+		 */
+		@Override
+		public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+			totalUsageMillis.add(elapsedBorrowedMillis);
+		}
+
+		/**
+		 * This method is called by the pool each time a request times out waiting
+		 * for a connection.
+		 */
+		@Override
+		public void recordConnectionTimeout() {
+			timeouts.increment();
+		}
+
+	}
+
+}
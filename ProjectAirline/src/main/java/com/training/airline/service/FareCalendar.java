@@ -0,0 +1,729 @@
+package com.training.airline.service;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import com.training.airline.dto.FareDayDto;
+import com.training.airline.dto.FlightDto;
+import com.training.airline.dto.FlightSeatsDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.repository.FlightAvailRepository;
+
+/**
+ * This is a service class which keeps the fares of each route in memory, one
+ * month at a time, for the fare calendar. A month of a route is loaded from
+ * alr_flightavail in one query the first time it is asked for, and is then kept
+ * up to date by the seat inventory, which tells this class about every seat
+ * change once it is committed. The lowest cost and the total seats of each day
+ * are recomputed only for the day which changed. A month expires after the
+ * configured time to live, so that the changes made outside of the
+ * application, such as new fares, are picked up.
+ * 
+ * The seat inventory also tells this class when a change begins, before the
+ * seats are changed. A load cannot tell whether its query read a change which
+ * was in flight while it ran, so a month loaded while a change of that month
+ * was in flight, or began, is returned but not kept, and the next request
+ * loads it again.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class FareCalendar {
+
+	/**
+	 * This field flightAvailRepository of type FlightAvailRepository is being
+	 * autowired here in order to load the fares of a month of a route.
+	 */
+	@Autowired
+	private FlightAvailRepository flightAvailRepository;
+
+	/**
+	 * This field routeIndex of type RouteIndex is being autowired here in order to
+	 * find the route of a flight whose seats have changed.
+	 */
+	@Autowired
+	private RouteIndex routeIndex;
+
+	/**
+	 * This field seatAvailabilityLedger of type SeatAvailabilityLedger is being
+	 * autowired here in order to take the seats from the ledger when it is
+	 * enabled, since the database is behind it.
+	 */
+	@Autowired
+	private SeatAvailabilityLedger seatAvailabilityLedger;
+
+	/**
+	 * This field holds the time in milliseconds after which a month of a route is
+	 * loaded again from the database.
+	 */
+	@Value("${airline.fare.calendar.ttl.ms:600000}")
+	private long ttlMillis = 600000;
+
+	/**
+	 * This field holds the largest number of months of routes held in memory.
+	 */
+	@Value("${airline.fare.calendar.max.size:1000}")
+	private int maxSize = 1000;
+
+	/**
+	 * This field holds the fares of each month of each route.
+	 */
+	private final Map<MonthKey, RouteMonth> months = new ConcurrentHashMap<>();
+
+	/**
+	 * This field holds the seat changes in flight and the loads in progress of
+	 * each month of a route which has any.
+	 */
+	private final Map<MonthKey, MonthActivity> activity = new ConcurrentHashMap<>();
+
+	/**
+	 * This field holds the number of calendars answered from memory.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * This field holds the number of months of routes loaded from the database.
+	 */
+	private final AtomicLong loads = new AtomicLong();
+
+	/**
+	 * This field holds the number of seat changes applied to the months in memory.
+	 */
+	private final AtomicLong updates = new AtomicLong();
+
+	/**
+	 * This field holds the number of months loaded while a seat change of the
+	 * month was in flight, which were not kept in memory.
+	 */
+	private final AtomicLong discards = new AtomicLong();
+
+	/**
+	 * Logger is instantiated with respect to FareCalendar to log errors occurring
+	 * in this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(FareCalendar.class);
+
+	/**
+	 * This method is used to get the lowest cost and the total seats of each day of
+	 * the given month, for the flights between the given origin city id and
+	 * destination city id.
+	 * 
+	 * @param originCityId
+	 * @param destinationCityId
+	 * @param month
+	 * @return list of fare day dtos, one for each day of the month
+	 * @throws AirlineServiceException
+	 */
+	public List<FareDayDto> getFares(Integer originCityId, Integer destinationCityId, YearMonth month)
+			throws AirlineServiceException {
+
+		// getting the month of the route from memory
+		MonthKey key = new MonthKey(originCityId, destinationCityId, month);
+		RouteMonth routeMonth = months.get(key);
+
+		// if the month is not in memory, or it has expired, it is loaded again
+		if (routeMonth == null || routeMonth.isExpired()) {
+			routeMonth = load(key);
+		} else {
+			hits.incrementAndGet();
+		}
+
+		// returning the fares of each day
+		return routeMonth.getFares();
+
+	}
+
+	/**
+	 * This method is used to tell the fare calendar that the seats of the given
+	 * flight id on the given date are about to change. It must be called before
+	 * the seats are changed, and be followed by seatsChanged once the change is
+	 * committed, or by seatsChangeAbandoned if it is not.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 */
+	public void seatsChanging(String flightId, Date travelOn) {
+
+		// getting the month of the route of the flight
+		MonthKey key = getMonthKey(flightId, travelOn);
+		if (key == null) {
+			return;
+		}
+
+		// counting the change as in flight
+		activity.compute(key, (k, current) -> {
+			MonthActivity monthActivity = current == null ? new MonthActivity() : current;
+			monthActivity.changing++;
+			monthActivity.changes++;
+			return monthActivity;
+		});
+
+	}
+
+	/**
+	 * This method is used to apply a committed change of the seats of the given
+	 * flight id on the given date to the month of its route, if that month is in
+	 * memory. A month which is not in memory is loaded with the change when it is
+	 * asked for.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @param seatsDelta ---> seats released, or negative for seats reserved
+	 */
+	public void seatsChanged(String flightId, Date travelOn, int seatsDelta) {
+
+		// getting the month of the route of the flight
+		MonthKey key = getMonthKey(flightId, travelOn);
+		if (key == null) {
+			return;
+		}
+
+		// the change is no longer in flight, and a load running now does not keep its
+		// month, since it cannot tell whether it read the change
+		seatsChangeCompleted(key);
+
+		// getting the month of the route from memory
+		RouteMonth routeMonth = months.get(key);
+
+		// applying the change to the day of the flight
+		if (routeMonth != null && routeMonth.seatsChanged(flightId, travelOn.toLocalDate().getDayOfMonth(),
+				seatsDelta)) {
+			updates.incrementAndGet();
+		}
+
+	}
+
+	/**
+	 * This method is used to tell the fare calendar that a change of the seats of
+	 * the given flight id on the given date, begun with seatsChanging, was not
+	 * made or was rolled back.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 */
+	public void seatsChangeAbandoned(String flightId, Date travelOn) {
+
+		// getting the month of the route of the flight
+		MonthKey key = getMonthKey(flightId, travelOn);
+		if (key == null) {
+			return;
+		}
+
+		// the change is no longer in flight
+		seatsChangeCompleted(key);
+
+	}
+
+	/**
+	 * This method is used to remove all the months from memory, so that they are
+	 * loaded again from the database the next time they are asked for. It must be
+	 * called whenever the flights or the fares are changed.
+	 */
+	public void invalidateAll() {
+
+		// removing all the months
+		months.clear();
+
+		logger.info("Fare calendar invalidated");
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the fare calendar.
+	 * 
+	 * @return map of statistic name and value
+	 */
+	public Map<String, Long> getStatistics() {
+
+		// new LinkedHashMap is created here, so that the statistics keep their order
+		Map<String, Long> statistics = new LinkedHashMap<>();
+		statistics.put("hits", hits.get());
+		statistics.put("loads", loads.get());
+		statistics.put("updates", updates.get());
+		statistics.put("discards", discards.get());
+		statistics.put("size", (long) months.size());
+		return statistics;
+
+	}
+
+	/**
+	 * This method is used to get the key of the month of the route of the given
+	 * flight id on the given date.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @return key of the month, or null if the flight is not in the route index
+	 */
+	private MonthKey getMonthKey(String flightId, Date travelOn) {
+
+		// getting the route of the flight from the route index
+		FlightDto flight = routeIndex.getFlight(flightId);
+		if (flight == null) {
+			return null;
+		}
+
+		return new MonthKey(flight.getOriginCity().getCityId(), flight.getDestinationCity().getCityId(),
+				YearMonth.from(travelOn.toLocalDate()));
+
+	}
+
+	/**
+	 * This method is used to count a change of the given month as completed. The
+	 * change is also counted as a new change, so that a load which began while it
+	 * was not yet in flight does not keep its month either.
+	 * 
+	 * @param key
+	 */
+	private void seatsChangeCompleted(MonthKey key) {
+		activity.compute(key, (k, current) -> {
+			MonthActivity monthActivity = current == null ? new MonthActivity() : current;
+			if (monthActivity.changing > 0) {
+				monthActivity.changing--;
+			}
+			monthActivity.changes++;
+			return monthActivity.isIdle() ? null : monthActivity;
+		});
+	}
+
+	/**
+	 * This method is used to load the given month of a route from the database,
+	 * in one query, and keep it in memory if no seat change of the month was in
+	 * flight while it was read.
+	 * 
+	 * @param key
+	 * @return month of the route
+	 * @throws AirlineServiceException
+	 */
+	private RouteMonth load(MonthKey key) throws AirlineServiceException {
+
+		// initializing the variables
+		List<FlightSeatsDto> seatsAvailableList;
+		RouteMonth routeMonth = null;
+
+		// counting the load as in progress, and taking the number of changes of the
+		// month so far, or -1 if a change is in flight
+		long[] changesBefore = new long[1];
+		activity.compute(key, (k, current) -> {
+			MonthActivity monthActivity = current == null ? new MonthActivity() : current;
+			monthActivity.loading++;
+			changesBefore[0] = monthActivity.changing > 0 ? -1 : monthActivity.changes;
+			return monthActivity;
+		});
+
+		try {
+
+			// getting the seats and cost of all the flights of the route over the month in
+			// a single query
+			seatsAvailableList = flightAvailRepository.getSeatsAvailableOnRouteDateRangeRepository(
+					key.originCityId, key.destinationCityId, Date.valueOf(key.month.atDay(1)),
+					Date.valueOf(key.month.atEndOfMonth()), Pageable.unpaged());
+
+			// the month is built from the flight seats dtos, with the seats of the ledger
+			// when it is enabled
+			routeMonth = new RouteMonth(key.month, seatsAvailableList, seatAvailabilityLedger,
+					System.currentTimeMillis() + ttlMillis);
+
+		} catch (SQLException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception has occurred while loading the fare calendar... " + e.getMessage());
+
+			// After catching SQLException, an AirlineServiceException is
+			// thrown here manually.
+			throw new AirlineServiceException(
+					"An exception has occurred while loading the fare calendar... " + e.getMessage(), e);
+
+		} finally {
+
+			// the load is no longer in progress, and the month is kept in memory unless
+			// the load failed, or a change of the month was in flight while it was read
+			if (!loadCompleted(key, changesBefore[0], routeMonth) && routeMonth != null) {
+				discards.incrementAndGet();
+			}
+
+		}
+
+		loads.incrementAndGet();
+
+		return routeMonth;
+
+	}
+
+	/**
+	 * This method is used to count a load of the given month as completed, and to
+	 * keep the loaded month in memory if no change of the month was in flight or
+	 * began since the load took the given number of changes. The month is kept
+	 * while the activity of the month is held, so that a change completed
+	 * meanwhile is either seen here or applied to the month kept.
+	 * 
+	 * @param key
+	 * @param changesBefore ---> number of changes when the load began, or -1
+	 * @param routeMonth    ---> month loaded, or null if the load failed
+	 * @return true if the month is kept in memory
+	 */
+	private boolean loadCompleted(MonthKey key, long changesBefore, RouteMonth routeMonth) {
+
+		boolean[] kept = new boolean[1];
+		activity.compute(key, (k, monthActivity) -> {
+			monthActivity.loading--;
+			if (routeMonth != null && changesBefore >= 0 && monthActivity.changing == 0
+					&& monthActivity.changes == changesBefore) {
+				keep(key, routeMonth);
+				kept[0] = true;
+			}
+			return monthActivity.isIdle() ? null : monthActivity;
+		});
+		return kept[0];
+
+	}
+
+	/**
+	 * This method is used to keep the given month of a route in memory.
+	 * 
+	 * @param key
+	 * @param routeMonth
+	 */
+	private void keep(MonthKey key, RouteMonth routeMonth) {
+
+		// if memory is full, the expired months are removed first, or else any month
+		if (months.size() >= maxSize && !months.containsKey(key)) {
+			months.values().removeIf(RouteMonth::isExpired);
+			for (Iterator<MonthKey> iterator = months.keySet().iterator(); iterator.hasNext()
+					&& months.size() >= maxSize;) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
+
+		// keeping the month in memory
+		months.put(key, routeMonth);
+
+	}
+
+	/**
+	 * This class holds the seats and cost of every flight of a route on every day
+	 * of a month, along with the lowest cost and the total seats of each day. The
+	 * lowest cost of a day only counts the flights which have seats left.
+	 */
+	private static final class RouteMonth {
+
+		/**
+		 * This field holds the month.
+		 */
+		private final YearMonth month;
+
+		/**
+		 * This field holds the index of each flight of the route in the arrays.
+		 */
+		private final Map<String, Integer> flightIndexes = new HashMap<>();
+
+		/**
+		 * This field holds the seats of each flight on each day, or -1 if the flight
+		 * does not fly on that day.
+		 */
+		private final int[][] seats;
+
+		/**
+		 * This field holds the cost of each flight on each day.
+		 */
+		private final float[][] cost;
+
+		/**
+		 * This field holds the lowest cost of each day, or null if no flight has
+		 * seats left.
+		 */
+		private final Float[] lowestCost;
+
+		/**
+		 * This field holds the total seats of each day.
+		 */
+		private final int[] totalSeats;
+
+		/**
+		 * This field holds the number of flights with seats left on each day.
+		 */
+		private final int[] flights;
+
+		/**
+		 * This field holds the time in milliseconds at which the month expires.
+		 */
+		private final long expiresAt;
+
+		/**
+		 * This field holds the lock which guards the seats, lowest cost, total seats
+		 * and flights of each day, so that the fares of a day are read only after
+		 * a seat change has updated all of them.
+		 */
+		private final ReentrantLock lock = new ReentrantLock();
+
+		/**
+		 * This is a parameterized constructor used to build the month from the flight
+		 * seats dtos of the route.
+		 * 
+		 * @param month                  ---> the month
+		 * @param seatsAvailableList     ---> seats of the route over the month
+		 * @param seatAvailabilityLedger ---> the ledger, whose seats are taken if enabled
+		 * @param expiresAt              ---> time at which the month expires
+		 */
+		private RouteMonth(YearMonth month, List<FlightSeatsDto> seatsAvailableList,
+				SeatAvailabilityLedger seatAvailabilityLedger, long expiresAt) {
+
+			this.month = month;
+			this.expiresAt = expiresAt;
+
+			// each flight of the route gets its index
+			for (FlightSeatsDto flightSeats : seatsAvailableList) {
+				flightIndexes.putIfAbsent(flightSeats.getFlightId(), flightIndexes.size());
+			}
+
+			int days = month.lengthOfMonth();
+			this.seats = new int[days][flightIndexes.size()];
+			this.cost = new float[days][flightIndexes.size()];
+			this.lowestCost = new Float[days];
+			this.totalSeats = new int[days];
+			this.flights = new int[days];
+			for (int[] daySeats : seats) {
+				Arrays.fill(daySeats, -1);
+			}
+
+			// filling the seats and cost of each flight on each day
+			for (FlightSeatsDto flightSeats : seatsAvailableList) {
+				int day = flightSeats.getFlightDate().toLocalDate().getDayOfMonth() - 1;
+				int flight = flightIndexes.get(flightSeats.getFlightId());
+				seats[day][flight] = seatAvailabilityLedger.getAvailableSeats(flightSeats.getFlightId(),
+						flightSeats.getFlightDate(), flightSeats.getSeats());
+				cost[day][flight] = flightSeats.getCost();
+			}
+
+			// computing each day
+			for (int day = 0; day < days; day++) {
+				computeDay(day);
+			}
+
+		}
+
+		/**
+		 * This method is used to apply a change of seats of the given flight on the
+		 * given day of the month, and compute that day again.
+		 * 
+		 * @param flightId
+		 * @param dayOfMonth
+		 * @param seatsDelta
+		 * @return true if the flight flies on that day
+		 */
+		private boolean seatsChanged(String flightId, int dayOfMonth, int seatsDelta) {
+
+			// getting the index of the flight
+			Integer flight = flightIndexes.get(flightId);
+			int day = dayOfMonth - 1;
+			if (flight == null) {
+				return false;
+			}
+
+			lock.lock();
+			try {
+
+				// the flight does not fly on that day
+				if (seats[day][flight] < 0) {
+					return false;
+				}
+
+				// changing the seats, which never go below zero
+				seats[day][flight] = Math.max(0, seats[day][flight] + seatsDelta);
+
+				// computing the day again
+				computeDay(day);
+
+			} finally {
+				lock.unlock();
+			}
+
+			return true;
+
+		}
+
+		/**
+		 * This method is used to compute the lowest cost, the total seats and the
+		 * number of flights with seats left of the given day.
+		 * 
+		 * @param day
+		 */
+		private void computeDay(int day) {
+
+			Float lowest = null;
+			int total = 0;
+			int withSeats = 0;
+
+			// only the flights which have seats left are counted
+			for (int flight = 0; flight < seats[day].length; flight++) {
+				if (seats[day][flight] > 0) {
+					total += seats[day][flight];
+					withSeats++;
+					if (lowest == null || cost[day][flight] < lowest) {
+						lowest = cost[day][flight];
+					}
+				}
+			}
+
+			lowestCost[day] = lowest;
+			totalSeats[day] = total;
+			flights[day] = withSeats;
+
+		}
+
+		/**
+		 * This method is used to get the fares of each day of the month.
+		 * 
+		 * @return list of fare day dtos
+		 */
+		private List<FareDayDto> getFares() {
+
+			// new ArrayList for the days is created here
+			List<FareDayDto> fares = new ArrayList<>(lowestCost.length);
+
+			lock.lock();
+			try {
+
+				// each day of the month is added
+				for (int day = 0; day < lowestCost.length; day++) {
+					LocalDate date = month.atDay(day + 1);
+					fares.add(new FareDayDto(Date.valueOf(date), lowestCost[day], totalSeats[day], flights[day]));
+				}
+
+			} finally {
+				lock.unlock();
+			}
+
+			return fares;
+
+		}
+
+		/**
+		 * This method is used to check whether the month has expired.
+		 * 
+		 * @return true if the month has expired
+		 */
+		private boolean isExpired() {
+			return System.currentTimeMillis() >= expiresAt;
+		}
+
+	}
+
+	/**
+	 * This class holds the seat changes in flight and the loads in progress of a
+	 * month of a route. It is only read and changed inside a compute of the
+	 * activity map, which is what makes it thread safe.
+	 */
+	private static final class MonthActivity {
+
+		/**
+		 * This field holds the number of changes begun and not yet completed.
+		 */
+		private int changing;
+
+		/**
+		 * This field holds the number of loads in progress.
+		 */
+		private int loading;
+
+		/**
+		 * This field holds the number of changes begun or completed while the month
+		 * had any activity, so that a load can tell whether any happened while it
+		 * read.
+		 */
+		private long changes;
+
+		/**
+		 * This method is used to check whether the month has no activity, so that it
+		 * can be removed from the activity map.
+		 * 
+		 * @return true if no change is in flight and no load is in progress
+		 */
+		private boolean isIdle() {
+			return changing == 0 && loading == 0;
+		}
+
+	}
+
+	/**
+	 * This class is the key of a month of a route.
+	 */
+	private static final class MonthKey {
+
+		/**
+		 * This field represents the origin city id.
+		 */
+		private final int originCityId;
+
+		/**
+		 * This field represents the destination city id.
+		 */
+		private final int destinationCityId;
+
+		/**
+		 * This field represents the month.
+		 */
+		private final YearMonth month;
+
+		/**
+		 * This is a parameterized constructor used to instantiate the key.
+		 * 
+		 * @param originCityId      ---> the origin city id
+		 * @param destinationCityId ---> the destination city id
+		 * @param month             ---> the month
+		 */
+		private MonthKey(int originCityId, int destinationCityId, YearMonth month) {
+			this.originCityId = originCityId;
+			this.destinationCityId = destinationCityId;
+			this.month = month;
+		}
+
+		/**
+		 * hashCode() from the Object class is overridden with respect to the cities
+		 * and the month.
+		 */
+		@Override
+		public int hashCode() {
+			return Objects.hash(originCityId, destinationCityId, month);
+		}
+
+		/**
+		 * equals method from object class is overridden to compare the cities and the
+		 * month.
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof MonthKey)) {
+				return false;
+			}
+			MonthKey other = (MonthKey) obj;
+			return originCityId == other.originCityId && destinationCityId == other.destinationCityId
+					&& month.equals(other.month);
+		}
+
+	}
+
+}
@@ -0,0 +1,140 @@
+package com.training.airline.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.training.airline.dto.FlightAvailDto;
+import com.training.airline.dto.FlightsAvailableOnDateDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.utility.SingleFlight;
+
+/**
+ * This is a service class which coalesces identical concurrent searches of the
+ * flights available. When many users search the same flight on the same date,
+ * or the same route on the same date, at the same time, only the first search
+ * goes to the database and the others wait for its result. The searches are
+ * coalesced before the transaction of the flight avail service is started, so
+ * that a waiting search does not hold a database connection. A waiting search
+ * gives up after the search timeout, as its request has failed with 503 by
+ * then, so that it does not keep a thread of the search executor. The results
+ * are shared between the requests and must not be changed by the callers.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class FlightAvailCoalescer {
+
+	/**
+	 * This field flightAvailService of type FlightAvailService is being autowired
+	 * here in order to run the searches.
+	 */
+	@Autowired
+	private FlightAvailService flightAvailService;
+
+	/**
+	 * This field tells whether identical concurrent searches are coalesced.
+	 */
+	@Value("${airline.search.coalescing.enabled:true}")
+	private boolean enabled = true;
+
+	/**
+	 * This field holds the time in milliseconds for which a search waits for an
+	 * identical search which is running, the same as the search timeout.
+	 */
+	@Value("${airline.search.timeout.ms:20000}")
+	private long timeoutMillis = 20000;
+
+	/**
+	 * This field holds the running searches of a flight on a date.
+	 */
+	private final SingleFlight<String, FlightAvailDto> flightOnDate = new SingleFlight<>();
+
+	/**
+	 * This field holds the running searches of a route on a date.
+	 */
+	private final SingleFlight<String, List<FlightAvailDto>> flightsBetweenCityOnDate = new SingleFlight<>();
+
+	/**
+	 * This method is used to get the flight available for the given flight id on a
+	 * given date, sharing the search with the identical searches which are
+	 * running.
+	 * 
+	 * @param flightsAvailableOnDateDto
+	 * @return flight avail dto
+	 * @throws AirlineServiceException
+	 */
+	public FlightAvailDto getFlightOnDateService(FlightsAvailableOnDateDto flightsAvailableOnDateDto)
+			throws AirlineServiceException {
+
+		// if coalescing is not enabled, the search is run
+		if (!enabled) {
+			return flightAvailService.getFlightOnDateService(flightsAvailableOnDateDto);
+		}
+
+		// the searches of the same flight on the same date are coalesced
+		String key = flightsAvailableOnDateDto.getFlightId() + "/" + flightsAvailableOnDateDto.getTravelOn();
+		return flightOnDate.execute(key, () -> flightAvailService.getFlightOnDateService(flightsAvailableOnDateDto),
+				timeoutMillis);
+
+	}
+
+	/**
+	 * This method is used to get the list of flights available between the given
+	 * cities for the given date, sharing the search with the identical searches
+	 * which are running.
+	 * 
+	 * @param flightsAvailableOnDateDto
+	 * @return List of flight available dtos
+	 */
+	public List<FlightAvailDto> getFlightsBetweenCityOnDate(FlightsAvailableOnDateDto flightsAvailableOnDateDto) {
+
+		// if coalescing is not enabled, the search is run
+		if (!enabled) {
+			return flightAvailService.getFlightsBetweenCityOnDate(flightsAvailableOnDateDto);
+		}
+
+		// the searches of the same route on the same date are coalesced, the city names
+		// are compared the same way as the city cache does
+		String key = cityKey(flightsAvailableOnDateDto.getOriginCity()) + "/"
+				+ cityKey(flightsAvailableOnDateDto.getDestinationCity()) + "/"
+				+ flightsAvailableOnDateDto.getTravelOn();
+		return flightsBetweenCityOnDate.execute(key,
+				() -> flightAvailService.getFlightsBetweenCityOnDate(flightsAvailableOnDateDto), timeoutMillis);
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the coalesced searches.
+	 * 
+	 * @return map of statistic name and value
+	 */
+	public Map<String, Long> getStatistics() {
+
+		// new LinkedHashMap is created here, so that the statistics keep their order
+		Map<String, Long> statistics = new LinkedHashMap<>();
+		statistics.put("flightOnDateExecuted", flightOnDate.getExecuted());
+		statistics.put("flightOnDateCoalesced", flightOnDate.getCoalesced());
+		statistics.put("flightsBetweenCityOnDateExecuted", flightsBetweenCityOnDate.getExecuted());
+		statistics.put("flightsBetweenCityOnDateCoalesced", flightsBetweenCityOnDate.getCoalesced());
+		statistics.put("inFlight", (long) (flightOnDate.getInFlight() + flightsBetweenCityOnDate.getInFlight()));
+		return statistics;
+
+	}
+
+	/**
+	 * This method is used to get the key of a city name.
+	 * 
+	 * @param cityName
+	 * @return city name in lower case
+	 */
+	private static String cityKey(String cityName) {
+		return cityName == null ? null : cityName.trim().toLowerCase(Locale.ROOT);
+	}
+
+}
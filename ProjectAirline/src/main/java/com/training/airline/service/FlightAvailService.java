@@ -2,26 +2,33 @@ package com.training.airline.service;
 
 import java.sql.Date;
 import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.training.airline.dto.CityDto;
+import com.training.airline.dto.FareCalendarDto;
 import com.training.airline.dto.FlightAvailDto;
+import com.training.airline.dto.FlightDto;
+import com.training.airline.dto.FlightSeatsDto;
 import com.training.airline.dto.FlightsAvailableDateRangeDto;
 import com.training.airline.dto.FlightsAvailableOnDateDto;
 import com.training.airline.exception.AirlineServiceException;
-import com.training.airline.model.City;
-import com.training.airline.model.Flight;
 import com.training.airline.model.FlightAvail;
-import com.training.airline.repository.CityRepository;
 import com.training.airline.repository.FlightAvailRepository;
-import com.training.airline.repository.FlightRepository;
 import com.training.airline.utility.DtoConverter;
 import com.training.airline.utility.Validation;
 
@@ -45,18 +52,41 @@ public class FlightAvailService {
 	private FlightAvailRepository flightAvailRepository;
 
 	/**
-	 * This field flightRepository of type FlightRepository is being autowired here
-	 * in order to invoke methods from the FlightRepository interface.
+	 * This field cityCache of type CityCache is being autowired here in order to
+	 * resolve the cities without going to the database on every request.
 	 */
 	@Autowired
-	private FlightRepository flightRepository;
+	private CityCache cityCache;
 
 	/**
-	 * This field cityRepository of type CityRepository is being autowired here in
-	 * order to invoke methods from the CityRepository interface.
+	 * This field routeIndex of type RouteIndex is being autowired here in order to
+	 * get the flights of a route without going to the database.
 	 */
 	@Autowired
-	private CityRepository cityRepository;
+	private RouteIndex routeIndex;
+
+	/**
+	 * This field fareCalendar of type FareCalendar is being autowired here in
+	 * order to get the fares of a month of a route without going to the database.
+	 */
+	@Autowired
+	private FareCalendar fareCalendar;
+
+	/**
+	 * This field seatAvailabilityLedger of type SeatAvailabilityLedger is being
+	 * autowired here in order to take the seats from the ledger when it is
+	 * enabled, since the database is behind it.
+	 */
+	@Autowired
+	private SeatAvailabilityLedger seatAvailabilityLedger;
+
+	/**
+	 * This field rangeSearchExecutor of type RangeSearchExecutor is being
+	 * autowired here in order to search a long date range in parts at the same
+	 * time.
+	 */
+	@Autowired
+	private RangeSearchExecutor rangeSearchExecutor;
 
 	/**
 	 * Logger is instantiated with respect to FlightAvailService to log errors
@@ -64,9 +94,16 @@ public class FlightAvailService {
 	 */
 	Logger logger = LoggerFactory.getLogger(FlightAvailService.class);
 
+	/**
+	 * This field holds the largest page size accepted by the date range search.
+	 */
+	@Value("${airline.search.max.page.size:500}")
+	private int maxPageSize = 500;
+
 	/**
 	 * This method is used to get the flight available for the given flight id on a
-	 * given date, and return it back to the controller.
+	 * given date, and return it back to the controller. Only the seats and cost are
+	 * read from the database, the flight is taken from the route index.
 	 * 
 	 * @param flightsAvailableOnDateDto
 	 * @return flight avail dto
@@ -110,11 +147,13 @@ public class FlightAvailService {
 
 			}
 
-			// getting the flight for the given flight id on a given date
-			FlightAvail flightsAvailable = flightAvailRepository.getFlightsAvailableRepository(flightId, travelOn);
+			// getting the seats and cost of the given flight id on a given date, and the
+			// flight from the route index
+			FlightSeatsDto flightSeats = flightAvailRepository.getFlightSeatsRepository(flightId, travelOn);
+			FlightDto flightDto = routeIndex.getFlight(flightId);
 
 			// if the flight is not available, if block is executed
-			if (flightsAvailable == null) {
+			if (flightSeats == null) {
 
 				// Any exception that would occur is logged here.
 				logger.error("There are no flights available for this date...");
@@ -123,13 +162,27 @@ public class FlightAvailService {
 				// available
 				throw new AirlineServiceException("There are no flights available for this date...");
 
+			} else if (flightDto == null) {
+
+				// a flight added after the route index was built is loaded along with its
+				// cities, and converted into flight available dto
+				flightAvailDto = DtoConverter.flightAvailToFlightAvailDto(
+						flightAvailRepository.getFlightsAvailableRepository(flightId, travelOn));
+
 			} else {
 
-				// flight available is converted into flight available dto
-				flightAvailDto = DtoConverter.flightAvailToFlightAvailDto(flightsAvailable);
+				// instantiating the flight available dto using the seats and cost, and the
+				// flight dto from the route index
+				flightAvailDto = new FlightAvailDto(flightSeats.getFlightDate(), flightSeats.getSeats(),
+						flightSeats.getCost());
+				flightAvailDto.setFlight(flightDto);
 
 			}
 
+			// the seats are taken from the ledger when it is enabled
+			flightAvailDto.setSeats(
+					seatAvailabilityLedger.getAvailableSeats(flightId, travelOn, flightAvailDto.getSeats()));
+
 		} catch (SQLException e) {
 
 			// Any exception that would occur is logged here.
@@ -216,52 +269,17 @@ public class FlightAvailService {
 
 			}
 
-			// getting the origin city object by using the city name
-			City originCityOp = cityRepository.findByCityName(originCityName);
-
-			// getting the destination city object by using the city name
-			City destinationCityOp = cityRepository.findByCityName(destinationCityName);
-
-			// getting the list of flights between the given origin city and destination
-			// city
-			List<Flight> flightList = flightRepository.getFlightsByRouteRepository(originCityOp.getCityId(),
-					destinationCityOp.getCityId());
+			// getting the ids of both the cities from the city cache, and the flights of
+			// the route from the route index
+			Integer[] route = getRoute(originCityName, destinationCityName);
 
-			if (flightList.isEmpty()) {
-
-				// Any exception that would occur is logged here.
-				logger.error("There are no flights between the given cities");
-
-				// Manually throwing new AirlineServiceException since flights are not available
-				throw new AirlineServiceException("There are no flights between the given cities");
-
-			}
+			// getting the seats and cost of all the flights of the route on the given date
+			// in a single query, instead of one query for each flight of the route
+			List<FlightSeatsDto> seatsAvailableList = flightAvailRepository.getSeatsAvailableOnRouteRepository(
+					route[0], route[1], travelOn);
 
-			// new Arraylist is instantiated here
-			flightAvailDtosList = new ArrayList<>();
-
-			// iterating over the flight list
-			for (Iterator<Flight> iterator = flightList.iterator(); iterator.hasNext();) {
-
-				// each flight object from the list
-				Flight flight = iterator.next();
-
-				// getting the flight for the given flight id on a given date
-				FlightAvail flightAvailable = flightAvailRepository.getFlightsAvailableRepository(flight.getFlightId(),
-						travelOn);
-
-				// if the flight is available, if block will get executed
-				if (flightAvailable != null) {
-
-					// flight available object is converted into flight available dto
-					FlightAvailDto flightAvailDto = DtoConverter.flightAvailToFlightAvailDto(flightAvailable);
-
-					// flight available dto added to the list of available flight dtos
-					flightAvailDtosList.add(flightAvailDto);
-
-				}
-
-			}
+			// seats available are converted into list of flight available dtos
+			flightAvailDtosList = toFlightAvailDtos(seatsAvailableList);
 
 			// if the flight available list is empty, if block gets executed
 			if (flightAvailDtosList.isEmpty()) {
@@ -375,91 +393,365 @@ public class FlightAvailService {
 
 			}
 
-			// getting the origin city object by using the city name
-			City originCityOp = cityRepository.findByCityName(originCityName);
-
-			// getting the destination city object by using the city name
-			City destinationCityOp = cityRepository.findByCityName(destinationCityName);
+			// getting the page of the search result, or the whole result if no page size
+			// is given
+			Pageable pageable = getSearchPage(flightsAvailableDateRangeDto.getPageNumber(),
+					flightsAvailableDateRangeDto.getPageSize());
+
+			// getting the ids of both the cities from the city cache, and the flights of
+			// the route from the route index
+			Integer[] route = getRoute(originCityName, destinationCityName);
+
+			// getting the seats and cost of all the flights of the route over the given
+			// date range in a single query, sorted by date and departure time. When the
+			// whole result is asked for, a long range may be split into parts of
+			// consecutive dates, which are searched at the same time.
+			List<FlightSeatsDto> seatsAvailableList;
+			if (pageable.isPaged()) {
+				seatsAvailableList = flightAvailRepository.getSeatsAvailableOnRouteDateRangeRepository(route[0],
+						route[1], startDate, endDate, pageable);
+			} else {
+				seatsAvailableList = rangeSearchExecutor.search(startDate, endDate,
+						(partStart, partEnd) -> getSeatsAvailableOnRoute(route, partStart, partEnd));
+			}
 
-			// getting the list of flights between the given origin city and destination
-			// city
-			List<Flight> flightList = flightRepository.getFlightsByRouteRepository(originCityOp.getCityId(),
-					destinationCityOp.getCityId());
+			// seats available are converted into list of flight available dtos
+			finalFlightAvailDtosList = toFlightAvailDtos(seatsAvailableList);
 
-			// if there are no flights available, if block gets executed
-			if (flightList.isEmpty()) {
+			// if the final list of flight available dtos is empty, if block gets executed
+			if (finalFlightAvailDtosList.isEmpty()) {
 
 				// Any exception that would occur is logged here.
-				logger.error("There are no flights between the given cities");
+				logger.error("There are no flights between the given cities for the given date range");
 
 				// Manually throwing new AirlineServiceException since flights are not available
-				throw new AirlineServiceException("There are no flights between the given cities");
+				throw new AirlineServiceException(
+						"There are no flights between the given cities for the given date range");
 
 			}
 
-			// new ArrayList is instantiated here
-			finalFlightAvailDtosList = new ArrayList<>();
+		} catch (SQLException e) {
 
-			// iterating over the flight list
-			for (Iterator<Flight> iterator = flightList.iterator(); iterator.hasNext();) {
+			// Any exception that would occur is logged here.
+			logger.error("An exception has occurred:: " + e.getMessage());
 
-				// each flight object from the list
-				Flight flight = iterator.next();
+			// After catching SQLException, an AirlineServiceException is
+			// thrown here manually.
+			throw new AirlineServiceException("An exception has occurred:: " + e.getMessage());
 
-				// getting the list of available flights for the given flight id between the
-				// given date range
-				List<FlightAvail> flightAvailableList = flightAvailRepository
-						.getFlightsAvailableOnDateRangeRepository(flight.getFlightId(), startDate, endDate);
+		} catch (Exception e) {
 
-				// if flights are available, if block gets executed.
-				if (!flightAvailableList.isEmpty()) {
+			// Any exception that would occur is logged here.
+			logger.error("An exception has occurred:: " + e.getMessage());
 
-					// list of flight available is converted into list of flight available dtos
-					List<FlightAvailDto> flightAvailDtoList = DtoConverter
-							.flightAvailListToFlightAvailListDto(flightAvailableList);
+			// After catching Exception, an AirlineServiceException is
+			// thrown here manually.
+			throw new AirlineServiceException("An exception has occurred:: " + e.getMessage());
 
-					// adding the list of flight available dtos to the final list of flight
-					// available dtos
-					finalFlightAvailDtosList.addAll(flightAvailDtoList);
+		}
+
+		// returning the final list of flight available dtos to the controller
+		return finalFlightAvailDtosList;
+
+	}
+
+	/**
+	 * This method is used to get the lowest cost and the total seats of each day of
+	 * the given month, for the flights between the given cities, and return it
+	 * back to the controller. The fares are served from the fare calendar kept in
+	 * memory, instead of reading every flight of the month.
+	 * 
+	 * @param fareCalendarDto
+	 * @return fare calendar dto with the fare of each day
+	 * @throws AirlineServiceException
+	 */
+	public FareCalendarDto getFareCalendarService(FareCalendarDto fareCalendarDto) throws AirlineServiceException {
+
+		// reference for fare calendar dto is created here
+		FareCalendarDto fareCalendarResult = null;
+
+		try {
+
+			// getting the origin city name
+			String originCityName = fareCalendarDto.getOriginCity();
+
+			// if the validation of origin city name fails, if block gets executed
+			if (!(Validation.stringValidation(originCityName))) {
+
+				// Any exception that would occur is logged here.
+				logger.error("Origin city name is missing...");
 
-				}
+				// Manually throwing new AirlineServiceException since origin city name is
+				// missing
+				throw new AirlineServiceException("Origin city name is missing...");
 
 			}
 
-			// if the final list of flight available dtos is empty, if block gets executed
-			if (finalFlightAvailDtosList.isEmpty()) {
+			// getting the destination city name
+			String destinationCityName = fareCalendarDto.getDestinationCity();
+
+			// if the validation of destination city name fails, if block gets executed
+			if (!(Validation.stringValidation(destinationCityName))) {
 
 				// Any exception that would occur is logged here.
-				logger.error("There are no flights between the given cities for the given date range");
+				logger.error("Destination city name is missing...");
 
-				// Manually throwing new AirlineServiceException since flights are not available
-				throw new AirlineServiceException(
-						"There are no flights between the given cities for the given date range");
+				// Manually throwing new AirlineServiceException since destination city name is
+				// missing
+				throw new AirlineServiceException("Destination city name is missing...");
 
 			}
 
-		} catch (SQLException e) {
+			// initializing the variable
+			YearMonth month;
+
+			try {
+
+				// getting the month of the calendar
+				month = YearMonth.parse(String.valueOf(fareCalendarDto.getMonth()).trim());
+
+			} catch (DateTimeParseException e) {
+
+				// Any exception that would occur is logged here.
+				logger.error("Month should be in the format yyyy-MM...");
+
+				// Manually throwing new AirlineServiceException since the month is invalid
+				throw new AirlineServiceException("Month should be in the format yyyy-MM...");
+
+			}
+
+			// getting the ids of both the cities from the city cache, and the flights of
+			// the route from the route index
+			Integer[] route = getRoute(originCityName, destinationCityName);
+
+			// the fare of each day of the month is taken from the fare calendar
+			fareCalendarResult = new FareCalendarDto(originCityName, destinationCityName, month.toString());
+			fareCalendarResult.setDays(fareCalendar.getFares(route[0], route[1], month));
+
+		} catch (Exception e) {
 
 			// Any exception that would occur is logged here.
 			logger.error("An exception has occurred:: " + e.getMessage());
 
-			// After catching SQLException, an AirlineServiceException is
+			// After catching Exception, an AirlineServiceException is
 			// thrown here manually.
 			throw new AirlineServiceException("An exception has occurred:: " + e.getMessage());
 
-		} catch (Exception e) {
+		}
+
+		// returning the fare calendar dto to the controller
+		return fareCalendarResult;
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the fare calendar, and return
+	 * them back to the controller.
+	 * 
+	 * @return map of statistic name and value
+	 */
+	public Map<String, Long> getFareCalendarStatisticsService() {
+		return fareCalendar.getStatistics();
+	}
+
+	/**
+	 * This method is used to get the ids of the given origin city and destination
+	 * city from the city cache, making sure that there are flights between them in
+	 * the route index. Neither of them goes to the database once they are loaded,
+	 * unless the route is missing from the route index, in which case it is looked
+	 * up in the database.
+	 * 
+	 * @param originCityName
+	 * @param destinationCityName
+	 * @return array of origin city id and destination city id
+	 * @throws AirlineServiceException
+	 */
+	private Integer[] getRoute(String originCityName, String destinationCityName) throws AirlineServiceException {
+
+		// getting both the cities from the city cache
+		CityDto originCity = cityCache.getCityByName(originCityName);
+		CityDto destinationCity = cityCache.getCityByName(destinationCityName);
+
+		// if either of the cities is not known, or there are no flights between them,
+		// if block gets executed
+		if (originCity == null || destinationCity == null
+				|| routeIndex.getFlightsOrRefresh(originCity.getCityId(), destinationCity.getCityId()).isEmpty()) {
+
+			// Any exception that would occur is logged here.
+			logger.error("There are no flights between the given cities");
+
+			// Manually throwing new AirlineServiceException since flights are not available
+			throw new AirlineServiceException("There are no flights between the given cities");
+
+		}
+
+		// returning the ids of both the cities
+		return new Integer[] { originCity.getCityId(), destinationCity.getCityId() };
+
+	}
+
+	/**
+	 * This method is used to convert the flight seats dtos into flight available
+	 * dtos, taking the flight of each of them from the route index. A flight added
+	 * after the route index was built is loaded along with its cities, as in
+	 * getFlightOnDateService, once for all of its rows.
+	 * 
+	 * @param seatsAvailableList
+	 * @return list of flight available dtos
+	 * @throws SQLException
+	 */
+	private List<FlightAvailDto> toFlightAvailDtos(List<FlightSeatsDto> seatsAvailableList) throws SQLException {
+
+		// new ArrayList for the flight available dtos is created here
+		List<FlightAvailDto> flightAvailDtoList = new ArrayList<>(seatsAvailableList.size());
+
+		// the flights which are not in the route index, loaded from the database
+		Map<String, FlightDto> flightsNotIndexed = new HashMap<>();
+
+		// iterating over the seats available
+		for (Iterator<FlightSeatsDto> iterator = seatsAvailableList.iterator(); iterator.hasNext();) {
+
+			// each flight id, flight date, seats and cost
+			FlightSeatsDto flightSeats = iterator.next();
+
+			// instantiating the flight available dto using the seats, taken from the ledger
+			// when it is enabled, and the cost
+			FlightAvailDto flightAvailDto = new FlightAvailDto(flightSeats.getFlightDate(),
+					seatAvailabilityLedger.getAvailableSeats(flightSeats.getFlightId(), flightSeats.getFlightDate(),
+							flightSeats.getSeats()),
+					flightSeats.getCost());
+
+			// getting the flight dto from the route index
+			FlightDto flightDto = routeIndex.getFlight(flightSeats.getFlightId());
+
+			// if the flight is not in the route index, it is loaded from the database
+			if (flightDto == null) {
+				flightDto = getFlightNotIndexed(flightSeats, flightsNotIndexed);
+			}
+
+			// if the flight is not found at all, the row is skipped
+			if (flightDto == null) {
+				logger.warn("Flight " + flightSeats.getFlightId() + " was not found, and is left out of the search");
+				continue;
+			}
+
+			// setting the flight dto
+			flightAvailDto.setFlight(flightDto);
+
+			// flight available dto is added to the list of flight available dtos
+			flightAvailDtoList.add(flightAvailDto);
+
+		}
+
+		// returning the list of flight available dtos
+		return flightAvailDtoList;
+
+	}
+
+	/**
+	 * This method is used to get the flight dto of a flight which is not in the
+	 * route index, by loading the given flight seats dto's flight available along
+	 * with its flight and cities. The flight dto is kept in the given map, so that
+	 * it is loaded once for all the rows of the flight.
+	 * 
+	 * @param flightSeats
+	 * @param flightsNotIndexed ---> flight dtos loaded so far, by flight id
+	 * @return flight dto, or null if the flight is not found
+	 * @throws SQLException
+	 */
+	private FlightDto getFlightNotIndexed(FlightSeatsDto flightSeats, Map<String, FlightDto> flightsNotIndexed)
+			throws SQLException {
+
+		// if the flight has been loaded already, it is returned
+		String flightId = flightSeats.getFlightId();
+		if (flightsNotIndexed.containsKey(flightId)) {
+			return flightsNotIndexed.get(flightId);
+		}
+
+		// loading the flight available along with its flight and cities
+		FlightAvail flightAvail = flightAvailRepository.getFlightsAvailableRepository(flightId,
+				flightSeats.getFlightDate());
+		FlightDto flightDto = flightAvail == null ? null
+				: DtoConverter.flightAvailToFlightAvailDto(flightAvail).getFlight();
+
+		flightsNotIndexed.put(flightId, flightDto);
+		return flightDto;
+
+	}
+
+	/**
+	 * This method is used to get the seats and cost of all the flights of the
+	 * given route over the given part of a date range.
+	 * 
+	 * @param route     ids of the origin and destination cities
+	 * @param startDate
+	 * @param endDate
+	 * @return List of flight seats dtos
+	 * @throws AirlineServiceException
+	 */
+	private List<FlightSeatsDto> getSeatsAvailableOnRoute(Integer[] route, Date startDate, Date endDate)
+			throws AirlineServiceException {
+
+		try {
+
+			// getting the seats of the part, sorted by date and departure time
+			return flightAvailRepository.getSeatsAvailableOnRouteDateRangeRepository(route[0], route[1], startDate,
+					endDate, Pageable.unpaged());
+
+		} catch (SQLException e) {
 
 			// Any exception that would occur is logged here.
 			logger.error("An exception has occurred:: " + e.getMessage());
 
-			// After catching Exception, an AirlineServiceException is
+			// After catching SQLException, an AirlineServiceException is
 			// thrown here manually.
 			throw new AirlineServiceException("An exception has occurred:: " + e.getMessage());
 
 		}
 
-		// returning the final list of flight available dtos to the controller
-		return finalFlightAvailDtosList;
+	}
+
+	/**
+	 * This method is used to get the page of the date range search for the given
+	 * page number and page size. If the page size is not given, the whole result is
+	 * returned, and if the page number is not given, the first page is returned.
+	 * 
+	 * @param pageNumber
+	 * @param pageSize
+	 * @return pageable for the search
+	 * @throws AirlineServiceException
+	 */
+	private Pageable getSearchPage(Integer pageNumber, Integer pageSize) throws AirlineServiceException {
+
+		// if the page size is not given, the whole result is returned
+		if (pageSize == null) {
+			return Pageable.unpaged();
+		}
+
+		// if the page size is not within the limit, if block gets executed
+		if (pageSize <= 0 || pageSize > maxPageSize) {
+
+			// Any exception that would occur is logged here.
+			logger.error("Page size should be between 1 and " + maxPageSize + "...");
+
+			// Manually throwing new AirlineServiceException since the page size is invalid
+			throw new AirlineServiceException("Page size should be between 1 and " + maxPageSize + "...");
+
+		}
+
+		// if the page number is negative, if block gets executed
+		if (pageNumber != null && pageNumber < 0) {
+
+			// Any exception that would occur is logged here.
+			logger.error("Page number should not be negative...");
+
+			// Manually throwing new AirlineServiceException since the page number is invalid
+			throw new AirlineServiceException("Page number should not be negative...");
+
+		}
+
+		// returning the page asked for, the first page by default
+		return PageRequest.of(pageNumber == null ? 0 : pageNumber, pageSize);
 
 	}
 
@@ -1,9 +1,9 @@
 package com.training.airline.service;
 
-import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,14 +11,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.training.airline.dto.CityDto;
 import com.training.airline.dto.FlightDto;
 import com.training.airline.dto.FlightsByRouteDto;
 import com.training.airline.exception.AirlineServiceException;
-import com.training.airline.model.City;
-import com.training.airline.model.Flight;
-import com.training.airline.repository.CityRepository;
-import com.training.airline.repository.FlightRepository;
-import com.training.airline.utility.DtoConverter;
 import com.training.airline.utility.Validation;
 
 /**
@@ -33,18 +29,25 @@ import com.training.airline.utility.Validation;
 public class FlightService {
 
 	/**
-	 * This field flightRepository of type FlightRepository is being autowired here
-	 * in order to invoke methods from the FlightRepository interface.
+	 * This field routeIndex of type RouteIndex is being autowired here in order to
+	 * get the flights of a route without going to the database.
 	 */
 	@Autowired
-	private FlightRepository flightRepository;
+	private RouteIndex routeIndex;
 
 	/**
-	 * This field cityRepository of type CityRepository is being autowired here in
-	 * order to invoke methods from the CityRepository interface.
+	 * This field fareCalendar of type FareCalendar is being autowired here in
+	 * order to drop the fares in memory when the flights are changed.
 	 */
 	@Autowired
-	private CityRepository cityRepository;
+	private FareCalendar fareCalendar;
+
+	/**
+	 * This field cityCache of type CityCache is being autowired here in order to
+	 * resolve the cities without going to the database on every request.
+	 */
+	@Autowired
+	private CityCache cityCache;
 
 	/**
 	 * Logger is instantiated with respect to FlightService to log errors occurring
@@ -98,66 +101,98 @@ public class FlightService {
 
 		try {
 
-			// getting the origin city object by using the city name
-			City originCityOp = cityRepository.findByCityName(originCityName);
-
-			// getting the destination city object by using the city name
-			City destinationCityOp = cityRepository.findByCityName(destinationCityName);
+			// getting the origin city by using the city name, from the city cache
+			CityDto originCity = cityCache.getCityByName(originCityName);
 
-			// getting the list of flights between the given origin city and destination
-			// city
-			List<Flight> flightList = flightRepository.getFlightsByRouteRepository(originCityOp.getCityId(),
-					destinationCityOp.getCityId());
+			// getting the destination city by using the city name, from the city cache
+			CityDto destinationCity = cityCache.getCityByName(destinationCityName);
 
-			if (flightList.isEmpty()) {
+			// if either of the cities is not known, if block gets executed
+			if (originCity == null || destinationCity == null) {
 
 				// Any exception that would occur is logged here.
 				logger.error("There are no flights available for the given origin and destination...");
 
-				// Manually throwing new AirlineServiceException since flights are not available
+				// Manually throwing new AirlineServiceException since the cities are not
+				// available
 				throw new AirlineServiceException(
 						"There are no flights available for the given origin and destination...");
 
 			}
 
-			// iterating over the flight list
-			for (Iterator<Flight> iterator = flightList.iterator(); iterator.hasNext();) {
+			// getting the list of flights between the given origin city and destination
+			// city from the route index, which is refreshed if the route is missing from
+			// it but not from the database
+			List<FlightDto> routeFlights = routeIndex.getFlightsOrRefresh(originCity.getCityId(),
+					destinationCity.getCityId());
 
-				// each flight object from the list
-				Flight flight = iterator.next();
+			if (routeFlights.isEmpty()) {
 
-				// flight object is converted to flight dto object
-				FlightDto flightDto = DtoConverter.flightToFlightDto(flight);
+				// Any exception that would occur is logged here.
+				logger.error("There are no flights available for the given origin and destination...");
 
-				// flight dto object is added to the flight dto list
-				flightDtoList.add(flightDto);
+				// Manually throwing new AirlineServiceException since flights are not available
+				throw new AirlineServiceException(
+						"There are no flights available for the given origin and destination...");
 
 			}
 
-		} catch (SQLException e) {
+			// flight dtos of the route are added to the flight dto list
+			flightDtoList.addAll(routeFlights);
+
+		} catch (Exception e) {
 
 			// Any exception that would occur is logged here.
 			logger.error("An exception has occurred while getting flights by route... " + e.getMessage());
 
-			// After catching SQLException, an AirlineServiceException is
+			// After catching Exception, an AirlineServiceException is
 			// thrown here manually.
 			throw new AirlineServiceException(
 					"An exception has occurred while getting flights by route... " + e.getMessage());
 
+		}
+ 
+		// returning the list of flight dtos
+		return flightDtoList;
+
+	}
+
+	/**
+	 * This method is used to rebuild the route index from the flights in the
+	 * database, after the flights are changed, and return the number of flights and
+	 * routes back to the controller. The fare calendar is emptied along with it.
+	 * 
+	 * @return map of statistic name and value
+	 * @throws AirlineServiceException
+	 */
+	public Map<String, Integer> refreshRouteIndexService() throws AirlineServiceException {
+
+		// new LinkedHashMap is created here, so that the statistics keep their order
+		Map<String, Integer> statistics = new LinkedHashMap<>();
+
+		try {
+
+			// rebuilding the route index
+			statistics.put("flights", routeIndex.refresh());
+			statistics.put("routes", routeIndex.getRouteCount());
+
+			// the fares of the old flights are dropped
+			fareCalendar.invalidateAll();
+
 		} catch (Exception e) {
 
 			// Any exception that would occur is logged here.
-			logger.error("An exception has occurred while getting flights by route... " + e.getMessage());
+			logger.error("An exception has occurred while refreshing the route index... " + e.getMessage());
 
 			// After catching Exception, an AirlineServiceException is
 			// thrown here manually.
 			throw new AirlineServiceException(
-					"An exception has occurred while getting flights by route... " + e.getMessage());
+					"An exception has occurred while refreshing the route index... " + e.getMessage());
 
 		}
- 
-		// returning the list of flight dtos
-		return flightDtoList;
+
+		// returning the statistics
+		return statistics;
 
 	}
 
@@ -0,0 +1,739 @@
+package com.training.airline.service;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.training.airline.dto.CityDto;
+import com.training.airline.dto.FlightAvailDto;
+import com.training.airline.dto.FlightSeatsDto;
+import com.training.airline.dto.ItineraryDto;
+import com.training.airline.dto.ItinerarySearchDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.repository.FlightAvailRepository;
+import com.training.airline.service.RouteIndex.Leg;
+import com.training.airline.utility.Validation;
+
+/**
+ * This is a service class for the connecting flight search. It finds the
+ * itineraries of up to the configured number of stops between two cities,
+ * using the graph of the cities kept by the route index, so that the flights
+ * are never read from the database. Each leg must leave at least the minimum
+ * connection time after the previous leg arrives, on the same day or on a
+ * later day, and the itineraries which arrive first are kept. The seats of
+ * every leg of those itineraries are then checked in one query, and only the
+ * itineraries with enough seats on every leg are returned. If the legs without
+ * enough seats leave fewer itineraries than are returned for a search, while
+ * the search left out itineraries arriving later, the search is run again for
+ * four times as many itineraries, passing by the legs already found full.
+ * 
+ * @author Praveen J
+ */
+@Service
+@Transactional(readOnly = true)
+public class ItineraryService {
+
+	/**
+	 * This field holds the number of minutes in a day.
+	 */
+	private static final int MINUTES_PER_DAY = 24 * 60;
+
+	/**
+	 * This field holds the order of the itineraries, the earliest arrival first,
+	 * then the fewest stops, then the shortest travel time.
+	 */
+	private static final Comparator<Itinerary> ITINERARY_ORDER = Comparator
+			.comparingLong((Itinerary itinerary) -> itinerary.arrival)
+			.thenComparingInt(itinerary -> itinerary.legs.length)
+			.thenComparingLong(itinerary -> itinerary.arrival - itinerary.departures[0]);
+
+	/**
+	 * This field flightAvailRepository of type FlightAvailRepository is being
+	 * autowired here in order to check the seats of the legs.
+	 */
+	@Autowired
+	private FlightAvailRepository flightAvailRepository;
+
+	/**
+	 * This field cityCache of type CityCache is being autowired here in order to
+	 * resolve the cities without going to the database on every request.
+	 */
+	@Autowired
+	private CityCache cityCache;
+
+	/**
+	 * This field routeIndex of type RouteIndex is being autowired here in order to
+	 * get the graph of the cities without going to the database.
+	 */
+	@Autowired
+	private RouteIndex routeIndex;
+
+	/**
+	 * This field seatAvailabilityLedger of type SeatAvailabilityLedger is being
+	 * autowired here in order to take the seats from the ledger when it is
+	 * enabled, since the database is behind it.
+	 */
+	@Autowired
+	private SeatAvailabilityLedger seatAvailabilityLedger;
+
+	/**
+	 * Logger is instantiated with respect to ItineraryService to log errors
+	 * occurring in this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(ItineraryService.class);
+
+	/**
+	 * This field holds the least number of minutes between the arrival of a leg and
+	 * the departure of the next leg.
+	 */
+	@Value("${airline.itinerary.min.connection.minutes:60}")
+	private int minConnectionMinutes = 60;
+
+	/**
+	 * This field holds the largest number of minutes between the arrival of a leg
+	 * and the departure of the next leg.
+	 */
+	@Value("${airline.itinerary.max.connection.minutes:720}")
+	private int maxConnectionMinutes = 720;
+
+	/**
+	 * This field holds the largest number of stops of an itinerary.
+	 */
+	@Value("${airline.itinerary.max.stops:2}")
+	private int maxStops = 2;
+
+	/**
+	 * This field holds the number of itineraries returned for a search.
+	 */
+	@Value("${airline.itinerary.max.results:10}")
+	private int maxResults = 10;
+
+	/**
+	 * This field holds the number of itineraries whose seats are first checked for
+	 * a search. It is larger than the number of itineraries returned, so that the
+	 * itineraries with a full leg can be left out without searching again.
+	 */
+	@Value("${airline.itinerary.max.candidates:100}")
+	private int maxCandidates = 100;
+
+	/**
+	 * This method is used to get the itineraries between the given cities leaving
+	 * on the given date, with enough seats on every leg, the earliest arrival
+	 * first, and return them back to the controller.
+	 * 
+	 * @param itinerarySearchDto
+	 * @return list of itinerary dtos
+	 * @throws AirlineServiceException
+	 */
+	public List<ItineraryDto> getItinerariesService(ItinerarySearchDto itinerarySearchDto)
+			throws AirlineServiceException {
+
+		// reference for list of itinerary dtos is created here
+		List<ItineraryDto> itineraryDtos = null;
+
+		try {
+
+			// getting the origin city name
+			String originCityName = itinerarySearchDto.getOriginCity();
+
+			// if the validation of origin city name fails, if block gets executed
+			if (!(Validation.stringValidation(originCityName))) {
+
+				// Any exception that would occur is logged here.
+				logger.error("Origin city name is missing...");
+
+				// Manually throwing new AirlineServiceException since origin city name is
+				// missing
+				throw new AirlineServiceException("Origin city name is missing...");
+
+			}
+
+			// getting the destination city name
+			String destinationCityName = itinerarySearchDto.getDestinationCity();
+
+			// if the validation of destination city name fails, if block gets executed
+			if (!(Validation.stringValidation(destinationCityName))) {
+
+				// Any exception that would occur is logged here.
+				logger.error("Destination city name is missing...");
+
+				// Manually throwing new AirlineServiceException since destination city name is
+				// missing
+				throw new AirlineServiceException("Destination city name is missing...");
+
+			}
+
+			// getting the date of the first flight
+			Date travelOn = itinerarySearchDto.getTravelOn();
+
+			// if the validation of flight date fails, if block gets executed
+			if (!(Validation.dateValidation(travelOn))) {
+
+				// Any exception that would occur is logged here.
+				logger.error("Flight date is missing...");
+
+				// Manually throw new AirlineServiceException since the flight date is not
+				// available
+				throw new AirlineServiceException("Flight date is missing...");
+
+			}
+
+			// getting the number of seats, one seat by default
+			int seats = itinerarySearchDto.getSeats() == null ? 1 : itinerarySearchDto.getSeats();
+
+			// getting the number of stops, the configured limit by default
+			int stops = itinerarySearchDto.getMaxStops() == null ? maxStops : itinerarySearchDto.getMaxStops();
+
+			// if the number of seats or stops is not within the limit, if block gets
+			// executed
+			if (seats <= 0 || stops < 0 || stops > maxStops) {
+
+				// Any exception that would occur is logged here.
+				logger.error("Seats should be positive and stops should be between 0 and " + maxStops + "...");
+
+				// Manually throwing new AirlineServiceException since the search is invalid
+				throw new AirlineServiceException(
+						"Seats should be positive and stops should be between 0 and " + maxStops + "...");
+
+			}
+
+			// getting both the cities from the city cache
+			CityDto originCity = cityCache.getCityByName(originCityName);
+			CityDto destinationCity = cityCache.getCityByName(destinationCityName);
+
+			// the legs found without enough seats, by flight id and day of the travel
+			Set<String> fullLegs = new HashSet<>();
+
+			// finding the itineraries which arrive first, from the graph of the cities
+			Search search = originCity == null || destinationCity == null
+					|| originCity.getCityId().equals(destinationCity.getCityId()) ? null
+							: search(originCity.getCityId(), destinationCity.getCityId(), stops + 1, maxCandidates,
+									fullLegs);
+
+			// if there are no itineraries, if block gets executed
+			if (search == null || search.best.isEmpty()) {
+
+				// Any exception that would occur is logged here.
+				logger.error("There are no flights between the given cities");
+
+				// Manually throwing new AirlineServiceException since flights are not available
+				throw new AirlineServiceException("There are no flights between the given cities");
+
+			}
+
+			// checking the seats of every leg of the itineraries in one query, and keeping
+			// the itineraries with enough seats on every leg
+			itineraryDtos = toItineraryDtos(search.itineraries(), travelOn, seats, fullLegs);
+
+			// if the full legs left too few itineraries while the search left out the ones
+			// arriving later, the search is run again for more itineraries, without the
+			// full legs
+			while (itineraryDtos.size() < maxResults && search.pruned) {
+				search = search(originCity.getCityId(), destinationCity.getCityId(), stops + 1,
+						search.candidates * 4, fullLegs);
+				itineraryDtos = toItineraryDtos(search.itineraries(), travelOn, seats, fullLegs);
+			}
+
+			// if none of the itineraries has enough seats, if block gets executed
+			if (itineraryDtos.isEmpty()) {
+
+				// Any exception that would occur is logged here.
+				logger.error("There are no flights between the given cities for the given date");
+
+				// Manually throwing new AirlineServiceException since flights are not available
+				throw new AirlineServiceException("There are no flights between the given cities for the given date");
+
+			}
+
+		} catch (SQLException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception has occurred:: " + e.getMessage());
+
+			// After catching SQLException, an AirlineServiceException is
+			// thrown here manually.
+			throw new AirlineServiceException("An exception has occurred:: " + e.getMessage());
+
+		} catch (Exception e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception has occurred:: " + e.getMessage());
+
+			// After catching Exception, an AirlineServiceException is
+			// thrown here manually.
+			throw new AirlineServiceException("An exception has occurred:: " + e.getMessage());
+
+		}
+
+		// returning the list of itinerary dtos to the controller
+		return itineraryDtos;
+
+	}
+
+	/**
+	 * This method is used to find the itineraries between the given cities, of up
+	 * to the given number of legs, which arrive first. Only the cities from which
+	 * the destination can still be reached within the remaining legs are visited,
+	 * and an itinerary is given up as soon as it cannot arrive before the ones
+	 * already found. The legs found full by an earlier search are not followed.
+	 * 
+	 * @param originCityId
+	 * @param destinationCityId
+	 * @param maxLegs
+	 * @param candidates
+	 * @param fullLegs
+	 * @return search holding the itineraries found
+	 */
+	private Search search(int originCityId, int destinationCityId, int maxLegs, int candidates,
+			Set<String> fullLegs) {
+
+		// new Search for the itineraries is created here
+		Search search = new Search(originCityId, destinationCityId, maxLegs, candidates, fullLegs);
+
+		// every departure of the origin on the given date is followed
+		search.connect(originCityId, 0, 0, 0);
+
+		// returning the search
+		return search;
+
+	}
+
+	/**
+	 * This method is used to check the seats of every leg of the given itineraries
+	 * in one query, and convert the itineraries with enough seats on every leg into
+	 * itinerary dtos, up to the configured number of itineraries. The legs without
+	 * enough seats are added to the given full legs.
+	 * 
+	 * @param itineraries
+	 * @param travelOn
+	 * @param seats
+	 * @param fullLegs
+	 * @return list of itinerary dtos
+	 * @throws SQLException
+	 */
+	private List<ItineraryDto> toItineraryDtos(List<Itinerary> itineraries, Date travelOn, int seats,
+			Set<String> fullLegs) throws SQLException {
+
+		// collecting the flights of all the legs, and the last day any of them flies
+		Set<String> flightIds = new HashSet<>();
+		long lastDay = 0;
+		for (Itinerary itinerary : itineraries) {
+			for (int i = 0; i < itinerary.legs.length; i++) {
+				flightIds.add(itinerary.legs[i].getFlight().getFlightId());
+				lastDay = Math.max(lastDay, itinerary.departures[i] / MINUTES_PER_DAY);
+			}
+		}
+
+		// getting the seats and cost of all the legs in a single query
+		List<FlightSeatsDto> seatsAvailableList = flightAvailRepository.getSeatsAvailableForFlightsRepository(
+				flightIds, travelOn, plusDays(travelOn, lastDay));
+
+		// the seats are indexed by flight id and flight date
+		Map<String, FlightSeatsDto> seatsAvailable = new HashMap<>(seatsAvailableList.size() * 2);
+		for (Iterator<FlightSeatsDto> iterator = seatsAvailableList.iterator(); iterator.hasNext();) {
+			FlightSeatsDto flightSeats = iterator.next();
+			seatsAvailable.put(flightSeats.getFlightId() + "/" + flightSeats.getFlightDate(), flightSeats);
+		}
+
+		// new ArrayList for the itinerary dtos is created here
+		List<ItineraryDto> itineraryDtos = new ArrayList<>();
+
+		// iterating over the itineraries, the earliest arrival first
+		for (Iterator<Itinerary> iterator = itineraries.iterator(); iterator.hasNext()
+				&& itineraryDtos.size() < maxResults;) {
+
+			// each itinerary
+			Itinerary itinerary = iterator.next();
+
+			// new ArrayList for the flights available on the legs is created here
+			List<FlightAvailDto> flightAvailDtos = new ArrayList<>(itinerary.legs.length);
+			float totalCost = 0f;
+
+			// iterating over the legs, until a leg without enough seats is found
+			for (int i = 0; i < itinerary.legs.length; i++) {
+
+				// getting the seats of the leg on the day it flies
+				Date flightDate = plusDays(travelOn, itinerary.departures[i] / MINUTES_PER_DAY);
+				FlightSeatsDto flightSeats = seatsAvailable
+						.get(itinerary.legs[i].getFlight().getFlightId() + "/" + flightDate);
+				int legSeats = flightSeats == null ? 0
+						: seatAvailabilityLedger.getAvailableSeats(flightSeats.getFlightId(), flightDate,
+								flightSeats.getSeats());
+				if (legSeats < seats) {
+					fullLegs.add(legKey(itinerary.legs[i], itinerary.departures[i]));
+					break;
+				}
+
+				// instantiating the flight available dto of the leg
+				FlightAvailDto flightAvailDto = new FlightAvailDto(flightDate, legSeats, flightSeats.getCost());
+				flightAvailDto.setFlight(itinerary.legs[i].getFlight());
+				flightAvailDtos.add(flightAvailDto);
+				totalCost += flightSeats.getCost();
+
+			}
+
+			// if every leg has enough seats, the itinerary is added to the list
+			if (flightAvailDtos.size() == itinerary.legs.length) {
+				itineraryDtos.add(new ItineraryDto(flightAvailDtos, itinerary.arrival - itinerary.departures[0],
+						totalCost));
+			}
+
+		}
+
+		// returning the list of itinerary dtos
+		return itineraryDtos;
+
+	}
+
+	/**
+	 * This method is used to get the key of the given leg, leaving at the given
+	 * departure, among the full legs.
+	 * 
+	 * @param leg
+	 * @param departure ---> departure, in minutes from the start of the travel
+	 *                  date
+	 * @return flight id and day of the travel
+	 */
+	private static String legKey(Leg leg, long departure) {
+		return leg.getFlight().getFlightId() + "/" + departure / MINUTES_PER_DAY;
+	}
+
+	/**
+	 * This method is used to get the date which is the given number of days after
+	 * the given date.
+	 * 
+	 * @param date
+	 * @param days
+	 * @return date
+	 */
+	private static Date plusDays(Date date, long days) {
+		return days == 0 ? date : Date.valueOf(date.toLocalDate().plusDays(days));
+	}
+
+	/**
+	 * This class holds the state of one search. It follows the legs depth first,
+	 * and keeps the itineraries which arrive first in a bounded queue, the latest
+	 * arrival at its head.
+	 */
+	private final class Search {
+
+		/**
+		 * This field holds the origin city id of the search.
+		 */
+		private final int originCityId;
+
+		/**
+		 * This field holds the destination city id of the search.
+		 */
+		private final int destinationCityId;
+
+		/**
+		 * This field holds the largest number of legs of an itinerary.
+		 */
+		private final int maxLegs;
+
+		/**
+		 * This field holds the number of legs needed from each city to the
+		 * destination, for the cities which can reach it within the largest number
+		 * of legs.
+		 */
+		private final Map<Integer, Integer> legsToDestination = new HashMap<>();
+
+		/**
+		 * This field holds the cities which need exactly the number of legs of the
+		 * index to reach the destination.
+		 */
+		private final List<List<Integer>> citiesByLegs = new ArrayList<>();
+
+		/**
+		 * This field holds the legs of the itinerary being followed.
+		 */
+		private final Leg[] legs;
+
+		/**
+		 * This field holds the departure of each leg being followed, in minutes from
+		 * the start of the travel date.
+		 */
+		private final long[] departures;
+
+		/**
+		 * This field holds the number of itineraries kept by the search.
+		 */
+		private final int candidates;
+
+		/**
+		 * This field holds the legs found full by an earlier search, which are not
+		 * followed.
+		 */
+		private final Set<String> fullLegs;
+
+		/**
+		 * This field holds the itineraries found so far which arrive first.
+		 */
+		private final PriorityQueue<Itinerary> best = new PriorityQueue<>(ITINERARY_ORDER.reversed());
+
+		/**
+		 * This field tells whether the search left out an itinerary, or a leg which
+		 * could lead to one, because enough itineraries arriving earlier were found.
+		 */
+		private boolean pruned;
+
+		/**
+		 * This is a parameterized constructor used to start a search. The cities
+		 * which can reach the destination are found backwards from the destination,
+		 * the cities flying into the cities of the previous level being the next
+		 * level.
+		 * 
+		 * @param originCityId      ---> origin city id
+		 * @param destinationCityId ---> destination city id
+		 * @param maxLegs           ---> largest number of legs
+		 * @param candidates        ---> number of itineraries kept
+		 * @param fullLegs          ---> legs which are not followed
+		 */
+		private Search(int originCityId, int destinationCityId, int maxLegs, int candidates,
+				Set<String> fullLegs) {
+			this.originCityId = originCityId;
+			this.destinationCityId = destinationCityId;
+			this.maxLegs = maxLegs;
+			this.candidates = candidates;
+			this.fullLegs = fullLegs;
+			this.legs = new Leg[maxLegs];
+			this.departures = new long[maxLegs];
+
+			legsToDestination.put(destinationCityId, 0);
+			citiesByLegs.add(List.of(destinationCityId));
+			for (int legsNeeded = 1; legsNeeded < maxLegs; legsNeeded++) {
+				List<Integer> level = new ArrayList<>();
+				for (Integer cityId : citiesByLegs.get(legsNeeded - 1)) {
+					for (Integer originOfCity : routeIndex.getOriginCityIds(cityId)) {
+						if (legsToDestination.putIfAbsent(originOfCity, legsNeeded) == null) {
+							level.add(originOfCity);
+						}
+					}
+				}
+				citiesByLegs.add(level);
+			}
+		}
+
+		/**
+		 * This method is used to get the itineraries found, the earliest arrival
+		 * first.
+		 * 
+		 * @return list of itineraries
+		 */
+		private List<Itinerary> itineraries() {
+			List<Itinerary> itineraries = new ArrayList<>(best);
+			itineraries.sort(ITINERARY_ORDER);
+			return itineraries;
+		}
+
+		/**
+		 * This method is used to follow the departures of the given city which can
+		 * still reach the destination, once the given number of legs are flown. If
+		 * there are fewer such cities than departures, only the flights into those
+		 * cities are looked at, instead of every departure of the city.
+		 * 
+		 * @param cityId
+		 * @param legsFlown
+		 * @param earliest  ---> earliest departure, in minutes from the start of the
+		 *                  travel date
+		 * @param latest    ---> latest departure, in minutes from the start of the
+		 *                  travel date
+		 */
+		private void connect(int cityId, int legsFlown, long earliest, long latest) {
+
+			// number of legs which can still be flown after the next leg
+			int legsLeft = maxLegs - legsFlown - 1;
+
+			// counting the cities which can reach the destination after the next leg
+			int reachable = 0;
+			for (int legsNeeded = 0; legsNeeded <= legsLeft; legsNeeded++) {
+				reachable += citiesByLegs.get(legsNeeded).size();
+			}
+
+			List<Leg> cityDepartures = routeIndex.getDepartures(cityId);
+			if (reachable < cityDepartures.size()) {
+
+				// following the flights into each of the cities which can reach the
+				// destination
+				for (int legsNeeded = 0; legsNeeded <= legsLeft; legsNeeded++) {
+					for (Integer nextCityId : citiesByLegs.get(legsNeeded)) {
+						for (Iterator<Leg> iterator = routeIndex.getLegs(cityId, nextCityId).iterator(); iterator
+								.hasNext();) {
+							connect(iterator.next(), legsFlown, earliest, latest);
+						}
+					}
+				}
+
+			} else {
+
+				// following each departure of the city which can reach the destination
+				for (Iterator<Leg> iterator = cityDepartures.iterator(); iterator.hasNext();) {
+					Leg next = iterator.next();
+					Integer legsNeeded = legsToDestination.get(next.getDestinationCityId());
+					if (legsNeeded != null && legsNeeded <= legsLeft) {
+						connect(next, legsFlown, earliest, latest);
+					}
+				}
+
+			}
+
+		}
+
+		/**
+		 * This method is used to follow the given leg as the next leg of the
+		 * itinerary, on the first day it leaves after the earliest departure, unless
+		 * it goes back to a city already visited or leaves after the latest
+		 * departure. The first leg always leaves on the travel date.
+		 * 
+		 * @param next
+		 * @param legsFlown
+		 * @param earliest
+		 * @param latest
+		 */
+		private void connect(Leg next, int legsFlown, long earliest, long latest) {
+
+			// the leg is not followed if it goes back to a city already visited
+			if (visited(next.getDestinationCityId(), legsFlown)) {
+				return;
+			}
+
+			// the first leg leaves on the travel date
+			if (legsFlown == 0) {
+				follow(next, 0, next.getDepartureMinute());
+				return;
+			}
+
+			// the first day the leg leaves after the earliest departure
+			long days = Math.max(0, Math.floorDiv(earliest - next.getDepartureMinute() + MINUTES_PER_DAY - 1,
+					(long) MINUTES_PER_DAY));
+			long nextDeparture = next.getDepartureMinute() + days * MINUTES_PER_DAY;
+			if (nextDeparture <= latest) {
+				follow(next, legsFlown, nextDeparture);
+			}
+
+		}
+
+		/**
+		 * This method is used to follow the given leg, leaving at the given departure,
+		 * as the leg of the given depth of the itinerary.
+		 * 
+		 * @param leg
+		 * @param depth
+		 * @param departure
+		 */
+		private void follow(Leg leg, int depth, long departure) {
+
+			// the leg is not followed if it was found full
+			if (!fullLegs.isEmpty() && fullLegs.contains(legKey(leg, departure))) {
+				return;
+			}
+
+			// getting the arrival of the leg
+			long arrival = departure + leg.getDurationMinutes();
+
+			// if enough itineraries arriving earlier are already found, the leg is not
+			// followed
+			if (best.size() >= candidates && arrival >= best.peek().arrival) {
+				pruned = true;
+				return;
+			}
+
+			// the leg is added to the itinerary being followed
+			legs[depth] = leg;
+			departures[depth] = departure;
+
+			// if the leg reaches the destination, the itinerary is kept
+			if (leg.getDestinationCityId() == destinationCityId) {
+				best.add(new Itinerary(Arrays.copyOf(legs, depth + 1), Arrays.copyOf(departures, depth + 1),
+						arrival));
+				if (best.size() > candidates) {
+					best.poll();
+					pruned = true;
+				}
+				return;
+			}
+
+			// the connection is made between the earliest and the latest departure
+			connect(leg.getDestinationCityId(), depth + 1, arrival + minConnectionMinutes,
+					arrival + maxConnectionMinutes);
+
+		}
+
+		/**
+		 * This method is used to check whether the given city is the origin or a
+		 * connecting city of the itinerary being followed, once the given number of
+		 * legs are flown.
+		 * 
+		 * @param cityId
+		 * @param legsFlown
+		 * @return true if the city is already visited
+		 */
+		private boolean visited(int cityId, int legsFlown) {
+			if (cityId == originCityId) {
+				return true;
+			}
+			for (int i = 0; i < legsFlown; i++) {
+				if (legs[i].getDestinationCityId() == cityId) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+	/**
+	 * This class is an itinerary found by the search, with its legs, the departure
+	 * of each leg and the arrival of the last leg, in minutes from the start of
+	 * the travel date.
+	 */
+	private static final class Itinerary {
+
+		/**
+		 * This field holds the legs of the itinerary.
+		 */
+		private final Leg[] legs;
+
+		/**
+		 * This field holds the departure of each leg.
+		 */
+		private final long[] departures;
+
+		/**
+		 * This field holds the arrival of the last leg.
+		 */
+		private final long arrival;
+
+		/**
+		 * This is a parameterized constructor used to keep an itinerary.
+		 * 
+		 * @param legs       ---> legs of the itinerary
+		 * @param departures ---> departure of each leg
+		 * @param arrival    ---> arrival of the last leg
+		 */
+		private Itinerary(Leg[] legs, long[] departures, long arrival) {
+			this.legs = legs;
+			this.departures = departures;
+			this.arrival = arrival;
+		}
+
+	}
+
+}
@@ -18,10 +18,8 @@ import com.training.airline.dto.PassengerDto;
 import com.training.airline.exception.AirlineServiceException;
 import com.training.airline.exception.ValidationFailureException;
 import com.training.airline.model.Booking;
-import com.training.airline.model.FlightAvail;
 import com.training.airline.model.Passenger;
 import com.training.airline.repository.BookingRepository;
-import com.training.airline.repository.FlightAvailRepository;
 import com.training.airline.repository.PassengerRepository;
 import com.training.airline.utility.DtoConverter;
 import com.training.airline.utility.Validation;
@@ -52,12 +50,19 @@ public class PassengerService {
 	private BookingRepository bookingRepository;
 
 	/**
-	 * This field flightAvailRepository of type FlightAvailRepository is being
-	 * autowired here in order to invoke methods from the FlightAvailRepository
-	 * interface.
+	 * This field seatInventoryService of type SeatInventoryService is being
+	 * autowired here in order to release the seats of the cancelled passengers.
 	 */
 	@Autowired
-	private FlightAvailRepository flightAvailRepository;
+	private SeatInventoryService seatInventoryService;
+
+	/**
+	 * This field airlineMetrics of type AirlineMetrics is being autowired here in
+	 * order to count the seats of the passengers cancelled once the transaction
+	 * commits.
+	 */
+	@Autowired
+	private AirlineMetrics airlineMetrics;
 
 	/**
 	 * Logger is instantiated with respect to PassengerService to log errors
@@ -280,33 +285,15 @@ public class PassengerService {
 
 			}
 
-			// getting the flights available object for the given flight id for the given
-			// date.
-			FlightAvail flightsAvailable = flightAvailRepository.getFlightsAvailableRepository(
-					booking.getFlightAvail().getFlight().getFlightId(), booking.getFlightAvail().getFlightDate());
-
 			// if the number of cancelled passengers is greater than zero, if block gets
 			// executed
 			if (cancelledPassengers > 0) {
 
-				// calculating the remaining seats after the cancellation of the passengers
-				Integer remainingSeats = flightsAvailable.getSeats() + cancelledPassengers;
-
-				// updating the available seats for the given flight id on the given date
-				int updatedRowsForFlightAvail = flightAvailRepository.updateFlightAvailSeatsRepository(remainingSeats,
-						booking.getFlightAvail().getFlight().getFlightId(), booking.getFlightAvail().getFlightDate());
-
-				// if the updation of available seats fails, if block gets executed
-				if (updatedRowsForFlightAvail == 0) {
-
-					// Any exception that would occur is logged here.
-					logger.error("Updating the seats in available seats failed.");
-
-					// Manually throwing new AirlineServiceException since updation of the available
-					// seats has failed.
-					throw new AirlineServiceException("Updating the seats in available seats failed.");
-
-				}
+				// releasing the seats of the cancelled passengers for the given flight id on the
+				// given date
+				seatInventoryService.releaseSeats(booking.getFlightAvail().getFlight().getFlightId(),
+						booking.getFlightAvail().getFlightDate(), cancelledPassengers);
+				airlineMetrics.seatsReleased(cancelledPassengers);
 
 			}
 
@@ -0,0 +1,184 @@
+package com.training.airline.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service class which reads the statistics gathered by hibernate and
+ * by the connection pool, so that the hit ratio of the second level cache and
+ * the query cache, and the time spent waiting for connections, can be measured
+ * under load. The hibernate statistics are gathered only when
+ * hibernate.generate_statistics is enabled in the persistence.xml.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class PersistenceStatisticsService {
+
+	/**
+	 * This field entityManagerFactory is being autowired here in order to get the
+	 * statistics of the hibernate session factory behind it.
+	 */
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	/**
+	 * This field connectionPoolMetrics is being autowired here in order to get the
+	 * metrics recorded by the connection pool.
+	 */
+	@Autowired
+	private ConnectionPoolMetrics connectionPoolMetrics;
+
+	/**
+	 * This field queryCounter is being autowired here in order to get the
+	 * statements counted for the requests of each endpoint.
+	 */
+	@Autowired
+	private QueryCounter queryCounter;
+
+	/**
+	 * Logger is instantiated with respect to PersistenceStatisticsService to log
+	 * errors occurring in this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(PersistenceStatisticsService.class);
+
+	/**
+	 * This method is used to get the statistics of the second level cache, of the
+	 * query cache, and of each cache region.
+	 * 
+	 * @return map of statistics
+	 */
+	public Map<String, Object> getPersistenceStatisticsService() {
+
+		// getting the statistics of the session factory
+		Statistics statistics = getStatistics();
+
+		// new LinkedHashMap is created here, so that the statistics keep their order
+		Map<String, Object> persistenceStatistics = new LinkedHashMap<>();
+
+		// adding the statistics of the second level cache
+		persistenceStatistics.put("statisticsEnabled", statistics.isStatisticsEnabled());
+		persistenceStatistics.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+		persistenceStatistics.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+		persistenceStatistics.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+		persistenceStatistics.put("secondLevelCacheHitRatio",
+				hitRatio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()));
+
+		// adding the statistics of the query cache
+		persistenceStatistics.put("queryCacheHits", statistics.getQueryCacheHitCount());
+		persistenceStatistics.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+		persistenceStatistics.put("queryCachePuts", statistics.getQueryCachePutCount());
+		persistenceStatistics.put("queryCacheHitRatio",
+				hitRatio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+
+		// adding the work which still reached the database
+		persistenceStatistics.put("queryExecutions", statistics.getQueryExecutionCount());
+		persistenceStatistics.put("entityLoads", statistics.getEntityLoadCount());
+		persistenceStatistics.put("preparedStatements", statistics.getPrepareStatementCount());
+
+		// new LinkedHashMap is created here for the statistics of each cache region
+		Map<String, Map<String, Object>> regions = new LinkedHashMap<>();
+
+		// iterating over the cache regions, sorted by their name
+		String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+		Arrays.sort(regionNames);
+		for (String regionName : regionNames) {
+
+			// getting the statistics of the region
+			CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(regionName);
+			if (regionStatistics == null) {
+				continue;
+			}
+
+			// adding the statistics of the region
+			Map<String, Object> region = new LinkedHashMap<>();
+			region.put("hits", regionStatistics.getHitCount());
+			region.put("misses", regionStatistics.getMissCount());
+			region.put("puts", regionStatistics.getPutCount());
+			region.put("hitRatio", hitRatio(regionStatistics.getHitCount(), regionStatistics.getMissCount()));
+			regions.put(regionName, region);
+
+		}
+		persistenceStatistics.put("regions", regions);
+
+		// returning the statistics
+		return persistenceStatistics;
+
+	}
+
+	/**
+	 * This method is used to get the metrics of the connection pool, the
+	 * connections in use and the time spent waiting for them.
+	 * 
+	 * @return map of metrics
+	 */
+	public Map<String, Object> getConnectionPoolStatisticsService() {
+
+		// returning the metrics of the connection pool
+		return connectionPoolMetrics.getMetrics();
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the sql statements run by the
+	 * requests of each endpoint, with a histogram of the statements per request.
+	 * 
+	 * @return map of statistics
+	 */
+	public Map<String, Object> getQueryStatisticsService() {
+
+		// returning the statistics of the query counter
+		return queryCounter.getStatistics();
+
+	}
+
+	/**
+	 * This method is used to reset all the statistics, so that a new measurement
+	 * can be started.
+	 */
+	public void resetPersistenceStatisticsService() {
+
+		// clearing the statistics of the session factory, of the connection pool and
+		// of the query counter
+		getStatistics().clear();
+		connectionPoolMetrics.reset();
+		queryCounter.reset();
+
+		// logging the reset
+		logger.info("Persistence statistics reset");
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the hibernate session factory.
+	 * 
+	 * @return statistics
+	 */
+	private Statistics getStatistics() {
+		return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	/**
+	 * This method is used to compute the ratio of the hits to all the lookups.
+	 * 
+	 * @param hits
+	 * @param misses
+	 * @return hit ratio between 0 and 1, or 0 if there were no lookups
+	 */
+	private static double hitRatio(long hits, long misses) {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+}
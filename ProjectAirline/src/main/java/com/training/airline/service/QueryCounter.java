@@ -0,0 +1,569 @@
+package com.training.airline.service;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service class which counts the sql statements run for each http
+ * request, so that a request which fans out into many lazy loads can be found.
+ * Hibernate hands every statement to it before it is prepared, and the request
+ * it belongs to is found through the thread, on which the query count filter
+ * opens a record for the request. The searches which run on the search
+ * executors carry the record of their request along.
+ * A statement run on the jdbc connection directly, outside of hibernate, is
+ * only counted if it is handed to the statement inspector of the session, as
+ * the passenger batch of PassengerBatchRepositoryImpl is.
+ * 
+ * When a request is completed, its counts are added to the histograms of its
+ * endpoint, and a warning is logged if it ran more statements than the
+ * configured budget, or ran the same statement more times than the configured
+ * threshold, which is the usual sign of an N+1 select.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class QueryCounter implements StatementInspector {
+
+	/**
+	 * default serialVersionUID is used here.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This field holds the upper bounds of the buckets of the histograms of the
+	 * statements run by a request, the last bucket holds all the larger counts.
+	 */
+	private static final long[] BUCKET_BOUNDS = { 0, 1, 2, 5, 10, 20, 50, 100 };
+
+	/**
+	 * This field holds the record of the request which is handled on the current
+	 * thread.
+	 */
+	private static final ThreadLocal<RequestQueries> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * This field tells whether the statements of the requests are counted.
+	 */
+	@Value("${airline.query.counter.enabled:true}")
+	private boolean enabled = true;
+
+	/**
+	 * This field holds the largest number of statements a request runs before a
+	 * warning is logged.
+	 */
+	@Value("${airline.query.budget:20}")
+	private int budget = 20;
+
+	/**
+	 * This field holds the largest number of times a request runs the same
+	 * statement before a warning is logged.
+	 */
+	@Value("${airline.query.repeat.threshold:5}")
+	private int repeatThreshold = 5;
+
+	/**
+	 * This field holds the statistics of each endpoint, by method and path.
+	 */
+	private final Map<String, EndpointQueries> endpoints = new ConcurrentHashMap<>();
+
+	/**
+	 * Logger is instantiated with respect to QueryCounter to log the requests
+	 * which ran too many statements.
+	 */
+	Logger logger = LoggerFactory.getLogger(QueryCounter.class);
+
+	/**
+	 * This method is used to open a new record for a request.
+	 * 
+	 * @return record of the request, or null if the statements are not counted
+	 */
+	public RequestQueries start() {
+		return enabled ? new RequestQueries() : null;
+	}
+
+	/**
+	 * This method is used to make the given record the record of the current
+	 * thread.
+	 * 
+	 * @param queries
+	 * @return record the thread had before, to be restored afterwards
+	 */
+	public static RequestQueries attach(RequestQueries queries) {
+
+		RequestQueries previous = CURRENT.get();
+		CURRENT.set(queries);
+		return previous;
+
+	}
+
+	/**
+	 * This method is used to give the current thread back the record it had
+	 * before.
+	 * 
+	 * @param previous
+	 */
+	public static void restore(RequestQueries previous) {
+
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+
+	}
+
+	/**
+	 * This method is used to wrap the given work, so that the statements it runs
+	 * on another thread are counted for the request which handed it over.
+	 * 
+	 * @param <T>  type of the result
+	 * @param work
+	 * @return work which runs with the record of the current request
+	 */
+	public static <T> Supplier<T> propagate(Supplier<T> work) {
+
+		// if no request is counted on this thread, there is nothing to carry along
+		RequestQueries queries = CURRENT.get();
+		if (queries == null) {
+			return work;
+		}
+
+		return () -> {
+			RequestQueries previous = attach(queries);
+			try {
+				return work.get();
+			} finally {
+				restore(previous);
+			}
+		};
+
+	}
+
+	/**
+	 * This method is called by hibernate with every statement before it is
+	 * prepared, the statement is counted for the request of the current thread.
+	 * 
+	 * @param sql
+	 * @return the same statement
+	 */
+	@Override
+	public String inspect(String sql) {
+
+		RequestQueries queries = CURRENT.get();
+		if (queries != null) {
+			queries.statement(sql);
+		}
+		return sql;
+
+	}
+
+	/**
+	 * This method is used to add the counts of a completed request to the
+	 * statistics of its endpoint, and to log a warning if the request ran too many
+	 * statements.
+	 * 
+	 * @param endpoint method and path of the request
+	 * @param queries
+	 */
+	public void finish(String endpoint, RequestQueries queries) {
+
+		long statements = queries.getStatements();
+		Map.Entry<String, Long> mostRepeated = queries.getMostRepeated();
+		boolean overBudget = statements > budget;
+		boolean repeated = mostRepeated != null && mostRepeated.getValue() > repeatThreshold;
+
+		endpoints.computeIfAbsent(endpoint, key -> new EndpointQueries()).add(queries, overBudget, repeated);
+
+		// if the request ran more statements than the budget, a warning is logged
+		if (overBudget) {
+			logger.warn("{} ran {} statements, over the budget of {}, loaded {} entities and spent {} ms executing them",
+					endpoint, statements, budget, queries.getEntitiesLoaded(),
+					TimeUnit.NANOSECONDS.toMillis(queries.getExecuteNanos()));
+		}
+
+		// if the request ran the same statement many times, a warning is logged
+		if (repeated) {
+			logger.warn("{} ran the same statement {} times, likely an N+1 select: {}", endpoint,
+					mostRepeated.getValue(), abbreviate(mostRepeated.getKey()));
+		}
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the statements run by the
+	 * requests of each endpoint.
+	 * 
+	 * @return map of statistics
+	 */
+	public Map<String, Object> getStatistics() {
+
+		// new LinkedHashMap is created here, so that the statistics keep their order
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		statistics.put("enabled", enabled);
+		statistics.put("budget", budget);
+		statistics.put("repeatThreshold", repeatThreshold);
+
+		// new TreeMap is created here, so that the endpoints are sorted by their name
+		Map<String, Object> endpointStatistics = new TreeMap<>();
+		endpoints.forEach((endpoint, queries) -> endpointStatistics.put(endpoint, queries.getStatistics()));
+		statistics.put("endpoints", endpointStatistics);
+
+		return statistics;
+
+	}
+
+	/**
+	 * This method is used to clear the statistics of the endpoints, so that a new
+	 * measurement can be started.
+	 */
+	public void reset() {
+		endpoints.clear();
+	}
+
+	/**
+	 * This method is used to shorten a statement for the log.
+	 * 
+	 * @param sql
+	 * @return statement of at most 300 characters
+	 */
+	private static String abbreviate(String sql) {
+		String line = sql.replaceAll("\\s+", " ").trim();
+		return line.length() > 300 ? line.substring(0, 300) + "..." : line;
+	}
+
+	/**
+	 * This class holds the counts of the statements run for one request. A search
+	 * can run its parts on several threads at a time, so the counts are safe to
+	 * add to from any thread.
+	 */
+	public static class RequestQueries {
+
+		/**
+		 * This field holds the number of statements run.
+		 */
+		private final LongAdder statements = new LongAdder();
+
+		/**
+		 * This field holds the number of entities loaded from the rows read.
+		 */
+		private final LongAdder entitiesLoaded = new LongAdder();
+
+		/**
+		 * This field holds the time in nanoseconds spent executing the statements.
+		 */
+		private final LongAdder executeNanos = new LongAdder();
+
+		/**
+		 * This field holds the number of times each statement was run.
+		 */
+		private final Map<String, LongAdder> runs = new ConcurrentHashMap<>();
+
+		/**
+		 * This method is used to count the given statement as run once more.
+		 * 
+		 * @param sql
+		 */
+		void statement(String sql) {
+			statements.increment();
+			runs.computeIfAbsent(sql, key -> new LongAdder()).increment();
+		}
+
+		/**
+		 * This method is used to count one more entity loaded.
+		 */
+		void entityLoaded() {
+			entitiesLoaded.increment();
+		}
+
+		/**
+		 * This method is used to add the time spent executing a statement.
+		 * 
+		 * @param nanos ---> time in nanoseconds
+		 */
+		void executed(long nanos) {
+			executeNanos.add(nanos);
+		}
+
+		/**
+		 * This method is used to get the number of statements run.
+		 * 
+		 * @return number of statements
+		 */
+		public long getStatements() {
+			return statements.sum();
+		}
+
+		/**
+		 * This method is used to get the number of entities loaded.
+		 * 
+		 * @return number of entities
+		 */
+		public long getEntitiesLoaded() {
+			return entitiesLoaded.sum();
+		}
+
+		/**
+		 * This method is used to get the time spent executing the statements.
+		 * 
+		 * @return time in nanoseconds
+		 */
+		public long getExecuteNanos() {
+			return executeNanos.sum();
+		}
+
+		/**
+		 * This method is used to get the statement which was run the most times.
+		 * 
+		 * @return statement and the number of times it was run, or null if no
+		 *         statement was run
+		 */
+		public Map.Entry<String, Long> getMostRepeated() {
+			return runs.entrySet().stream().map(run -> Map.entry(run.getKey(), run.getValue().sum()))
+					.max(Comparator.comparingLong(Map.Entry::getValue)).orElse(null);
+		}
+
+	}
+
+	/**
+	 * This class holds the statistics of the requests of one endpoint, with a
+	 * histogram of the number of statements the requests ran.
+	 */
+	private static class EndpointQueries {
+
+		/**
+		 * This field holds the number of requests completed.
+		 */
+		private final LongAdder requests = new LongAdder();
+
+		/**
+		 * This field holds the number of statements run by all the requests.
+		 */
+		private final LongAdder statements = new LongAdder();
+
+		/**
+		 * This field holds the largest number of statements run by one request.
+		 */
+		private final AtomicLong maxStatements = new AtomicLong();
+
+		/**
+		 * This field holds the number of entities loaded by all the requests.
+		 */
+		private final LongAdder entitiesLoaded = new LongAdder();
+
+		/**
+		 * This field holds the time in nanoseconds all the requests spent executing
+		 * their statements.
+		 */
+		private final LongAdder executeNanos = new LongAdder();
+
+		/**
+		 * This field holds the number of requests which ran more statements than the
+		 * budget.
+		 */
+		private final LongAdder overBudget = new LongAdder();
+
+		/**
+		 * This field holds the number of requests which ran the same statement more
+		 * times than the threshold.
+		 */
+		private final LongAdder repeated = new LongAdder();
+
+		/**
+		 * This field holds the number of requests in each bucket of the histogram,
+		 * by the number of statements they ran.
+		 */
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+
+		/**
+		 * This method is used to add the counts of a completed request to the
+		 * statistics of the endpoint.
+		 * 
+		 * @param queries
+		 * @param requestOverBudget ---> whether the request ran more statements than
+		 *                          the budget
+		 * @param requestRepeated   ---> whether the request ran the same statement
+		 *                          more times than the threshold
+		 */
+		void add(RequestQueries queries, boolean requestOverBudget, boolean requestRepeated) {
+
+			long requestStatements = queries.getStatements();
+			requests.increment();
+			statements.add(requestStatements);
+			maxStatements.accumulateAndGet(requestStatements, Math::max);
+			entitiesLoaded.add(queries.getEntitiesLoaded());
+			executeNanos.add(queries.getExecuteNanos());
+			if (requestOverBudget) {
+				overBudget.increment();
+			}
+			if (requestRepeated) {
+				repeated.increment();
+			}
+
+			// finding the bucket of the histogram the request belongs to
+			int bucket = 0;
+			while (bucket < BUCKET_BOUNDS.length && requestStatements > BUCKET_BOUNDS[bucket]) {
+				bucket++;
+			}
+			buckets.incrementAndGet(bucket);
+
+		}
+
+		/**
+		 * This method is used to get the statistics of the endpoint, with the
+		 * histogram of the number of statements its requests ran.
+		 * 
+		 * @return map of statistics
+		 */
+		Map<String, Object> getStatistics() {
+
+			long requestCount = requests.sum();
+			Map<String, Object> statistics = new LinkedHashMap<>();
+			statistics.put("requests", requestCount);
+			statistics.put("statements", statements.sum());
+			statistics.put("averageStatements", requestCount == 0 ? 0 : (double) statements.sum() / requestCount);
+			statistics.put("maxStatements", maxStatements.get());
+			statistics.put("entitiesLoaded", entitiesLoaded.sum());
+			statistics.put("executeMillis", TimeUnit.NANOSECONDS.toMillis(executeNanos.sum()));
+			statistics.put("overBudget", overBudget.sum());
+			statistics.put("repeatedStatements", repeated.sum());
+
+			// the buckets are named by the range of statement counts they hold
+			Map<String, Long> histogram = new LinkedHashMap<>();
+			for (int bucket = 0; bucket <= BUCKET_BOUNDS.length; bucket++) {
+				String name;
+				if (bucket == BUCKET_BOUNDS.length) {
+					name = ">" + BUCKET_BOUNDS[bucket - 1];
+				} else if (bucket == 0 || BUCKET_BOUNDS[bucket - 1] + 1 == BUCKET_BOUNDS[bucket]) {
+					name = String.valueOf(BUCKET_BOUNDS[bucket]);
+				} else {
+					name = (BUCKET_BOUNDS[bucket - 1] + 1) + "-" + BUCKET_BOUNDS[bucket];
+				}
+				histogram.put(name, buckets.get(bucket));
+			}
+			statistics.put("histogram", histogram);
+
+			return statistics;
+
+		}
+
+	}
+
+	/**
+	 * This class is created by hibernate for each session, and adds the time spent
+	 * executing the statements to the request of the current thread.
+	 */
+	public static class ExecutionTimer extends BaseSessionEventListener {
+
+		/**
+		 * default serialVersionUID is used here.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * This field holds the time in nanoseconds at which the statement or the
+		 * batch being executed was started. A session is used by one thread at a
+		 * time, so it is not shared.
+		 */
+		private long started;
+
+		/**
+		 * This method is called by hibernate before a statement is executed, and
+		 * notes the time it starts.
+		 */
+		@Override
+		public void jdbcExecuteStatementStart() {
+			started = System.nanoTime();
+		}
+
+		/**
+		 * This method is called by hibernate once a statement is executed, and adds
+		 * the time it took to the request.
+		 */
+		@Override
+		public void jdbcExecuteStatementEnd() {
+			executed();
+		}
+
+		/**
+		 * This method is called by hibernate before a batch is executed, and notes
+		 * the time it starts.
+		 */
+		@Override
+		public void jdbcExecuteBatchStart() {
+			started = System.nanoTime();
+		}
+
+		/**
+		 * This method is called by hibernate once a batch is executed, and adds the
+		 * time it took to the request.
+		 */
+		@Override
+		public void jdbcExecuteBatchEnd() {
+			executed();
+		}
+
+		/**
+		 * This method is used to add the time since the statement or the batch was
+		 * started to the request of the current thread, if it is counted.
+		 */
+		private void executed() {
+			RequestQueries queries = CURRENT.get();
+			if (queries != null) {
+				queries.executed(System.nanoTime() - started);
+			}
+		}
+
+	}
+
+	/**
+	 * This class is called by hibernate for each entity loaded from a row, and
+	 * counts it for the request of the current thread.
+	 */
+	public static class EntityLoadCounter extends EmptyInterceptor {
+
+		/**
+		 * default serialVersionUID is used here.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * This method is called by hibernate for each entity loaded from a row, and
+		 * counts it for the request of the current thread, if it is counted.
+		 * 
+		 * @param entity
+		 * @param id
+		 * @param state
+		 * @param propertyNames
+		 * @param types
+		 * @return false, since the state of the entity is not changed
+		 */
+		@Override
+		public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+			RequestQueries queries = CURRENT.get();
+			if (queries != null) {
+				queries.entityLoaded();
+			}
+			return false;
+		}
+
+	}
+
+}
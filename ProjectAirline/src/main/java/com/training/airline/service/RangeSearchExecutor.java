@@ -0,0 +1,298 @@
+package com.training.airline.service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service class which splits a search over a long date range into
+ * parts of consecutive dates, and runs the parts at the same time, each on its
+ * own connection. The results of the parts are joined in the order of their
+ * dates, so that the result is the same as that of a single search. A search
+ * is split into at most the configured number of parts, so that one search
+ * over a long range cannot take up all the threads and connections. The
+ * parts run on a fixed pool of threads; when its queue is full, the part runs
+ * on the thread of the request instead.
+ * 
+ * The request already holds a connection for its own transaction, and each
+ * part run on the pool of threads takes another one. Since all the searches
+ * run by the search executor may hold a connection while they wait for their
+ * parts, the parts of all the searches share a budget of the connections left
+ * in the pool once every search holds one, so that a part never waits for a
+ * connection held by a search waiting for it. If no connection is left, the
+ * date ranges are not split, which is checked when the application starts. A
+ * part which finds the budget used up runs on the thread of the request, in
+ * the transaction of the request, and takes no connection.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class RangeSearchExecutor {
+
+	/**
+	 * This field transactionManager is being autowired here in order to run each
+	 * part in a read only transaction of its own.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * This field tells whether the searches over long date ranges are split.
+	 */
+	@Value("${airline.search.parallel.enabled:false}")
+	private boolean enabled = false;
+
+	/**
+	 * This field holds the number of threads which run the parts.
+	 */
+	@Value("${airline.search.parallel.threads:8}")
+	private int threads = 8;
+
+	/**
+	 * This field holds the largest number of parts a search is split into.
+	 */
+	@Value("${airline.search.parallel.max.per.request:4}")
+	private int maxPerRequest = 4;
+
+	/**
+	 * This field holds the least number of days in a part.
+	 */
+	@Value("${airline.search.parallel.chunk.days:7}")
+	private int chunkDays = 7;
+
+	/**
+	 * This field holds the largest number of connections in the pool.
+	 */
+	@Value("${airline.datasource.pool.max.size:20}")
+	private int maximumPoolSize = 20;
+
+	/**
+	 * This field holds the largest number of searches run at a time by the search
+	 * executor, each of which may hold a connection while its parts run.
+	 */
+	@Value("${airline.search.executor.concurrency:32}")
+	private int searchConcurrency = 32;
+
+	/**
+	 * This field holds the connections the parts run on the pool of threads may
+	 * take at a time.
+	 */
+	private Semaphore connections;
+
+	/**
+	 * This field holds the executor which runs the parts.
+	 */
+	private ThreadPoolExecutor executor;
+
+	/**
+	 * This field holds the number of searches.
+	 */
+	private final AtomicLong searches = new AtomicLong();
+
+	/**
+	 * This field holds the number of searches which were split.
+	 */
+	private final AtomicLong splitSearches = new AtomicLong();
+
+	/**
+	 * This field holds the number of parts run.
+	 */
+	private final AtomicLong parts = new AtomicLong();
+
+	/**
+	 * This field holds the number of parts run on the thread of the request,
+	 * because the budget of connections was used up.
+	 */
+	private final AtomicLong partsOnRequestThread = new AtomicLong();
+
+	/**
+	 * Logger is instantiated with respect to RangeSearchExecutor to log errors
+	 * occurring in this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(RangeSearchExecutor.class);
+
+	/**
+	 * This method is used to create the executor when the application starts.
+	 */
+	@PostConstruct
+	public void init() {
+
+		// the executor is created only when the searches are split, and there are
+		// connections to spare for the parts
+		if (!enabled) {
+			return;
+		}
+
+		// the parts may take the connections left once every search holds one, and no
+		// more connections than there are threads to use them
+		int connectionBudget = Math.min(threads, maximumPoolSize - searchConcurrency);
+		if (connectionBudget < 1) {
+			logger.warn("The connection pool of " + maximumPoolSize + " connections leaves no connection to the"
+					+ " parts of a date range once " + searchConcurrency + " searches hold one, the date ranges"
+					+ " are searched at once. Make airline.datasource.pool.max.size larger than"
+					+ " airline.search.executor.concurrency to split them");
+			return;
+		}
+		connections = new Semaphore(connectionBudget);
+
+		AtomicInteger threadNumber = new AtomicInteger();
+		ThreadFactory threadFactory = task -> {
+			Thread thread = new Thread(task, "airline-range-search-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+
+		// when the queue is full, the part runs on the thread of the request
+		executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads * maxPerRequest), threadFactory,
+				new ThreadPoolExecutor.CallerRunsPolicy());
+
+	}
+
+	/**
+	 * This method is used to stop the executor when the application stops.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * This method is used to run the given search over the given date range. If
+	 * the range is longer than one part, the range is split, the parts are run at
+	 * the same time, and their results are joined in the order of the dates. The
+	 * parts for which there is no connection to spare are run one after the other
+	 * on the thread of the request.
+	 * 
+	 * @param <T>       type of the result rows
+	 * @param startDate
+	 * @param endDate
+	 * @param search    search over a date range, from the first to the last date
+	 * @return List of result rows
+	 */
+	public <T> List<T> search(Date startDate, Date endDate, BiFunction<Date, Date, List<T>> search) {
+
+		searches.incrementAndGet();
+
+		// getting the number of days in the range, both dates included
+		LocalDate firstDay = startDate.toLocalDate();
+		long days = ChronoUnit.DAYS.between(firstDay, endDate.toLocalDate()) + 1;
+
+		// if the range fits in one part, it is searched at once
+		if (executor == null || days <= chunkDays) {
+			return search.apply(startDate, endDate);
+		}
+
+		// the range is split into parts of equal length, no more than allowed for one
+		// search
+		int partCount = (int) Math.min(maxPerRequest, (days + chunkDays - 1) / chunkDays);
+		long partDays = (days + partCount - 1) / partCount;
+		splitSearches.incrementAndGet();
+
+		// new ArrayLists for the dates and the results of the parts after the first are
+		// created here, the result of a part run on the thread of the request is null
+		List<Date[]> partDates = new ArrayList<>(partCount - 1);
+		List<CompletableFuture<List<T>>> results = new ArrayList<>(partCount - 1);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setReadOnly(true);
+
+		// the parts after the first for which a connection can be spared run on the
+		// executor, each in its own transaction, and their statements are counted for
+		// the request of the search
+		for (long first = partDays; first < days; first += partDays) {
+			Date partStart = Date.valueOf(firstDay.plusDays(first));
+			Date partEnd = Date.valueOf(firstDay.plusDays(Math.min(first + partDays, days) - 1));
+			partDates.add(new Date[] { partStart, partEnd });
+			if (connections.tryAcquire()) {
+				results.add(CompletableFuture.supplyAsync(QueryCounter.propagate(() -> {
+					try {
+						return transactionTemplate.execute(status -> search.apply(partStart, partEnd));
+					} finally {
+						connections.release();
+					}
+				}), executor));
+			} else {
+				results.add(null);
+				partsOnRequestThread.incrementAndGet();
+			}
+		}
+		parts.addAndGet(results.size() + 1);
+
+		// the first part runs on the thread of the request, and new ArrayList for the
+		// joined result is created here
+		List<T> rows = new ArrayList<>(search.apply(startDate, Date.valueOf(firstDay.plusDays(partDays - 1))));
+
+		try {
+
+			// the results of the parts are joined in the order of their dates, the parts
+			// left to the request are run in their place
+			for (int i = 0; i < results.size(); i++) {
+				CompletableFuture<List<T>> result = results.get(i);
+				rows.addAll(result == null ? search.apply(partDates.get(i)[0], partDates.get(i)[1]) : result.join());
+			}
+
+		} catch (CompletionException e) {
+
+			// the exception of the part is handed to the request
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+
+		}
+
+		return rows;
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the split searches.
+	 * 
+	 * @return map of statistic name and value
+	 */
+	public Map<String, Long> getStatistics() {
+
+		// new LinkedHashMap is created here, so that the statistics keep their order
+		Map<String, Long> statistics = new LinkedHashMap<>();
+		statistics.put("enabled", executor == null ? 0L : 1L);
+		statistics.put("threads", (long) threads);
+		statistics.put("maxPerRequest", (long) maxPerRequest);
+		statistics.put("chunkDays", (long) chunkDays);
+		statistics.put("spareConnections", connections == null ? 0L : connections.availablePermits());
+		statistics.put("active", executor == null ? 0L : executor.getActiveCount());
+		statistics.put("searches", searches.get());
+		statistics.put("splitSearches", splitSearches.get());
+		statistics.put("parts", parts.get());
+		statistics.put("partsOnRequestThread", partsOnRequestThread.get());
+		return statistics;
+
+	}
+
+}
@@ -0,0 +1,593 @@
+package com.training.airline.service;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.training.airline.dto.FlightDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.model.Flight;
+import com.training.airline.repository.FlightRepository;
+import com.training.airline.utility.DtoConverter;
+
+/**
+ * This is a service class which keeps the flight schedule in memory. All the
+ * flights of alr_flights are converted into flight dtos once, and indexed by
+ * their origin and destination city ids, sorted by departure time, so that
+ * finding the flights of a route is a map read. The flights are also kept as a
+ * graph of the cities, with the departures of each city and the cities flying
+ * into each city, for the connecting flight search. The index is built when the
+ * application starts, and must be refreshed whenever the flights are changed.
+ * A search of a route missing from the index looks the route up in the
+ * database, and refreshes the index if the route has flights since. A route
+ * found without flights there too is remembered for the configured time, so
+ * that the searches of it which follow do not go to the database.
+ * The flight dtos are shared between requests and must not be changed by the
+ * callers.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class RouteIndex {
+
+	/**
+	 * This field flightRepository of type FlightRepository is being autowired here
+	 * in order to load all the flights when the index is built.
+	 */
+	@Autowired
+	private FlightRepository flightRepository;
+
+	/**
+	 * This field transactionManager is being autowired here in order to build the
+	 * index within its own read only transaction.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * This field holds the current snapshot of the flight schedule. It is replaced
+	 * as a whole when the index is refreshed, so readers never see a half built
+	 * index.
+	 */
+	private volatile Schedule schedule;
+
+	/**
+	 * This field holds the lock which guards the first build of the index, and
+	 * its refresh for a missing route, so that it is built from the database only
+	 * once for concurrent callers, while the others wait for it.
+	 */
+	private final ReentrantLock buildLock = new ReentrantLock();
+
+	/**
+	 * This field holds the time in milliseconds for which a route found without
+	 * flights in the database is not looked up there again.
+	 */
+	@Value("${airline.route.index.miss.ttl.ms:60000}")
+	private long missTtlMillis = 60000;
+
+	/**
+	 * This field holds the largest number of routes without flights remembered.
+	 */
+	@Value("${airline.route.index.miss.max.size:10000}")
+	private int missMaxSize = 10000;
+
+	/**
+	 * This field holds the routes found without flights in the database, with the
+	 * time in milliseconds until which they are not looked up there again. It is
+	 * cleared whenever the index is refreshed.
+	 */
+	private final Map<Long, Long> missingRoutes = new ConcurrentHashMap<>();
+
+	/**
+	 * Logger is instantiated with respect to RouteIndex to log errors occurring in
+	 * this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(RouteIndex.class);
+
+	/**
+	 * This method is used to build the index when the application starts. If the
+	 * flights cannot be loaded, the index is built on its first use instead.
+	 */
+	@PostConstruct
+	public void init() {
+
+		try {
+
+			// building the index
+			refresh();
+
+		} catch (RuntimeException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("Route index could not be built on startup... " + e.getMessage());
+
+		}
+
+	}
+
+	/**
+	 * This method is used to load all the flights from the database and replace the
+	 * index with them.
+	 * 
+	 * @return number of flights in the index
+	 */
+	public int refresh() {
+
+		// loading all the flights, along with their cities, within a read only
+		// transaction
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setReadOnly(true);
+		List<Flight> flights = transactionTemplate.execute(status -> {
+			try {
+				return flightRepository.getAllFlightsRepository();
+			} catch (SQLException e) {
+				throw new AirlineServiceException(
+						"An exception has occurred while building the route index... " + e.getMessage(), e);
+			}
+		});
+
+		// replacing the index with the new one, and forgetting the routes found
+		// without flights
+		Schedule newSchedule = new Schedule(flights);
+		schedule = newSchedule;
+		missingRoutes.clear();
+
+		// logging the size of the index
+		logger.info("Route index built with " + newSchedule.flightsById.size() + " flights on "
+				+ newSchedule.flightsByRoute.size() + " routes");
+
+		// returning the number of flights
+		return newSchedule.flightsById.size();
+
+	}
+
+	/**
+	 * This method is used to get the flights between the given origin city id and
+	 * destination city id, sorted by departure time.
+	 * 
+	 * @param originCityId
+	 * @param destinationCityId
+	 * @return unmodifiable list of flight dtos, empty if there are no flights
+	 */
+	public List<FlightDto> getFlights(Integer originCityId, Integer destinationCityId) {
+
+		// getting the flights of the route
+		FlightDto[] flights = getSchedule().flightsByRoute.get(routeKey(originCityId, destinationCityId));
+
+		// returning the flights of the route
+		return flights == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(flights));
+
+	}
+
+	/**
+	 * This method is used to get the flights between the given origin city id and
+	 * destination city id, sorted by departure time. If the route is not in the
+	 * index, the flights of the route are counted in the database, and if there
+	 * are any, the index is refreshed, so that the first flight of a route added
+	 * after the index was built can be searched. If there are none, the route is
+	 * not counted again for the configured time.
+	 * 
+	 * @param originCityId
+	 * @param destinationCityId
+	 * @return unmodifiable list of flight dtos, empty if there are no flights
+	 */
+	public List<FlightDto> getFlightsOrRefresh(Integer originCityId, Integer destinationCityId) {
+
+		// getting the flights of the route from the index
+		List<FlightDto> flights = getFlights(originCityId, destinationCityId);
+		if (!flights.isEmpty()) {
+			return flights;
+		}
+
+		// if the route was found without flights a short time ago, it is still empty
+		long routeKey = routeKey(originCityId, destinationCityId);
+		Long missExpiresAt = missingRoutes.get(routeKey);
+		if (missExpiresAt != null && missExpiresAt > System.currentTimeMillis()) {
+			return flights;
+		}
+
+		// counting the flights of the route within a read only transaction
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setReadOnly(true);
+		Long count = transactionTemplate.execute(status -> {
+			try {
+				return flightRepository.countFlightsByRouteRepository(originCityId, destinationCityId);
+			} catch (SQLException e) {
+				throw new AirlineServiceException(
+						"An exception has occurred while looking up the route... " + e.getMessage(), e);
+			}
+		});
+
+		// if the route has no flights in the database either, it is empty, and is
+		// remembered as empty
+		if (count == null || count == 0) {
+			rememberMissingRoute(routeKey);
+			return flights;
+		}
+
+		// the index is refreshed only once for concurrent callers of the same route
+		buildLock.lock();
+		try {
+			if (getFlights(originCityId, destinationCityId).isEmpty()) {
+				logger.info("Route " + originCityId + "-" + destinationCityId
+						+ " is missing from the route index, refreshing it");
+				refresh();
+			}
+		} finally {
+			buildLock.unlock();
+		}
+
+		// returning the flights of the route from the refreshed index
+		return getFlights(originCityId, destinationCityId);
+
+	}
+
+	/**
+	 * This method is used to remember the given route as having no flights, for
+	 * the configured time. When too many routes are remembered, the expired ones
+	 * are forgotten first, and all of them if none has expired.
+	 * 
+	 * @param routeKey
+	 */
+	private void rememberMissingRoute(long routeKey) {
+
+		// getting the current time
+		long now = System.currentTimeMillis();
+
+		// if too many routes are remembered, if block gets executed
+		if (missingRoutes.size() >= missMaxSize) {
+			missingRoutes.values().removeIf(expiresAt -> expiresAt <= now);
+			if (missingRoutes.size() >= missMaxSize) {
+				missingRoutes.clear();
+			}
+		}
+
+		// remembering the route
+		missingRoutes.put(routeKey, now + missTtlMillis);
+
+	}
+
+	/**
+	 * This method is used to get the flight for the given flight id.
+	 * 
+	 * @param flightId
+	 * @return flight dto, or null if the flight is not in the index
+	 */
+	public FlightDto getFlight(String flightId) {
+
+		// getting the flight from the index
+		return getSchedule().flightsById.get(flightId);
+
+	}
+
+	/**
+	 * This method is used to get the departures from the given city id to any
+	 * other city, sorted by departure time.
+	 * 
+	 * @param cityId
+	 * @return unmodifiable list of legs, empty if there are no departures
+	 */
+	public List<Leg> getDepartures(Integer cityId) {
+
+		// getting the departures of the city
+		Leg[] departures = getSchedule().departuresByCity.get(cityId);
+
+		// returning the departures of the city
+		return departures == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(departures));
+
+	}
+
+	/**
+	 * This method is used to get the legs between the given origin city id and
+	 * destination city id, sorted by departure time.
+	 * 
+	 * @param originCityId
+	 * @param destinationCityId
+	 * @return unmodifiable list of legs, empty if there are no flights
+	 */
+	public List<Leg> getLegs(Integer originCityId, Integer destinationCityId) {
+
+		// getting the legs of the route
+		Leg[] legs = getSchedule().legsByRoute.get(routeKey(originCityId, destinationCityId));
+
+		// returning the legs of the route
+		return legs == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(legs));
+
+	}
+
+	/**
+	 * This method is used to get the ids of the cities which have at least one
+	 * flight into the given city id.
+	 * 
+	 * @param cityId
+	 * @return unmodifiable list of city ids, empty if there are no flights into the
+	 *         city
+	 */
+	public List<Integer> getOriginCityIds(Integer cityId) {
+
+		// getting the cities flying into the city
+		Integer[] originCityIds = getSchedule().originsByCity.get(cityId);
+
+		// returning the cities flying into the city
+		return originCityIds == null ? Collections.emptyList()
+				: Collections.unmodifiableList(Arrays.asList(originCityIds));
+
+	}
+
+	/**
+	 * This method is used to get the number of flights in the index.
+	 * 
+	 * @return number of flights
+	 */
+	public int getFlightCount() {
+		return getSchedule().flightsById.size();
+	}
+
+	/**
+	 * This method is used to get the number of routes in the index.
+	 * 
+	 * @return number of routes
+	 */
+	public int getRouteCount() {
+		return getSchedule().flightsByRoute.size();
+	}
+
+	/**
+	 * This method is used to get the current snapshot of the flight schedule,
+	 * building it if it was not built on startup.
+	 * 
+	 * @return schedule
+	 */
+	private Schedule getSchedule() {
+
+		// getting the current snapshot
+		Schedule current = schedule;
+
+		// if the index was not built yet, it is built only once for concurrent callers
+		if (current == null) {
+			buildLock.lock();
+			try {
+				if (schedule == null) {
+					refresh();
+				}
+				current = schedule;
+			} finally {
+				buildLock.unlock();
+			}
+		}
+
+		return current;
+
+	}
+
+	/**
+	 * This method is used to get the key of the route for the given origin city id
+	 * and destination city id.
+	 * 
+	 * @param originCityId
+	 * @param destinationCityId
+	 * @return route key
+	 */
+	private static long routeKey(Integer originCityId, Integer destinationCityId) {
+		return ((long) originCityId << 32) | (destinationCityId & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * This method is used to get the minute of the day of the given time of a
+	 * flight.
+	 * 
+	 * @param time
+	 * @return minute of the day, from 0 to 1439
+	 */
+	private static int minuteOfDay(Date time) {
+
+		// reading the hour and minute of the time in the time zone of the server, the
+		// same way it is read from the database
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(time);
+		return calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+
+	}
+
+	/**
+	 * This class is an edge of the flight graph. It is a flight from its origin
+	 * city to its destination city, with its departure time and its duration in
+	 * minutes, so that the connecting flight search does not read the times of the
+	 * flight dto again. A flight whose arrival time is before its departure time
+	 * arrives on the next day.
+	 */
+	public static final class Leg {
+
+		/**
+		 * This field holds the flight dto of the leg.
+		 */
+		private final FlightDto flight;
+
+		/**
+		 * This field holds the origin city id of the flight.
+		 */
+		private final int originCityId;
+
+		/**
+		 * This field holds the destination city id of the flight.
+		 */
+		private final int destinationCityId;
+
+		/**
+		 * This field holds the departure time of the flight as the minute of the day.
+		 */
+		private final int departureMinute;
+
+		/**
+		 * This field holds the duration of the flight in minutes.
+		 */
+		private final int durationMinutes;
+
+		/**
+		 * This is a parameterized constructor used to build the leg of the given
+		 * flight dto.
+		 * 
+		 * @param flight ---> the flight dto
+		 */
+		private Leg(FlightDto flight) {
+			this.flight = flight;
+			this.originCityId = flight.getOriginCity().getCityId();
+			this.destinationCityId = flight.getDestinationCity().getCityId();
+			this.departureMinute = minuteOfDay(flight.getDepartureTime());
+			this.durationMinutes = Math.floorMod(minuteOfDay(flight.getArrivalTime()) - departureMinute, 24 * 60);
+		}
+
+		/**
+		 * @return The flight dto of the leg is returned.
+		 */
+		public FlightDto getFlight() {
+			return flight;
+		}
+
+		/**
+		 * @return The origin city id of the flight is returned.
+		 */
+		public int getOriginCityId() {
+			return originCityId;
+		}
+
+		/**
+		 * @return The destination city id of the flight is returned.
+		 */
+		public int getDestinationCityId() {
+			return destinationCityId;
+		}
+
+		/**
+		 * @return The departure time of the flight as the minute of the day is
+		 *         returned.
+		 */
+		public int getDepartureMinute() {
+			return departureMinute;
+		}
+
+		/**
+		 * @return The duration of the flight in minutes is returned.
+		 */
+		public int getDurationMinutes() {
+			return durationMinutes;
+		}
+
+	}
+
+	/**
+	 * This class is an immutable snapshot of the flight schedule, with the flights
+	 * indexed by route, by flight id and by origin city.
+	 */
+	private static final class Schedule {
+
+		/**
+		 * This field holds the flights of each route, sorted by departure time.
+		 */
+		private final Map<Long, FlightDto[]> flightsByRoute;
+
+		/**
+		 * This field holds the flights by their flight id.
+		 */
+		private final Map<String, FlightDto> flightsById;
+
+		/**
+		 * This field holds the departures of each city, sorted by departure time.
+		 */
+		private final Map<Integer, Leg[]> departuresByCity;
+
+		/**
+		 * This field holds the legs of each route, sorted by departure time.
+		 */
+		private final Map<Long, Leg[]> legsByRoute;
+
+		/**
+		 * This field holds the ids of the cities flying into each city.
+		 */
+		private final Map<Integer, Integer[]> originsByCity;
+
+		/**
+		 * This is a parameterized constructor used to build the snapshot from the
+		 * given flights, which are expected to be sorted by departure time.
+		 * 
+		 * @param flights ---> all the flights
+		 */
+		private Schedule(List<Flight> flights) {
+
+			// new HashMaps for the indexes are created here
+			Map<Long, List<FlightDto>> routes = new HashMap<>();
+			Map<String, FlightDto> byId = new HashMap<>();
+			Map<Integer, List<Leg>> departures = new HashMap<>();
+			Map<Long, List<Leg>> routeLegs = new HashMap<>();
+			Map<Integer, Set<Integer>> origins = new HashMap<>();
+
+			// iterating over the list of flights
+			for (Iterator<Flight> iterator = flights.iterator(); iterator.hasNext();) {
+
+				// each flight is converted into flight dto once
+				FlightDto flightDto = DtoConverter.flightToFlightDto(iterator.next());
+
+				// adding the flight dto to its route and to the flight id index
+				routes.computeIfAbsent(routeKey(flightDto.getOriginCity().getCityId(),
+						flightDto.getDestinationCity().getCityId()), key -> new ArrayList<>()).add(flightDto);
+				byId.put(flightDto.getFlightId(), flightDto);
+
+				// adding the flight to the graph of the cities
+				Leg leg = new Leg(flightDto);
+				departures.computeIfAbsent(leg.originCityId, key -> new ArrayList<>()).add(leg);
+				routeLegs.computeIfAbsent(routeKey(leg.originCityId, leg.destinationCityId), key -> new ArrayList<>())
+						.add(leg);
+				origins.computeIfAbsent(leg.destinationCityId, key -> new TreeSet<>()).add(leg.originCityId);
+
+			}
+
+			// the flights of each route are kept as an array
+			Map<Long, FlightDto[]> byRoute = new HashMap<>(routes.size() * 2);
+			routes.forEach((key, routeFlights) -> byRoute.put(key, routeFlights.toArray(new FlightDto[0])));
+
+			// the departures of each city are sorted by departure time, whatever the
+			// destination
+			Map<Integer, Leg[]> byCity = new HashMap<>(departures.size() * 2);
+			departures.forEach((key, cityDepartures) -> {
+				Leg[] legs = cityDepartures.toArray(new Leg[0]);
+				Arrays.sort(legs, Comparator.comparingInt(Leg::getDepartureMinute));
+				byCity.put(key, legs);
+			});
+			Map<Long, Leg[]> legsOfRoutes = new HashMap<>(routeLegs.size() * 2);
+			routeLegs.forEach((key, legs) -> legsOfRoutes.put(key, legs.toArray(new Leg[0])));
+			Map<Integer, Integer[]> byDestination = new HashMap<>(origins.size() * 2);
+			origins.forEach((key, cityIds) -> byDestination.put(key, cityIds.toArray(new Integer[0])));
+
+			this.flightsByRoute = byRoute;
+			this.flightsById = byId;
+			this.departuresByCity = byCity;
+			this.legsByRoute = legsOfRoutes;
+			this.originsByCity = byDestination;
+
+		}
+
+	}
+
+}
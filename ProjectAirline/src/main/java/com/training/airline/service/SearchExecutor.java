@@ -0,0 +1,296 @@
+package com.training.airline.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service class which runs the searches away from the request
+ * threads of the servlet container, so that slow queries do not take up all of
+ * them. At most the configured number of searches run at a time, and at most
+ * the configured number of searches wait for their turn. A search which comes
+ * when the queue is full, or which does not complete in the configured time,
+ * fails at once. The searches run on a fixed pool of platform threads, or on
+ * virtual threads when they are enabled and the Java runtime supports them.
+ * Since the searches may run on virtual threads, the caches and indexes they
+ * use guard their state with a ReentrantLock instead of synchronized, so that
+ * a virtual thread waiting for the lock does not pin its carrier thread.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class SearchExecutor {
+
+	/**
+	 * This field holds the largest number of searches which run at a time.
+	 */
+	@Value("${airline.search.executor.concurrency:32}")
+	private int concurrency = 32;
+
+	/**
+	 * This field holds the largest number of searches which wait for their turn.
+	 */
+	@Value("${airline.search.executor.queue.capacity:200}")
+	private int queueCapacity = 200;
+
+	/**
+	 * This field tells whether the searches run on virtual threads, when the Java
+	 * runtime supports them.
+	 */
+	@Value("${airline.search.executor.virtual.threads:false}")
+	private boolean virtualThreads = false;
+
+	/**
+	 * This field holds the time in milliseconds after which a search fails.
+	 */
+	@Value("${airline.search.timeout.ms:20000}")
+	private long timeoutMillis = 20000;
+
+	/**
+	 * This field holds the executor which runs the searches.
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * This field holds the permits of the searches which run at a time, when the
+	 * searches run on virtual threads.
+	 */
+	private Semaphore permits;
+
+	/**
+	 * This field holds the number of searches which are running or waiting.
+	 */
+	private final AtomicInteger pending = new AtomicInteger();
+
+	/**
+	 * This field holds the number of searches which are running.
+	 */
+	private final AtomicInteger running = new AtomicInteger();
+
+	/**
+	 * This field holds the largest number of searches which waited at a time.
+	 */
+	private final AtomicInteger largestQueued = new AtomicInteger();
+
+	/**
+	 * This field holds the number of searches accepted.
+	 */
+	private final AtomicLong submitted = new AtomicLong();
+
+	/**
+	 * This field holds the number of searches completed.
+	 */
+	private final AtomicLong completed = new AtomicLong();
+
+	/**
+	 * This field holds the number of searches rejected because the queue was full.
+	 */
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * This field holds the number of searches which did not complete in time.
+	 */
+	private final AtomicLong timedOut = new AtomicLong();
+
+	/**
+	 * Logger is instantiated with respect to SearchExecutor to log errors
+	 * occurring in this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(SearchExecutor.class);
+
+	/**
+	 * This method is used to create the executor when the application starts.
+	 */
+	@PostConstruct
+	public void init() {
+
+		// if virtual threads are enabled, the executor of virtual threads is created
+		if (virtualThreads) {
+			executor = newVirtualThreadExecutor();
+			if (executor != null) {
+				permits = new Semaphore(concurrency);
+				return;
+			}
+			logger.warn("Virtual threads are not supported by this Java runtime, platform threads are used");
+		}
+
+		// a fixed pool of platform threads, the queue is bounded when a search is
+		// submitted
+		AtomicInteger threads = new AtomicInteger();
+		ThreadFactory threadFactory = task -> {
+			Thread thread = new Thread(task, "airline-search-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		executor = Executors.newFixedThreadPool(concurrency, threadFactory);
+
+	}
+
+	/**
+	 * This method is used to stop the executor when the application stops.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * This method is used to run the given search, and return its result as a
+	 * future. If too many searches are waiting, the future fails with a
+	 * RejectedExecutionException, and if the search does not complete in time,
+	 * the future fails with a TimeoutException.
+	 * 
+	 * @param <T>    type of the result
+	 * @param search
+	 * @return future result of the search
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> search) {
+
+		// if the queue is full, the search is rejected
+		int pendingSearches = pending.incrementAndGet();
+		if (pendingSearches > concurrency + queueCapacity) {
+			pending.decrementAndGet();
+			rejected.incrementAndGet();
+			return CompletableFuture.failedFuture(
+					new RejectedExecutionException("Too many searches are running, please try again later..."));
+		}
+		largestQueued.accumulateAndGet(pendingSearches - concurrency, Math::max);
+		submitted.incrementAndGet();
+
+		// new CompletableFuture for the result of the search is created here
+		CompletableFuture<T> result = new CompletableFuture<>();
+
+		// the statements of the search are counted for the request which submitted it
+		Supplier<T> countedSearch = QueryCounter.propagate(search);
+
+		try {
+			executor.execute(() -> run(countedSearch, result));
+		} catch (RejectedExecutionException e) {
+			pending.decrementAndGet();
+			rejected.incrementAndGet();
+			result.completeExceptionally(e);
+			return result;
+		}
+
+		// the search fails if it does not complete in time
+		return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((value, exception) -> {
+			if (exception instanceof TimeoutException) {
+				timedOut.incrementAndGet();
+			}
+		});
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the search executor.
+	 * 
+	 * @return map of statistic name and value
+	 */
+	public Map<String, Long> getStatistics() {
+
+		// new LinkedHashMap is created here, so that the statistics keep their order
+		Map<String, Long> statistics = new LinkedHashMap<>();
+		int runningSearches = running.get();
+		statistics.put("concurrency", (long) concurrency);
+		statistics.put("queueCapacity", (long) queueCapacity);
+		statistics.put("virtualThreads", permits == null ? 0L : 1L);
+		statistics.put("running", (long) runningSearches);
+		statistics.put("queued", (long) Math.max(pending.get() - runningSearches, 0));
+		statistics.put("largestQueued", (long) largestQueued.get());
+		statistics.put("submitted", submitted.get());
+		statistics.put("completed", completed.get());
+		statistics.put("rejected", rejected.get());
+		statistics.put("timedOut", timedOut.get());
+		return statistics;
+
+	}
+
+	/**
+	 * This method is used to run the given search on a thread of the executor,
+	 * and complete the given future with its result.
+	 * 
+	 * @param <T>    type of the result
+	 * @param search
+	 * @param result
+	 */
+	private <T> void run(Supplier<T> search, CompletableFuture<T> result) {
+
+		try {
+
+			// waiting for a permit, when the searches run on virtual threads
+			if (permits != null) {
+				permits.acquire();
+			}
+
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			pending.decrementAndGet();
+			result.completeExceptionally(e);
+			return;
+
+		}
+
+		running.incrementAndGet();
+
+		try {
+
+			// a search which timed out while waiting is not run
+			if (!result.isDone()) {
+				result.complete(search.get());
+			}
+
+		} catch (RuntimeException | Error e) {
+
+			// the exception of the search is handed to the request
+			result.completeExceptionally(e);
+
+		} finally {
+
+			running.decrementAndGet();
+			pending.decrementAndGet();
+			completed.incrementAndGet();
+			if (permits != null) {
+				permits.release();
+			}
+
+		}
+
+	}
+
+	/**
+	 * This method is used to create an executor which runs each task on a new
+	 * virtual thread. It is looked up at run time, so that the application still
+	 * builds and runs on a Java runtime without virtual threads.
+	 * 
+	 * @return executor of virtual threads, or null if they are not supported
+	 */
+	static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+}
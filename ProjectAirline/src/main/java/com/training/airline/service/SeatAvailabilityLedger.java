@@ -0,0 +1,570 @@
+package com.training.airline.service;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.training.airline.dto.FlightSeatsDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.model.FlightAvail;
+import com.training.airline.repository.FlightAvailRepository;
+
+/**
+ * This is a service class which keeps the seats available for each flight on a
+ * given date in memory. Seat checks are done with lock-free counters, and the
+ * changes are written back to alr_flightavail in batches by a scheduled flush,
+ * so the database only sees the coalesced change for each flight and date. The
+ * ledger also holds the cost of a seat, which the seat changes never change,
+ * so that a booking does not read alr_flightavail at all. The ledger is loaded
+ * from the database on startup, and a flight which is not held yet is loaded
+ * with a query which skips the query cache. It is only used when
+ * airline.seat.ledger.enabled is set to true. Since the changes are held in
+ * memory until the next flush, the ledger must only be enabled when a single
+ * instance of the application updates the seats. The flights which have
+ * already flown are dropped from the ledger by the flush.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class SeatAvailabilityLedger {
+
+	/**
+	 * This field flightAvailRepository of type FlightAvailRepository is being
+	 * autowired here in order to invoke methods from the FlightAvailRepository
+	 * interface.
+	 */
+	@Autowired
+	private FlightAvailRepository flightAvailRepository;
+
+	/**
+	 * This field transactionManager is being autowired here in order to run the
+	 * loading and the flushing of the ledger within their own transactions.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * This field tells whether the ledger is used for the seat checks.
+	 */
+	@Value("${airline.seat.ledger.enabled:false}")
+	private boolean enabled;
+
+	/**
+	 * This field holds the number of flight availabilities written back in one
+	 * transaction.
+	 */
+	@Value("${airline.seat.ledger.flush.batch.size:100}")
+	private int flushBatchSize;
+
+	/**
+	 * This field holds the seats available, along with the cost of a seat, for
+	 * each flight id and flight date.
+	 */
+	private final Map<SeatKey, SeatCounter> availableSeats = new ConcurrentHashMap<>();
+
+	/**
+	 * This field holds the seat changes which are not yet written back to the
+	 * database for each flight id and flight date. An entry is taken out of the
+	 * map by the flush which writes it.
+	 */
+	private final Map<SeatKey, Integer> pendingChanges = new ConcurrentHashMap<>();
+
+	/**
+	 * Logger is instantiated with respect to SeatAvailabilityLedger to log errors
+	 * occurring in this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(SeatAvailabilityLedger.class);
+
+	/**
+	 * This method is used to tell whether the ledger is used for the seat checks.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * This method is used to load the seats available from today onwards into the
+	 * ledger when the application starts, so that the ledger starts from the
+	 * values stored in the database.
+	 */
+	@PostConstruct
+	public void reconcile() {
+
+		// if the ledger is not used, there is nothing to load
+		if (!enabled) {
+			return;
+		}
+
+		// getting today's date
+		Date today = new Date(System.currentTimeMillis());
+
+		// loading the flights available from today onwards within a read only
+		// transaction
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setReadOnly(true);
+		List<FlightAvail> flightAvailList = transactionTemplate.execute(status -> {
+			try {
+				return flightAvailRepository.getFlightsAvailableFromDateRepository(today);
+			} catch (SQLException e) {
+				throw new AirlineServiceException(
+						"An exception has occurred while loading the seat ledger... " + e.getMessage(), e);
+			}
+		});
+
+		// iterating over the list of flights available
+		for (Iterator<FlightAvail> iterator = flightAvailList.iterator(); iterator.hasNext();) {
+
+			// each flight available object from the list
+			FlightAvail flightAvail = iterator.next();
+
+			// setting the seats available for the flight id and flight date
+			availableSeats.put(new SeatKey(flightAvail.getFlight().getFlightId(), flightAvail.getFlightDate()),
+					new SeatCounter(flightAvail.getSeats(), flightAvail.getCost()));
+
+		}
+
+		// logging the number of flight availabilities loaded
+		logger.info("Seat ledger loaded with " + availableSeats.size() + " flight availabilities");
+
+	}
+
+	/**
+	 * This method is used to reserve the given number of seats in the ledger. The
+	 * seats are taken only if enough seats are available. If the flight id and
+	 * flight date are not in the ledger yet, they are loaded from the database
+	 * within the current transaction.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @param seats
+	 * @return true if the seats were reserved
+	 */
+	public boolean tryReserve(String flightId, Date travelOn, int seats) {
+
+		// getting the seats counter for the flight id and flight date
+		AtomicInteger counter = getSeatsCounter(new SeatKey(flightId, travelOn));
+
+		// if the flight is not available on the given date, no seats can be reserved
+		if (counter == null) {
+			return false;
+		}
+
+		// taking the seats using compare and set, so that the seats never go below zero
+		while (true) {
+
+			// getting the seats currently available
+			int current = counter.get();
+
+			// if the seats are not enough, the reservation is rejected
+			if (current < seats) {
+				return false;
+			}
+
+			// if no other thread changed the seats meanwhile, the seats are taken
+			if (counter.compareAndSet(current, current - seats)) {
+				return true;
+			}
+
+		}
+
+	}
+
+	/**
+	 * This method is used to load the seats of the given flight id on the given
+	 * date into the ledger, if they are not held yet. It is called within the
+	 * transaction which releases seats, before they are released, so that the
+	 * released seats are added to a counter which was loaded before the change is
+	 * recorded, and the seats loaded never miss a change which is not flushed yet.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @return true if the flight is available on the date
+	 */
+	public boolean load(String flightId, Date travelOn) {
+
+		// loading the seats counter for the flight id and flight date
+		return getSeatsCounter(new SeatKey(flightId, travelOn)) != null;
+
+	}
+
+	/**
+	 * This method is used to give back the given number of seats in the ledger,
+	 * either because they were cancelled or because the reservation was rolled
+	 * back. The seats must have been loaded into the ledger, by the reservation or
+	 * by load.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @param seats
+	 */
+	public void release(String flightId, Date travelOn, int seats) {
+
+		// getting the seats counter for the flight id and flight date
+		AtomicInteger counter = availableSeats.get(new SeatKey(flightId, travelOn));
+
+		// the counter is only missing if the flight is not available on the date, and
+		// there are no seats to give back then
+		if (counter != null) {
+			counter.addAndGet(seats);
+		}
+
+	}
+
+	/**
+	 * This method is used to record a committed change of seats, which is written
+	 * back to the database by the next flush.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @param seatsDelta
+	 */
+	public void recordChange(String flightId, Date travelOn, int seatsDelta) {
+
+		// adding the change to the pending changes of the flight id and flight date
+		pendingChanges.merge(new SeatKey(flightId, travelOn), seatsDelta, Integer::sum);
+
+	}
+
+	/**
+	 * This method is used to get the seats available in the ledger for the given
+	 * flight id on the given date.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @return seats available, or null if the flight is not held in the ledger
+	 */
+	public Integer getAvailableSeats(String flightId, Date travelOn) {
+
+		// getting the seats counter for the flight id and flight date
+		AtomicInteger counter = availableSeats.get(new SeatKey(flightId, travelOn));
+
+		// returning the seats available
+		return counter == null ? null : counter.get();
+
+	}
+
+	/**
+	 * This method is used to get the cost of a seat of the given flight id on the
+	 * given date. If the flight id and flight date are not in the ledger yet, they
+	 * are loaded from the database within the current transaction.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @return cost of a seat, or null if the flight is not available on the date
+	 */
+	public Float getCost(String flightId, Date travelOn) {
+
+		// getting the seats counter for the flight id and flight date
+		SeatCounter counter = getSeatsCounter(new SeatKey(flightId, travelOn));
+
+		// returning the cost of a seat
+		return counter == null ? null : counter.cost;
+
+	}
+
+	/**
+	 * This method is used to get the seats available for the given flight id on
+	 * the given date, given the seats stored in alr_flightavail. When the ledger
+	 * is enabled and holds the flight, its seats are returned, since the database
+	 * is behind it until the next flush.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @param storedSeats ---> seats read from the database
+	 * @return seats available
+	 */
+	public int getAvailableSeats(String flightId, Date travelOn, int storedSeats) {
+
+		// if the ledger is not used, the database is up to date
+		if (!enabled) {
+			return storedSeats;
+		}
+
+		// the seats of the ledger, if it holds the flight
+		Integer ledgerSeats = getAvailableSeats(flightId, travelOn);
+		return ledgerSeats == null ? storedSeats : ledgerSeats;
+
+	}
+
+	/**
+	 * This method is used to write the pending seat changes back to the database.
+	 * Each flight id and flight date is written once with the sum of its changes,
+	 * and the writes are grouped into transactions of the configured batch size.
+	 * The flights whose date is before today are then dropped from the ledger.
+	 */
+	@Scheduled(fixedDelayString = "${airline.seat.ledger.flush.interval.ms:500}")
+	@PreDestroy
+	public void flush() {
+
+		// new ArrayList for the batch of changes is created here
+		List<SeatChange> batch = new ArrayList<>();
+
+		// iterating over the flight ids and flight dates with pending changes
+		for (Iterator<SeatKey> iterator = pendingChanges.keySet().iterator(); iterator.hasNext();) {
+
+			// each flight id and flight date
+			SeatKey key = iterator.next();
+
+			// taking the change out of the map in one step, so that a change recorded
+			// from now on starts a new entry for the next flush
+			Integer seatsDelta = pendingChanges.remove(key);
+
+			// if there is a change, it is added to the batch
+			if (seatsDelta != null && seatsDelta != 0) {
+				batch.add(new SeatChange(key, seatsDelta));
+			}
+
+			// if the batch is full, it is written to the database
+			if (batch.size() >= flushBatchSize) {
+				writeBatch(batch);
+				batch = new ArrayList<>();
+			}
+
+		}
+
+		// writing the remaining changes to the database
+		if (!batch.isEmpty()) {
+			writeBatch(batch);
+		}
+
+		// dropping the flights which have flown, unless a change of theirs could not be
+		// written and is still pending
+		LocalDate today = LocalDate.now();
+		availableSeats.keySet().removeIf(
+				key -> key.flightDate.toLocalDate().isBefore(today) && !pendingChanges.containsKey(key));
+
+	}
+
+	/**
+	 * This method is used to get the number of flight availabilities held in the
+	 * ledger.
+	 * 
+	 * @return number of flight availabilities held
+	 */
+	public int getSize() {
+		return availableSeats.size();
+	}
+
+	/**
+	 * This method is used to write a batch of seat changes to the database within
+	 * one transaction. If the transaction fails, the changes are put back so that
+	 * they are written by the next flush.
+	 * 
+	 * @param batch
+	 */
+	private void writeBatch(List<SeatChange> batch) {
+
+		try {
+
+			// writing all the changes of the batch within one transaction
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				for (Iterator<SeatChange> iterator = batch.iterator(); iterator.hasNext();) {
+					SeatChange change = iterator.next();
+					try {
+						flightAvailRepository.adjustFlightAvailSeatsRepository(change.seatsDelta,
+								change.key.flightId, change.key.flightDate);
+					} catch (SQLException e) {
+						throw new AirlineServiceException(
+								"An exception has occurred while flushing the seat ledger... " + e.getMessage(), e);
+					}
+				}
+			});
+
+		} catch (RuntimeException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception has occurred while flushing the seat ledger... " + e.getMessage());
+
+			// putting the changes back, so that they are not lost
+			for (Iterator<SeatChange> iterator = batch.iterator(); iterator.hasNext();) {
+				SeatChange change = iterator.next();
+				recordChange(change.key.flightId, change.key.flightDate, change.seatsDelta);
+			}
+
+		}
+
+	}
+
+	/**
+	 * This method is used to get the seats counter for the given key, loading it
+	 * from the database if it is not held in the ledger yet. The row is read
+	 * without the query cache, since a cached result can be older than the changes
+	 * already flushed. It is read outside of the map, so that no lock of the map
+	 * is held during the query, and
+	 * if concurrent callers load the same key, the counter put first is used by
+	 * all of them.
+	 * 
+	 * @param key
+	 * @return seats counter, or null if the flight is not available on the date
+	 */
+	private SeatCounter getSeatsCounter(SeatKey key) {
+
+		// getting the seats counter held in the ledger
+		SeatCounter counter = availableSeats.get(key);
+
+		// if the counter is held in the ledger, it is returned
+		if (counter != null) {
+			return counter;
+		}
+
+		// initializing the variable
+		FlightSeatsDto flightSeats;
+
+		try {
+
+			// reading the seats stored in the database
+			flightSeats = flightAvailRepository.loadFlightSeatsRepository(key.flightId, key.flightDate);
+
+		} catch (SQLException e) {
+
+			throw new AirlineServiceException(
+					"An exception has occurred while loading the seat ledger... " + e.getMessage(), e);
+
+		}
+
+		// if the flight is not available on the date, there is no counter
+		if (flightSeats == null) {
+			return null;
+		}
+
+		// keeping the counter of another caller if it was put meanwhile
+		SeatCounter loaded = new SeatCounter(flightSeats.getSeats(), flightSeats.getCost());
+		counter = availableSeats.putIfAbsent(key, loaded);
+		return counter == null ? loaded : counter;
+
+	}
+
+	/**
+	 * This class is the key of the ledger, made of the flight id and flight date
+	 * which together identify a row of alr_flightavail.
+	 */
+	private static final class SeatKey {
+
+		/**
+		 * This field represents the flight id.
+		 */
+		private final String flightId;
+
+		/**
+		 * This field represents the flight date.
+		 */
+		private final Date flightDate;
+
+		/**
+		 * This is a parameterized constructor used to instantiate the key.
+		 * 
+		 * @param flightId   ---> the flight id
+		 * @param flightDate ---> the flight date
+		 */
+		private SeatKey(String flightId, Date flightDate) {
+			this.flightId = flightId;
+			this.flightDate = flightDate;
+		}
+
+		/**
+		 * hashCode() from the Object class is overridden with respect to the flight
+		 * id and the flight date.
+		 */
+		@Override
+		public int hashCode() {
+			return Objects.hash(flightId, flightDate.toString());
+		}
+
+		/**
+		 * equals method from object class is overridden to compare the flight id and
+		 * the flight date.
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof SeatKey)) {
+				return false;
+			}
+			SeatKey other = (SeatKey) obj;
+			return Objects.equals(flightId, other.flightId)
+					&& Objects.equals(flightDate.toString(), other.flightDate.toString());
+		}
+
+	}
+
+	/**
+	 * This class is the seats counter of a flight id and flight date, which also
+	 * holds the cost of a seat.
+	 */
+	private static final class SeatCounter extends AtomicInteger {
+
+		/**
+		 * default serialVersionUID is used here.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * This field represents the cost of a seat.
+		 */
+		private final Float cost;
+
+		/**
+		 * This is a parameterized constructor used to instantiate the seats counter.
+		 * 
+		 * @param seats ---> the seats available
+		 * @param cost  ---> the cost of a seat
+		 */
+		private SeatCounter(int seats, Float cost) {
+			super(seats);
+			this.cost = cost;
+		}
+
+	}
+
+	/**
+	 * This class holds one seat change which is to be written to the database.
+	 */
+	private static final class SeatChange {
+
+		/**
+		 * This field represents the flight id and flight date of the change.
+		 */
+		private final SeatKey key;
+
+		/**
+		 * This field represents the change of seats.
+		 */
+		private final int seatsDelta;
+
+		/**
+		 * This is a parameterized constructor used to instantiate the seat change.
+		 * 
+		 * @param key        ---> the flight id and flight date
+		 * @param seatsDelta ---> the change of seats
+		 */
+		private SeatChange(SeatKey key, int seatsDelta) {
+			this.key = key;
+			this.seatsDelta = seatsDelta;
+		}
+
+	}
+
+}
@@ -0,0 +1,711 @@
+package com.training.airline.service;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.training.airline.dto.SeatHoldDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.model.SeatHold;
+import com.training.airline.repository.SeatHoldRepository;
+import com.training.airline.utility.TransactionCallbacks;
+import com.training.airline.utility.Validation;
+
+/**
+ * This is a service class for the seat holds. A hold takes the seats of a
+ * flight on a given date out of the seat inventory for the configured time, so
+ * that the user does not lose them while entering the passenger details. The
+ * hold belongs to the user who placed it, and is converted into the booking
+ * of that user when the booking is saved with its hold id, or else its seats
+ * are given back when it expires. The holds are kept in memory, in a delay
+ * queue ordered by their expiry, and a scheduled sweep gives back the seats of
+ * all the expired holds in one transaction, one update for each flight and
+ * date. Each hold is also saved in alr_seat_holds, in the transaction which
+ * takes its seats, and deleted in the transaction which gives them back or
+ * books them. The holds saved there are read back when the application starts,
+ * so that the holds left behind by a crash are given back by the first sweep.
+ * The holds must only be used when a single instance of the application
+ * updates the seats, and the active holds are given back when the application
+ * stops.
+ * 
+ * @author Praveen J
+ */
+@Service
+public class SeatHoldService {
+
+	/**
+	 * This field seatInventoryService of type SeatInventoryService is being
+	 * autowired here in order to reserve and release the seats of the holds.
+	 */
+	@Autowired
+	private SeatInventoryService seatInventoryService;
+
+	/**
+	 * This field seatHoldRepository of type SeatHoldRepository is being autowired
+	 * here in order to save the active holds along with their seats.
+	 */
+	@Autowired
+	private SeatHoldRepository seatHoldRepository;
+
+	/**
+	 * This field transactionManager is being autowired here in order to change
+	 * the seats of a hold and its row in alr_seat_holds within one transaction.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * This field holds the time in milliseconds for which the seats are held.
+	 */
+	@Value("${airline.seat.hold.ttl.ms:600000}")
+	private long ttlMillis = 600000;
+
+	/**
+	 * This field holds the largest number of active holds.
+	 */
+	@Value("${airline.seat.hold.max.active:10000}")
+	private int maxActive = 10000;
+
+	/**
+	 * This field holds the largest number of expired holds given back in one
+	 * transaction.
+	 */
+	@Value("${airline.seat.hold.expiry.batch.size:500}")
+	private int expiryBatchSize = 500;
+
+	/**
+	 * This field holds the active holds by their hold id.
+	 */
+	private final Map<String, ActiveHold> holds = new ConcurrentHashMap<>();
+
+	/**
+	 * This field holds the holds ordered by their expiry. A hold which is
+	 * converted or released is left in the queue, and is skipped when it expires.
+	 */
+	private final DelayQueue<ActiveHold> expiryQueue = new DelayQueue<>();
+
+	/**
+	 * This field holds the number of active holds, counted when a hold is placed
+	 * and before its seats are reserved, so that the holds placed at the same time
+	 * cannot pass the largest number of active holds together.
+	 */
+	private final AtomicInteger activeHolds = new AtomicInteger();
+
+	/**
+	 * This field holds the number of holds placed.
+	 */
+	private final AtomicLong placedHolds = new AtomicLong();
+
+	/**
+	 * This field holds the number of holds converted into bookings.
+	 */
+	private final AtomicLong convertedHolds = new AtomicLong();
+
+	/**
+	 * This field holds the number of holds released by the user.
+	 */
+	private final AtomicLong releasedHolds = new AtomicLong();
+
+	/**
+	 * This field holds the number of holds which expired.
+	 */
+	private final AtomicLong expiredHolds = new AtomicLong();
+
+	/**
+	 * This field holds the number of seats given back by the expired holds.
+	 */
+	private final AtomicLong expiredSeats = new AtomicLong();
+
+	/**
+	 * This field holds the number of transactions which gave back expired holds.
+	 */
+	private final AtomicLong expiryBatches = new AtomicLong();
+
+	/**
+	 * Logger is instantiated with respect to SeatHoldService to log errors
+	 * occurring in this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(SeatHoldService.class);
+
+	/**
+	 * This method is used to read back the holds saved in alr_seat_holds when the
+	 * application starts. If they cannot be read, the error is logged and the
+	 * application starts without them.
+	 */
+	@PostConstruct
+	public void init() {
+
+		try {
+
+			// reading back the saved holds
+			restoreHolds();
+
+		} catch (RuntimeException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("Seat holds could not be restored on startup... " + e.getMessage());
+
+		}
+
+	}
+
+	/**
+	 * This method is used to read back the holds saved in alr_seat_holds, and keep
+	 * them until they expire, as if they had been placed by this instance. The
+	 * holds which expired while the application was stopped are given back by the
+	 * next sweep.
+	 * 
+	 * @return number of holds restored
+	 */
+	public int restoreHolds() {
+
+		// reading the saved holds within a read only transaction
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setReadOnly(true);
+		List<SeatHold> savedHolds = transactionTemplate.execute(status -> {
+			List<SeatHold> rows = new ArrayList<>();
+			seatHoldRepository.findAll().forEach(rows::add);
+			return rows;
+		});
+
+		// initializing the variables
+		int restored = 0;
+		int expired = 0;
+
+		// the holds are kept until they expire
+		for (SeatHold savedHold : savedHolds == null ? Collections.<SeatHold>emptyList() : savedHolds) {
+			ActiveHold hold = new ActiveHold(savedHold.getHoldId(), savedHold.getUserId(), savedHold.getFlightId(),
+					savedHold.getFlightDate(), savedHold.getSeats(), savedHold.getExpiresAt().getTime());
+			if (holds.putIfAbsent(hold.holdId, hold) == null) {
+				activeHolds.incrementAndGet();
+				expiryQueue.add(hold);
+				restored++;
+				if (hold.getDelay(TimeUnit.MILLISECONDS) <= 0) {
+					expired++;
+				}
+			}
+		}
+
+		// logging the holds restored
+		if (restored > 0) {
+			logger.info("Restored " + restored + " seat holds, " + expired + " of them expired");
+		}
+
+		// returning the number of holds restored
+		return restored;
+
+	}
+
+	/**
+	 * This method is used to hold the given number of seats of the given flight on
+	 * the given date for the given user, and return the hold with its hold id and
+	 * expiry back to the controller. The seats are taken out of the seat inventory
+	 * at once, and the hold is saved in the same transaction.
+	 * 
+	 * @param seatHoldDto
+	 * @return seat hold dto with the hold id
+	 * @throws AirlineServiceException
+	 */
+	public SeatHoldDto placeHoldService(SeatHoldDto seatHoldDto) throws AirlineServiceException {
+
+		// if the validation of user id fails, if block gets executed
+		if (!(Validation.integerValidation(seatHoldDto.getUserId()))) {
+
+			// Any exception that would occur is logged here.
+			logger.error("User id is missing...");
+
+			// Manually throw new AirlineServiceException since the user id is not
+			// available
+			throw new AirlineServiceException("User id is missing...");
+
+		}
+
+		// if the validation of flight id fails, if block gets executed
+		if (!(Validation.stringValidation(seatHoldDto.getFlightId()))) {
+
+			// Any exception that would occur is logged here.
+			logger.error("Flight id is missing...");
+
+			// Manually throw new AirlineServiceException since the flight id is not
+			// available
+			throw new AirlineServiceException("Flight id is missing...");
+
+		}
+
+		// if the validation of flight date fails, if block gets executed
+		if (!(Validation.dateValidation(seatHoldDto.getTravelOn()))) {
+
+			// Any exception that would occur is logged here.
+			logger.error("Flight date is missing...");
+
+			// Manually throw new AirlineServiceException since the flight date is not
+			// available
+			throw new AirlineServiceException("Flight date is missing...");
+
+		}
+
+		// if the number of seats is not positive, if block gets executed
+		if (seatHoldDto.getSeats() == null || seatHoldDto.getSeats() <= 0) {
+
+			// Any exception that would occur is logged here.
+			logger.error("Number of seats should be positive...");
+
+			// Manually throw new AirlineServiceException since the seats are invalid
+			throw new AirlineServiceException("Number of seats should be positive...");
+
+		}
+
+		// if there are too many active holds, if block gets executed
+		if (activeHolds.incrementAndGet() > maxActive) {
+
+			// the hold is not placed
+			activeHolds.decrementAndGet();
+
+			// Any exception that would occur is logged here.
+			logger.error("Too many seats are on hold, please try again later...");
+
+			// Manually throw new AirlineServiceException since no more holds are taken
+			throw new AirlineServiceException("Too many seats are on hold, please try again later...");
+
+		}
+
+		// the hold which is kept until it expires
+		ActiveHold hold = new ActiveHold(UUID.randomUUID().toString(), seatHoldDto.getUserId(),
+				seatHoldDto.getFlightId(), seatHoldDto.getTravelOn(), seatHoldDto.getSeats(),
+				System.currentTimeMillis() + ttlMillis);
+
+		try {
+
+			// reserving the seats and saving the hold in a transaction of their own,
+			// which fails if the seats are not available
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				seatInventoryService.reserveSeats(hold.flightId, hold.travelOn, hold.seats);
+				seatHoldRepository.save(hold.toSeatHold());
+			});
+
+		} catch (RuntimeException e) {
+
+			// the hold is not placed
+			activeHolds.decrementAndGet();
+
+			throw e;
+
+		}
+
+		// the hold is kept until it expires
+		holds.put(hold.holdId, hold);
+		expiryQueue.add(hold);
+		placedHolds.incrementAndGet();
+
+		// returning the hold
+		return hold.toSeatHoldDto();
+
+	}
+
+	/**
+	 * This method is used to release the given hold of the given user before it
+	 * expires, giving its seats back and deleting it in one transaction, and
+	 * return the released hold back to the controller.
+	 * 
+	 * @param seatHoldDto
+	 * @return released seat hold dto
+	 * @throws AirlineServiceException
+	 */
+	public SeatHoldDto releaseHoldService(SeatHoldDto seatHoldDto) throws AirlineServiceException {
+
+		// getting the hold, if it is still active
+		ActiveHold hold = seatHoldDto.getHoldId() == null ? null : holds.get(seatHoldDto.getHoldId());
+
+		// if the hold is not active, or was placed by another user, if block gets
+		// executed
+		if (hold == null || !hold.userId.equals(seatHoldDto.getUserId()) || !holds.remove(hold.holdId, hold)) {
+
+			// Any exception that would occur is logged here.
+			logger.error("The seat hold is not found or has expired...");
+
+			// Manually throw new AirlineServiceException since the hold is not active
+			throw new AirlineServiceException("The seat hold is not found or has expired...");
+
+		}
+		activeHolds.decrementAndGet();
+
+		try {
+
+			// giving the seats back and deleting the hold
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				seatInventoryService.releaseSeats(hold.flightId, hold.travelOn, hold.seats);
+				deleteHolds(Collections.singletonList(hold.holdId));
+			});
+
+		} catch (RuntimeException e) {
+
+			// the hold is kept, so that its seats are given back when it expires
+			activeHolds.incrementAndGet();
+			holds.put(hold.holdId, hold);
+
+			throw e;
+
+		}
+
+		releasedHolds.incrementAndGet();
+
+		// returning the released hold
+		return hold.toSeatHoldDto();
+
+	}
+
+	/**
+	 * This method is used to convert the given hold into the booking of the given
+	 * number of seats of the given flight on the given date for the given user,
+	 * within the booking transaction. The hold is deleted, and the seats held and
+	 * not booked are given back. If the booking transaction does not commit, the
+	 * hold is active again until it expires.
+	 * 
+	 * @param holdId
+	 * @param userId
+	 * @param flightId
+	 * @param travelOn
+	 * @param seats
+	 * @return true if the hold was converted, false if the hold is not active, was
+	 *         placed by another user or does not cover the booking
+	 * @throws AirlineServiceException
+	 */
+	public boolean convertHold(String holdId, Integer userId, String flightId, Date travelOn, int seats)
+			throws AirlineServiceException {
+
+		// getting the active hold
+		ActiveHold hold = holds.get(holdId);
+
+		// the hold must be of the same user, for the same flight and date, with at
+		// least the seats booked
+		if (hold == null || !hold.userId.equals(userId) || !hold.flightId.equals(flightId)
+				|| !hold.travelOn.toString().equals(travelOn.toString()) || hold.seats < seats
+				|| !holds.remove(holdId, hold)) {
+			return false;
+		}
+		activeHolds.decrementAndGet();
+
+		// the hold is active again if the booking is not saved
+		TransactionCallbacks.afterCompletion(committed -> {
+			if (committed) {
+				convertedHolds.incrementAndGet();
+			} else {
+				activeHolds.incrementAndGet();
+				holds.put(hold.holdId, hold);
+				expiryQueue.add(hold);
+			}
+		});
+
+		// deleting the hold and giving back the seats held and not booked, within the
+		// booking transaction
+		deleteHolds(Collections.singletonList(holdId));
+		if (hold.seats > seats) {
+			seatInventoryService.releaseSeats(flightId, travelOn, hold.seats - seats);
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * This method is used to give back the seats of all the expired holds. The
+	 * holds are taken from the delay queue in batches, and the seats of each batch
+	 * are given back in one transaction, with one update for each flight and date.
+	 * It is run at the configured interval. If a batch cannot be given back, the
+	 * sweep stops, and its holds are active again until the next sweep, so that a
+	 * failing database does not keep the scheduler thread in the sweep.
+	 * 
+	 * @return number of holds expired
+	 */
+	@Scheduled(fixedDelayString = "${airline.seat.hold.expiry.interval.ms:1000}")
+	public int expireHolds() {
+
+		// initializing the variable
+		int expired = 0;
+
+		// new ArrayList for the batch of expired holds is created here
+		List<ActiveHold> batch = new ArrayList<>();
+
+		// taking the expired holds out of the queue, a batch at a time
+		while (expiryQueue.drainTo(batch, expiryBatchSize) > 0) {
+
+			// only the holds which are still active are given back
+			batch.removeIf(hold -> !holds.remove(hold.holdId, hold));
+			activeHolds.addAndGet(-batch.size());
+			if (!batch.isEmpty()) {
+
+				// if the batch is not given back, the sweep stops and its holds are taken
+				// again by the next sweep
+				if (!releaseExpired(batch)) {
+					activeHolds.addAndGet(batch.size());
+					for (ActiveHold hold : batch) {
+						holds.put(hold.holdId, hold);
+						expiryQueue.add(hold);
+					}
+					break;
+				}
+				expired += batch.size();
+
+			}
+			batch.clear();
+
+		}
+
+		// returning the number of holds expired
+		return expired;
+
+	}
+
+	/**
+	 * This method is used to give back the seats of all the active holds when the
+	 * application stops, so that they are not kept taken. The holds which cannot
+	 * be given back are left in alr_seat_holds for the next start.
+	 */
+	@PreDestroy
+	public void releaseAll() {
+
+		// new ArrayList for the active holds is created here
+		List<ActiveHold> batch = new ArrayList<>();
+		for (ActiveHold hold : holds.values()) {
+			if (holds.remove(hold.holdId, hold)) {
+				batch.add(hold);
+			}
+		}
+		activeHolds.addAndGet(-batch.size());
+
+		// giving back the seats of the active holds
+		if (!batch.isEmpty() && releaseExpired(batch)) {
+			logger.info("Released " + batch.size() + " seat holds on shutdown");
+		}
+
+	}
+
+	/**
+	 * This method is used to get the statistics of the seat holds.
+	 * 
+	 * @return map of statistic name and value
+	 */
+	public Map<String, Long> getSeatHoldStatisticsService() {
+
+		// new LinkedHashMap is created here, so that the statistics keep their order
+		Map<String, Long> statistics = new LinkedHashMap<>();
+		statistics.put("activeHolds", (long) activeHolds.get());
+		statistics.put("placedHolds", placedHolds.get());
+		statistics.put("convertedHolds", convertedHolds.get());
+		statistics.put("releasedHolds", releasedHolds.get());
+		statistics.put("expiredHolds", expiredHolds.get());
+		statistics.put("expiredSeats", expiredSeats.get());
+		statistics.put("expiryBatches", expiryBatches.get());
+		return statistics;
+
+	}
+
+	/**
+	 * This method is used to give back the seats of the given holds and delete
+	 * them in one transaction, with the seats of the holds of the same flight and
+	 * date added together. If the transaction fails, the holds are left to the
+	 * caller.
+	 * 
+	 * @param batch
+	 * @return true if the seats of the holds were given back
+	 */
+	private boolean releaseExpired(List<ActiveHold> batch) {
+
+		// adding the seats of the holds of the same flight and date together
+		Map<String, ActiveHold> seatsByFlight = new LinkedHashMap<>();
+		List<String> holdIds = new ArrayList<>(batch.size());
+		int seats = 0;
+		for (ActiveHold hold : batch) {
+			seatsByFlight.merge(hold.flightId + "/" + hold.travelOn, hold,
+					(held, other) -> new ActiveHold(held.holdId, held.userId, held.flightId, held.travelOn,
+							held.seats + other.seats, held.expiresAt));
+			holdIds.add(hold.holdId);
+			seats += hold.seats;
+		}
+
+		try {
+
+			// giving back the seats of each flight and date, and deleting the holds, in one
+			// transaction
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				for (ActiveHold held : seatsByFlight.values()) {
+					seatInventoryService.releaseSeats(held.flightId, held.travelOn, held.seats);
+				}
+				deleteHolds(holdIds);
+			});
+
+		} catch (RuntimeException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception has occurred while releasing the expired seat holds... " + e.getMessage());
+
+			return false;
+
+		}
+
+		// counting the holds and seats given back
+		expiredHolds.addAndGet(batch.size());
+		expiredSeats.addAndGet(seats);
+		expiryBatches.incrementAndGet();
+
+		return true;
+
+	}
+
+	/**
+	 * This method is used to delete the holds of the given hold ids from
+	 * alr_seat_holds, within the current transaction.
+	 * 
+	 * @param holdIds
+	 * @throws AirlineServiceException
+	 */
+	private void deleteHolds(Collection<String> holdIds) throws AirlineServiceException {
+
+		try {
+
+			// deleting the holds in one statement
+			seatHoldRepository.deleteSeatHoldsRepository(holdIds);
+
+		} catch (SQLException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception has occurred while deleting the seat holds... " + e.getMessage());
+
+			// After catching SQLException, an AirlineServiceException is
+			// thrown here manually.
+			throw new AirlineServiceException(
+					"An exception has occurred while deleting the seat holds... " + e.getMessage());
+
+		}
+
+	}
+
+	/**
+	 * This class is an active seat hold, which expires at the time it was placed
+	 * with.
+	 */
+	private static final class ActiveHold implements Delayed {
+
+		/**
+		 * This field holds the hold id.
+		 */
+		private final String holdId;
+
+		/**
+		 * This field holds the user id of the user who placed the hold.
+		 */
+		private final Integer userId;
+
+		/**
+		 * This field holds the flight id.
+		 */
+		private final String flightId;
+
+		/**
+		 * This field holds the date of the flight.
+		 */
+		private final Date travelOn;
+
+		/**
+		 * This field holds the number of seats held.
+		 */
+		private final int seats;
+
+		/**
+		 * This field holds the time in milliseconds at which the hold expires.
+		 */
+		private final long expiresAt;
+
+		/**
+		 * This field holds the value of the nano time at which the hold expires.
+		 */
+		private final long expiresAtNanos;
+
+		/**
+		 * This is a parameterized constructor used to place a hold.
+		 * 
+		 * @param holdId    ---> the hold id
+		 * @param userId    ---> user who placed the hold
+		 * @param flightId  ---> the flight id
+		 * @param travelOn  ---> date of the flight
+		 * @param seats     ---> number of seats
+		 * @param expiresAt ---> time in milliseconds at which the hold expires
+		 */
+		private ActiveHold(String holdId, Integer userId, String flightId, Date travelOn, int seats,
+				long expiresAt) {
+			this.holdId = holdId;
+			this.userId = userId;
+			this.flightId = flightId;
+			this.travelOn = travelOn;
+			this.seats = seats;
+			this.expiresAt = expiresAt;
+			this.expiresAtNanos = System.nanoTime()
+					+ TimeUnit.MILLISECONDS.toNanos(expiresAt - System.currentTimeMillis());
+		}
+
+		/**
+		 * This method is used to get the time left until the hold expires.
+		 */
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(expiresAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		/**
+		 * This method is used to order the holds by their expiry.
+		 */
+		@Override
+		public int compareTo(Delayed other) {
+			return Long.compare(expiresAtNanos, ((ActiveHold) other).expiresAtNanos);
+		}
+
+		/**
+		 * This method is used to convert the hold into the seat hold saved in
+		 * alr_seat_holds.
+		 * 
+		 * @return seat hold
+		 */
+		private SeatHold toSeatHold() {
+			return new SeatHold(holdId, userId, flightId, travelOn, seats, new Timestamp(expiresAt));
+		}
+
+		/**
+		 * This method is used to convert the hold into seat hold dto.
+		 * 
+		 * @return seat hold dto
+		 */
+		private SeatHoldDto toSeatHoldDto() {
+			SeatHoldDto seatHoldDto = new SeatHoldDto(userId, flightId, travelOn, seats);
+			seatHoldDto.setHoldId(holdId);
+			seatHoldDto.setExpiresAt(new Timestamp(expiresAt));
+			return seatHoldDto;
+		}
+
+	}
+
+}
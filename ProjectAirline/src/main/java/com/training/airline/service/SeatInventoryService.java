@@ -0,0 +1,376 @@
+package com.training.airline.service;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.repository.FlightAvailRepository;
+import com.training.airline.utility.TransactionCallbacks;
+
+/**
+ * This is a service class for the seat inventory of the available flights. All
+ * the changes to the number of seats available for a flight on a given date go
+ * through this service class. Seats are reserved with a single conditional
+ * decrement on the database row, so two concurrent bookings can never both take
+ * the last seats of a flight. When the seat availability ledger is enabled, the
+ * seats are checked in memory instead, and the committed changes are handed to
+ * the ledger to be written back to the database in batches. Every committed
+ * change is also applied to the fare calendar.
+ * 
+ * @author Praveen J
+ */
+@Service
+@Transactional
+public class SeatInventoryService {
+
+	/**
+	 * This field flightAvailRepository of type FlightAvailRepository is being
+	 * autowired here in order to invoke methods from the FlightAvailRepository
+	 * interface.
+	 */
+	@Autowired
+	private FlightAvailRepository flightAvailRepository;
+
+	/**
+	 * This field seatAvailabilityLedger of type SeatAvailabilityLedger is being
+	 * autowired here in order to check the seats in memory when the ledger is
+	 * enabled.
+	 */
+	@Autowired
+	private SeatAvailabilityLedger seatAvailabilityLedger;
+
+	/**
+	 * This field fareCalendar of type FareCalendar is being autowired here in
+	 * order to keep the fares in memory up to date with the seats.
+	 */
+	@Autowired
+	private FareCalendar fareCalendar;
+
+	/**
+	 * This field holds the total number of seats reserved through this service.
+	 */
+	private final AtomicLong reservedSeats = new AtomicLong();
+
+	/**
+	 * This field holds the total number of seats released through this service.
+	 */
+	private final AtomicLong releasedSeats = new AtomicLong();
+
+	/**
+	 * This field holds the number of reservations that were rejected by the
+	 * database because the seats were already taken, which is the contention
+	 * metric for the seat inventory.
+	 */
+	private final AtomicLong rejectedReservations = new AtomicLong();
+
+	/**
+	 * Logger is instantiated with respect to SeatInventoryService to log errors
+	 * occurring in this class.
+	 */
+	Logger logger = LoggerFactory.getLogger(SeatInventoryService.class);
+
+	/**
+	 * This method is used to reserve the given number of seats for the given flight
+	 * id on the given date. The seats are decremented only if enough seats are
+	 * available, otherwise an exception is thrown and nothing is changed.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @param seats
+	 * @throws AirlineServiceException
+	 */
+	public void reserveSeats(String flightId, Date travelOn, Integer seats) throws AirlineServiceException {
+
+		// telling the fare calendar that the seats are changing, so that it does not
+		// keep a month read while the change is in flight
+		fareCalendar.seatsChanging(flightId, travelOn);
+
+		try {
+
+			// if the seat availability ledger is enabled, the seats are reserved in memory
+			if (seatAvailabilityLedger.isEnabled()) {
+				reserveSeatsInLedger(flightId, travelOn, seats);
+			} else {
+				reserveSeatsInDatabase(flightId, travelOn, seats);
+			}
+
+		} catch (RuntimeException e) {
+
+			// the seats were not changed
+			fareCalendar.seatsChangeAbandoned(flightId, travelOn);
+			throw e;
+
+		}
+
+		// adding the seats to the count of reserved seats
+		reservedSeats.addAndGet(seats);
+
+		// updating the fare calendar once the transaction completes
+		seatsChangedAfterCompletion(flightId, travelOn, -seats);
+
+	}
+
+	/**
+	 * This method is used to release the given number of seats for the given
+	 * flight id on the given date, so that they are available to book again.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @param seats
+	 * @throws AirlineServiceException
+	 */
+	public void releaseSeats(String flightId, Date travelOn, Integer seats) throws AirlineServiceException {
+
+		// telling the fare calendar that the seats are changing, so that it does not
+		// keep a month read while the change is in flight
+		fareCalendar.seatsChanging(flightId, travelOn);
+
+		try {
+
+			// if the seat availability ledger is enabled, the seats are released in memory
+			if (seatAvailabilityLedger.isEnabled()) {
+				releaseSeatsInLedger(flightId, travelOn, seats);
+			} else {
+				releaseSeatsInDatabase(flightId, travelOn, seats);
+			}
+
+		} catch (RuntimeException e) {
+
+			// the seats were not changed
+			fareCalendar.seatsChangeAbandoned(flightId, travelOn);
+			throw e;
+
+		}
+
+		// adding the seats to the count of released seats
+		releasedSeats.addAndGet(seats);
+
+		// updating the fare calendar once the transaction completes
+		seatsChangedAfterCompletion(flightId, travelOn, seats);
+
+	}
+
+	/**
+	 * This method is used to reserve the seats in the database. The seats are
+	 * decremented only if enough seats are available.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @param seats
+	 * @throws AirlineServiceException
+	 */
+	private void reserveSeatsInDatabase(String flightId, Date travelOn, Integer seats)
+			throws AirlineServiceException {
+
+		// initializing the variable
+		int rowsUpdated;
+
+		try {
+
+			// decrementing the seats only if enough seats are available
+			rowsUpdated = flightAvailRepository.reserveFlightAvailSeatsRepository(seats, flightId, travelOn);
+
+		} catch (SQLException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception has occurred while reserving the seats... " + e.getMessage());
+
+			// After catching SQLException, an AirlineServiceException is
+			// thrown here manually.
+			throw new AirlineServiceException(
+					"An exception has occurred while reserving the seats... " + e.getMessage());
+
+		}
+
+		// if no row was updated, the seats were not available, and if block gets
+		// executed
+		if (rowsUpdated == 0) {
+
+			// incrementing the count of rejected reservations
+			rejectedReservations.incrementAndGet();
+
+			// Any exception that would occur is logged here.
+			logger.error("The number of seats booked exceeds the number of seats that are available...");
+
+			// Manually throwing new AirlineServiceException since number of seats booked
+			// exceeds the limit
+			throw new AirlineServiceException(
+					"The number of seats booked exceeds the number of seats that are available...");
+
+		}
+
+	}
+
+	/**
+	 * This method is used to release the seats in the database.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @param seats
+	 * @throws AirlineServiceException
+	 */
+	private void releaseSeatsInDatabase(String flightId, Date travelOn, Integer seats)
+			throws AirlineServiceException {
+
+		// initializing the variable
+		int rowsUpdated;
+
+		try {
+
+			// incrementing the seats available
+			rowsUpdated = flightAvailRepository.releaseFlightAvailSeatsRepository(seats, flightId, travelOn);
+
+		} catch (SQLException e) {
+
+			// Any exception that would occur is logged here.
+			logger.error("An exception has occurred while releasing the seats... " + e.getMessage());
+
+			// After catching SQLException, an AirlineServiceException is
+			// thrown here manually.
+			throw new AirlineServiceException(
+					"An exception has occurred while releasing the seats... " + e.getMessage());
+
+		}
+
+		// if the updation of available seats fails, if block gets executed
+		if (rowsUpdated == 0) {
+
+			// Any exception that would occur is logged here.
+			logger.error("Updating the seats in available seats failed.");
+
+			// Manually throwing new AirlineServiceException since updation of the available
+			// seats has failed.
+			throw new AirlineServiceException("Updating the seats in available seats failed.");
+
+		}
+
+	}
+
+	/**
+	 * This method is used to release the seats in the seat availability ledger
+	 * once the transaction commits, and to record the change to be written back to
+	 * the database.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @param seats
+	 * @throws AirlineServiceException
+	 */
+	private void releaseSeatsInLedger(String flightId, Date travelOn, Integer seats) throws AirlineServiceException {
+
+		// loading the seats into the ledger first, so that the seats released are not
+		// missed by a counter loaded after they are recorded and before they are
+		// flushed
+		seatAvailabilityLedger.load(flightId, travelOn);
+
+		// releasing the seats in the ledger once the transaction commits
+		TransactionCallbacks.afterCompletion(committed -> {
+			if (committed) {
+				seatAvailabilityLedger.release(flightId, travelOn, seats);
+				seatAvailabilityLedger.recordChange(flightId, travelOn, seats);
+			}
+		});
+
+	}
+
+	/**
+	 * This method is used to reserve the seats in the seat availability ledger. If
+	 * the transaction commits, the change is recorded to be written back to the
+	 * database, and if it is rolled back, the seats are given back to the ledger.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @param seats
+	 * @throws AirlineServiceException
+	 */
+	private void reserveSeatsInLedger(String flightId, Date travelOn, Integer seats) throws AirlineServiceException {
+
+		// if the seats are not available in the ledger, if block gets executed
+		if (!seatAvailabilityLedger.tryReserve(flightId, travelOn, seats)) {
+
+			// incrementing the count of rejected reservations
+			rejectedReservations.incrementAndGet();
+
+			// Any exception that would occur is logged here.
+			logger.error("The number of seats booked exceeds the number of seats that are available...");
+
+			// Manually throwing new AirlineServiceException since number of seats booked
+			// exceeds the limit
+			throw new AirlineServiceException(
+					"The number of seats booked exceeds the number of seats that are available...");
+
+		}
+
+		// recording the change if the transaction commits, or giving the seats back if
+		// it does not
+		TransactionCallbacks.afterCompletion(committed -> {
+			if (committed) {
+				seatAvailabilityLedger.recordChange(flightId, travelOn, -seats);
+			} else {
+				seatAvailabilityLedger.release(flightId, travelOn, seats);
+			}
+		});
+
+	}
+
+	/**
+	 * This method is used to apply the given change of seats to the fare calendar
+	 * once the current transaction commits. If it is rolled back, the fare
+	 * calendar is told that the change was abandoned. Seats are not counted in
+	 * the metrics here, because holds also reserve and release seats; the booking
+	 * and cancellation paths count them. This callback runs after the callback of
+	 * the ledger, so the ledger has its seats by the time the fare calendar hears
+	 * of the change.
+	 * 
+	 * @param flightId
+	 * @param travelOn
+	 * @param seatsDelta
+	 */
+	private void seatsChangedAfterCompletion(String flightId, Date travelOn, int seatsDelta) {
+		TransactionCallbacks.afterCompletion(committed -> {
+			if (!committed) {
+				fareCalendar.seatsChangeAbandoned(flightId, travelOn);
+				return;
+			}
+			fareCalendar.seatsChanged(flightId, travelOn, seatsDelta);
+		});
+	}
+
+	/**
+	 * This method is used to get the total number of seats reserved through this
+	 * service.
+	 * 
+	 * @return reserved seats count
+	 */
+	public long getReservedSeats() {
+		return reservedSeats.get();
+	}
+
+	/**
+	 * This method is used to get the total number of seats released through this
+	 * service.
+	 * 
+	 * @return released seats count
+	 */
+	public long getReleasedSeats() {
+		return releasedSeats.get();
+	}
+
+	/**
+	 * This method is used to get the number of reservations that were rejected
+	 * because the seats were already taken.
+	 * 
+	 * @return rejected reservations count
+	 */
+	public long getRejectedReservations() {
+		return rejectedReservations.get();
+	}
+
+}
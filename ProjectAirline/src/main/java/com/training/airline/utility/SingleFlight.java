@@ -0,0 +1,162 @@
+package com.training.airline.utility;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * This class is a utility class used to coalesce identical concurrent loads. The
+ * first caller for a key runs the load, and every caller which comes for the
+ * same key while the load is running waits for it and gets its result, or its
+ * exception, instead of running the load again. Nothing is kept once the load
+ * completes, so a caller which comes after it runs a new load. A caller waits
+ * for the load of another caller for at most the given time, and then fails
+ * with a TimeoutException wrapped in a CompletionException, while the load
+ * goes on for the callers still waiting. The result is shared between the
+ * callers and must not be changed by them.
+ * 
+ * @author Praveen J
+ * @param <K> type of the key
+ * @param <V> type of the result
+ */
+public class SingleFlight<K, V> {
+
+	/**
+	 * This field holds the result of each load which is running, by its key.
+	 */
+	private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * This field holds the number of loads which were run.
+	 */
+	private final AtomicLong executed = new AtomicLong();
+
+	/**
+	 * This field holds the number of callers which got the result of a load run by
+	 * another caller.
+	 */
+	private final AtomicLong coalesced = new AtomicLong();
+
+	/**
+	 * This method is used to get the result of the given load for the given key,
+	 * running the load only if no load for the key is already running.
+	 * 
+	 * @param key
+	 * @param loader
+	 * @param timeoutMillis ---> time in milliseconds for which a caller waits for
+	 *                      the load of another caller
+	 * @return result of the load
+	 */
+	public V execute(K key, Supplier<V> loader, long timeoutMillis) {
+
+		// new CompletableFuture for the result of the load is created here
+		CompletableFuture<V> call = new CompletableFuture<>();
+
+		// if a load for the key is already running, its result is returned
+		CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+		if (running != null) {
+			coalesced.incrementAndGet();
+			return await(running, timeoutMillis);
+		}
+
+		// counting the load
+		executed.incrementAndGet();
+
+		try {
+
+			// running the load and handing its result to the waiting callers
+			V result = loader.get();
+			call.complete(result);
+			return result;
+
+		} catch (RuntimeException | Error e) {
+
+			// the waiting callers get the same exception
+			call.completeExceptionally(e);
+			throw e;
+
+		} finally {
+
+			// the next caller for the key runs a new load
+			inFlight.remove(key, call);
+
+		}
+
+	}
+
+	/**
+	 * This method is used to get the number of loads which were run.
+	 * 
+	 * @return executed loads count
+	 */
+	public long getExecuted() {
+		return executed.get();
+	}
+
+	/**
+	 * This method is used to get the number of callers which got the result of a
+	 * load run by another caller.
+	 * 
+	 * @return coalesced callers count
+	 */
+	public long getCoalesced() {
+		return coalesced.get();
+	}
+
+	/**
+	 * This method is used to get the number of loads which are running.
+	 * 
+	 * @return running loads count
+	 */
+	public int getInFlight() {
+		return inFlight.size();
+	}
+
+	/**
+	 * This method is used to wait for the result of the given load for at most the
+	 * given time, throwing the exception of the load if it failed.
+	 * 
+	 * @param running
+	 * @param timeoutMillis
+	 * @return result of the load
+	 * @throws CompletionException if the load does not complete in time, or the
+	 *                             thread is interrupted
+	 */
+	private V await(CompletableFuture<V> running, long timeoutMillis) {
+
+		try {
+
+			// waiting for the load to complete
+			return running.get(timeoutMillis, TimeUnit.MILLISECONDS);
+
+		} catch (ExecutionException e) {
+
+			// the exception of the load is thrown as it is
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new CompletionException(e.getCause());
+
+		} catch (TimeoutException e) {
+
+			// the caller stops waiting, the load goes on for the other callers
+			throw new CompletionException(e);
+
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new CompletionException(e);
+
+		}
+
+	}
+
+}
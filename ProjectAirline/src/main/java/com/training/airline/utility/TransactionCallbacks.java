@@ -0,0 +1,58 @@
+package com.training.airline.utility;
+
+import java.util.function.Consumer;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * This class is a utility class used to run the work which must wait for the
+ * current transaction to complete, such as the changes made to the in memory
+ * state once the changes to the database are final. If there is no
+ * transaction, the change is final as soon as it is made, and the work is run
+ * immediately.
+ * 
+ * @author Praveen J
+ */
+public class TransactionCallbacks {
+
+	/**
+	 * This method is used to run the given callback once the current transaction
+	 * completes, with true if it committed. If there is no transaction, the
+	 * callback is run immediately as committed.
+	 * 
+	 * @param callback
+	 */
+	public static void afterCompletion(Consumer<Boolean> callback) {
+
+		// if there is no transaction, the change is final as soon as it is made
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			callback.accept(true);
+			return;
+		}
+
+		// registering the callback with the current transaction
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				callback.accept(status == STATUS_COMMITTED);
+			}
+		});
+
+	}
+
+	/**
+	 * This method is used to run the given action once the current transaction
+	 * commits. If there is no transaction, the action is run immediately.
+	 * 
+	 * @param action
+	 */
+	public static void afterCommit(Runnable action) {
+		afterCompletion(committed -> {
+			if (committed) {
+				action.run();
+			}
+		});
+	}
+
+}
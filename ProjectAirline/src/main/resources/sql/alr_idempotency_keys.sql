@@ -0,0 +1,12 @@
+-- Table of the idempotency keys of the saved bookings, in the projectairline
+-- database of mysql. It is needed only when airline.idempotency.table.enabled
+-- is true. A key is inserted along with its booking, and the keys older than
+-- airline.idempotency.ttl.ms are deleted by the purge, which reads created_on.
+
+CREATE TABLE IF NOT EXISTS projectairline.alr_idempotency_keys (
+	idem_key VARCHAR(100) NOT NULL,
+	reference_id INT NOT NULL,
+	created_on TIMESTAMP NOT NULL,
+	PRIMARY KEY (idem_key),
+	INDEX idx_idempotency_keys_created_on (created_on)
+);
@@ -0,0 +1,14 @@
+-- Table of the active seat holds, in the projectairline database of mysql.
+-- A hold is inserted along with the seats it takes out of alr_flightavail, and
+-- deleted along with the seats it gives back. The holds left behind when the
+-- application stops without giving them back are given back when it starts.
+
+CREATE TABLE IF NOT EXISTS projectairline.alr_seat_holds (
+	hold_id VARCHAR(36) NOT NULL,
+	user_id INT NOT NULL,
+	flight_id VARCHAR(10) NOT NULL,
+	flight_date DATE NOT NULL,
+	seats INT NOT NULL,
+	expires_at TIMESTAMP NOT NULL,
+	PRIMARY KEY (hold_id)
+);
@@ -0,0 +1,42 @@
+package com.ntt.airline.controllertest;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.training.airline.controller.LocalOnlyInterceptor;
+import com.training.airline.exception.AirlineControllerException;
+
+public class LocalOnlyInterceptorTest {
+
+	private final LocalOnlyInterceptor localOnlyInterceptor = new LocalOnlyInterceptor();
+
+	@Test
+	public void onlyLocalClientsArePassedOnTest() throws Exception {
+
+		assertTrue(localOnlyInterceptor.preHandle(request("127.0.0.1"), mock(HttpServletResponse.class), null));
+		assertTrue(localOnlyInterceptor.preHandle(request("::1"), mock(HttpServletResponse.class), null));
+		assertThrows(AirlineControllerException.class,
+				() -> localOnlyInterceptor.preHandle(request("10.1.2.3"), mock(HttpServletResponse.class), null));
+
+		// every client is passed on when the guard is turned off
+		ReflectionTestUtils.setField(localOnlyInterceptor, "adminLocalOnly", false);
+		assertTrue(localOnlyInterceptor.preHandle(request("10.1.2.3"), mock(HttpServletResponse.class), null));
+
+	}
+
+	private HttpServletRequest request(String remoteAddress) {
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getRemoteAddr()).thenReturn(remoteAddress);
+		when(request.getRequestURI()).thenReturn("/airline/refreshRouteIndex");
+		return request;
+	}
+
+}
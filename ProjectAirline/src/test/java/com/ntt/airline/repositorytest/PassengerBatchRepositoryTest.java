@@ -0,0 +1,137 @@
+package com.ntt.airline.repositorytest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.engine.spi.SessionEventListenerManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jdbc.ReturningWork;
+import org.hibernate.resource.jdbc.spi.JdbcSessionContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.training.airline.model.Passenger;
+import com.training.airline.repository.PassengerBatchRepositoryImpl;
+import com.training.airline.service.QueryCounter;
+import com.training.airline.service.QueryCounter.RequestQueries;
+
+public class PassengerBatchRepositoryTest {
+
+	private Connection connection;
+
+	private PreparedStatement statement;
+
+	private SessionEventListenerManager eventListenerManager;
+
+	private PassengerBatchRepositoryImpl passengerBatchRepository;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+
+		// the generated keys count up from 100, one for each passenger of the batch
+		AtomicInteger rows = new AtomicInteger();
+		AtomicInteger keys = new AtomicInteger();
+		ResultSet generatedKeys = mock(ResultSet.class);
+		when(generatedKeys.next()).thenAnswer(invocation -> keys.get() < rows.get());
+		when(generatedKeys.getInt(1)).thenAnswer(invocation -> 100 + keys.getAndIncrement());
+
+		statement = mock(PreparedStatement.class);
+		when(statement.getGeneratedKeys()).thenReturn(generatedKeys);
+		when(statement.executeBatch()).thenAnswer(invocation -> new int[rows.get()]);
+		doAnswer(invocation -> rows.incrementAndGet()).when(statement).addBatch();
+
+		connection = mock(Connection.class);
+		when(connection.prepareStatement(anyString(), anyInt())).thenReturn(statement);
+
+		// the statements are inspected by the query counter, as they are in the
+		// application
+		JdbcSessionContext jdbcSessionContext = mock(JdbcSessionContext.class);
+		when(jdbcSessionContext.getStatementInspector()).thenReturn(new QueryCounter());
+		eventListenerManager = mock(SessionEventListenerManager.class);
+
+		SessionImplementor session = mock(SessionImplementor.class);
+		when(session.getJdbcSessionContext()).thenReturn(jdbcSessionContext);
+		when(session.getEventListenerManager()).thenReturn(eventListenerManager);
+		when(session.doReturningWork(any())).thenAnswer(
+				invocation -> invocation.<ReturningWork<?>>getArgument(0).execute(connection));
+
+		EntityManager entityManager = mock(EntityManager.class);
+		when(entityManager.unwrap(SessionImplementor.class)).thenReturn(session);
+
+		passengerBatchRepository = new PassengerBatchRepositoryImpl();
+		ReflectionTestUtils.setField(passengerBatchRepository, "entityManager", entityManager);
+
+	}
+
+	@Test
+	public void savePassengersRepositoryUsesOneBatchTest() throws Exception {
+
+		List<Passenger> passengers = passengers(9);
+
+		RequestQueries queries = new QueryCounter().start();
+		RequestQueries previous = QueryCounter.attach(queries);
+		List<Integer> ticketNumbers;
+		try {
+			ticketNumbers = passengerBatchRepository.savePassengersRepository(7, passengers);
+		} finally {
+			QueryCounter.restore(previous);
+		}
+
+		// all the passengers are sent in one batch, on one statement
+		verify(connection, times(1)).prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS));
+		verify(statement, times(9)).addBatch();
+		verify(statement, times(1)).executeBatch();
+		verify(statement, never()).executeUpdate();
+
+		// the batch is counted for the request as one statement, and timed
+		assertEquals(1, queries.getStatements());
+		verify(eventListenerManager, times(1)).jdbcExecuteBatchStart();
+		verify(eventListenerManager, times(1)).jdbcExecuteBatchEnd();
+
+		// the generated ticket numbers are returned and set on the passengers, in order
+		assertEquals(List.of(100, 101, 102, 103, 104, 105, 106, 107, 108), ticketNumbers);
+		assertEquals(100, passengers.get(0).getTicketNumber());
+		assertEquals(108, passengers.get(8).getTicketNumber());
+		assertEquals("B", passengers.get(8).getStatus());
+		verify(statement, times(9)).setInt(1, 7);
+
+	}
+
+	@Test
+	public void savePassengersRepositoryWithoutPassengersTest() throws Exception {
+
+		assertTrue(passengerBatchRepository.savePassengersRepository(7, new ArrayList<>()).isEmpty());
+		verify(connection, never()).prepareStatement(anyString(), anyInt());
+
+	}
+
+	private static List<Passenger> passengers(int count) {
+		List<Passenger> passengers = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			passengers.add(new Passenger("Passenger " + i, 30, null));
+		}
+		return passengers;
+	}
+
+}
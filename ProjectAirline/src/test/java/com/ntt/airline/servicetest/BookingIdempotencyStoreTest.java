@@ -0,0 +1,292 @@
+package com.ntt.airline.servicetest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.training.airline.dto.BookingDto;
+import com.training.airline.dto.FlightAvailDto;
+import com.training.airline.dto.FlightDto;
+import com.training.airline.dto.PassengerDto;
+import com.training.airline.dto.UserDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.service.BookingIdempotencyStore;
+import com.training.airline.service.BookingService;
+
+public class BookingIdempotencyStoreTest {
+
+	private BookingService bookingService;
+
+	private BookingIdempotencyStore bookingIdempotencyStore;
+
+	private final BookingDto savedBooking = new BookingDto(101, "B", 2, 2000f);
+
+	@BeforeEach
+	public void setUp() {
+
+		bookingService = mock(BookingService.class);
+		bookingIdempotencyStore = new BookingIdempotencyStore();
+		ReflectionTestUtils.setField(bookingIdempotencyStore, "bookingService", bookingService);
+
+	}
+
+	@Test
+	public void retryReturnsTheSavedBookingTest() throws Exception {
+
+		when(bookingService.saveBooking(any(BookingDto.class))).thenReturn(savedBooking);
+
+		assertSame(savedBooking, bookingIdempotencyStore.saveBookingOnce("key-1", booking(1, 2)));
+		assertSame(savedBooking, bookingIdempotencyStore.saveBookingOnce("key-1", booking(1, 2)));
+
+		// the same key of another user is another booking
+		bookingIdempotencyStore.saveBookingOnce("key-1", booking(2, 2));
+
+		verify(bookingService, times(2)).saveBooking(any(BookingDto.class));
+		assertEquals(1L, bookingIdempotencyStore.getStatistics().get("replayed"));
+
+		// the key cannot be used for another booking
+		assertThrows(AirlineServiceException.class,
+				() -> bookingIdempotencyStore.saveBookingOnce("key-1", booking(1, 3)));
+
+	}
+
+	@Test
+	public void concurrentRetriesShareOneSaveTest() throws Exception {
+
+		CountDownLatch saving = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(bookingService.saveBooking(any(BookingDto.class))).thenAnswer(invocation -> {
+			saving.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return savedBooking;
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<BookingDto>> results = new ArrayList<>();
+			results.add(executor.submit(() -> bookingIdempotencyStore.saveBookingOnce("key-1", booking(1, 2))));
+			saving.await(5, TimeUnit.SECONDS);
+			for (int i = 0; i < 7; i++) {
+				results.add(executor.submit(() -> bookingIdempotencyStore.saveBookingOnce("key-1", booking(1, 2))));
+			}
+			while (bookingIdempotencyStore.getStatistics().get("coalesced") < 7) {
+				Thread.sleep(1);
+			}
+			release.countDown();
+			for (Future<BookingDto> result : results) {
+				assertSame(savedBooking, result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		verify(bookingService, times(1)).saveBooking(any(BookingDto.class));
+
+	}
+
+	@Test
+	public void failedBookingIsRetriedTest() throws Exception {
+
+		when(bookingService.saveBooking(any(BookingDto.class)))
+				.thenThrow(new AirlineServiceException("Booking creation failed.")).thenReturn(savedBooking);
+
+		assertThrows(AirlineServiceException.class,
+				() -> bookingIdempotencyStore.saveBookingOnce("key-1", booking(1, 2)));
+		assertSame(savedBooking, bookingIdempotencyStore.saveBookingOnce("key-1", booking(1, 2)));
+
+		verify(bookingService, times(2)).saveBooking(any(BookingDto.class));
+
+	}
+
+	@Test
+	public void oldestKeysAreEvictedWhenFullTest() throws Exception {
+
+		ReflectionTestUtils.setField(bookingIdempotencyStore, "maxSize", 10);
+		when(bookingService.saveBooking(any(BookingDto.class))).thenReturn(savedBooking);
+
+		for (int i = 0; i < 25; i++) {
+			bookingIdempotencyStore.saveBookingOnce("key-" + i, booking(1, 2));
+		}
+
+		assertEquals(10L, bookingIdempotencyStore.getStatistics().get("size"));
+		assertEquals(15L, bookingIdempotencyStore.getStatistics().get("evictions"));
+
+		// the newest key is still remembered
+		bookingIdempotencyStore.saveBookingOnce("key-24", booking(1, 2));
+		verify(bookingService, times(25)).saveBooking(any(BookingDto.class));
+
+	}
+
+	@Test
+	public void keysBeingSavedDoNotKeepExpiredKeysTest() throws Exception {
+
+		ReflectionTestUtils.setField(bookingIdempotencyStore, "maxSize", 3);
+		ReflectionTestUtils.setField(bookingIdempotencyStore, "ttlMillis", 0L);
+
+		CountDownLatch saving = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(bookingService.saveBooking(any(BookingDto.class))).thenAnswer(invocation -> {
+			if (invocation.getArgument(0, BookingDto.class).getUser().getUserId() == 9) {
+				saving.countDown();
+				release.await(5, TimeUnit.SECONDS);
+			}
+			return savedBooking;
+		});
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// the oldest key is still being saved
+			Future<BookingDto> first = executor
+					.submit(() -> bookingIdempotencyStore.saveBookingOnce("key-0", booking(9, 2)));
+			saving.await(5, TimeUnit.SECONDS);
+
+			// the keys behind it expire at once, and are removed past it
+			for (int i = 1; i < 10; i++) {
+				bookingIdempotencyStore.saveBookingOnce("key-" + i, booking(1, 2));
+			}
+			assertEquals(2L, bookingIdempotencyStore.getStatistics().get("size"));
+			assertEquals(0L, bookingIdempotencyStore.getStatistics().get("evictions"));
+
+			release.countDown();
+			assertSame(savedBooking, first.get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+
+	}
+
+	@Test
+	public void keySavedBeforeAnOlderKeyStillExpiresTest() throws Exception {
+
+		ReflectionTestUtils.setField(bookingIdempotencyStore, "ttlMillis", 500L);
+
+		CountDownLatch saving = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(bookingService.saveBooking(any(BookingDto.class))).thenAnswer(invocation -> {
+			if (invocation.getArgument(0, BookingDto.class).getUser().getUserId() == 9) {
+				saving.countDown();
+				release.await(5, TimeUnit.SECONDS);
+			}
+			return savedBooking;
+		});
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// the first key is used first, and saved after the second one
+			Future<BookingDto> first = executor
+					.submit(() -> bookingIdempotencyStore.saveBookingOnce("key-0", booking(9, 2)));
+			saving.await(5, TimeUnit.SECONDS);
+			bookingIdempotencyStore.saveBookingOnce("key-1", booking(1, 2));
+			Thread.sleep(250);
+			release.countDown();
+			assertSame(savedBooking, first.get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// the second key has expired while the first one has not, and is not replayed
+		Thread.sleep(350);
+		bookingIdempotencyStore.saveBookingOnce("key-1", booking(1, 2));
+		assertEquals(0L, bookingIdempotencyStore.getStatistics().get("replayed"));
+		verify(bookingService, times(3)).saveBooking(any(BookingDto.class));
+
+	}
+
+	@Test
+	public void newKeyIsRejectedWhenFullOfKeysBeingSavedTest() throws Exception {
+
+		ReflectionTestUtils.setField(bookingIdempotencyStore, "maxSize", 2);
+
+		CountDownLatch saving = new CountDownLatch(2);
+		CountDownLatch release = new CountDownLatch(1);
+		when(bookingService.saveBooking(any(BookingDto.class))).thenAnswer(invocation -> {
+			saving.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return savedBooking;
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<Future<BookingDto>> results = new ArrayList<>();
+			for (int i = 0; i < 2; i++) {
+				String key = "key-" + i;
+				results.add(executor.submit(() -> bookingIdempotencyStore.saveBookingOnce(key, booking(1, 2))));
+			}
+			saving.await(5, TimeUnit.SECONDS);
+
+			// no key being saved can be evicted
+			assertThrows(RejectedExecutionException.class,
+					() -> bookingIdempotencyStore.saveBookingOnce("key-2", booking(1, 2)));
+
+			release.countDown();
+			for (Future<BookingDto> result : results) {
+				assertSame(savedBooking, result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// once saved, the oldest key is evicted for the new one
+		assertSame(savedBooking, bookingIdempotencyStore.saveBookingOnce("key-2", booking(1, 2)));
+		assertEquals(1L, bookingIdempotencyStore.getStatistics().get("evictions"));
+
+	}
+
+	@Test
+	public void keyCannotBeUsedForOtherPassengersTest() throws Exception {
+
+		when(bookingService.saveBooking(any(BookingDto.class))).thenReturn(savedBooking);
+
+		BookingDto bookingDto = booking(1, 2);
+		bookingDto.setPassengers(Arrays.asList(new PassengerDto(null, "Arun", 30, null),
+				new PassengerDto(null, "Priya", 28, null)));
+		assertSame(savedBooking, bookingIdempotencyStore.saveBookingOnce("key-1", bookingDto));
+
+		BookingDto retryDto = booking(1, 2);
+		retryDto.setPassengers(Arrays.asList(new PassengerDto(null, "Arun", 30, null),
+				new PassengerDto(null, "Priya", 28, null)));
+		assertSame(savedBooking, bookingIdempotencyStore.saveBookingOnce("key-1", retryDto));
+
+		BookingDto otherDto = booking(1, 2);
+		otherDto.setPassengers(Arrays.asList(new PassengerDto(null, "Arun", 30, null),
+				new PassengerDto(null, "Kiran", 41, null)));
+		assertThrows(AirlineServiceException.class,
+				() -> bookingIdempotencyStore.saveBookingOnce("key-1", otherDto));
+
+		verify(bookingService, times(1)).saveBooking(any(BookingDto.class));
+
+	}
+
+	private BookingDto booking(Integer userId, Integer seats) {
+		UserDto user = new UserDto();
+		user.setUserId(userId);
+		FlightAvailDto flightAvail = new FlightAvailDto(Date.valueOf("2022-07-01"), 10, 1000f);
+		flightAvail.setFlight(new FlightDto("A1", null, null));
+		BookingDto bookingDto = new BookingDto();
+		bookingDto.setUser(user);
+		bookingDto.setFlightAvail(flightAvail);
+		bookingDto.setBookedSeats(seats);
+		return bookingDto;
+	}
+
+}
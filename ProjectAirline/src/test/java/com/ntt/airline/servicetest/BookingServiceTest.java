@@ -0,0 +1,248 @@
+package com.ntt.airline.servicetest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.training.airline.dto.BookingDto;
+import com.training.airline.dto.BookingHistoryDto;
+import com.training.airline.dto.BookingHistoryPageDto;
+import com.training.airline.dto.FlightAvailDto;
+import com.training.airline.dto.FlightDto;
+import com.training.airline.dto.PassengerDto;
+import com.training.airline.dto.UserDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.model.Booking;
+import com.training.airline.model.City;
+import com.training.airline.model.Flight;
+import com.training.airline.model.FlightAvail;
+import com.training.airline.model.Passenger;
+import com.training.airline.model.User;
+import com.training.airline.repository.BookingRepository;
+import com.training.airline.repository.FlightAvailRepository;
+import com.training.airline.repository.PassengerRepository;
+import com.training.airline.service.AirlineMetrics;
+import com.training.airline.service.BookingService;
+import com.training.airline.service.SeatAvailabilityLedger;
+import com.training.airline.service.SeatInventoryService;
+
+public class BookingServiceTest {
+
+	private static final int PARTY_SIZE = 9;
+
+	private final Date travelOn = Date.valueOf("2022-07-01");
+
+	private BookingRepository bookingRepository;
+
+	private PassengerRepository passengerRepository;
+
+	private SeatInventoryService seatInventoryService;
+
+	private FlightAvailRepository flightAvailRepository;
+
+	private SeatAvailabilityLedger seatAvailabilityLedger;
+
+	private AirlineMetrics airlineMetrics;
+
+	private Booking booking;
+
+	private BookingService bookingService;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+
+		Flight flight = new Flight("A1", Time.valueOf("06:00:00"), Time.valueOf("08:30:00"));
+		flight.setOriginCity(new City("Chennai", "India", "MAA"));
+		flight.setDestinationCity(new City("Delhi", "India", "DEL"));
+		FlightAvail flightAvail = new FlightAvail(travelOn, 100, 5000f);
+		flightAvail.setFlight(flight);
+
+		User user = new User();
+		user.setUserId(1);
+
+		booking = new Booking("B", PARTY_SIZE, 5000f * PARTY_SIZE);
+		booking.setReferenceId(7);
+		booking.setUser(user);
+		booking.setFlight(flightAvail);
+
+		List<Passenger> passengers = new ArrayList<>();
+		for (int i = 0; i < PARTY_SIZE; i++) {
+			Passenger passenger = new Passenger("Passenger " + i, 30, "B");
+			passenger.setBooking(booking);
+			passengers.add(passenger);
+		}
+		booking.setPassengers(passengers);
+
+		bookingRepository = mock(BookingRepository.class);
+		when(bookingRepository.findById(7)).thenReturn(Optional.of(booking));
+		when(bookingRepository.cancelBookingRepository(7)).thenReturn(1);
+
+		passengerRepository = mock(PassengerRepository.class);
+		when(passengerRepository.cancelPassengerById(7)).thenReturn(PARTY_SIZE);
+
+		seatInventoryService = mock(SeatInventoryService.class);
+		flightAvailRepository = mock(FlightAvailRepository.class);
+		seatAvailabilityLedger = mock(SeatAvailabilityLedger.class);
+
+		bookingService = new BookingService();
+		ReflectionTestUtils.setField(bookingService, "bookingRepository", bookingRepository);
+		ReflectionTestUtils.setField(bookingService, "passengerRepository", passengerRepository);
+		ReflectionTestUtils.setField(bookingService, "seatInventoryService", seatInventoryService);
+		ReflectionTestUtils.setField(bookingService, "flightAvailRepository", flightAvailRepository);
+		ReflectionTestUtils.setField(bookingService, "seatAvailabilityLedger", seatAvailabilityLedger);
+		airlineMetrics = new AirlineMetrics();
+		ReflectionTestUtils.setField(bookingService, "airlineMetrics", airlineMetrics);
+
+	}
+
+	@Test
+	public void cancelBookingServiceIsSetBasedTest() throws Exception {
+
+		BookingDto cancelled = bookingService.cancelBookingService(new BookingDto(7, "B", PARTY_SIZE, 0f));
+
+		// the whole party is cancelled and its seats released in a fixed number of
+		// statements, whatever the party size
+		verify(bookingRepository, times(1)).findById(7);
+		verify(bookingRepository, times(1)).cancelBookingRepository(7);
+		verify(passengerRepository, times(1)).cancelPassengerById(7);
+		verify(passengerRepository, never()).cancelPassengerByTicketRepository(anyInt(), anyInt());
+		verify(passengerRepository, never()).getBookingPassengersRepository(anyInt());
+		verify(seatInventoryService, times(1)).releaseSeats("A1", travelOn, PARTY_SIZE);
+		assertEquals(PARTY_SIZE, airlineMetrics.getRegistry().counter("airline.seats.released").count());
+
+		assertEquals("C", cancelled.getStatus());
+		assertEquals(PARTY_SIZE, cancelled.getPassengers().size());
+		for (PassengerDto passengerDto : cancelled.getPassengers()) {
+			assertEquals("C", passengerDto.getStatus());
+		}
+
+	}
+
+	@Test
+	public void cancelBookingServiceWithoutBookedPassengersTest() throws Exception {
+
+		when(passengerRepository.cancelPassengerById(7)).thenReturn(0);
+
+		bookingService.cancelBookingService(new BookingDto(7, "B", PARTY_SIZE, 0f));
+
+		// no seat is released when every passenger was already cancelled
+		verify(seatInventoryService, never()).releaseSeats(any(), any(), any());
+		assertEquals(0, airlineMetrics.getRegistry().counter("airline.seats.released").count());
+
+	}
+
+	@Test
+	public void cancelBookingServiceAlreadyCancelledTest() throws Exception {
+
+		booking.setStatus("C");
+
+		assertThrows(AirlineServiceException.class,
+				() -> bookingService.cancelBookingService(new BookingDto(7, "C", PARTY_SIZE, 0f)));
+		verify(passengerRepository, never()).cancelPassengerById(anyInt());
+
+	}
+
+	@Test
+	public void getBookingHistoryServicePagesByCursorTest() throws Exception {
+
+		// the history of the user, the repository returns the bookings before the
+		// cursor newest first
+		List<Booking> history = new ArrayList<>();
+		for (int referenceId = 1; referenceId <= 5; referenceId++) {
+			Booking older = new Booking("B", 1, 5000f);
+			older.setReferenceId(referenceId);
+			older.setUser(booking.getUser());
+			older.setFlight(booking.getFlightAvail());
+			older.setPassengers(new ArrayList<>());
+			history.add(0, older);
+		}
+		when(bookingRepository.getBookingHistoryRepository(eq(1), anyInt(), eq("%"), any(), any(), any()))
+				.thenAnswer(invocation -> {
+					int before = invocation.getArgument(1);
+					Pageable pageable = invocation.getArgument(5);
+					return history.stream().filter(older -> older.getReferenceId() < before)
+							.limit(pageable.getPageSize()).collect(Collectors.toList());
+				});
+
+		List<Integer> referenceIds = new ArrayList<>();
+		List<Integer> pageSizes = new ArrayList<>();
+		String cursor = null;
+		do {
+			BookingHistoryPageDto page = bookingService.getBookingHistoryService(new BookingHistoryDto(1, cursor, 2));
+			page.getBookings().forEach(bookingDto -> referenceIds.add(bookingDto.getReferenceId()));
+			pageSizes.add(page.getBookings().size());
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+
+		// every booking is returned once, newest first, and the last page has no cursor
+		assertEquals(List.of(5, 4, 3, 2, 1), referenceIds);
+		assertEquals(List.of(2, 2, 1), pageSizes);
+
+		// a cursor which was not returned by the service is rejected
+		assertThrows(AirlineServiceException.class,
+				() -> bookingService.getBookingHistoryService(new BookingHistoryDto(1, "not a cursor", 2)));
+
+	}
+
+	@Test
+	public void saveBookingTakesTheCostFromTheLedgerTest() throws Exception {
+
+		when(seatAvailabilityLedger.isEnabled()).thenReturn(true);
+		when(seatAvailabilityLedger.getCost("A1", travelOn)).thenReturn(5000f);
+		when(bookingRepository.callBookingSave(1, "A1", travelOn, PARTY_SIZE, 5000f * PARTY_SIZE)).thenReturn("7");
+		List<Integer> ticketNumbers = new ArrayList<>();
+		for (int i = 0; i < PARTY_SIZE; i++) {
+			ticketNumbers.add(100 + i);
+		}
+		when(passengerRepository.savePassengersRepository(eq(7), any())).thenReturn(ticketNumbers);
+
+		BookingDto saved = bookingService.saveBooking(bookingDto());
+
+		// the seats and the cost come from the ledger, alr_flightavail is not read
+		assertEquals(7, saved.getReferenceId());
+		verify(seatInventoryService, times(1)).reserveSeats("A1", travelOn, PARTY_SIZE);
+		verify(flightAvailRepository, never()).getFlightsAvailableRepository(any(), any());
+
+		// a flight the ledger does not find is not booked
+		when(seatAvailabilityLedger.getCost("A1", travelOn)).thenReturn(null);
+		assertThrows(AirlineServiceException.class, () -> bookingService.saveBooking(bookingDto()));
+		verify(seatInventoryService, times(1)).reserveSeats("A1", travelOn, PARTY_SIZE);
+
+	}
+
+	private BookingDto bookingDto() {
+		UserDto user = new UserDto();
+		user.setUserId(1);
+		FlightAvailDto flightAvail = new FlightAvailDto(travelOn, 100, 5000f);
+		flightAvail.setFlight(new FlightDto("A1", null, null));
+		BookingDto bookingDto = new BookingDto(null, "B", PARTY_SIZE, 5000f * PARTY_SIZE);
+		bookingDto.setUser(user);
+		bookingDto.setFlightAvail(flightAvail);
+		List<PassengerDto> passengers = new ArrayList<>();
+		for (int i = 0; i < PARTY_SIZE; i++) {
+			passengers.add(new PassengerDto(null, "Passenger " + i, 30, "B"));
+		}
+		bookingDto.setPassengers(passengers);
+		return bookingDto;
+	}
+
+}
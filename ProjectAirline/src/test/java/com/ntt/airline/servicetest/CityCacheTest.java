@@ -0,0 +1,158 @@
+package com.ntt.airline.servicetest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.training.airline.dto.CityDto;
+import com.training.airline.repository.CityRepository;
+import com.training.airline.service.CityCache;
+
+public class CityCacheTest {
+
+	private CityRepository cityRepository;
+
+	private CityCache cityCache;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+
+		cityRepository = mock(CityRepository.class);
+		when(cityRepository.getCityDtoByNameRepository(anyString())).thenAnswer(invocation -> city(invocation.getArgument(0)));
+		when(cityRepository.getAllCityDtosRepository()).thenReturn(List.of(city("Chennai"), city("Delhi"), city("Mumbai")));
+
+		cityCache = new CityCache();
+		ReflectionTestUtils.setField(cityCache, "cityRepository", cityRepository);
+
+	}
+
+	@Test
+	public void getCityByNameHitsTest() throws Exception {
+
+		CityDto first = cityCache.getCityByName("Chennai");
+		CityDto second = cityCache.getCityByName("chennai");
+
+		assertSame(first, second);
+		assertEquals(1, cityCache.getMisses());
+		assertEquals(1, cityCache.getHits());
+		verify(cityRepository, times(1)).getCityDtoByNameRepository(anyString());
+
+	}
+
+	@Test
+	public void getAllCitiesFillsIndexesTest() throws Exception {
+
+		assertEquals(3, cityCache.getAllCities().size());
+		assertEquals(3, cityCache.getAllCities().size());
+
+		assertEquals("Delhi", cityCache.getCityByName("Delhi").getCityName());
+		assertEquals("Mumbai", cityCache.getCityById("Mumbai".hashCode()).getCityName());
+
+		verify(cityRepository, times(1)).getAllCityDtosRepository();
+		verify(cityRepository, times(0)).getCityDtoByNameRepository(anyString());
+
+	}
+
+	@Test
+	public void expiredCityIsLoadedAgainTest() throws Exception {
+
+		ReflectionTestUtils.setField(cityCache, "ttlMillis", 20L);
+
+		cityCache.getCityByName("Chennai");
+		Thread.sleep(40);
+		cityCache.getCityByName("Chennai");
+
+		assertEquals(2, cityCache.getMisses());
+		verify(cityRepository, times(2)).getCityDtoByNameRepository("Chennai");
+
+	}
+
+	@Test
+	public void leastRecentlyUsedCityIsEvictedTest() throws Exception {
+
+		ReflectionTestUtils.setField(cityCache, "maxSize", 2);
+
+		cityCache.getCityByName("Chennai");
+		cityCache.getCityByName("Delhi");
+		cityCache.getCityByName("Chennai");
+		cityCache.getCityByName("Mumbai");
+
+		assertEquals(2, cityCache.getSize());
+		assertEquals(1, cityCache.getEvictions());
+
+		// Delhi was the least recently used city
+		cityCache.getCityByName("Chennai");
+		cityCache.getCityByName("Delhi");
+		verify(cityRepository, times(1)).getCityDtoByNameRepository("Chennai");
+		verify(cityRepository, times(2)).getCityDtoByNameRepository("Delhi");
+
+	}
+
+	@Test
+	public void citiesAreEvictedFromBothIndexesTest() throws Exception {
+
+		ReflectionTestUtils.setField(cityCache, "maxSize", 2);
+
+		// Chennai is used again only through the id index, Delhi only through the name
+		// index
+		cityCache.getCityByName("Chennai");
+		cityCache.getCityByName("Delhi");
+		cityCache.getCityById("Chennai".hashCode());
+		cityCache.getCityByName("Mumbai");
+
+		assertEquals(2, cityCache.getSize());
+		assertEquals(1, cityCache.getEvictions());
+
+		// Delhi was the least recently used city through either index, and is gone
+		// from both of them, Chennai is still found by name
+		assertNull(cityCache.getCityById("Delhi".hashCode()));
+		cityCache.getCityByName("Chennai");
+		cityCache.getCityByName("Delhi");
+		verify(cityRepository, times(1)).getCityDtoByNameRepository("Chennai");
+		verify(cityRepository, times(2)).getCityDtoByNameRepository("Delhi");
+
+	}
+
+	@Test
+	public void invalidateTest() throws Exception {
+
+		cityCache.getAllCities();
+		cityCache.invalidate("Chennai".hashCode());
+		cityCache.getCityByName("Chennai");
+		cityCache.getCityByName("Delhi");
+		verify(cityRepository, times(1)).getCityDtoByNameRepository(anyString());
+
+		cityCache.invalidateAll();
+		assertEquals(0, cityCache.getSize());
+		cityCache.getAllCities();
+		verify(cityRepository, times(2)).getAllCityDtosRepository();
+
+	}
+
+	@Test
+	public void unknownCityIsNotCachedTest() throws Exception {
+
+		when(cityRepository.getCityDtoByNameRepository("Atlantis")).thenReturn(null);
+
+		assertNull(cityCache.getCityByName("Atlantis"));
+		assertNull(cityCache.getCityByName("Atlantis"));
+		verify(cityRepository, times(2)).getCityDtoByNameRepository("Atlantis");
+
+	}
+
+	private static CityDto city(String cityName) {
+		return new CityDto(cityName.hashCode(), cityName, "India", cityName.substring(0, 3).toUpperCase());
+	}
+
+}
@@ -0,0 +1,200 @@
+package com.ntt.airline.servicetest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.training.airline.dto.FareDayDto;
+import com.training.airline.dto.FlightSeatsDto;
+import com.training.airline.model.City;
+import com.training.airline.model.Flight;
+import com.training.airline.repository.FlightAvailRepository;
+import com.training.airline.repository.FlightRepository;
+import com.training.airline.service.FareCalendar;
+import com.training.airline.service.RouteIndex;
+import com.training.airline.service.SeatAvailabilityLedger;
+
+public class FareCalendarTest {
+
+	private final YearMonth july = YearMonth.of(2022, 7);
+
+	private final Date firstOfJuly = Date.valueOf("2022-07-01");
+
+	private FlightAvailRepository flightAvailRepository;
+
+	private FareCalendar fareCalendar;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+
+		City chennai = new City("Chennai", "India", "MAA");
+		chennai.setCityId(1);
+		City delhi = new City("Delhi", "India", "DEL");
+		delhi.setCityId(2);
+
+		List<Flight> flights = new ArrayList<>();
+		for (String flightId : List.of("A1", "A2")) {
+			Flight flight = new Flight(flightId, Time.valueOf("06:00:00"), Time.valueOf("08:30:00"));
+			flight.setOriginCity(chennai);
+			flight.setDestinationCity(delhi);
+			flights.add(flight);
+		}
+
+		FlightRepository flightRepository = mock(FlightRepository.class);
+		when(flightRepository.getAllFlightsRepository()).thenReturn(flights);
+		RouteIndex routeIndex = new RouteIndex();
+		ReflectionTestUtils.setField(routeIndex, "flightRepository", flightRepository);
+		ReflectionTestUtils.setField(routeIndex, "transactionManager", mock(PlatformTransactionManager.class));
+		routeIndex.refresh();
+
+		// A1 is the cheaper flight with 2 seats left on the first of July, A2 flies
+		// every day of the month
+		List<FlightSeatsDto> rows = new ArrayList<>();
+		rows.add(new FlightSeatsDto("A1", firstOfJuly, 2, 3000f));
+		for (int day = 1; day <= 31; day++) {
+			rows.add(new FlightSeatsDto("A2", Date.valueOf(july.atDay(day)), 100, 5000f));
+		}
+		flightAvailRepository = mock(FlightAvailRepository.class);
+		when(flightAvailRepository.getSeatsAvailableOnRouteDateRangeRepository(anyInt(), anyInt(), any(Date.class),
+				any(Date.class), any(Pageable.class))).thenReturn(rows);
+
+		fareCalendar = new FareCalendar();
+		ReflectionTestUtils.setField(fareCalendar, "flightAvailRepository", flightAvailRepository);
+		ReflectionTestUtils.setField(fareCalendar, "routeIndex", routeIndex);
+		ReflectionTestUtils.setField(fareCalendar, "seatAvailabilityLedger", new SeatAvailabilityLedger());
+
+	}
+
+	@Test
+	public void getFaresLoadsTheMonthOnceTest() throws Exception {
+
+		List<FareDayDto> fares = fareCalendar.getFares(1, 2, july);
+
+		assertEquals(31, fares.size());
+		assertEquals(firstOfJuly, fares.get(0).getDate());
+		assertEquals(3000f, fares.get(0).getLowestCost());
+		assertEquals(102, fares.get(0).getSeats());
+		assertEquals(2, fares.get(0).getFlights());
+		assertEquals(5000f, fares.get(30).getLowestCost());
+
+		fareCalendar.getFares(1, 2, july);
+		fareCalendar.getFares(1, 2, july);
+
+		// the whole month is read in one query, and then served from memory
+		verify(flightAvailRepository, times(1)).getSeatsAvailableOnRouteDateRangeRepository(1, 2, firstOfJuly,
+				Date.valueOf("2022-07-31"), Pageable.unpaged());
+		assertEquals(2L, fareCalendar.getStatistics().get("hits"));
+		assertEquals(1L, fareCalendar.getStatistics().get("loads"));
+
+	}
+
+	@Test
+	public void seatsChangedUpdatesTheDayTest() throws Exception {
+
+		fareCalendar.getFares(1, 2, july);
+
+		// the cheaper flight is sold out, so the lowest cost of the day goes up
+		fareCalendar.seatsChanged("A1", firstOfJuly, -2);
+		FareDayDto firstDay = fareCalendar.getFares(1, 2, july).get(0);
+		assertEquals(5000f, firstDay.getLowestCost());
+		assertEquals(100, firstDay.getSeats());
+		assertEquals(1, firstDay.getFlights());
+
+		// the seats are released again
+		fareCalendar.seatsChanged("A1", firstOfJuly, 1);
+		assertEquals(3000f, fareCalendar.getFares(1, 2, july).get(0).getLowestCost());
+
+		// the last flight of a day is sold out
+		fareCalendar.seatsChanged("A2", Date.valueOf("2022-07-31"), -100);
+		assertNull(fareCalendar.getFares(1, 2, july).get(30).getLowestCost());
+
+		// a change for a month which is not in memory is left for its load
+		fareCalendar.seatsChanged("A2", Date.valueOf("2022-08-01"), -1);
+
+		verify(flightAvailRepository, times(1)).getSeatsAvailableOnRouteDateRangeRepository(anyInt(), anyInt(),
+				any(Date.class), any(Date.class), any(Pageable.class));
+		assertEquals(3L, fareCalendar.getStatistics().get("updates"));
+
+	}
+
+	@Test
+	public void changeCommittedWhileTheMonthIsReadTest() throws Exception {
+
+		// the month is read before a booking of the cheaper flight commits, and the
+		// booking commits before the load is done, so its change finds no month
+		List<FlightSeatsDto> before = seatsOfTheFirstDay(2);
+		List<FlightSeatsDto> after = seatsOfTheFirstDay(0);
+		doAnswer(invocation -> {
+			fareCalendar.seatsChanging("A1", firstOfJuly);
+			fareCalendar.seatsChanged("A1", firstOfJuly, -2);
+			return before;
+		}).doReturn(after).when(flightAvailRepository).getSeatsAvailableOnRouteDateRangeRepository(anyInt(),
+				anyInt(), any(Date.class), any(Date.class), any(Pageable.class));
+
+		// the month read is served, but not kept, so the next request reads the booking
+		assertEquals(3000f, fareCalendar.getFares(1, 2, july).get(0).getLowestCost());
+		FareDayDto firstDay = fareCalendar.getFares(1, 2, july).get(0);
+		assertEquals(5000f, firstDay.getLowestCost());
+		assertEquals(100, firstDay.getSeats());
+
+		assertEquals(2L, fareCalendar.getStatistics().get("loads"));
+		assertEquals(1L, fareCalendar.getStatistics().get("discards"));
+
+	}
+
+	@Test
+	public void monthReadBeforeTheChangeIsAppliedTest() throws Exception {
+
+		// a release of a seat of the cheaper flight has begun, and the month is read
+		// after it is committed but before the fare calendar is told of it
+		when(flightAvailRepository.getSeatsAvailableOnRouteDateRangeRepository(anyInt(), anyInt(),
+				any(Date.class), any(Date.class), any(Pageable.class))).thenReturn(seatsOfTheFirstDay(3));
+		fareCalendar.seatsChanging("A1", firstOfJuly);
+		assertEquals(103, fareCalendar.getFares(1, 2, july).get(0).getSeats());
+		fareCalendar.seatsChanged("A1", firstOfJuly, 1);
+
+		// the change is not applied twice, since the month read was not kept
+		assertEquals(103, fareCalendar.getFares(1, 2, july).get(0).getSeats());
+		assertEquals(2L, fareCalendar.getStatistics().get("loads"));
+
+		// with no change in flight, the month is kept and the changes are applied to it
+		fareCalendar.seatsChanging("A1", firstOfJuly);
+		fareCalendar.seatsChanged("A1", firstOfJuly, -1);
+		assertEquals(102, fareCalendar.getFares(1, 2, july).get(0).getSeats());
+		assertEquals(2L, fareCalendar.getStatistics().get("loads"));
+
+		// a change which is rolled back lets the month be kept again
+		fareCalendar.invalidateAll();
+		fareCalendar.seatsChanging("A1", firstOfJuly);
+		fareCalendar.seatsChangeAbandoned("A1", firstOfJuly);
+		fareCalendar.getFares(1, 2, july);
+		fareCalendar.getFares(1, 2, july);
+		assertEquals(3L, fareCalendar.getStatistics().get("loads"));
+		assertEquals(2L, fareCalendar.getStatistics().get("hits"));
+
+	}
+
+	private List<FlightSeatsDto> seatsOfTheFirstDay(int cheaperFlightSeats) {
+		return List.of(new FlightSeatsDto("A1", firstOfJuly, cheaperFlightSeats, 3000f),
+				new FlightSeatsDto("A2", firstOfJuly, 100, 5000f));
+	}
+
+}
@@ -0,0 +1,168 @@
+package com.ntt.airline.servicetest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.training.airline.dto.FlightAvailDto;
+import com.training.airline.dto.FlightsAvailableOnDateDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.service.FlightAvailCoalescer;
+import com.training.airline.service.FlightAvailService;
+
+public class FlightAvailCoalescerTest {
+
+	private static final int THREADS = 16;
+
+	private final Date travelOn = Date.valueOf("2022-07-01");
+
+	private final List<FlightAvailDto> flights = List.of(new FlightAvailDto(travelOn, 10, 1000f));
+
+	private FlightAvailService flightAvailService;
+
+	private FlightAvailCoalescer flightAvailCoalescer;
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void setUp() {
+
+		flightAvailService = mock(FlightAvailService.class);
+		flightAvailCoalescer = new FlightAvailCoalescer();
+		ReflectionTestUtils.setField(flightAvailCoalescer, "flightAvailService", flightAvailService);
+		executor = Executors.newFixedThreadPool(THREADS);
+
+	}
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void identicalSearchesShareOneLoadTest() throws Exception {
+
+		CountDownLatch release = new CountDownLatch(1);
+		when(flightAvailService.getFlightsBetweenCityOnDate(any(FlightsAvailableOnDateDto.class)))
+				.thenAnswer(invocation -> {
+					release.await(5, TimeUnit.SECONDS);
+					return flights;
+				});
+
+		// the city names are matched regardless of case
+		List<Future<List<FlightAvailDto>>> results = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			FlightsAvailableOnDateDto search = route(i % 2 == 0 ? "Chennai" : " chennai", "Delhi");
+			results.add(executor.submit(() -> flightAvailCoalescer.getFlightsBetweenCityOnDate(search)));
+		}
+		while (flightAvailCoalescer.getStatistics().get("flightsBetweenCityOnDateCoalesced") < THREADS - 1) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+
+		for (Future<List<FlightAvailDto>> result : results) {
+			assertSame(flights, result.get(5, TimeUnit.SECONDS));
+		}
+		verify(flightAvailService, times(1)).getFlightsBetweenCityOnDate(any(FlightsAvailableOnDateDto.class));
+		assertEquals(1L, flightAvailCoalescer.getStatistics().get("flightsBetweenCityOnDateExecuted"));
+		assertEquals(0L, flightAvailCoalescer.getStatistics().get("inFlight"));
+
+		// a search after the load completed runs a new load
+		flightAvailCoalescer.getFlightsBetweenCityOnDate(route("Chennai", "Delhi"));
+		verify(flightAvailService, times(2)).getFlightsBetweenCityOnDate(any(FlightsAvailableOnDateDto.class));
+
+	}
+
+	@Test
+	public void failedLoadFailsEverySearchTest() throws Exception {
+
+		CountDownLatch release = new CountDownLatch(1);
+		when(flightAvailService.getFlightOnDateService(any(FlightsAvailableOnDateDto.class)))
+				.thenAnswer(invocation -> {
+					release.await(5, TimeUnit.SECONDS);
+					throw new AirlineServiceException("There are no flights available for this date...");
+				});
+
+		List<Future<FlightAvailDto>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			FlightsAvailableOnDateDto search = new FlightsAvailableOnDateDto();
+			search.setFlightId("A1");
+			search.setTravelOn(travelOn);
+			results.add(executor.submit(() -> flightAvailCoalescer.getFlightOnDateService(search)));
+		}
+		while (flightAvailCoalescer.getStatistics().get("flightOnDateCoalesced") < 3) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+
+		for (Future<FlightAvailDto> result : results) {
+			ExecutionException exception = assertThrows(ExecutionException.class,
+					() -> result.get(5, TimeUnit.SECONDS));
+			assertEquals("There are no flights available for this date...", exception.getCause().getMessage());
+		}
+		verify(flightAvailService, times(1)).getFlightOnDateService(any(FlightsAvailableOnDateDto.class));
+
+	}
+
+	@Test
+	public void waitingSearchGivesUpAfterTimeoutTest() throws Exception {
+
+		ReflectionTestUtils.setField(flightAvailCoalescer, "timeoutMillis", 100L);
+
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(flightAvailService.getFlightsBetweenCityOnDate(any(FlightsAvailableOnDateDto.class)))
+				.thenAnswer(invocation -> {
+					loading.countDown();
+					release.await(5, TimeUnit.SECONDS);
+					return flights;
+				});
+
+		Future<List<FlightAvailDto>> first = executor
+				.submit(() -> flightAvailCoalescer.getFlightsBetweenCityOnDate(route("Chennai", "Delhi")));
+		loading.await(5, TimeUnit.SECONDS);
+
+		// the identical search stops waiting once the timeout has passed
+		CompletionException exception = assertThrows(CompletionException.class,
+				() -> flightAvailCoalescer.getFlightsBetweenCityOnDate(route("Chennai", "Delhi")));
+		assertTrue(exception.getCause() instanceof TimeoutException);
+
+		// the load goes on for the first search
+		release.countDown();
+		assertSame(flights, first.get(5, TimeUnit.SECONDS));
+		verify(flightAvailService, times(1)).getFlightsBetweenCityOnDate(any(FlightsAvailableOnDateDto.class));
+
+	}
+
+	private FlightsAvailableOnDateDto route(String originCity, String destinationCity) {
+		FlightsAvailableOnDateDto search = new FlightsAvailableOnDateDto();
+		search.setOriginCity(originCity);
+		search.setDestinationCity(destinationCity);
+		search.setTravelOn(travelOn);
+		return search;
+	}
+
+}
@@ -0,0 +1,279 @@
+package com.ntt.airline.servicetest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.training.airline.dto.FlightAvailDto;
+import com.training.airline.dto.FlightSeatsDto;
+import com.training.airline.dto.FlightsAvailableDateRangeDto;
+import com.training.airline.dto.FlightsAvailableOnDateDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.model.City;
+import com.training.airline.model.Flight;
+import com.training.airline.model.FlightAvail;
+import com.training.airline.repository.CityRepository;
+import com.training.airline.repository.FlightAvailRepository;
+import com.training.airline.repository.FlightRepository;
+import com.training.airline.service.CityCache;
+import com.training.airline.service.FlightAvailService;
+import com.training.airline.service.RangeSearchExecutor;
+import com.training.airline.service.RouteIndex;
+import com.training.airline.service.SeatAvailabilityLedger;
+import com.training.airline.utility.DtoConverter;
+
+public class FlightAvailServiceTest {
+
+	private static final int FLIGHTS_ON_ROUTE = 60;
+
+	private final Date travelOn = Date.valueOf("2022-07-01");
+
+	private final Date endDate = Date.valueOf("2022-07-30");
+
+	private FlightAvailRepository flightAvailRepository;
+
+	private FlightRepository flightRepository;
+
+	private CityRepository cityRepository;
+
+	private RouteIndex routeIndex;
+
+	private FlightAvailService flightAvailService;
+
+	private SeatAvailabilityLedger seatAvailabilityLedger;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+
+		City chennai = city(1, "Chennai");
+		City delhi = city(2, "Delhi");
+		City mumbai = city(3, "Mumbai");
+
+		List<Flight> flights = new ArrayList<>();
+		for (int i = 0; i < FLIGHTS_ON_ROUTE; i++) {
+			Flight flight = new Flight("A" + i, Time.valueOf("06:00:00"), Time.valueOf("08:30:00"));
+			flight.setOriginCity(chennai);
+			flight.setDestinationCity(delhi);
+			flights.add(flight);
+		}
+
+		cityRepository = mock(CityRepository.class);
+		when(cityRepository.getAllCityDtosRepository()).thenReturn(List.of(DtoConverter.cityToCityDto(chennai),
+				DtoConverter.cityToCityDto(delhi), DtoConverter.cityToCityDto(mumbai)));
+
+		flightRepository = mock(FlightRepository.class);
+		when(flightRepository.getAllFlightsRepository()).thenReturn(flights);
+
+		flightAvailRepository = mock(FlightAvailRepository.class);
+
+		CityCache cityCache = new CityCache();
+		ReflectionTestUtils.setField(cityCache, "cityRepository", cityRepository);
+		cityCache.getAllCities();
+
+		routeIndex = new RouteIndex();
+		ReflectionTestUtils.setField(routeIndex, "flightRepository", flightRepository);
+		ReflectionTestUtils.setField(routeIndex, "transactionManager", mock(PlatformTransactionManager.class));
+		routeIndex.refresh();
+
+		flightAvailService = new FlightAvailService();
+		ReflectionTestUtils.setField(flightAvailService, "flightAvailRepository", flightAvailRepository);
+		ReflectionTestUtils.setField(flightAvailService, "cityCache", cityCache);
+		ReflectionTestUtils.setField(flightAvailService, "routeIndex", routeIndex);
+		seatAvailabilityLedger = new SeatAvailabilityLedger();
+		ReflectionTestUtils.setField(seatAvailabilityLedger, "flightAvailRepository", flightAvailRepository);
+		ReflectionTestUtils.setField(flightAvailService, "seatAvailabilityLedger", seatAvailabilityLedger);
+		ReflectionTestUtils.setField(flightAvailService, "rangeSearchExecutor", new RangeSearchExecutor());
+
+	}
+
+	@Test
+	public void getFlightsBetweenCityOnDateUsesOneQueryTest() throws Exception {
+
+		List<FlightSeatsDto> rows = new ArrayList<>();
+		for (int i = 0; i < FLIGHTS_ON_ROUTE; i++) {
+			rows.add(new FlightSeatsDto("A" + i, travelOn, 100, 5000f));
+		}
+		when(flightAvailRepository.getSeatsAvailableOnRouteRepository(1, 2, travelOn)).thenReturn(rows);
+
+		List<FlightAvailDto> flightAvailDtos = flightAvailService
+				.getFlightsBetweenCityOnDate(new FlightsAvailableOnDateDto(null, "Chennai", "Delhi", travelOn));
+
+		assertEquals(FLIGHTS_ON_ROUTE, flightAvailDtos.size());
+		assertEquals("Chennai", flightAvailDtos.get(0).getFlight().getOriginCity().getCityName());
+		assertSame(routeIndex.getFlight("A7"), flightAvailDtos.get(7).getFlight());
+
+		// the cities and the flights come from memory, only the seats are read from the
+		// database, in one query whatever the number of flights on the route
+		verify(flightAvailRepository, times(1)).getSeatsAvailableOnRouteRepository(1, 2, travelOn);
+		verify(flightAvailRepository, never()).getFlightsAvailableRepository(anyString(), any(Date.class));
+		verify(cityRepository, never()).getCityDtoByNameRepository(anyString());
+		verify(flightRepository, times(1)).getAllFlightsRepository();
+
+	}
+
+	@Test
+	public void getFlightsBetweenCityOnDateWithFlightNotIndexedTest() throws Exception {
+
+		// B1 was added after the route index was built, and B2 is not found at all
+		Flight added = new Flight("B1", Time.valueOf("09:00:00"), Time.valueOf("11:30:00"));
+		added.setOriginCity(city(1, "Chennai"));
+		added.setDestinationCity(city(2, "Delhi"));
+		FlightAvail addedAvail = new FlightAvail(travelOn, 80, 4000f);
+		addedAvail.setFlight(added);
+		when(flightAvailRepository.getFlightsAvailableRepository("B1", travelOn)).thenReturn(addedAvail);
+		when(flightAvailRepository.getSeatsAvailableOnRouteRepository(1, 2, travelOn))
+				.thenReturn(List.of(new FlightSeatsDto("A0", travelOn, 100, 5000f),
+						new FlightSeatsDto("B1", travelOn, 80, 4000f), new FlightSeatsDto("B2", travelOn, 50, 3000f)));
+
+		List<FlightAvailDto> flightAvailDtos = flightAvailService
+				.getFlightsBetweenCityOnDate(new FlightsAvailableOnDateDto(null, "Chennai", "Delhi", travelOn));
+
+		// the flight not in the route index is loaded with its cities, and the flight
+		// not found is left out instead of being returned without a flight
+		assertEquals(2, flightAvailDtos.size());
+		assertSame(routeIndex.getFlight("A0"), flightAvailDtos.get(0).getFlight());
+		assertEquals("B1", flightAvailDtos.get(1).getFlight().getFlightId());
+		assertEquals("Delhi", flightAvailDtos.get(1).getFlight().getDestinationCity().getCityName());
+		verify(flightAvailRepository, never()).getFlightsAvailableRepository("A0", travelOn);
+
+	}
+
+	@Test
+	public void getFlightsBetweenCityOnDateWithLedgerTest() throws Exception {
+
+		// the ledger holds A1, which has sold seats not yet flushed to the database
+		ReflectionTestUtils.setField(seatAvailabilityLedger, "enabled", true);
+		when(flightAvailRepository.loadFlightSeatsRepository("A1", travelOn))
+				.thenReturn(new FlightSeatsDto("A1", travelOn, 100, 5000f));
+		seatAvailabilityLedger.tryReserve("A1", travelOn, 60);
+		when(flightAvailRepository.getSeatsAvailableOnRouteRepository(1, 2, travelOn)).thenReturn(
+				List.of(new FlightSeatsDto("A0", travelOn, 100, 5000f), new FlightSeatsDto("A1", travelOn, 100, 5000f)));
+
+		List<FlightAvailDto> flightAvailDtos = flightAvailService
+				.getFlightsBetweenCityOnDate(new FlightsAvailableOnDateDto(null, "Chennai", "Delhi", travelOn));
+
+		// the seats of the flight held in the ledger are taken from it
+		assertEquals(100, flightAvailDtos.get(0).getSeats());
+		assertEquals(40, flightAvailDtos.get(1).getSeats());
+
+	}
+
+	@Test
+	public void getFlightsBetweenCityOnDateWithoutRouteTest() throws Exception {
+
+		AirlineServiceException exception = assertThrows(AirlineServiceException.class,
+				() -> flightAvailService.getFlightsBetweenCityOnDate(
+						new FlightsAvailableOnDateDto(null, "Delhi", "Mumbai", travelOn)));
+
+		assertEquals("An exception has occurred:: There are no flights between the given cities",
+				exception.getMessage());
+		verify(flightAvailRepository, never()).getSeatsAvailableOnRouteRepository(anyInt(), anyInt(),
+				any(Date.class));
+
+		// the route is looked up in the database, and the index is not refreshed since
+		// it has no flights there either
+		verify(flightRepository).countFlightsByRouteRepository(2, 3);
+		verify(flightRepository, times(1)).getAllFlightsRepository();
+
+		// the route is remembered as empty, and a second search does not look it up
+		// again
+		assertThrows(AirlineServiceException.class, () -> flightAvailService
+				.getFlightsBetweenCityOnDate(new FlightsAvailableOnDateDto(null, "Delhi", "Mumbai", travelOn)));
+		verify(flightRepository, times(1)).countFlightsByRouteRepository(2, 3);
+
+	}
+
+	@Test
+	public void getFlightsBetweenCityOnDateWithRouteNotIndexedTest() throws Exception {
+
+		// C1 is the first flight from Delhi to Mumbai, added after the route index was
+		// built
+		Flight added = new Flight("C1", Time.valueOf("10:00:00"), Time.valueOf("12:00:00"));
+		added.setOriginCity(city(2, "Delhi"));
+		added.setDestinationCity(city(3, "Mumbai"));
+		List<Flight> flights = new ArrayList<>(flightRepository.getAllFlightsRepository());
+		flights.add(added);
+		when(flightRepository.getAllFlightsRepository()).thenReturn(flights);
+		when(flightRepository.countFlightsByRouteRepository(2, 3)).thenReturn(1L);
+		when(flightAvailRepository.getSeatsAvailableOnRouteRepository(2, 3, travelOn))
+				.thenReturn(List.of(new FlightSeatsDto("C1", travelOn, 90, 4500f)));
+
+		List<FlightAvailDto> flightAvailDtos = flightAvailService
+				.getFlightsBetweenCityOnDate(new FlightsAvailableOnDateDto(null, "Delhi", "Mumbai", travelOn));
+
+		// the route index is refreshed, and the flight is taken from it
+		assertEquals(1, flightAvailDtos.size());
+		assertSame(routeIndex.getFlight("C1"), flightAvailDtos.get(0).getFlight());
+		assertEquals(1, routeIndex.getFlights(2, 3).size());
+
+	}
+
+	@Test
+	public void getFlightsBetweenDateRangeForCitiesPagedTest() throws Exception {
+
+		List<FlightSeatsDto> rows = new ArrayList<>();
+		rows.add(new FlightSeatsDto("A1", travelOn, 100, 5000f));
+		when(flightAvailRepository.getSeatsAvailableOnRouteDateRangeRepository(anyInt(), anyInt(), any(Date.class),
+				any(Date.class), any(Pageable.class))).thenReturn(rows);
+
+		FlightsAvailableDateRangeDto paged = new FlightsAvailableDateRangeDto(null, "Chennai", "Delhi", travelOn,
+				endDate);
+		paged.setPageNumber(1);
+		paged.setPageSize(20);
+		assertEquals(1, flightAvailService.getFlightsBetweenDateRangeForCitiesService(paged).size());
+
+		FlightsAvailableDateRangeDto unpaged = new FlightsAvailableDateRangeDto(null, "Chennai", "Delhi", travelOn,
+				endDate);
+		assertEquals(1, flightAvailService.getFlightsBetweenDateRangeForCitiesService(unpaged).size());
+
+		// the whole range is one query per search, paged only when a page size is given
+		verify(flightAvailRepository).getSeatsAvailableOnRouteDateRangeRepository(1, 2, travelOn, endDate,
+				PageRequest.of(1, 20));
+		verify(flightAvailRepository).getSeatsAvailableOnRouteDateRangeRepository(1, 2, travelOn, endDate,
+				Pageable.unpaged());
+		verify(flightAvailRepository, never()).getFlightsAvailableOnDateRangeRepository(anyString(), any(Date.class),
+				any(Date.class));
+
+	}
+
+	@Test
+	public void getFlightsBetweenDateRangeForCitiesInvalidPageSizeTest() throws Exception {
+
+		FlightsAvailableDateRangeDto dto = new FlightsAvailableDateRangeDto(null, "Chennai", "Delhi", travelOn,
+				endDate);
+		dto.setPageSize(0);
+
+		assertThrows(AirlineServiceException.class,
+				() -> flightAvailService.getFlightsBetweenDateRangeForCitiesService(dto));
+		verify(flightAvailRepository, never()).getSeatsAvailableOnRouteDateRangeRepository(anyInt(), anyInt(),
+				any(Date.class), any(Date.class), any(Pageable.class));
+
+	}
+
+	private static City city(Integer cityId, String cityName) {
+		City city = new City(cityName, "India", cityName.substring(0, 3).toUpperCase());
+		city.setCityId(cityId);
+		return city;
+	}
+
+}
@@ -0,0 +1,271 @@
+package com.ntt.airline.servicetest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.training.airline.dto.FlightSeatsDto;
+import com.training.airline.dto.ItineraryDto;
+import com.training.airline.dto.ItinerarySearchDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.model.City;
+import com.training.airline.model.Flight;
+import com.training.airline.repository.CityRepository;
+import com.training.airline.repository.FlightAvailRepository;
+import com.training.airline.repository.FlightRepository;
+import com.training.airline.service.CityCache;
+import com.training.airline.service.ItineraryService;
+import com.training.airline.service.RouteIndex;
+import com.training.airline.service.SeatAvailabilityLedger;
+import com.training.airline.utility.DtoConverter;
+
+public class ItineraryServiceTest {
+
+	private final Date travelOn = Date.valueOf("2022-07-01");
+
+	private final Date nextDay = Date.valueOf("2022-07-02");
+
+	private final List<City> cities = new ArrayList<>();
+
+	private final List<Flight> flights = new ArrayList<>();
+
+	private final Map<String, Integer> seats = new HashMap<>();
+
+	private FlightAvailRepository flightAvailRepository;
+
+	private ItineraryService itineraryService;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+
+		City chennai = city(1, "Chennai");
+		City mumbai = city(2, "Mumbai");
+		City delhi = city(3, "Delhi");
+		City kolkata = city(4, "Kolkata");
+		city(5, "Goa");
+
+		// no direct flight from Chennai to Delhi
+		flight("CM1", chennai, mumbai, "06:00:00", "08:00:00");
+		flight("MD1", mumbai, delhi, "08:30:00", "10:30:00");
+		flight("MD2", mumbai, delhi, "09:30:00", "11:30:00");
+		flight("MD3", mumbai, delhi, "05:00:00", "07:00:00");
+		flight("CK1", chennai, kolkata, "07:00:00", "09:00:00");
+		flight("KM1", kolkata, mumbai, "10:00:00", "12:00:00");
+		flight("KD1", kolkata, delhi, "20:00:00", "01:00:00");
+		flight("MC1", mumbai, chennai, "09:00:00", "11:00:00");
+
+		build();
+
+	}
+
+	private void build() throws Exception {
+
+		CityRepository cityRepository = mock(CityRepository.class);
+		when(cityRepository.getAllCityDtosRepository()).thenAnswer(
+				invocation -> cities.stream().map(DtoConverter::cityToCityDto).collect(Collectors.toList()));
+		CityCache cityCache = new CityCache();
+		ReflectionTestUtils.setField(cityCache, "cityRepository", cityRepository);
+		ReflectionTestUtils.setField(cityCache, "maxSize", cities.size());
+		cityCache.getAllCities();
+
+		FlightRepository flightRepository = mock(FlightRepository.class);
+		when(flightRepository.getAllFlightsRepository()).thenReturn(flights);
+		RouteIndex routeIndex = new RouteIndex();
+		ReflectionTestUtils.setField(routeIndex, "flightRepository", flightRepository);
+		ReflectionTestUtils.setField(routeIndex, "transactionManager", mock(PlatformTransactionManager.class));
+		routeIndex.refresh();
+
+		// every flight has 10 seats on both days, unless set otherwise
+		flightAvailRepository = mock(FlightAvailRepository.class);
+		when(flightAvailRepository.getSeatsAvailableForFlightsRepository(anyCollection(), any(Date.class),
+				any(Date.class))).thenAnswer(invocation -> {
+					List<FlightSeatsDto> rows = new ArrayList<>();
+					for (String flightId : invocation.<Collection<String>>getArgument(0)) {
+						for (Date date : List.of(travelOn, nextDay)) {
+							rows.add(new FlightSeatsDto(flightId, date, seats.getOrDefault(flightId + "/" + date, 10),
+									1000f));
+						}
+					}
+					return rows;
+				});
+
+		itineraryService = new ItineraryService();
+		ReflectionTestUtils.setField(itineraryService, "flightAvailRepository", flightAvailRepository);
+		ReflectionTestUtils.setField(itineraryService, "cityCache", cityCache);
+		ReflectionTestUtils.setField(itineraryService, "routeIndex", routeIndex);
+		ReflectionTestUtils.setField(itineraryService, "seatAvailabilityLedger", new SeatAvailabilityLedger());
+		ReflectionTestUtils.setField(itineraryService, "maxConnectionMinutes", 24 * 60);
+
+	}
+
+	@Test
+	public void getItinerariesEarliestArrivalFirstTest() throws Exception {
+
+		List<ItineraryDto> itineraries = itineraryService
+				.getItinerariesService(new ItinerarySearchDto("Chennai", "Delhi", travelOn));
+
+		// MD1 leaves 30 minutes after CM1 arrives, which is less than the minimum
+		// connection time, MD3 is taken on the next day, and the fewest stops come
+		// first for the same arrival
+		assertEquals(List.of("CM1>MD2", "CK1>KD1", "CM1>MD3", "CK1>KM1>MD3", "CK1>KM1>MD1", "CK1>KM1>MD2"),
+				flightIds(itineraries));
+
+		ItineraryDto first = itineraries.get(0);
+		assertEquals(1, first.getStops());
+		assertEquals(330L, first.getTravelMinutes());
+		assertEquals(2000f, first.getTotalCost());
+		assertEquals(travelOn, first.getFlights().get(1).getFlightDate());
+
+		// the overnight flight arrives on the next day
+		assertEquals(18 * 60L, itineraries.get(1).getTravelMinutes());
+
+		// the legs flown on the next day are checked on the next day
+		assertEquals(travelOn, itineraries.get(3).getFlights().get(1).getFlightDate());
+		assertEquals(nextDay, itineraries.get(3).getFlights().get(2).getFlightDate());
+
+		// the seats of every leg of every itinerary are read in one query
+		verify(flightAvailRepository, times(1)).getSeatsAvailableForFlightsRepository(anyCollection(),
+				any(Date.class), any(Date.class));
+		verify(flightAvailRepository).getSeatsAvailableForFlightsRepository(anyCollection(), eq(travelOn),
+				eq(nextDay));
+
+	}
+
+	@Test
+	public void getItinerariesWithoutSeatsOnALegTest() throws Exception {
+
+		seats.put("MD2/" + travelOn, 1);
+
+		ItinerarySearchDto search = new ItinerarySearchDto("Chennai", "Delhi", travelOn);
+		search.setSeats(2);
+		search.setMaxStops(1);
+
+		// the itinerary with a full leg is left out, and two stops are not searched
+		assertEquals(List.of("CK1>KD1", "CM1>MD3"), flightIds(itineraryService.getItinerariesService(search)));
+
+	}
+
+	@Test
+	public void getItinerariesSearchedAgainWhenCandidatesAreFullTest() throws Exception {
+
+		ReflectionTestUtils.setField(itineraryService, "maxCandidates", 2);
+		seats.put("MD2/" + travelOn, 0);
+
+		// the first two itineraries leave only one with seats, so the search is run
+		// again past MD2 on the travel date, which is still taken on the next day
+		List<ItineraryDto> itineraries = itineraryService
+				.getItinerariesService(new ItinerarySearchDto("Chennai", "Delhi", travelOn));
+		assertEquals(List.of("CK1>KD1", "CM1>MD3", "CK1>KM1>MD3", "CK1>KM1>MD1", "CK1>KM1>MD2"),
+				flightIds(itineraries));
+		verify(flightAvailRepository, times(2)).getSeatsAvailableForFlightsRepository(anyCollection(),
+				any(Date.class), any(Date.class));
+
+	}
+
+	@Test
+	public void getItinerariesDirectOnlyTest() throws Exception {
+
+		ItinerarySearchDto search = new ItinerarySearchDto("Chennai", "Delhi", travelOn);
+		search.setMaxStops(0);
+
+		assertThrows(AirlineServiceException.class, () -> itineraryService.getItinerariesService(search));
+		verify(flightAvailRepository, never()).getSeatsAvailableForFlightsRepository(anyCollection(),
+				any(Date.class), any(Date.class));
+
+		assertEquals(List.of("CM1"),
+				flightIds(itineraryService.getItinerariesService(new ItinerarySearchDto("Chennai", "Mumbai", travelOn))
+						.subList(0, 1)));
+
+	}
+
+	@Test
+	public void getItinerariesWithoutRouteTest() throws Exception {
+
+		AirlineServiceException exception = assertThrows(AirlineServiceException.class,
+				() -> itineraryService.getItinerariesService(new ItinerarySearchDto("Chennai", "Goa", travelOn)));
+
+		assertEquals("An exception has occurred:: There are no flights between the given cities",
+				exception.getMessage());
+		verify(flightAvailRepository, never()).getSeatsAvailableForFlightsRepository(anyCollection(),
+				any(Date.class), any(Date.class));
+
+	}
+
+	@Test
+	public void getItinerariesOnLargeNetworkTest() throws Exception {
+
+		// a hub and spoke network of 2000 cities, every spoke flying to and from the
+		// hub every two hours
+		cities.clear();
+		flights.clear();
+		City hub = city(1, "Hub");
+		for (int i = 2; i <= 2000; i++) {
+			City spoke = city(i, "Spoke" + i);
+			for (int hour = 0; hour < 24; hour += 2) {
+				flight("I" + i + "-" + hour, spoke, hub, time(hour, 0), time(hour + 1, 0));
+				flight("O" + i + "-" + hour, hub, spoke, time(hour + 1, 30), time(hour + 2, 30));
+			}
+		}
+		build();
+
+		List<ItineraryDto> itineraries = itineraryService
+				.getItinerariesService(new ItinerarySearchDto("Spoke2", "Spoke2000", travelOn));
+
+		assertEquals(10, itineraries.size());
+		assertEquals(List.of("I2-0>O2000-2", "I2-2>O2000-4"), flightIds(itineraries).subList(0, 2));
+		assertTrue(itineraries.stream().allMatch(itinerary -> itinerary.getStops() == 1));
+
+	}
+
+	private List<String> flightIds(List<ItineraryDto> itineraries) {
+		List<String> flightIds = new ArrayList<>();
+		for (ItineraryDto itinerary : itineraries) {
+			StringBuilder builder = new StringBuilder();
+			itinerary.getFlights().forEach(flight -> builder.append(builder.length() == 0 ? "" : ">")
+					.append(flight.getFlight().getFlightId()));
+			flightIds.add(builder.toString());
+		}
+		return flightIds;
+	}
+
+	private void flight(String flightId, City origin, City destination, String departure, String arrival) {
+		Flight flight = new Flight(flightId, Time.valueOf(departure), Time.valueOf(arrival));
+		flight.setOriginCity(origin);
+		flight.setDestinationCity(destination);
+		flights.add(flight);
+	}
+
+	private static String time(int hour, int minute) {
+		return String.format("%02d:%02d:00", hour % 24, minute);
+	}
+
+	private City city(Integer cityId, String cityName) {
+		City city = new City(cityName, "India", cityName.substring(0, 3).toUpperCase());
+		city.setCityId(cityId);
+		cities.add(city);
+		return city;
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.ntt.airline.servicetest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.training.airline.service.QueryCounter;
+import com.training.airline.service.QueryCounter.RequestQueries;
+
+public class QueryCounterTest {
+
+	private static final String PASSENGER_SELECT = "select * from alr_passengers where reference_id=?";
+
+	private QueryCounter queryCounter;
+
+	@BeforeEach
+	public void setUp() {
+		queryCounter = new QueryCounter();
+		ReflectionTestUtils.setField(queryCounter, "budget", 3);
+		ReflectionTestUtils.setField(queryCounter, "repeatThreshold", 2);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		QueryCounter.restore(null);
+	}
+
+	@Test
+	public void statementsAreCountedForTheRequestOfTheThreadTest() throws Exception {
+
+		// a statement outside of a request is not counted
+		queryCounter.inspect("select * from alr_cities");
+
+		RequestQueries queries = queryCounter.start();
+		QueryCounter.attach(queries);
+		queryCounter.inspect("select * from alr_user where user_id=?");
+
+		// a search on another thread counts for the request which submitted it
+		CompletableFuture.supplyAsync(QueryCounter.propagate(() -> {
+			queryCounter.inspect(PASSENGER_SELECT);
+			return queryCounter.inspect(PASSENGER_SELECT);
+		})).get(5, TimeUnit.SECONDS);
+		CompletableFuture.runAsync(() -> queryCounter.inspect(PASSENGER_SELECT)).get(5, TimeUnit.SECONDS);
+
+		assertEquals(3, queries.getStatements());
+		assertEquals(Map.entry(PASSENGER_SELECT, 2L), queries.getMostRepeated());
+
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void requestsAreAddedToTheHistogramOfTheirEndpointTest() {
+
+		// a request within the budget
+		RequestQueries queries = queryCounter.start();
+		QueryCounter.attach(queries);
+		queryCounter.inspect("select * from alr_bookings where user_id=?");
+		queryCounter.finish("POST /airline/getBookingForUser", queries);
+
+		// a request which loads the passengers of each booking one at a time
+		queries = queryCounter.start();
+		QueryCounter.attach(queries);
+		queryCounter.inspect("select * from alr_bookings where user_id=?");
+		for (int booking = 0; booking < 4; booking++) {
+			queryCounter.inspect(PASSENGER_SELECT);
+		}
+		queryCounter.finish("POST /airline/getBookingForUser", queries);
+
+		Map<String, Object> endpoints = (Map<String, Object>) queryCounter.getStatistics().get("endpoints");
+		Map<String, Object> statistics = (Map<String, Object>) endpoints.get("POST /airline/getBookingForUser");
+		assertEquals(2L, statistics.get("requests"));
+		assertEquals(6L, statistics.get("statements"));
+		assertEquals(5L, statistics.get("maxStatements"));
+		assertEquals(1L, statistics.get("overBudget"));
+		assertEquals(1L, statistics.get("repeatedStatements"));
+
+		Map<String, Long> histogram = (Map<String, Long>) statistics.get("histogram");
+		assertEquals(1L, histogram.get("1"));
+		assertEquals(1L, histogram.get("3-5"));
+		assertEquals(0L, histogram.get(">100"));
+
+		// the statistics start again after a reset
+		queryCounter.reset();
+		assertEquals(Map.of(), queryCounter.getStatistics().get("endpoints"));
+
+	}
+
+}
@@ -0,0 +1,241 @@
+package com.ntt.airline.servicetest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.service.RangeSearchExecutor;
+
+public class RangeSearchExecutorTest {
+
+	private RangeSearchExecutor rangeSearchExecutor;
+
+	private final Set<String> partThreads = ConcurrentHashMap.newKeySet();
+
+	@BeforeEach
+	public void setUp() {
+
+		rangeSearchExecutor = new RangeSearchExecutor();
+		ReflectionTestUtils.setField(rangeSearchExecutor, "transactionManager", mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(rangeSearchExecutor, "enabled", true);
+		ReflectionTestUtils.setField(rangeSearchExecutor, "threads", 2);
+		ReflectionTestUtils.setField(rangeSearchExecutor, "maxPerRequest", 3);
+		ReflectionTestUtils.setField(rangeSearchExecutor, "chunkDays", 7);
+		ReflectionTestUtils.setField(rangeSearchExecutor, "searchConcurrency", 2);
+		rangeSearchExecutor.init();
+
+	}
+
+	@AfterEach
+	public void tearDown() {
+		rangeSearchExecutor.shutdown();
+	}
+
+	@Test
+	public void shortRangeIsSearchedOnceTest() {
+
+		List<Date> days = rangeSearchExecutor.search(date("2022-07-01"), date("2022-07-07"), this::daysBetween);
+
+		assertEquals(7, days.size());
+		assertEquals(1, partThreads.size());
+		assertEquals(0L, rangeSearchExecutor.getStatistics().get("splitSearches"));
+
+	}
+
+	@Test
+	public void longRangeIsSplitAndJoinedInOrderTest() {
+
+		// sixty days are split into no more than three parts of twenty days
+		List<Date> days = rangeSearchExecutor.search(date("2022-07-01"), date("2022-08-29"), this::daysBetween);
+
+		assertEquals(daysBetween(date("2022-07-01"), date("2022-08-29")), days);
+		assertEquals(1L, rangeSearchExecutor.getStatistics().get("splitSearches"));
+		assertEquals(3L, rangeSearchExecutor.getStatistics().get("parts"));
+
+	}
+
+	@Test
+	public void partsBeyondTheConnectionBudgetRunOnTheRequestThreadTest() {
+
+		// a pool of four connections leaves one connection to the parts of three
+		// searches
+		rangeSearchExecutor.shutdown();
+		ReflectionTestUtils.setField(rangeSearchExecutor, "maximumPoolSize", 4);
+		ReflectionTestUtils.setField(rangeSearchExecutor, "searchConcurrency", 3);
+		rangeSearchExecutor.init();
+
+		// the part on the executor keeps its connection until the first part has run,
+		// so that the third part finds the budget used up
+		CountDownLatch firstPartRun = new CountDownLatch(1);
+		List<Date> days = rangeSearchExecutor.search(date("2022-07-01"), date("2022-08-29"), (first, last) -> {
+			try {
+				if (Thread.currentThread().getName().startsWith("airline-range-search")) {
+					firstPartRun.await();
+				}
+				return daysBetween(first, last);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			} finally {
+				if (first.equals(date("2022-07-01"))) {
+					firstPartRun.countDown();
+				}
+			}
+		});
+
+		assertEquals(daysBetween(date("2022-07-01"), date("2022-08-29")), days);
+		assertEquals(1L, rangeSearchExecutor.getStatistics().get("partsOnRequestThread"));
+		assertEquals(1L, rangeSearchExecutor.getStatistics().get("spareConnections"));
+
+	}
+
+	@Test
+	public void rangeIsNotSplitWhenThePoolIsTooSmallTest() {
+
+		rangeSearchExecutor.shutdown();
+		rangeSearchExecutor = new RangeSearchExecutor();
+		ReflectionTestUtils.setField(rangeSearchExecutor, "enabled", true);
+		ReflectionTestUtils.setField(rangeSearchExecutor, "maximumPoolSize", 32);
+		ReflectionTestUtils.setField(rangeSearchExecutor, "searchConcurrency", 32);
+		rangeSearchExecutor.init();
+
+		List<Date> days = rangeSearchExecutor.search(date("2022-07-01"), date("2022-08-29"), this::daysBetween);
+
+		assertEquals(60, days.size());
+		assertEquals(1, partThreads.size());
+		assertEquals(0L, rangeSearchExecutor.getStatistics().get("splitSearches"));
+
+	}
+
+	@Test
+	public void partsNeverWaitForTheConnectionsOfTheSearchesTest() throws Exception {
+
+		// a pool of eight connections, which fails a transaction waiting for longer
+		// than a second, shared by seven searches each holding a connection
+		Semaphore pool = new Semaphore(8);
+		PlatformTransactionManager transactionManager = new PlatformTransactionManager() {
+
+			@Override
+			public TransactionStatus getTransaction(TransactionDefinition definition) {
+				try {
+					if (!pool.tryAcquire(1, TimeUnit.SECONDS)) {
+						throw new CannotCreateTransactionException("Connection is not available");
+					}
+				} catch (InterruptedException e) {
+					throw new CannotCreateTransactionException("Interrupted", e);
+				}
+				return new SimpleTransactionStatus();
+			}
+
+			@Override
+			public void commit(TransactionStatus status) {
+				pool.release();
+			}
+
+			@Override
+			public void rollback(TransactionStatus status) {
+				pool.release();
+			}
+
+		};
+		rangeSearchExecutor.shutdown();
+		ReflectionTestUtils.setField(rangeSearchExecutor, "transactionManager", transactionManager);
+		ReflectionTestUtils.setField(rangeSearchExecutor, "maximumPoolSize", 8);
+		ReflectionTestUtils.setField(rangeSearchExecutor, "searchConcurrency", 7);
+		ReflectionTestUtils.setField(rangeSearchExecutor, "threads", 4);
+		rangeSearchExecutor.init();
+
+		// all the searches take their connection before any of them splits its range,
+		// and the parts keep theirs for a while, so that the pool is as full as it can
+		// be
+		CyclicBarrier searching = new CyclicBarrier(7);
+		ExecutorService searches = Executors.newFixedThreadPool(7);
+		try {
+			List<Future<List<Date>>> results = new ArrayList<>();
+			for (int i = 0; i < 7; i++) {
+				results.add(searches.submit(() -> {
+					TransactionStatus status = transactionManager.getTransaction(null);
+					try {
+						searching.await(5, TimeUnit.SECONDS);
+						return rangeSearchExecutor.search(date("2022-07-01"), date("2022-08-29"), (first, last) -> {
+							try {
+								Thread.sleep(100);
+							} catch (InterruptedException e) {
+								throw new IllegalStateException(e);
+							}
+							return daysBetween(first, last);
+						});
+					} finally {
+						transactionManager.commit(status);
+					}
+				}));
+			}
+			for (Future<List<Date>> result : results) {
+				assertEquals(daysBetween(date("2022-07-01"), date("2022-08-29")), result.get(10, TimeUnit.SECONDS));
+			}
+		} finally {
+			searches.shutdownNow();
+		}
+
+		// the parts took no more than the connection left by the searches, and the
+		// other parts ran on the threads of their searches
+		assertEquals(1L, rangeSearchExecutor.getStatistics().get("spareConnections"));
+		assertEquals(7L, rangeSearchExecutor.getStatistics().get("splitSearches"));
+		assertEquals(8, pool.availablePermits());
+
+	}
+
+	@Test
+	public void exceptionOfAPartIsThrownTest() {
+
+		assertThrows(AirlineServiceException.class,
+				() -> rangeSearchExecutor.search(date("2022-07-01"), date("2022-07-20"), (first, last) -> {
+					if (!first.equals(date("2022-07-01"))) {
+						throw new AirlineServiceException("Search failed...");
+					}
+					return Collections.emptyList();
+				}));
+
+	}
+
+	private List<Date> daysBetween(Date first, Date last) {
+
+		partThreads.add(Thread.currentThread().getName());
+		List<Date> days = new ArrayList<>();
+		for (LocalDate day = first.toLocalDate(); !day.isAfter(last.toLocalDate()); day = day.plusDays(1)) {
+			days.add(Date.valueOf(day));
+		}
+		return days;
+
+	}
+
+	private static Date date(String date) {
+		return Date.valueOf(date);
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.ntt.airline.servicetest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.training.airline.service.SearchExecutor;
+
+public class SearchExecutorTest {
+
+	private SearchExecutor searchExecutor;
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@BeforeEach
+	public void setUp() {
+
+		searchExecutor = new SearchExecutor();
+		ReflectionTestUtils.setField(searchExecutor, "concurrency", 2);
+		ReflectionTestUtils.setField(searchExecutor, "queueCapacity", 3);
+		searchExecutor.init();
+
+	}
+
+	@AfterEach
+	public void tearDown() {
+		release.countDown();
+		searchExecutor.shutdown();
+	}
+
+	@Test
+	public void searchesBeyondTheQueueAreRejectedTest() throws Exception {
+
+		// two searches run, three wait, and the sixth is rejected
+		List<CompletableFuture<String>> results = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			results.add(searchExecutor.submit(() -> {
+				await();
+				return "jsonTemplate";
+			}));
+		}
+
+		ExecutionException exception = assertThrows(ExecutionException.class, () -> results.get(5).get());
+		assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+		while (searchExecutor.getStatistics().get("running") < 2) {
+			Thread.sleep(1);
+		}
+		assertEquals(3L, searchExecutor.getStatistics().get("queued"));
+		assertEquals(1L, searchExecutor.getStatistics().get("rejected"));
+
+		release.countDown();
+		for (CompletableFuture<String> result : results.subList(0, 5)) {
+			assertEquals("jsonTemplate", result.get(5, TimeUnit.SECONDS));
+		}
+
+		// a search is accepted again once the queue has room
+		assertEquals("jsonTemplate", searchExecutor.submit(() -> "jsonTemplate").get(5, TimeUnit.SECONDS));
+		assertEquals(3L, searchExecutor.getStatistics().get("largestQueued"));
+
+	}
+
+	@Test
+	public void slowSearchTimesOutTest() throws Exception {
+
+		ReflectionTestUtils.setField(searchExecutor, "timeoutMillis", 50L);
+
+		CompletableFuture<String> result = searchExecutor.submit(() -> {
+			await();
+			return "jsonTemplate";
+		});
+
+		ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+		assertInstanceOf(TimeoutException.class, exception.getCause());
+		assertEquals(1L, searchExecutor.getStatistics().get("timedOut"));
+
+	}
+
+	private void await() {
+		try {
+			release.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,279 @@
+package com.ntt.airline.servicetest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.training.airline.dto.SeatHoldDto;
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.model.SeatHold;
+import com.training.airline.repository.SeatHoldRepository;
+import com.training.airline.service.SeatHoldService;
+import com.training.airline.service.SeatInventoryService;
+
+public class SeatHoldServiceTest {
+
+	private static final Integer USER_ID = 1;
+
+	private final Date travelOn = Date.valueOf("2022-07-01");
+
+	private SeatInventoryService seatInventoryService;
+
+	private SeatHoldRepository seatHoldRepository;
+
+	private SeatHoldService seatHoldService;
+
+	@BeforeEach
+	public void setUp() {
+
+		seatInventoryService = mock(SeatInventoryService.class);
+		seatHoldService = new SeatHoldService();
+		ReflectionTestUtils.setField(seatHoldService, "seatInventoryService", seatInventoryService);
+		seatHoldRepository = mock(SeatHoldRepository.class);
+		ReflectionTestUtils.setField(seatHoldService, "seatHoldRepository", seatHoldRepository);
+		ReflectionTestUtils.setField(seatHoldService, "transactionManager", mock(PlatformTransactionManager.class));
+
+	}
+
+	@Test
+	public void expireHoldsInBulkTest() throws Exception {
+
+		// holds that expire at once
+		ReflectionTestUtils.setField(seatHoldService, "ttlMillis", 0L);
+		for (int i = 0; i < 1000; i++) {
+			seatHoldService.placeHoldService(new SeatHoldDto(USER_ID, i % 2 == 0 ? "A1" : "A2", travelOn, 2));
+		}
+		verify(seatInventoryService, times(1000)).reserveSeats(anyString(), any(Date.class), anyInt());
+		verify(seatHoldRepository, times(1000)).save(any(SeatHold.class));
+
+		assertEquals(1000, seatHoldService.expireHolds());
+
+		// the seats are given back with one update for each flight and batch
+		verify(seatInventoryService, times(2)).releaseSeats("A1", travelOn, 500);
+		verify(seatInventoryService, times(2)).releaseSeats("A2", travelOn, 500);
+		assertEquals(0L, seatHoldService.getSeatHoldStatisticsService().get("activeHolds"));
+		assertEquals(2000L, seatHoldService.getSeatHoldStatisticsService().get("expiredSeats"));
+		assertEquals(2L, seatHoldService.getSeatHoldStatisticsService().get("expiryBatches"));
+		assertEquals(0, seatHoldService.expireHolds());
+
+	}
+
+	@Test
+	public void expireHoldsStopsWhenTheReleaseFailsTest() throws Exception {
+
+		ReflectionTestUtils.setField(seatHoldService, "ttlMillis", 0L);
+		ReflectionTestUtils.setField(seatHoldService, "expiryBatchSize", 10);
+		for (int i = 0; i < 30; i++) {
+			seatHoldService.placeHoldService(new SeatHoldDto(USER_ID, "A1", travelOn, 1));
+		}
+
+		// while the database fails, the sweep returns after the first batch, and the
+		// holds are still active
+		doThrow(new AirlineServiceException("The seats could not be updated..."))
+				.when(seatInventoryService).releaseSeats(anyString(), any(Date.class), anyInt());
+		assertEquals(0, assertTimeoutPreemptively(Duration.ofSeconds(5), () -> seatHoldService.expireHolds()));
+		verify(seatInventoryService, times(1)).releaseSeats(anyString(), any(Date.class), anyInt());
+		assertEquals(30L, seatHoldService.getSeatHoldStatisticsService().get("activeHolds"));
+
+		// once the database is back, the next sweep gives back all of them
+		doNothing().when(seatInventoryService).releaseSeats(anyString(), any(Date.class), anyInt());
+		assertEquals(30, seatHoldService.expireHolds());
+		assertEquals(0L, seatHoldService.getSeatHoldStatisticsService().get("activeHolds"));
+		assertEquals(30L, seatHoldService.getSeatHoldStatisticsService().get("expiredSeats"));
+
+	}
+
+	@Test
+	public void convertHoldTest() throws Exception {
+
+		SeatHoldDto hold = seatHoldService.placeHoldService(new SeatHoldDto(USER_ID, "A1", travelOn, 3));
+
+		// a hold of another flight or with fewer seats does not cover the booking
+		assertFalse(seatHoldService.convertHold(hold.getHoldId(), USER_ID, "A2", travelOn, 3));
+		assertFalse(seatHoldService.convertHold(hold.getHoldId(), USER_ID, "A1", travelOn, 4));
+
+		// the seats held and not booked are given back
+		assertTrue(seatHoldService.convertHold(hold.getHoldId(), USER_ID, "A1", travelOn, 2));
+		verify(seatInventoryService).releaseSeats("A1", travelOn, 1);
+		assertFalse(seatHoldService.convertHold(hold.getHoldId(), USER_ID, "A1", travelOn, 2));
+
+		// a converted hold cannot be released
+		assertEquals(1L, seatHoldService.getSeatHoldStatisticsService().get("convertedHolds"));
+		assertThrows(AirlineServiceException.class, () -> seatHoldService.releaseHoldService(hold));
+
+	}
+
+	@Test
+	public void holdOfAnotherUserIsNotConvertedOrReleasedTest() throws Exception {
+
+		SeatHoldDto hold = seatHoldService.placeHoldService(new SeatHoldDto(USER_ID, "A1", travelOn, 2));
+
+		// another user who knows the hold id can neither book it nor release it
+		assertFalse(seatHoldService.convertHold(hold.getHoldId(), 2, "A1", travelOn, 2));
+		SeatHoldDto releasedByOther = new SeatHoldDto(2, "A1", travelOn, 2);
+		releasedByOther.setHoldId(hold.getHoldId());
+		assertThrows(AirlineServiceException.class, () -> seatHoldService.releaseHoldService(releasedByOther));
+		verify(seatInventoryService, never()).releaseSeats(anyString(), any(Date.class), anyInt());
+		assertEquals(1L, seatHoldService.getSeatHoldStatisticsService().get("activeHolds"));
+
+		// the user who placed it can
+		seatHoldService.releaseHoldService(hold);
+		verify(seatInventoryService).releaseSeats("A1", travelOn, 2);
+		verify(seatHoldRepository).deleteSeatHoldsRepository(List.of(hold.getHoldId()));
+
+	}
+
+	@Test
+	public void holdsSavedBeforeACrashAreRestoredTest() throws Exception {
+
+		// one hold expired while the application was stopped, the other is still
+		// active
+		long now = System.currentTimeMillis();
+		when(seatHoldRepository.findAll()).thenReturn(List.of(
+				new SeatHold("expired", USER_ID, "A1", travelOn, 2, new Timestamp(now - 1000)),
+				new SeatHold("active", USER_ID, "A1", travelOn, 3, new Timestamp(now + 600000))));
+
+		assertEquals(2, seatHoldService.restoreHolds());
+		assertEquals(2L, seatHoldService.getSeatHoldStatisticsService().get("activeHolds"));
+
+		// the expired hold is given back and deleted by the next sweep
+		assertEquals(1, seatHoldService.expireHolds());
+		verify(seatInventoryService).releaseSeats("A1", travelOn, 2);
+		verify(seatHoldRepository).deleteSeatHoldsRepository(List.of("expired"));
+
+		// the active hold can still be booked
+		assertTrue(seatHoldService.convertHold("active", USER_ID, "A1", travelOn, 3));
+		verify(seatHoldRepository).deleteSeatHoldsRepository(List.of("active"));
+
+	}
+
+	@Test
+	public void convertHoldRolledBackTest() throws Exception {
+
+		SeatHoldDto hold = seatHoldService.placeHoldService(new SeatHoldDto(USER_ID, "A1", travelOn, 2));
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertTrue(seatHoldService.convertHold(hold.getHoldId(), USER_ID, "A1", travelOn, 2));
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+					.getSynchronizations()) {
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		// the hold is active again, and can be released
+		assertEquals(1L, seatHoldService.getSeatHoldStatisticsService().get("activeHolds"));
+		seatHoldService.releaseHoldService(hold);
+		verify(seatInventoryService).releaseSeats("A1", travelOn, 2);
+		assertEquals(0, seatHoldService.expireHolds());
+
+	}
+
+	@Test
+	public void placeHoldValidationTest() throws Exception {
+
+		ReflectionTestUtils.setField(seatHoldService, "maxActive", 1);
+		assertThrows(AirlineServiceException.class,
+				() -> seatHoldService.placeHoldService(new SeatHoldDto(USER_ID, "A1", travelOn, 0)));
+		seatHoldService.placeHoldService(new SeatHoldDto(USER_ID, "A1", travelOn, 1));
+		assertThrows(AirlineServiceException.class,
+				() -> seatHoldService.placeHoldService(new SeatHoldDto(USER_ID, "A1", travelOn, 1)));
+		verify(seatInventoryService, times(1)).reserveSeats(anyString(), any(Date.class), anyInt());
+		verify(seatInventoryService, never()).releaseSeats(anyString(), any(Date.class), anyInt());
+
+	}
+
+	@Test
+	public void placeHoldLimitUnderConcurrencyTest() throws Exception {
+
+		// the reservations wait until all the holds are being placed together
+		ReflectionTestUtils.setField(seatHoldService, "maxActive", 4);
+		CountDownLatch reserving = new CountDownLatch(1);
+		doAnswer(invocation -> reserving.await(5, TimeUnit.SECONDS)).when(seatInventoryService)
+				.reserveSeats(anyString(), any(Date.class), anyInt());
+
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			List<Future<SeatHoldDto>> placed = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				Callable<SeatHoldDto> placeHold = () -> seatHoldService
+						.placeHoldService(new SeatHoldDto(USER_ID, "A1", travelOn, 1));
+				placed.add(executor.submit(placeHold));
+			}
+			Thread.sleep(200);
+			reserving.countDown();
+
+			// only the largest number of active holds are placed
+			int holds = 0;
+			for (Future<SeatHoldDto> future : placed) {
+				try {
+					future.get(5, TimeUnit.SECONDS);
+					holds++;
+				} catch (ExecutionException e) {
+					assertTrue(e.getCause() instanceof AirlineServiceException);
+				}
+			}
+			assertEquals(4, holds);
+			verify(seatInventoryService, times(4)).reserveSeats(anyString(), any(Date.class), anyInt());
+			assertEquals(4L, seatHoldService.getSeatHoldStatisticsService().get("activeHolds"));
+		} finally {
+			executor.shutdownNow();
+		}
+
+	}
+
+	@Test
+	public void placeHoldReservationFailsTest() throws Exception {
+
+		// a hold whose seats are not reserved does not count towards the limit
+		ReflectionTestUtils.setField(seatHoldService, "maxActive", 1);
+		doThrow(new AirlineServiceException("Seats are not available..."))
+				.doNothing().when(seatInventoryService).reserveSeats(anyString(), any(Date.class), anyInt());
+		assertThrows(AirlineServiceException.class,
+				() -> seatHoldService.placeHoldService(new SeatHoldDto(USER_ID, "A1", travelOn, 1)));
+		assertEquals(0L, seatHoldService.getSeatHoldStatisticsService().get("activeHolds"));
+		SeatHoldDto hold = seatHoldService.placeHoldService(new SeatHoldDto(USER_ID, "A1", travelOn, 1));
+
+		// a released hold makes room for the next one
+		seatHoldService.releaseHoldService(hold);
+		seatHoldService.placeHoldService(new SeatHoldDto(USER_ID, "A1", travelOn, 1));
+		assertEquals(1L, seatHoldService.getSeatHoldStatisticsService().get("activeHolds"));
+
+	}
+
+}
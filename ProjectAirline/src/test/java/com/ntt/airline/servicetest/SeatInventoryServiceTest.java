@@ -0,0 +1,296 @@
+package com.ntt.airline.servicetest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.training.airline.exception.AirlineServiceException;
+import com.training.airline.model.City;
+import com.training.airline.model.Flight;
+import com.training.airline.model.FlightAvail;
+import com.training.airline.repository.FlightAvailRepository;
+import com.training.airline.service.FareCalendar;
+import com.training.airline.service.SeatAvailabilityLedger;
+import com.training.airline.service.SeatInventoryService;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+public class SeatInventoryServiceTest {
+
+	private static final int CAPACITY = 2_000;
+
+	private static final int THREADS = 8;
+
+	private static final int ATTEMPTS_PER_THREAD = 500;
+
+	private final Date travelOn = Date.valueOf("2022-07-01");
+
+	private AnnotationConfigApplicationContext context;
+
+	private TransactionTemplate transactionTemplate;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private SeatInventoryService seatInventoryService;
+
+	private SeatAvailabilityLedger seatAvailabilityLedger;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+
+		// the real repository, with its native conditional update, on an in-memory h2
+		// database
+		context = new AnnotationConfigApplicationContext(H2Config.class);
+		FlightAvailRepository flightAvailRepository = context.getBean(FlightAvailRepository.class);
+		PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+
+		// one flight with CAPACITY seats on the date
+		EntityManager entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+		entityManager.getTransaction().begin();
+		City chennai = new City("Chennai", "India", "MAA");
+		City delhi = new City("Delhi", "India", "DEL");
+		entityManager.persist(chennai);
+		entityManager.persist(delhi);
+		Flight flight = new Flight("A1", Time.valueOf("06:00:00"), Time.valueOf("08:30:00"));
+		flight.setOriginCity(chennai);
+		flight.setDestinationCity(delhi);
+		entityManager.persist(flight);
+		FlightAvail flightAvail = new FlightAvail(travelOn, CAPACITY, 100f);
+		flightAvail.setFlight(flight);
+		entityManager.persist(flightAvail);
+		entityManager.getTransaction().commit();
+		entityManager.close();
+
+		seatAvailabilityLedger = new SeatAvailabilityLedger();
+		ReflectionTestUtils.setField(seatAvailabilityLedger, "flightAvailRepository", flightAvailRepository);
+		ReflectionTestUtils.setField(seatAvailabilityLedger, "transactionManager", transactionManager);
+		ReflectionTestUtils.setField(seatAvailabilityLedger, "flushBatchSize", 100);
+
+		seatInventoryService = new SeatInventoryService();
+		ReflectionTestUtils.setField(seatInventoryService, "flightAvailRepository", flightAvailRepository);
+		ReflectionTestUtils.setField(seatInventoryService, "seatAvailabilityLedger", seatAvailabilityLedger);
+		ReflectionTestUtils.setField(seatInventoryService, "fareCalendar",
+				mock(FareCalendar.class, withSettings().stubOnly()));
+
+	}
+
+	@AfterEach
+	public void tearDown() {
+		context.close();
+	}
+
+	@Test
+	public void concurrentReservationsNeverOversellTest() throws Exception {
+
+		long booked = reserveConcurrently();
+
+		int seats = storedSeats();
+		assertTrue(seats >= 0);
+		assertEquals(CAPACITY - seats, booked);
+		assertEquals(booked, seatInventoryService.getReservedSeats());
+		assertTrue(seatInventoryService.getRejectedReservations() > 0);
+
+	}
+
+	@Test
+	public void concurrentReservationsNeverOversellWithLedgerTest() throws Exception {
+
+		ReflectionTestUtils.setField(seatAvailabilityLedger, "enabled", true);
+
+		long booked = reserveConcurrently();
+
+		assertEquals(CAPACITY - booked, seatAvailabilityLedger.getAvailableSeats("A1", travelOn).longValue());
+		assertTrue(seatAvailabilityLedger.getAvailableSeats("A1", travelOn) >= 0);
+		assertEquals(booked, seatInventoryService.getReservedSeats());
+		assertTrue(seatInventoryService.getRejectedReservations() > 0);
+
+		// the flush writes the seats taken back to the row
+		seatAvailabilityLedger.flush();
+		assertEquals(CAPACITY - booked, storedSeats());
+
+	}
+
+	@Test
+	public void releaseBeforeTheLedgerHoldsTheFlightTest() throws Exception {
+
+		ReflectionTestUtils.setField(seatAvailabilityLedger, "enabled", true);
+
+		// the seats are released before the flight is held in the ledger, and a
+		// reservation uses it before the release is flushed
+		transactionTemplate.executeWithoutResult(status -> seatInventoryService.releaseSeats("A1", travelOn, 3));
+		transactionTemplate.executeWithoutResult(status -> seatInventoryService.reserveSeats("A1", travelOn, 1));
+
+		// the ledger and the row agree once the changes are flushed
+		assertEquals(CAPACITY + 2, seatAvailabilityLedger.getAvailableSeats("A1", travelOn).intValue());
+		seatAvailabilityLedger.flush();
+		assertEquals(CAPACITY + 2, storedSeats());
+
+	}
+
+	@Test
+	public void flushDropsTheChangesWrittenAndTheFlightsFlownTest() throws Exception {
+
+		ReflectionTestUtils.setField(seatAvailabilityLedger, "enabled", true);
+
+		// a flight which has flown and one which has not, with seats taken from both
+		Date nextYear = Date.valueOf(LocalDate.now().plusYears(1));
+		jdbcTemplate.update("INSERT INTO projectairline.alr_flightavail (flight_id, flight_date, seats, cost) "
+				+ "VALUES ('A1', ?, ?, 100)", nextYear, CAPACITY);
+		transactionTemplate.executeWithoutResult(status -> seatInventoryService.reserveSeats("A1", travelOn, 2));
+		transactionTemplate.executeWithoutResult(status -> seatInventoryService.reserveSeats("A1", nextYear, 3));
+		assertEquals(2, seatAvailabilityLedger.getSize());
+
+		// the changes are written, and only the flight which has not flown is kept
+		seatAvailabilityLedger.flush();
+		assertEquals(CAPACITY - 2, storedSeats());
+		assertEquals(1, seatAvailabilityLedger.getSize());
+		assertNull(seatAvailabilityLedger.getAvailableSeats("A1", travelOn));
+		assertEquals(CAPACITY - 3, seatAvailabilityLedger.getAvailableSeats("A1", nextYear).intValue());
+
+		// the changes written are not written again
+		seatAvailabilityLedger.flush();
+		assertEquals(CAPACITY - 2, storedSeats());
+		assertEquals(CAPACITY - 3, jdbcTemplate.queryForObject(
+				"SELECT seats FROM projectairline.alr_flightavail WHERE flight_id = 'A1' AND flight_date = ?",
+				Integer.class, nextYear).intValue());
+
+	}
+
+	@Test
+	public void ledgerIsLoadedWithTheSeatsStoredTest() throws Exception {
+
+		ReflectionTestUtils.setField(seatAvailabilityLedger, "enabled", true);
+
+		// the seats changed in the table before the flight is held in the ledger
+		jdbcTemplate.update("UPDATE projectairline.alr_flightavail SET seats = ? WHERE flight_id = 'A1'",
+				CAPACITY - 5);
+
+		// the flight is loaded with the seats and the cost stored
+		Float cost = transactionTemplate.execute(status -> seatAvailabilityLedger.getCost("A1", travelOn));
+		assertEquals(100f, cost.floatValue());
+		assertEquals(CAPACITY - 5, seatAvailabilityLedger.getAvailableSeats("A1", travelOn).intValue());
+
+		// a flight which does not fly on the date has no cost
+		assertNull(transactionTemplate.execute(status -> seatAvailabilityLedger.getCost("B1", travelOn)));
+
+	}
+
+	private long reserveConcurrently() throws Exception {
+
+		ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+		List<Future<Long>> futures = new ArrayList<>();
+
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executorService.submit(() -> {
+				long booked = 0;
+				for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+					int requested = ThreadLocalRandom.current().nextInt(1, 5);
+					try {
+						// each reservation commits on its own, as the booking transaction does
+						transactionTemplate.executeWithoutResult(
+								status -> seatInventoryService.reserveSeats("A1", travelOn, requested));
+						booked += requested;
+					} catch (AirlineServiceException e) {
+						// sold out for this request size
+					}
+				}
+				return booked;
+			}));
+		}
+
+		long booked = 0;
+		for (Future<Long> future : futures) {
+			booked += future.get();
+		}
+		executorService.shutdown();
+
+		return booked;
+
+	}
+
+	private int storedSeats() {
+		return jdbcTemplate.queryForObject(
+				"SELECT seats FROM projectairline.alr_flightavail WHERE flight_id = 'A1' AND flight_date = ?",
+				Integer.class, travelOn);
+	}
+
+	/**
+	 * The persistence unit of the application on an in-memory h2 database, with
+	 * the flight availability repository only.
+	 */
+	@Configuration
+	@EnableJpaRepositories(basePackageClasses = FlightAvailRepository.class, includeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, classes = FlightAvailRepository.class))
+	static class H2Config {
+
+		@Bean(destroyMethod = "close")
+		public DataSource dataSource() {
+			HikariConfig config = new HikariConfig();
+			config.setJdbcUrl("jdbc:h2:mem:seatinventory;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;"
+					+ "INIT=CREATE SCHEMA IF NOT EXISTS projectairline");
+			config.setUsername("sa");
+			config.setMaximumPoolSize(THREADS + 2);
+			return new HikariDataSource(config);
+		}
+
+		@Bean
+		public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+			LocalContainerEntityManagerFactoryBean entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+			entityManagerFactory.setDataSource(dataSource);
+			entityManagerFactory.setPackagesToScan("com.training.airline.model");
+			entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+			Map<String, Object> jpaProperties = new HashMap<>();
+			jpaProperties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+			jpaProperties.put("hibernate.default_schema", "projectairline");
+			jpaProperties.put("hibernate.hbm2ddl.auto", "create-drop");
+			jpaProperties.put("javax.persistence.sharedCache.mode", "NONE");
+			jpaProperties.put("hibernate.cache.use_second_level_cache", "false");
+			jpaProperties.put("hibernate.cache.use_query_cache", "false");
+			entityManagerFactory.setJpaPropertyMap(jpaProperties);
+			return entityManagerFactory;
+		}
+
+		@Bean
+		public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+			return new JpaTransactionManager(entityManagerFactory);
+		}
+
+	}
+
+}